@@ -0,0 +1,41 @@
+package com.example.book.service.benchmark;
+
+import com.example.book.service.dto.UserPrincipal;
+import com.example.book.service.model.Client;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the authority lookup performed on every security check.
+ * <p>
+ * {@code User.getAuthorities()} builds a new list and authority on each call, while the session
+ * principal returns the list cached on its {@code Role}. Run with {@code -prof gc} to see the
+ * allocation difference.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AuthoritiesBenchmark {
+
+    private Client entity;
+    private UserPrincipal principal;
+
+    @Setup
+    public void setUp() {
+        entity = BenchmarkData.client();
+        principal = UserPrincipal.from(entity);
+    }
+
+    @Benchmark
+    public Collection<? extends GrantedAuthority> entityAuthorities() {
+        return entity.getAuthorities();
+    }
+
+    @Benchmark
+    public Collection<? extends GrantedAuthority> principalAuthorities() {
+        return principal.getAuthorities();
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.book.service.benchmark;
+
+import com.example.book.service.model.Book;
+import com.example.book.service.model.BookItem;
+import com.example.book.service.model.Client;
+import com.example.book.service.model.Order;
+import com.example.book.service.model.enums.AgeGroup;
+import com.example.book.service.model.enums.Language;
+import com.example.book.service.model.enums.OrderStatus;
+import com.example.book.service.model.enums.Role;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Builds deterministic, detached entity graphs for the benchmarks.
+ * <p>
+ * A fixed seed keeps the data identical between runs, so results from different releases
+ * on the same machine can be compared directly.
+ */
+final class BenchmarkData {
+
+    private static final String[] GENRES = {"Fiction", "Fantasy", "Science", "History", "Poetry", "Crime"};
+    private static final String[] AUTHORS = {"Tolkien", "Austen", "Orwell", "Herbert", "Christie", "Le Guin"};
+
+    private BenchmarkData() {
+    }
+
+    static List<Book> books(int count) {
+        SplittableRandom random = new SplittableRandom(42);
+        List<Book> books = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            books.add(Book.builder()
+                    .id((long) i + 1)
+                    .name("Book Title " + i)
+                    .genre(GENRES[random.nextInt(GENRES.length)])
+                    .author(AUTHORS[random.nextInt(AUTHORS.length)] + " " + i % 97)
+                    .targetAgeGroup(AgeGroup.values()[random.nextInt(AgeGroup.values().length)])
+                    .price(BigDecimal.valueOf(random.nextInt(100, 10_000), 2))
+                    .publicationDate(LocalDate.of(1950 + random.nextInt(75), 1 + random.nextInt(12), 1))
+                    .pages(50 + random.nextInt(900))
+                    .characteristics("Hardcover, illustrated, " + random.nextInt(1_000) + " g")
+                    .description("A description of book " + i + " long enough to resemble real catalog text.")
+                    .language(Language.values()[random.nextInt(Language.values().length)])
+                    .build());
+        }
+        return books;
+    }
+
+    static Client client() {
+        return Client.builder()
+                .id(1L).email("client@example.com").firstName("Client").lastName("User")
+                .password("$2a$10$hash").role(Role.CLIENT).balance(new BigDecimal("1000.00"))
+                .build();
+    }
+
+    static List<Order> orders(int count, int itemsPerOrder, List<Book> books) {
+        SplittableRandom random = new SplittableRandom(7);
+        Client client = client();
+        List<Order> orders = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Order order = Order.builder()
+                    .id((long) i + 1).client(client).orderDate(LocalDateTime.of(2025, 1, 1, 12, 0).plusMinutes(i))
+                    .status(OrderStatus.values()[random.nextInt(OrderStatus.values().length)])
+                    .build();
+            order.getBookItems().addAll(items(order, itemsPerOrder, books, random));
+            order.setPrice(BigDecimal.TEN);
+            orders.add(order);
+        }
+        return orders;
+    }
+
+    static List<BookItem> items(Order order, int count, List<Book> books, SplittableRandom random) {
+        List<BookItem> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            items.add(BookItem.builder()
+                    .id((long) i + 1).order(order).book(books.get(random.nextInt(books.size())))
+                    .quantity(1 + random.nextInt(3))
+                    .build());
+        }
+        return items;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.book.service.benchmark;
+
+import com.example.book.service.model.Book;
+import com.example.book.service.model.BookItem;
+import com.example.book.service.model.Order;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cart total recalculation performed on every {@code addBookToDraftOrder} call.
+ * <p>
+ * {@link #streamReduce()} is the exact expression used by the service; the loop variants show
+ * what the stream pipeline and the per-item {@code BigDecimal.valueOf} allocation cost.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CartTotalBenchmark {
+
+    @Param({"5", "50", "500"})
+    private int cartSize;
+
+    private List<BookItem> items;
+
+    @Setup
+    public void setUp() {
+        List<Book> books = BenchmarkData.books(1_000);
+        items = BenchmarkData.items(new Order(), cartSize, books, new SplittableRandom(11));
+    }
+
+    @Benchmark
+    public BigDecimal streamReduce() {
+        return items.stream()
+                .map(item -> item.getBook().getPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    @Benchmark
+    public BigDecimal loop() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (BookItem item : items) {
+            total = total.add(item.getBook().getPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
+        }
+        return total;
+    }
+
+    @Benchmark
+    public BigDecimal unscaledCents() {
+        long cents = 0;
+        for (BookItem item : items) {
+            BigDecimal price = item.getBook().getPrice();
+            cents += price.unscaledValue().longValueExact() * item.getQuantity();
+        }
+        return BigDecimal.valueOf(cents, 2);
+    }
+}
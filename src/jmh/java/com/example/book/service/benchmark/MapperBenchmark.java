@@ -0,0 +1,49 @@
+package com.example.book.service.benchmark;
+
+import com.example.book.service.dto.BookDTO;
+import com.example.book.service.dto.OrderDTO;
+import com.example.book.service.mapper.BookMapper;
+import com.example.book.service.mapper.BookMapperImpl;
+import com.example.book.service.mapper.OrderMapper;
+import com.example.book.service.mapper.OrderMapperImpl;
+import com.example.book.service.model.Book;
+import com.example.book.service.model.Order;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the MapStruct mappers over result lists of catalog and order-history size,
+ * as used by {@code BookServiceImpl.getAllBooks()} and {@code OrderServiceImpl.getAllOrders()}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MapperBenchmark {
+
+    @Param({"100", "10000"})
+    private int size;
+
+    private final BookMapper bookMapper = new BookMapperImpl();
+    private final OrderMapper orderMapper = new OrderMapperImpl();
+
+    private List<Book> books;
+    private List<Order> orders;
+
+    @Setup
+    public void setUp() {
+        books = BenchmarkData.books(Math.max(size, 100));
+        orders = BenchmarkData.orders(size, 3, books);
+    }
+
+    @Benchmark
+    public List<BookDTO> bookToDTO() {
+        return books.subList(0, size).stream().map(bookMapper::toDTO).toList();
+    }
+
+    @Benchmark
+    public List<OrderDTO> orderToDTO() {
+        return orders.stream().map(orderMapper::toDTO).toList();
+    }
+}
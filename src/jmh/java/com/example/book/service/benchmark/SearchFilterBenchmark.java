@@ -0,0 +1,105 @@
+package com.example.book.service.benchmark;
+
+import com.example.book.service.model.Book;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Measures in-memory candidates for the catalog keyword search, which the repository currently
+ * runs as {@code LOWER(column) LIKE LOWER('%keyword%')} over name, author and genre.
+ * <p>
+ * Each benchmark filters the whole catalog and returns the number of matches:
+ * <ul>
+ *   <li>{@link #lowerCaseContains()} mirrors the SQL predicate and lower-cases every field per query.</li>
+ *   <li>{@link #regionMatches()} compares case-insensitively without allocating.</li>
+ *   <li>{@link #literalPattern()} uses a precompiled case-insensitive literal pattern.</li>
+ *   <li>{@link #precomputedIndex()} searches a lower-cased haystack built once per catalog change.</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SearchFilterBenchmark {
+
+    @Param({"1000", "50000"})
+    private int catalogSize;
+
+    @Param({"tolkien", "title 42"})
+    private String keyword;
+
+    private List<Book> books;
+    private String[] haystacks;
+    private Pattern pattern;
+
+    @Setup
+    public void setUp() {
+        books = BenchmarkData.books(catalogSize);
+        haystacks = books.stream()
+                .map(book -> (book.getName() + '\u0000' + book.getAuthor() + '\u0000' + book.getGenre())
+                        .toLowerCase(Locale.ROOT))
+                .toArray(String[]::new);
+        pattern = Pattern.compile(keyword, Pattern.LITERAL | Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+    }
+
+    @Benchmark
+    public long lowerCaseContains() {
+        String needle = keyword.toLowerCase(Locale.ROOT);
+        return books.stream()
+                .filter(book -> book.getName().toLowerCase(Locale.ROOT).contains(needle)
+                        || book.getAuthor().toLowerCase(Locale.ROOT).contains(needle)
+                        || book.getGenre().toLowerCase(Locale.ROOT).contains(needle))
+                .count();
+    }
+
+    @Benchmark
+    public long regionMatches() {
+        long matches = 0;
+        for (Book book : books) {
+            if (containsIgnoreCase(book.getName(), keyword)
+                    || containsIgnoreCase(book.getAuthor(), keyword)
+                    || containsIgnoreCase(book.getGenre(), keyword)) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    @Benchmark
+    public long literalPattern() {
+        long matches = 0;
+        for (Book book : books) {
+            if (pattern.matcher(book.getName()).find()
+                    || pattern.matcher(book.getAuthor()).find()
+                    || pattern.matcher(book.getGenre()).find()) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    @Benchmark
+    public long precomputedIndex() {
+        String needle = keyword.toLowerCase(Locale.ROOT);
+        long matches = 0;
+        for (String haystack : haystacks) {
+            if (haystack.contains(needle)) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    private static boolean containsIgnoreCase(String text, String needle) {
+        int max = text.length() - needle.length();
+        for (int i = 0; i <= max; i++) {
+            if (text.regionMatches(true, i, needle, 0, needle.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,366 @@
+package com.example.book.service.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * End-to-end load test that replays a storefront traffic mix against the running application.
+ * <p>
+ * The application is started on a random port against the embedded H2 database of the
+ * {@code test} profile. The catalog, clients and order history are seeded with batched JDBC
+ * inserts, and then the test runs two kinds of virtual users:
+ * <ul>
+ *   <li>{@code load.users} clients, each with its own logged-in session. A client browses the
+ *       catalog, searches, views books, adds books to the cart and submits the cart.</li>
+ *   <li>One administrator, who confirms submitted orders as they arrive.</li>
+ * </ul>
+ * Latencies are recorded per route in HdrHistogram histograms once the warm-up is over. The test
+ * writes two kinds of output to {@code target/load-report}:
+ * <ul>
+ *   <li>One {@code .hgrm} percentile distribution per route, in milliseconds.</li>
+ *   <li>A summary with the throughput, p50, p99, p999 and max for each route.</li>
+ * </ul>
+ * The test fails if any request returns an error.
+ * <p>
+ * The run is configured with system properties:
+ * <pre>
+ *     mvn -Pload clean verify -Dload.users=64 -Dload.duration=PT2M -Dload.books=20000
+ * </pre>
+ * The {@code load} profile runs the mix twice, first on Tomcat's platform-thread pool and then with
+ * {@code spring.threads.virtual.enabled=true}. The second run points {@code load.compare-with} at the
+ * first run's report, and writes {@code comparison.txt} with the throughput and p99 of both modes
+ * side by side.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class StorefrontLoadIT {
+
+    private static final int USERS = Integer.getInteger("load.users", 32);
+    private static final Duration DURATION = Duration.parse(System.getProperty("load.duration", "PT30S"));
+    private static final Duration WARMUP = Duration.parse(System.getProperty("load.warmup", "PT5S"));
+    private static final int BOOKS = Integer.getInteger("load.books", 2_000);
+    private static final int CLIENTS = Integer.getInteger("load.clients", 200);
+    private static final int ORDERS = Integer.getInteger("load.orders", 5_000);
+    private static final Path REPORT_DIR = Path.of(System.getProperty("load.report-dir", "target/load-report"));
+    private static final String COMPARE_WITH = System.getProperty("load.compare-with");
+
+    private static final String PASSWORD = "Load-Test-Password-1";
+    private static final String ADMIN_EMAIL = "load-admin@example.com";
+    private static final String[] GENRES = {"Fiction", "Fantasy", "Science", "History", "Poetry", "Crime"};
+    private static final String[] AUTHORS = {"Tolkien", "Austen", "Orwell", "Herbert", "Christie", "Le Guin"};
+    private static final Pattern DRAFT_ORDER_ID = Pattern.compile("name=\"orderId\" value=\"(\\d+)\"");
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private final Map<String, Route> routes = new ConcurrentSkipListMap<>();
+    private final Queue<Long> submittedOrders = new ConcurrentLinkedQueue<>();
+    private final List<Long> bookIds = new ArrayList<>();
+    private final List<String> clientEmails = new ArrayList<>();
+    private volatile long recordingStartedAt;
+
+    @BeforeEach
+    void seed() {
+        String hash = passwordEncoder.encode(PASSWORD);
+        SplittableRandom random = new SplittableRandom(42);
+
+        List<Object[]> books = new ArrayList<>(BOOKS);
+        for (int i = 0; i < BOOKS; i++) {
+            books.add(new Object[]{"Load Book " + i, GENRES[random.nextInt(GENRES.length)],
+                    random.nextInt(100, 5_000) / 100.0, LocalDate.of(1950 + random.nextInt(75), 1, 1),
+                    AUTHORS[random.nextInt(AUTHORS.length)] + " " + i % 97, 50 + random.nextInt(900),
+                    "A description of load book " + i + "."});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO books (name, genre, price, publication_date, author, pages, description) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?)", books);
+        bookIds.addAll(jdbcTemplate.queryForList("SELECT id FROM books", Long.class));
+
+        List<Object[]> users = new ArrayList<>(CLIENTS + 1);
+        users.add(new Object[]{"Load", "Admin", ADMIN_EMAIL, hash, "ADMIN"});
+        for (int i = 0; i < CLIENTS; i++) {
+            String email = "load-client-" + i + "@example.com";
+            clientEmails.add(email);
+            users.add(new Object[]{"Load", "Client", email, hash, "CLIENT"});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (first_name, last_name, email, password, is_enabled, role) "
+                + "VALUES (?, ?, ?, ?, TRUE, ?)", users);
+        jdbcTemplate.update("INSERT INTO admins (user_id) SELECT id FROM users WHERE email = ?", ADMIN_EMAIL);
+        jdbcTemplate.update("INSERT INTO clients (user_id, balance) SELECT id, 1000000000 FROM users "
+                + "WHERE email LIKE 'load-client-%'");
+        List<Long> clientIds = jdbcTemplate.queryForList(
+                "SELECT id FROM users WHERE email LIKE 'load-client-%'", Long.class);
+
+        List<Object[]> orders = new ArrayList<>(ORDERS);
+        for (int i = 0; i < ORDERS; i++) {
+            orders.add(new Object[]{LocalDateTime.now().minusMinutes(i), clientIds.get(random.nextInt(clientIds.size()))});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO orders (order_date, price, status, client_id) VALUES (?, 10.00, 'SUBMITTED', ?)",
+                orders);
+        List<Long> orderIds = jdbcTemplate.queryForList("SELECT id FROM orders WHERE status = 'SUBMITTED'", Long.class);
+        List<Object[]> items = new ArrayList<>(orderIds.size() * 2);
+        for (Long orderId : orderIds) {
+            for (int j = 0; j < 2; j++) {
+                items.add(new Object[]{bookIds.get(random.nextInt(bookIds.size())), orderId});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO order_items (quantity, book_id, order_id) VALUES (1, ?, ?)", items);
+        submittedOrders.addAll(orderIds);
+    }
+
+    @Test
+    @DisplayName("Storefront mix: browse, search, view, cart-add, submit and admin confirm")
+    void storefrontMix() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(USERS + 1);
+        long deadline = System.nanoTime() + WARMUP.plus(DURATION).toNanos();
+        recordingStartedAt = System.nanoTime() + WARMUP.toNanos();
+
+        List<Future<?>> workers = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            String email = clientEmails.get(i % clientEmails.size());
+            long seed = i;
+            workers.add(executor.submit(() -> runClient(email, seed, deadline)));
+        }
+        workers.add(executor.submit(() -> runAdmin(deadline)));
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        executor.shutdown();
+
+        report();
+        routes.forEach((name, route) -> assertEquals(0, route.errors.get(), "Failed requests on " + name));
+    }
+
+    private Void runClient(String email, long seed, long deadline) throws Exception {
+        Session session = login(email);
+        SplittableRandom random = new SplittableRandom(seed);
+        int cartSize = 0;
+        while (System.nanoTime() < deadline) {
+            int action = random.nextInt(100);
+            if (action < 35) {
+                session.get("GET /books/list", "/books/list");
+            } else if (action < 55) {
+                String keyword = AUTHORS[random.nextInt(AUTHORS.length)];
+                session.get("GET /books/list?keyword", "/books/list?keyword=" + encode(keyword));
+            } else if (action < 85) {
+                session.get("GET /books/view/{id}", "/books/view/" + randomBook(random));
+            } else if (action < 95 || cartSize == 0) {
+                session.post("POST /orders/cart/add/{id}", "/orders/cart/add/" + randomBook(random), Map.of());
+                cartSize++;
+            } else {
+                Matcher matcher = DRAFT_ORDER_ID.matcher(session.get("GET /orders/my", "/orders/my"));
+                if (matcher.find()) {
+                    String orderId = matcher.group(1);
+                    session.post("POST /orders/cart/submit", "/orders/cart/submit", Map.of("orderId", orderId));
+                    submittedOrders.add(Long.valueOf(orderId));
+                }
+                cartSize = 0;
+            }
+        }
+        return null;
+    }
+
+    private Void runAdmin(long deadline) throws Exception {
+        Session session = login(ADMIN_EMAIL);
+        while (System.nanoTime() < deadline) {
+            Long orderId = submittedOrders.poll();
+            if (orderId == null) {
+                Thread.sleep(10);
+                continue;
+            }
+            session.post("POST /orders/{id}/confirm", "/orders/" + orderId + "/confirm", Map.of());
+        }
+        return null;
+    }
+
+    private Session login(String email) throws Exception {
+        Session session = new Session();
+        HttpResponse<String> response = session.send("POST /auth/login", HttpRequest.newBuilder(uri("/auth/login"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form(Map.of("username", email, "password", PASSWORD)))));
+        String location = response.headers().firstValue("Location").orElse("");
+        assertTrue(location.endsWith("/books/list"), "Login failed for " + email + ": " + location);
+        return session;
+    }
+
+    private long randomBook(SplittableRandom random) {
+        return bookIds.get(random.nextInt(bookIds.size()));
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private void report() throws IOException {
+        Files.createDirectories(REPORT_DIR);
+        double seconds = DURATION.toMillis() / 1000.0;
+        StringBuilder summary = new StringBuilder(String.format(Locale.ROOT,
+                "Storefront load test (%s threads): %d users, %s measured after %s warm-up, %d books, %d clients, %d orders%n%n",
+                virtualThreads ? "virtual" : "platform", USERS, DURATION, WARMUP, BOOKS, CLIENTS, ORDERS));
+        StringBuilder csv = new StringBuilder("route,requests,rps,p50_ms,p99_ms,p999_ms,max_ms,errors\n");
+        summary.append(String.format(Locale.ROOT, "%-28s %10s %10s %10s %10s %10s %10s %8s%n",
+                "route", "requests", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms", "errors"));
+        for (Map.Entry<String, Route> entry : routes.entrySet()) {
+            Histogram histogram = entry.getValue().histogram;
+            summary.append(String.format(Locale.ROOT, "%-28s %10d %10.1f %10.2f %10.2f %10.2f %10.2f %8d%n",
+                    entry.getKey(), histogram.getTotalCount(), histogram.getTotalCount() / seconds,
+                    millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(99)),
+                    millis(histogram.getValueAtPercentile(99.9)), millis(histogram.getMaxValue()),
+                    entry.getValue().errors.get()));
+            csv.append(String.format(Locale.ROOT, "%s,%d,%.1f,%.2f,%.2f,%.2f,%.2f,%d%n",
+                    entry.getKey(), histogram.getTotalCount(), histogram.getTotalCount() / seconds,
+                    millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(99)),
+                    millis(histogram.getValueAtPercentile(99.9)), millis(histogram.getMaxValue()),
+                    entry.getValue().errors.get()));
+            Path file = REPORT_DIR.resolve(entry.getKey().replaceAll("[^A-Za-z0-9]+", "_") + ".hgrm");
+            try (PrintStream out = new PrintStream(Files.newOutputStream(file), true, StandardCharsets.UTF_8)) {
+                histogram.outputPercentileDistribution(out, 1000.0);
+            }
+        }
+        Files.writeString(REPORT_DIR.resolve("summary.txt"), summary);
+        Files.writeString(REPORT_DIR.resolve("routes.csv"), csv);
+        System.out.println(summary);
+        if (COMPARE_WITH != null && Files.exists(Path.of(COMPARE_WITH, "routes.csv"))) {
+            compare(Path.of(COMPARE_WITH, "routes.csv"), REPORT_DIR.resolve("routes.csv"));
+        }
+    }
+
+    /**
+     * Writes the throughput and p99 of a baseline run next to those of this run.
+     */
+    private void compare(Path baselineCsv, Path currentCsv) throws IOException {
+        Map<String, String[]> baseline = readRoutes(baselineCsv);
+        Map<String, String[]> current = readRoutes(currentCsv);
+        StringBuilder comparison = new StringBuilder(String.format(Locale.ROOT,
+                "Baseline: %s%nCurrent:  %s (%s threads)%n%n", baselineCsv.getParent(), currentCsv.getParent(),
+                virtualThreads ? "virtual" : "platform"));
+        comparison.append(String.format(Locale.ROOT, "%-28s %12s %12s %8s %12s %12s %8s%n",
+                "route", "base req/s", "req/s", "delta", "base p99 ms", "p99 ms", "delta"));
+        for (Map.Entry<String, String[]> entry : current.entrySet()) {
+            String[] base = baseline.get(entry.getKey());
+            if (base == null) {
+                continue;
+            }
+            double baseRps = Double.parseDouble(base[2]);
+            double rps = Double.parseDouble(entry.getValue()[2]);
+            double baseP99 = Double.parseDouble(base[4]);
+            double p99 = Double.parseDouble(entry.getValue()[4]);
+            comparison.append(String.format(Locale.ROOT, "%-28s %12.1f %12.1f %+7.1f%% %12.2f %12.2f %+7.1f%%%n",
+                    entry.getKey(), baseRps, rps, percentChange(baseRps, rps), baseP99, p99, percentChange(baseP99, p99)));
+        }
+        Files.writeString(REPORT_DIR.resolve("comparison.txt"), comparison);
+        System.out.println(comparison);
+    }
+
+    private static Map<String, String[]> readRoutes(Path csv) throws IOException {
+        Map<String, String[]> routes = new TreeMap<>();
+        Files.readAllLines(csv).stream().skip(1).map(line -> line.split(","))
+                .forEach(columns -> routes.put(columns[0], columns));
+        return routes;
+    }
+
+    private static double percentChange(double base, double value) {
+        return base == 0 ? 0 : (value - base) * 100 / base;
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static String form(Map<String, String> fields) {
+        StringJoiner joiner = new StringJoiner("&");
+        fields.forEach((name, value) -> joiner.add(encode(name) + "=" + encode(value)));
+        return joiner.toString();
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Latency histogram (in microseconds) and error count of one route.
+     */
+    private static final class Route {
+        private final Histogram histogram = new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(1), 3);
+        private final AtomicLong errors = new AtomicLong();
+    }
+
+    /**
+     * A logged-in virtual user: an HTTP client with its own cookie jar, which does not follow
+     * redirects so that every request is measured on its own.
+     */
+    private final class Session {
+
+        private final HttpClient client = HttpClient.newBuilder()
+                .cookieHandler(new CookieManager())
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+
+        String get(String route, String path) throws Exception {
+            return send(route, HttpRequest.newBuilder(uri(path)).GET()).body();
+        }
+
+        void post(String route, String path, Map<String, String> fields) throws Exception {
+            send(route, HttpRequest.newBuilder(uri(path))
+                    .header("Content-Type", "application/x-www-form-urlencoded")
+                    .POST(HttpRequest.BodyPublishers.ofString(form(fields))));
+        }
+
+        HttpResponse<String> send(String route, HttpRequest.Builder request) throws Exception {
+            long start = System.nanoTime();
+            HttpResponse<String> response = client.send(request.timeout(Duration.ofSeconds(30)).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            long end = System.nanoTime();
+
+            if (start >= recordingStartedAt) {
+                Route stats = routes.computeIfAbsent(route, name -> new Route());
+                stats.histogram.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(end - start),
+                        stats.histogram.getHighestTrackableValue()));
+                boolean loggedOut = response.headers().firstValue("Location").orElse("").contains("/auth/login")
+                        && !route.equals("POST /auth/login");
+                if (response.statusCode() >= 400 || loggedOut) {
+                    stats.errors.incrementAndGet();
+                }
+            }
+            return response;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.book.service.api;
+
+import com.example.book.service.dto.BookDTO;
+import com.example.book.service.exception.CustomBadRequestException;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * The fields of a book in the JSON API, for sparse fieldsets ({@code ?fields=name,price}).
+ * <p>
+ * The text fields, {@code characteristics} and {@code description}, are stored in LOB columns and
+ * are only returned when asked for by name; without a {@code fields} parameter every other field
+ * is returned. The {@code id} is always included, since it is the cursor of the next page.
+ */
+public enum BookField {
+
+    ID("id", false, BookDTO::getId),
+    NAME("name", false, BookDTO::getName),
+    GENRE("genre", false, BookDTO::getGenre),
+    TARGET_AGE_GROUP("targetAgeGroup", false, BookDTO::getTargetAgeGroup),
+    PRICE("price", false, BookDTO::getPrice),
+    PUBLICATION_DATE("publicationDate", false, BookDTO::getPublicationDate),
+    AUTHOR("author", false, BookDTO::getAuthor),
+    PAGES("pages", false, BookDTO::getPages),
+    LANGUAGE("language", false, BookDTO::getLanguage),
+    CHARACTERISTICS("characteristics", true, BookDTO::getCharacteristics),
+    DESCRIPTION("description", true, BookDTO::getDescription);
+
+    private static final Set<BookField> DEFAULT_FIELDS = Collections.unmodifiableSet(
+            Arrays.stream(values()).filter(field -> !field.text)
+                    .collect(Collectors.toCollection(() -> EnumSet.noneOf(BookField.class))));
+
+    private static final Map<String, BookField> BY_NAME = Arrays.stream(values())
+            .collect(Collectors.toMap(field -> field.jsonName, Function.identity()));
+
+    private final String jsonName;
+    private final boolean text;
+    private final Function<BookDTO, Object> accessor;
+
+    BookField(String jsonName, boolean text, Function<BookDTO, Object> accessor) {
+        this.jsonName = jsonName;
+        this.text = text;
+        this.accessor = accessor;
+    }
+
+    /**
+     * Parses the value of a {@code fields} parameter.
+     *
+     * @param fields a comma-separated list of field names, or {@code null} for the default fields.
+     * @return the selected fields, always including {@link #ID}.
+     * @throws CustomBadRequestException if a name is not a book field.
+     */
+    public static Set<BookField> parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return DEFAULT_FIELDS;
+        }
+        Set<BookField> selected = EnumSet.of(ID);
+        for (String name : fields.split(",")) {
+            BookField field = BY_NAME.get(name.trim());
+            if (field == null) {
+                throw new CustomBadRequestException("Unknown book field '" + name.trim() + "'. Known fields: "
+                        + String.join(",", BY_NAME.keySet()));
+            }
+            selected.add(field);
+        }
+        return selected;
+    }
+
+    /**
+     * @param fields selected fields.
+     * @return whether any of them is stored in a LOB column.
+     */
+    public static boolean anyText(Set<BookField> fields) {
+        return fields.stream().anyMatch(field -> field.text);
+    }
+
+    /**
+     * @param fields selected fields.
+     * @return a short, stable key of the selection, for cache validators.
+     */
+    public static String key(Set<BookField> fields) {
+        return Long.toHexString(fields.stream().mapToLong(field -> 1L << field.ordinal()).sum());
+    }
+
+    /**
+     * Writes the selected fields of a book as a JSON object.
+     *
+     * @param json   the generator to write to.
+     * @param book   the book.
+     * @param fields the selected fields.
+     * @throws IOException if writing fails.
+     */
+    public static void write(JsonGenerator json, BookDTO book, Set<BookField> fields) throws IOException {
+        json.writeStartObject();
+        for (BookField field : fields) {
+            json.writeFieldName(field.jsonName);
+            json.writeObject(field.accessor.apply(book));
+        }
+        json.writeEndObject();
+    }
+
+    /**
+     * @param book   the book.
+     * @param fields the selected fields.
+     * @return the selected fields of the book, in declaration order.
+     */
+    public static Map<String, Object> toMap(BookDTO book, Set<BookField> fields) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        fields.forEach(field -> map.put(field.jsonName, field.accessor.apply(book)));
+        return map;
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.book.service.cache;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.AuthenticationTrustResolver;
+import org.springframework.security.authentication.AuthenticationTrustResolverImpl;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+
+/**
+ * Serves the public catalog pages to anonymous visitors from a cache of fully rendered HTML.
+ * <p>
+ * The filter runs after Spring Security, so it can tell anonymous visitors from signed-in users.
+ * It only handles {@code GET} requests by anonymous visitors. Every visitor sees the same
+ * navigation bar, and the public pages contain no per-session content such as CSRF tokens.
+ * Signed-in users are passed through untouched.
+ * <p>
+ * Pages are keyed by path and query string and are rendered again once the {@link CatalogVersion}
+ * changes. A miss renders the page normally and, if the response is a {@code 200} HTML page,
+ * stores its bytes. A hit writes the stored bytes straight to the response, without touching the
+ * service layer, the mappers or Thymeleaf. Keys longer than {@code maxKeyLength} are never cached,
+ * so arbitrary search strings cannot flood the cache.
+ */
+public class AnonymousPageCacheFilter extends OncePerRequestFilter {
+
+    static final String CACHE_HEADER = "X-Page-Cache";
+
+    private final RenderedHtmlCache<CachedPage> cache;
+    private final CatalogVersion catalogVersion;
+    private final int maxKeyLength;
+    private final AuthenticationTrustResolver trustResolver = new AuthenticationTrustResolverImpl();
+
+    public AnonymousPageCacheFilter(RenderedHtmlCache<CachedPage> cache, CatalogVersion catalogVersion, int maxKeyLength) {
+        this.cache = cache;
+        this.catalogVersion = catalogVersion;
+        this.maxKeyLength = maxKeyLength;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!HttpMethod.GET.matches(request.getMethod())) {
+            return true;
+        }
+        var authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && !trustResolver.isAnonymous(authentication);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String key = cacheKey(request);
+        if (key == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        CachedPage page = cache.get(key);
+        if (page != null) {
+            response.setContentType(page.contentType());
+            response.setContentLength(page.body().length);
+            response.setHeader(CACHE_HEADER, "HIT");
+            ServletOutputStream out = response.getOutputStream();
+            out.write(page.body());
+            return;
+        }
+
+        long version = catalogVersion.current();
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        wrapper.setHeader(CACHE_HEADER, "MISS");
+        filterChain.doFilter(request, wrapper);
+        String contentType = wrapper.getContentType();
+        if (wrapper.getStatus() == HttpServletResponse.SC_OK && contentType != null && contentType.startsWith("text/html")) {
+            cache.put(key, new CachedPage(wrapper.getContentAsByteArray(), contentType), version);
+        }
+        wrapper.copyBodyToResponse();
+    }
+
+    private String cacheKey(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        String query = request.getQueryString();
+        int length = uri.length() + (query == null ? 0 : query.length() + 1);
+        if (length > maxKeyLength) {
+            return null;
+        }
+        return query == null ? uri : uri + '?' + query;
+    }
+
+    /**
+     * A rendered page.
+     *
+     * @param body        the encoded HTML.
+     * @param contentType the content type including the charset.
+     */
+    public record CachedPage(byte[] body, String contentType) {
+    }
+}
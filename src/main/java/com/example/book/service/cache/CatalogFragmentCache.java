@@ -0,0 +1,95 @@
+package com.example.book.service.cache;
+
+import com.example.book.service.dto.BookDTO;
+import com.example.book.service.service.BookService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.web.servlet.JakartaServletWebApplication;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Renders the book grid of the catalog page and caches the HTML per search keyword.
+ * <p>
+ * The grid is the expensive part of {@code /books/list}: it needs the catalog query, the
+ * MapStruct mapping and a Thymeleaf loop over every book. It does not depend on who is signed
+ * in, so the controller embeds this cached fragment and only renders the surrounding page, with
+ * its user-specific navigation bar, per request. Entries are discarded once the
+ * {@link CatalogVersion} changes. Caching is skipped when {@code app.page-cache.enabled} is
+ * {@code false}.
+ */
+@Component
+public class CatalogFragmentCache {
+
+    private static final String TEMPLATE = "books/catalog";
+    private static final Set<String> GRID_FRAGMENT = Set.of("grid");
+
+    private final BookService bookService;
+    private final SpringTemplateEngine templateEngine;
+    private final CatalogVersion catalogVersion;
+    private final JakartaServletWebApplication application;
+    private final RenderedHtmlCache<String> cache;
+    private final boolean enabled;
+    private final int maxKeyLength;
+
+    public CatalogFragmentCache(BookService bookService,
+                                SpringTemplateEngine templateEngine,
+                                CatalogVersion catalogVersion,
+                                ServletContext servletContext,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.page-cache.enabled:true}") boolean enabled,
+                                @Value("${app.page-cache.fragment-capacity:1000}") int capacity,
+                                @Value("${app.page-cache.ttl:PT1M}") Duration ttl,
+                                @Value("${app.page-cache.max-key-length:256}") int maxKeyLength) {
+        this.bookService = bookService;
+        this.templateEngine = templateEngine;
+        this.catalogVersion = catalogVersion;
+        this.application = JakartaServletWebApplication.buildApplication(servletContext);
+        this.cache = new RenderedHtmlCache<>("catalog-grid", catalogVersion, capacity, ttl, meterRegistry);
+        this.enabled = enabled;
+        this.maxKeyLength = maxKeyLength;
+    }
+
+    /**
+     * Returns the rendered book grid for a search.
+     *
+     * @param keyword  the search term, or {@code null} for the whole catalog.
+     * @param request  the current request, used to build links.
+     * @param response the current response, used to build links.
+     * @return the grid HTML.
+     */
+    public String render(String keyword, HttpServletRequest request, HttpServletResponse response) {
+        String key = keyword == null ? "" : "?" + keyword;
+        boolean cacheable = enabled && key.length() <= maxKeyLength;
+        if (cacheable) {
+            String html = cache.get(key);
+            if (html != null) {
+                return html;
+            }
+        }
+
+        long version = catalogVersion.current();
+        List<BookDTO> books = keyword != null && !keyword.isBlank()
+                ? bookService.searchBooks(keyword)
+                : bookService.getAllBooks();
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("books", books);
+        variables.put("keyword", keyword);
+        WebContext context = new WebContext(application.buildExchange(request, response), request.getLocale(), variables);
+        String html = templateEngine.process(TEMPLATE, GRID_FRAGMENT, context);
+        if (cacheable) {
+            cache.put(key, html, version);
+        }
+        return html;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.book.service.cache;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A counter that changes whenever the book catalog changes.
+ * <p>
+ * Rendered pages and fragments that show catalog data record the version they were rendered
+ * at, and are discarded as soon as it no longer matches. Catalog writes call {@link #advance()},
+ * which takes effect after their transaction commits, so that a page rendered concurrently from
+ * the old data can never be stored under the new version.
+ * <p>
+ * The version is local to this node. Writes made on other nodes or directly in the database are
+ * picked up when cached entries expire ({@code app.page-cache.ttl}).
+ */
+@Component
+public class CatalogVersion {
+
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * @return the current catalog version.
+     */
+    public long current() {
+        return version.get();
+    }
+
+    /**
+     * Marks the catalog as changed, after the current transaction commits or immediately if
+     * there is none.
+     */
+    public void advance() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    version.incrementAndGet();
+                }
+            });
+        } else {
+            version.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.book.service.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A bounded cache of rendered HTML, invalidated by the {@link CatalogVersion}.
+ * <p>
+ * Each entry remembers the catalog version it was rendered at and is treated as missing once the
+ * version has moved on or the entry is older than the time-to-live. The oldest entries are evicted
+ * once the cache reaches its capacity. Hits and misses are counted as
+ * {@code bookstore.page.cache.requests}, tagged with the cache name and the result.
+ *
+ * @param <T> the type of the cached value.
+ */
+public class RenderedHtmlCache<T> {
+
+    private final CatalogVersion catalogVersion;
+    private final int capacity;
+    private final long ttlNanos;
+    private final Counter hits;
+    private final Counter misses;
+
+    private final ConcurrentMap<String, Entry<T>> entries = new ConcurrentHashMap<>();
+    private final Queue<String> insertionOrder = new ConcurrentLinkedQueue<>();
+
+    public RenderedHtmlCache(String name, CatalogVersion catalogVersion, int capacity, Duration ttl,
+                             MeterRegistry meterRegistry) {
+        this.catalogVersion = catalogVersion;
+        this.capacity = capacity;
+        this.ttlNanos = ttl.toNanos();
+        this.hits = counter(meterRegistry, name, "hit");
+        this.misses = counter(meterRegistry, name, "miss");
+    }
+
+    /**
+     * @param key the cache key.
+     * @return the cached value, or {@code null} if there is none for the current catalog version.
+     */
+    public T get(String key) {
+        Entry<T> entry = entries.get(key);
+        if (entry == null || entry.version != catalogVersion.current()
+                || System.nanoTime() - entry.storedAt > ttlNanos) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value;
+    }
+
+    /**
+     * Stores a rendered value.
+     *
+     * @param key     the cache key.
+     * @param value   the rendered value.
+     * @param version the catalog version read <em>before</em> the data was loaded.
+     */
+    public void put(String key, T value, long version) {
+        if (version != catalogVersion.current()) {
+            return;
+        }
+        if (entries.put(key, new Entry<>(value, version, System.nanoTime())) == null) {
+            insertionOrder.add(key);
+            while (entries.size() > capacity) {
+                String oldest = insertionOrder.poll();
+                if (oldest == null) {
+                    return;
+                }
+                entries.remove(oldest);
+            }
+        }
+    }
+
+    /**
+     * @return the number of cached entries, including stale ones not yet evicted.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String name, String result) {
+        return Counter.builder("bookstore.page.cache.requests")
+                .description("Lookups in the rendered HTML caches")
+                .tag("cache", name)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private record Entry<T>(T value, long version, long storedAt) {
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.book.service.concurrency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the number of requests that are processed at the same time.
+ * <p>
+ * With virtual threads, Tomcat no longer caps concurrency with its worker pool: every accepted
+ * connection gets its own thread, and every one of them may block on the JDBC connection pool.
+ * Without a limit, a traffic spike turns into thousands of threads queued inside HikariCP, each
+ * holding request memory and eventually failing with a connection timeout. This filter admits at
+ * most {@code maxConcurrentRequests} requests at once, sized relative to the connection pool.
+ * <ul>
+ *   <li>Other requests wait up to {@code acquireTimeout} for a permit, in arrival order.</li>
+ *   <li>If no permit is free by then, the request is rejected with {@code 503 Service Unavailable}
+ *       and a {@code Retry-After} header.</li>
+ * </ul>
+ * Static resources bypass the bulkhead because they never touch the database.
+ */
+public class ConnectionBulkheadFilter extends OncePerRequestFilter {
+
+    private final Semaphore permits;
+    private final Duration acquireTimeout;
+    private final Counter rejected;
+
+    public ConnectionBulkheadFilter(int maxConcurrentRequests, Duration acquireTimeout, MeterRegistry meterRegistry) {
+        this.permits = new Semaphore(maxConcurrentRequests, true);
+        this.acquireTimeout = acquireTimeout;
+        this.rejected = Counter.builder("bookstore.bulkhead.rejected")
+                .description("Requests rejected because no bulkhead permit became available in time")
+                .register(meterRegistry);
+        Gauge.builder("bookstore.bulkhead.available", permits, Semaphore::availablePermits)
+                .description("Bulkhead permits currently available")
+                .register(meterRegistry);
+        Gauge.builder("bookstore.bulkhead.waiting", permits, Semaphore::getQueueLength)
+                .description("Requests waiting for a bulkhead permit")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            rejected.increment();
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "The server is busy. Please try again.");
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            permits.release();
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return path.startsWith("/css/") || path.startsWith("/js/") || path.startsWith("/images/");
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.book.service.concurrency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Reports virtual threads that were pinned to their carrier thread while blocking.
+ * <p>
+ * A virtual thread that blocks inside a {@code synchronized} block or a native frame cannot unmount,
+ * so it holds a carrier thread (one of only a few, one per CPU core by default) for the whole wait.
+ * A few such sections on a hot path, in the application or in a library such as a JDBC driver, can
+ * serialize request handling. The monitor streams the JDK's {@code jdk.VirtualThreadPinned} Flight
+ * Recorder events for pins longer than {@code threshold}:
+ * <ul>
+ *   <li>each pin is logged with the top frames of its stack trace, which identify the
+ *       {@code synchronized} section responsible;</li>
+ *   <li>pins are counted in the {@code bookstore.virtual.pinned} counter, tagged with the
+ *       innermost application or library frame.</li>
+ * </ul>
+ */
+@Slf4j
+public class VirtualThreadPinningMonitor implements SmartLifecycle {
+
+    private static final String EVENT = "jdk.VirtualThreadPinned";
+    private static final int LOGGED_FRAMES = 8;
+
+    private final Duration threshold;
+    private final MeterRegistry meterRegistry;
+    private volatile RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(Duration threshold, MeterRegistry meterRegistry) {
+        this.threshold = threshold;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void start() {
+        RecordingStream recording = new RecordingStream();
+        recording.enable(EVENT).withThreshold(threshold).withStackTrace();
+        recording.onEvent(EVENT, this::onPinned);
+        recording.startAsync();
+        stream = recording;
+        log.info("Virtual thread pinning monitor started (threshold {})", threshold);
+    }
+
+    @Override
+    public void stop() {
+        RecordingStream recording = stream;
+        stream = null;
+        if (recording != null) {
+            recording.close();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return stream != null;
+    }
+
+    private void onPinned(RecordedEvent event) {
+        RecordedStackTrace stackTrace = event.getStackTrace();
+        List<RecordedFrame> frames = stackTrace == null ? List.of() : stackTrace.getFrames();
+        String location = frames.stream()
+                .filter(RecordedFrame::isJavaFrame)
+                .map(VirtualThreadPinningMonitor::describe)
+                .filter(frame -> !frame.startsWith("java.") && !frame.startsWith("jdk."))
+                .findFirst()
+                .orElse("unknown");
+
+        Counter.builder("bookstore.virtual.pinned")
+                .description("Virtual threads pinned to their carrier while blocking")
+                .tag("location", location)
+                .register(meterRegistry)
+                .increment();
+        log.warn("Virtual thread pinned for {} ms at {}:\n\t{}", event.getDuration().toMillis(), location,
+                frames.stream().limit(LOGGED_FRAMES).map(VirtualThreadPinningMonitor::describe)
+                        .collect(Collectors.joining("\n\t")));
+    }
+
+    private static String describe(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                + ":" + frame.getLineNumber();
+    }
+}
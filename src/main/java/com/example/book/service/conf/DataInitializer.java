@@ -5,8 +5,10 @@ import com.example.book.service.model.enums.Role;
 import com.example.book.service.repo.AdminRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
@@ -14,8 +16,10 @@ import org.springframework.stereotype.Component;
  * A data initializer that runs on application startup to ensure a default
  * administrator account exists in the database.
  * <p>
- * This component implements {@link CommandLineRunner}, which guarantees its {@code run}
- * method will be executed once the Spring application context has been fully loaded.
+ * The initialization runs on a background thread once the application is ready, so
+ * neither the context refresh nor the readiness probe waits for the database query and
+ * the deliberately slow password hashing. Only administrators depend on the account, and
+ * they can sign in a moment after the node starts taking traffic.
  * It is specifically activated for the "dev" profile, making it suitable for
  * development and testing environments without affecting production.
  * <p>
@@ -24,13 +28,13 @@ import org.springframework.stereotype.Component;
  * with a securely encoded password. This ensures that the application is always
  * manageable from the start.
  *
- * @see CommandLineRunner
+ * @see ApplicationReadyEvent
  * @see Profile
  */
 @Component
 @Profile("dev")
 @RequiredArgsConstructor
-public class DataInitializer implements CommandLineRunner {
+public class DataInitializer {
 
     private final AdminRepository adminRepository;
     private final PasswordEncoder passwordEncoder;
@@ -66,17 +70,16 @@ public class DataInitializer implements CommandLineRunner {
     private String adminLastName;
 
     /**
-     * The main execution method that runs on application startup.
+     * Creates the default admin account once the application is ready.
      * <p>
      * It first performs a safety check to ensure the admin password has been provided.
      * Then, it queries the database to see if the default admin user already exists.
      * If the user is not found, it proceeds to create a new {@link Admin} entity,
      * encodes its password, and saves it to the database.
-     *
-     * @param args incoming command line arguments (not used in this implementation).
      */
-    @Override
-    public void run(String... args) {
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void createDefaultAdmin() {
         // Safety check: Do not proceed if the password is not provided.
         if (adminPassword == null || adminPassword.isBlank()) {
             System.err.println("!!! WARNING: Default admin password is not set (check the ADMIN_PASSWORD environment variable). The admin user will not be created.");
@@ -0,0 +1,54 @@
+package com.example.book.service.conf;
+
+import com.example.book.service.cache.AnonymousPageCacheFilter;
+import com.example.book.service.cache.AnonymousPageCacheFilter.CachedPage;
+import com.example.book.service.cache.CatalogVersion;
+import com.example.book.service.cache.RenderedHtmlCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Caches the rendered public pages for anonymous visitors.
+ * <p>
+ * The home page, the catalog and the book detail pages are served from an
+ * {@link AnonymousPageCacheFilter} until the catalog changes. The cache is enabled unless
+ * {@code app.page-cache.enabled} is {@code false}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.page-cache.enabled", havingValue = "true", matchIfMissing = true)
+public class PageCacheConfig {
+
+    /**
+     * Registers the page cache right after the Spring Security filter chain, so that the
+     * security context is known and access rules have already been applied.
+     *
+     * @param catalogVersion the version that invalidates cached pages.
+     * @param capacity       the maximum number of cached pages.
+     * @param ttl            how long a page is served before it is rendered again.
+     * @param maxKeyLength   the longest path and query string that is cached.
+     * @param meterRegistry  the registry for the hit and miss counters.
+     * @return the filter registration.
+     */
+    @Bean
+    public FilterRegistrationBean<AnonymousPageCacheFilter> anonymousPageCacheFilter(
+            CatalogVersion catalogVersion,
+            @Value("${app.page-cache.capacity:1000}") int capacity,
+            @Value("${app.page-cache.ttl:PT1M}") Duration ttl,
+            @Value("${app.page-cache.max-key-length:256}") int maxKeyLength,
+            MeterRegistry meterRegistry) {
+        RenderedHtmlCache<CachedPage> cache = new RenderedHtmlCache<>("anonymous-page", catalogVersion, capacity, ttl,
+                meterRegistry);
+        FilterRegistrationBean<AnonymousPageCacheFilter> registration = new FilterRegistrationBean<>(
+                new AnonymousPageCacheFilter(cache, catalogVersion, maxKeyLength));
+        registration.addUrlPatterns("/", "/home", "/books/list", "/books/view/*");
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER + 1);
+        return registration;
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.book.service.conf;
+
+import com.example.book.service.datasource.ReadWriteRoutingDataSource;
+import com.example.book.service.datasource.ReadYourWritesTracker;
+import com.example.book.service.datasource.ReplicaLagMonitor;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Splits database traffic between the primary and a read replica.
+ * <p>
+ * The configuration is active when {@code app.datasource.replica.url} is set. It replaces the
+ * auto-configured data source with two HikariCP pools, each sized independently:
+ * <ul>
+ *   <li>the primary, configured by the usual {@code spring.datasource.*} and
+ *       {@code spring.datasource.hikari.*} properties;</li>
+ *   <li>the replica, configured by {@code app.datasource.replica.*} and
+ *       {@code app.datasource.replica.hikari.*}.</li>
+ * </ul>
+ * The application-wide data source is a {@link LazyConnectionDataSourceProxy} over a
+ * {@link ReadWriteRoutingDataSource}, so {@code @Transactional(readOnly = true)} methods are served by
+ * the replica while it is within {@code app.datasource.replica.max-lag}, and everything else,
+ * including Flyway migrations, goes to the primary.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.replica.url")
+public class ReadWriteDataSourceConfig {
+
+    @Bean
+    @Primary
+    @ConfigurationProperties("spring.datasource")
+    public DataSourceProperties primaryDataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(@Qualifier("primaryDataSourceProperties") DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("app.datasource.replica")
+    public DataSourceProperties replicaDataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    @Bean
+    @ConfigurationProperties("app.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(@Qualifier("replicaDataSourceProperties") DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(@Qualifier("primaryDataSource") DataSource primary,
+                                               @Qualifier("replicaDataSource") DataSource replica,
+                                               @Value("${app.datasource.replica.max-lag:PT2S}") Duration maxLag,
+                                               MeterRegistry meterRegistry) {
+        return new ReplicaLagMonitor(primary, replica, maxLag, meterRegistry);
+    }
+
+    @Bean
+    public ReadYourWritesTracker readYourWritesTracker(
+            @Value("${app.datasource.replica.read-your-writes-window:PT5S}") Duration stickyWindow) {
+        return new ReadYourWritesTracker(stickyWindow);
+    }
+
+    /**
+     * The data source used by JPA, JDBC templates, Flyway and the session store.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") DataSource replica,
+                                 ReplicaLagMonitor replicaLagMonitor,
+                                 ReadYourWritesTracker readYourWritesTracker) {
+        return new LazyConnectionDataSourceProxy(
+                new ReadWriteRoutingDataSource(primary, replica, replicaLagMonitor, readYourWritesTracker));
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.book.service.conf;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables Spring's {@code @Scheduled} support for background maintenance jobs,
+ * such as flushing batched session updates and purging expired records, and
+ * {@code @Async} support for startup work that should not delay readiness.
+ */
+@Configuration
+@EnableAsync
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -4,7 +4,9 @@ import com.example.book.service.service.AppUserDetailsService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -48,7 +50,8 @@ public class SecurityConfig {
      *   <li><b>Authorization Rules:</b> Specifies which URL patterns are public and which require authentication.
      *       Static resources, the home page, public book listings, and authentication pages are publicly accessible.
      *       All other requests must be authenticated.</li>
-     *   <li><b>UserDetailsService:</b> Registers our custom {@code AppUserDetailsService} to fetch user data.</li>
+     *   <li><b>Authentication Provider:</b> Registers a {@link SessionPrincipalAuthenticationProvider} backed by our
+     *       custom {@code AppUserDetailsService}, so that only a slim principal is kept in the session.</li>
      *   <li><b>Form Login:</b> Configures a custom login page, a URL for processing credentials, and success/failure handling.
      *       It uses our {@code CustomAuthenticationFailureHandler} for detailed error feedback.</li>
      *   <li><b>Logout:</b> Configures the URL to trigger a logout and the page to redirect to afterward.</li>
@@ -59,7 +62,8 @@ public class SecurityConfig {
      * @throws Exception if an error occurs during configuration.
      */
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http,
+                                                   DaoAuthenticationProvider authenticationProvider) throws Exception {
         return http
                 // Disable Cross-Site Request Forgery protection.
                 .csrf(AbstractHttpConfigurer::disable)
@@ -70,13 +74,17 @@ public class SecurityConfig {
                                 "/", "/home", "/css/**", "/js/**", "/images/**",
                                 "/books/list", "/books/view/**"
                         ).permitAll()
+                        // The catalog's JSON API is as public as its pages.
+                        .requestMatchers(HttpMethod.GET, "/api/v1/books", "/api/v1/books/**").permitAll()
                         // Allow unauthenticated access to all authentication-related pages.
                         .requestMatchers("/auth/**").permitAll()
+                        // Allow the health probe and metrics scrape; the management port binds to localhost only.
+                        .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll()
                         // All other requests must be authenticated.
                         .anyRequest().authenticated()
                 )
-                // Register the service that loads user data.
-                .userDetailsService(userDetailsService)
+                // Register the provider that loads user data and stores a slim principal.
+                .authenticationProvider(authenticationProvider)
                 // Configure form-based authentication.
                 .formLogin(form -> form
                         .loginPage("/auth/login") // The URL of our custom login page.
@@ -94,6 +102,24 @@ public class SecurityConfig {
                 .build();
     }
 
+    /**
+     * Defines the provider that authenticates form logins against the database.
+     * <p>
+     * It delegates user lookup to {@link AppUserDetailsService} and password checks to the
+     * configured {@link PasswordEncoder}, and replaces the authenticated principal with a
+     * password-less {@link com.example.book.service.dto.UserPrincipal} before it is stored
+     * in the session.
+     *
+     * @param passwordEncoder the encoder used to verify the submitted password.
+     * @return the configured {@link DaoAuthenticationProvider}.
+     */
+    @Bean
+    public DaoAuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
+        DaoAuthenticationProvider provider = new SessionPrincipalAuthenticationProvider(userDetailsService);
+        provider.setPasswordEncoder(passwordEncoder);
+        return provider;
+    }
+
     /**
      * Exposes the {@link AuthenticationManager} as a Spring Bean.
      * <p>
@@ -0,0 +1,36 @@
+package com.example.book.service.conf;
+
+import com.example.book.service.dto.UserPrincipal;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+/**
+ * A {@link DaoAuthenticationProvider} that stores a slim {@link UserPrincipal} in the
+ * resulting {@link Authentication}.
+ * <p>
+ * Credentials are verified exactly as by the default provider. The only difference is that,
+ * on success, the principal placed into the security context (and hence into the session)
+ * is a password-less copy of the loaded {@link UserPrincipal}.
+ *
+ * @see SecurityConfig
+ */
+public class SessionPrincipalAuthenticationProvider extends DaoAuthenticationProvider {
+
+    public SessionPrincipalAuthenticationProvider(UserDetailsService userDetailsService) {
+        super(userDetailsService);
+    }
+
+    /**
+     * Creates the successful {@link Authentication}, swapping the principal for its
+     * password-less form when it is a {@link UserPrincipal}.
+     */
+    @Override
+    protected Authentication createSuccessAuthentication(Object principal, Authentication authentication, UserDetails user) {
+        if (principal instanceof UserPrincipal userPrincipal) {
+            principal = userPrincipal.withoutPassword();
+        }
+        return super.createSuccessAuthentication(principal, authentication, user);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.book.service.conf;
+
+import com.example.book.service.session.JdbcSessionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.session.config.annotation.web.http.EnableSpringHttpSession;
+
+import java.time.Duration;
+
+/**
+ * Configures the shared, database-backed HTTP session store.
+ * <p>
+ * By default the application keeps sessions in the servlet container's memory, which requires
+ * sticky sessions when more than one node is running. Setting {@code app.session.store=jdbc}
+ * replaces the container's sessions with a {@link JdbcSessionRepository} backed by the
+ * {@code http_sessions} table, so nodes can be added or restarted without logging users out.
+ * The security configuration is unaffected: Spring Security keeps using the {@code HttpSession}
+ * API, which Spring Session transparently redirects to the repository.
+ *
+ * @see JdbcSessionRepository
+ */
+@Configuration
+@EnableSpringHttpSession
+@ConditionalOnProperty(name = "app.session.store", havingValue = "jdbc")
+public class SessionStoreConfig {
+
+    /**
+     * Creates the JDBC session repository.
+     *
+     * @param jdbcTemplate       the template used to access the {@code http_sessions} table.
+     * @param sessionTimeout     the inactivity timeout for new sessions.
+     * @param flushInterval      how often batched last-access times are written; also used as the expiry grace.
+     * @param cleanupBatchSize   the maximum number of expired sessions deleted per statement.
+     * @return the configured {@link JdbcSessionRepository}.
+     */
+    @Bean
+    public JdbcSessionRepository sessionRepository(JdbcTemplate jdbcTemplate,
+                                                   @Value("${server.servlet.session.timeout:30m}") Duration sessionTimeout,
+                                                   @Value("${app.session.jdbc.flush-interval:PT10S}") Duration flushInterval,
+                                                   @Value("${app.session.jdbc.cleanup-batch-size:500}") int cleanupBatchSize) {
+        return new JdbcSessionRepository(jdbcTemplate, sessionTimeout, flushInterval, cleanupBatchSize);
+    }
+}
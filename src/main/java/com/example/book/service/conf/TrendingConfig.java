@@ -0,0 +1,34 @@
+package com.example.book.service.conf;
+
+import com.example.book.service.service.counters.BookCounters;
+import com.example.book.service.service.trending.BookViewCountingFilter;
+import com.example.book.service.service.trending.TrendingTracker;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Counts book page views for the trending books and the persisted book counters.
+ */
+@Configuration
+public class TrendingConfig {
+
+    /**
+     * Registers the view counter ahead of the Spring Security filter chain and the page cache, so
+     * that it sees the final status of every book page, including the cached ones.
+     *
+     * @param trendingTracker the tracker that ranks the trending books.
+     * @param bookCounters    the counters that persist the views.
+     * @return the filter registration.
+     */
+    @Bean
+    public FilterRegistrationBean<BookViewCountingFilter> bookViewCountingFilter(TrendingTracker trendingTracker,
+                                                                                 BookCounters bookCounters) {
+        FilterRegistrationBean<BookViewCountingFilter> registration = new FilterRegistrationBean<>(
+                new BookViewCountingFilter(trendingTracker, bookCounters));
+        registration.addUrlPatterns("/books/view/*");
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 1);
+        return registration;
+    }
+}
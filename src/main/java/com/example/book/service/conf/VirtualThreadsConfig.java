@@ -0,0 +1,65 @@
+package com.example.book.service.conf;
+
+import com.example.book.service.concurrency.ConnectionBulkheadFilter;
+import com.example.book.service.concurrency.VirtualThreadPinningMonitor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.time.Duration;
+
+/**
+ * Safeguards for running request handling on virtual threads.
+ * <p>
+ * Setting {@code spring.threads.virtual.enabled=true} makes Spring Boot run Tomcat requests,
+ * {@code @Async} tasks and {@code @Scheduled} jobs on virtual threads. This configuration is only
+ * active in that mode and adds:
+ * <ul>
+ *   <li>a {@link ConnectionBulkheadFilter} that caps concurrent requests, because Tomcat's worker
+ *       pool no longer does, so that a burst cannot pile up on the JDBC connection pool;</li>
+ *   <li>a {@link VirtualThreadPinningMonitor} that reports pinned virtual threads.</li>
+ * </ul>
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadsConfig {
+
+    /**
+     * Registers the bulkhead ahead of every other filter, so that requests waiting for a permit
+     * have not yet loaded the session or the security context.
+     *
+     * @param maxConcurrentRequests the number of requests processed at the same time.
+     * @param acquireTimeout        how long a request waits for a permit before it is rejected.
+     * @param meterRegistry         the registry for the bulkhead gauges and rejection counter.
+     * @return the filter registration.
+     */
+    @Bean
+    public FilterRegistrationBean<ConnectionBulkheadFilter> connectionBulkheadFilter(
+            @Value("${app.virtual-threads.bulkhead.max-concurrent-requests:20}") int maxConcurrentRequests,
+            @Value("${app.virtual-threads.bulkhead.acquire-timeout:PT2S}") Duration acquireTimeout,
+            MeterRegistry meterRegistry) {
+        FilterRegistrationBean<ConnectionBulkheadFilter> registration = new FilterRegistrationBean<>(
+                new ConnectionBulkheadFilter(maxConcurrentRequests, acquireTimeout, meterRegistry));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    /**
+     * Creates the pinning monitor.
+     *
+     * @param threshold     the minimum pin duration that is reported.
+     * @param meterRegistry the registry for the pinning counter.
+     * @return the monitor, started and stopped with the application context.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.virtual-threads.pinning-monitor.enabled", havingValue = "true", matchIfMissing = true)
+    public VirtualThreadPinningMonitor virtualThreadPinningMonitor(
+            @Value("${app.virtual-threads.pinning-monitor.threshold:PT0.02S}") Duration threshold,
+            MeterRegistry meterRegistry) {
+        return new VirtualThreadPinningMonitor(threshold, meterRegistry);
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.book.service.controller;
+
+import com.example.book.service.exception.CustomBadRequestException;
+import com.example.book.service.service.SalesAnalyticsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+
+import java.time.LocalDate;
+
+/**
+ * Controller for the admin sales analytics dashboard.
+ * <p>
+ * The dashboard shows the best-selling books, the sales per genre and the sales per day of a
+ * period, all read from the rollups maintained by the {@link SalesAnalyticsService}, so it never
+ * scans the order history.
+ */
+@Controller
+@RequestMapping("/analytics")
+@RequiredArgsConstructor
+public class AnalyticsController {
+
+    private static final int DEFAULT_PERIOD_DAYS = 30;
+    private static final int BEST_SELLER_COUNT = 10;
+
+    private final SalesAnalyticsService salesAnalyticsService;
+
+    /**
+     * Displays the sales of a period, the last {@value #DEFAULT_PERIOD_DAYS} days unless given.
+     *
+     * @param from  The first day of the period.
+     * @param to    The last day of the period.
+     * @param model The {@link Model} to which the period and its sales are added.
+     * @return The view name for the dashboard ("analytics/dashboard").
+     */
+    @GetMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public String showDashboard(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                Model model) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(DEFAULT_PERIOD_DAYS - 1);
+        if (start.isAfter(end)) {
+            throw new CustomBadRequestException("The start of the period must not be after its end");
+        }
+        model.addAttribute("from", start);
+        model.addAttribute("to", end);
+        model.addAttribute("bestSellers", salesAnalyticsService.getBestSellers(start, end, BEST_SELLER_COUNT));
+        model.addAttribute("genres", salesAnalyticsService.getSalesByGenre(start, end));
+        model.addAttribute("days", salesAnalyticsService.getSalesByDay(start, end));
+        return "analytics/dashboard";
+    }
+
+    /**
+     * Handles the action for an admin to recompute the rollups from the order history.
+     *
+     * @param redirectAttributes Used to add a flash attribute for the success message.
+     * @return A redirect string to the dashboard.
+     */
+    @PostMapping("/backfill")
+    @PreAuthorize("hasRole('ADMIN')")
+    public String backfill(RedirectAttributes redirectAttributes) {
+        int ranges = salesAnalyticsService.backfill();
+        redirectAttributes.addFlashAttribute("successMessage", "Sales rollups have been recomputed in " + ranges + " range(s).");
+        return "redirect:/analytics";
+    }
+}
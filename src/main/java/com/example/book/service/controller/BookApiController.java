@@ -0,0 +1,172 @@
+package com.example.book.service.controller;
+
+import com.example.book.service.api.BookField;
+import com.example.book.service.dto.BookDTO;
+import com.example.book.service.exception.CustomBadRequestException;
+import com.example.book.service.service.BookService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Read-only JSON API of the book catalog, for the mobile app and partner integrations.
+ * <p>
+ * The API reuses {@link BookService} and {@link BookDTO} but bypasses the template layer:
+ * <ul>
+ *   <li><b>Keyset pagination:</b> {@code GET /api/v1/books?after={id}&limit={n}} returns the books
+ *   with an ID greater than {@code after}, in ID order, and the URL of the next page in
+ *   {@code next} ({@code null} on the last page). Unlike offset paging, every page costs the same,
+ *   however deep it is.</li>
+ *   <li><b>Sparse fieldsets:</b> {@code fields=name,price,...} selects the fields to return. The
+ *   LOB fields {@code characteristics} and {@code description} are only read from the database
+ *   when requested; see {@link BookField}.</li>
+ *   <li><b>ETags:</b> pages are validated by a summary of their IDs and versions, and single books
+ *   by their version, so a matching {@code If-None-Match} is answered with {@code 304 Not Modified}
+ *   after one narrow query, without reading or serializing any book.</li>
+ *   <li><b>Streaming:</b> a page is written to the response while the rows are still being read,
+ *   so neither the result set nor the JSON document is held in memory.</li>
+ * </ul>
+ */
+@RestController
+@RequestMapping("/api/v1/books")
+public class BookApiController {
+
+    private final BookService bookService;
+    private final ObjectMapper objectMapper;
+    private final int defaultLimit;
+    private final int maxLimit;
+
+    public BookApiController(BookService bookService, ObjectMapper objectMapper,
+                             @Value("${app.api.books.default-limit:50}") int defaultLimit,
+                             @Value("${app.api.books.max-limit:1000}") int maxLimit) {
+        this.bookService = bookService;
+        this.objectMapper = objectMapper;
+        this.defaultLimit = defaultLimit;
+        this.maxLimit = maxLimit;
+    }
+
+    /**
+     * Streams one keyset page of the catalog as {@code {"items": [...], "next": "..."}}.
+     *
+     * @param after    the ID after which the page starts; {@code 0} for the first page.
+     * @param limit    the maximum number of books on the page, at most {@code app.api.books.max-limit}.
+     * @param fields   the comma-separated fields to return, or none for all but the text fields.
+     * @param request  the current request, used to evaluate {@code If-None-Match}.
+     * @param response the response the page is written to.
+     * @throws IOException if writing the response fails.
+     */
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public void listBooks(@RequestParam(defaultValue = "0") long after,
+                          @RequestParam(required = false) Integer limit,
+                          @RequestParam(required = false) String fields,
+                          ServletWebRequest request, HttpServletResponse response) throws IOException {
+        int pageSize = resolveLimit(limit);
+        Set<BookField> selected = BookField.parse(fields);
+
+        // One extra row tells whether there is a next page; it is part of the validator for the same reason.
+        String etag = "\"p" + bookService.getCatalogPageSummary(after, pageSize + 1)
+                + "-" + pageSize + "-" + BookField.key(selected) + "\"";
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().getHeaderValue());
+        if (request.checkNotModified(etag)) {
+            return;
+        }
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+
+        UriComponentsBuilder next = ServletUriComponentsBuilder.fromCurrentRequest();
+        try (JsonGenerator json = objectMapper.createGenerator(response.getOutputStream())) {
+            json.writeStartObject();
+            json.writeArrayFieldStart("items");
+            PageWriter page = new PageWriter(json, selected, pageSize);
+            int read = bookService.forEachBookAfter(after, pageSize + 1, BookField.anyText(selected), page);
+            json.writeEndArray();
+            json.writeStringField("next", read > pageSize
+                    ? next.replaceQueryParam("after", page.lastId).toUriString()
+                    : null);
+            json.writeEndObject();
+        }
+    }
+
+    /**
+     * Returns one book.
+     *
+     * @param id      the ID of the book.
+     * @param fields  the comma-separated fields to return, or none for all but the text fields.
+     * @param request the current request, used to evaluate {@code If-None-Match}.
+     * @return the selected fields of the book, or {@code null} if the client's copy is current.
+     */
+    @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, Object>> getBook(@PathVariable Long id,
+                                                       @RequestParam(required = false) String fields,
+                                                       ServletWebRequest request) {
+        Set<BookField> selected = BookField.parse(fields);
+        String etag = "\"b" + id + "-" + bookService.getBookVersion(id) + "-" + BookField.key(selected) + "\"";
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(BookField.toMap(bookService.getBookById(id), selected));
+    }
+
+    private int resolveLimit(Integer limit) {
+        if (limit == null) {
+            return defaultLimit;
+        }
+        if (limit < 1 || limit > maxLimit) {
+            throw new CustomBadRequestException("limit must be between 1 and " + maxLimit);
+        }
+        return limit;
+    }
+
+    /**
+     * Writes the books of a page as they are read, skipping the look-ahead row past its end.
+     */
+    private static final class PageWriter implements Consumer<BookDTO> {
+
+        private final JsonGenerator json;
+        private final Set<BookField> fields;
+        private final int pageSize;
+        private int written;
+        private long lastId;
+
+        private PageWriter(JsonGenerator json, Set<BookField> fields, int pageSize) {
+            this.json = json;
+            this.fields = fields;
+            this.pageSize = pageSize;
+        }
+
+        @Override
+        public void accept(BookDTO book) {
+            if (written == pageSize) {
+                return;
+            }
+            try {
+                BookField.write(json, book, fields);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            written++;
+            lastId = book.getId();
+        }
+    }
+}
@@ -1,10 +1,18 @@
 package com.example.book.service.controller;
 
+import com.example.book.service.cache.CatalogFragmentCache;
 import com.example.book.service.dto.BookDTO;
+import com.example.book.service.dto.PriceChangeDTO;
+import com.example.book.service.dto.PriceChangeResultDTO;
 import com.example.book.service.exception.AlreadyExistException;
+import com.example.book.service.exception.CustomBadRequestException;
 import com.example.book.service.model.enums.AgeGroup;
 import com.example.book.service.model.enums.Language;
 import com.example.book.service.service.BookService;
+import com.example.book.service.service.PricingService;
+import com.example.book.service.service.trending.TrendingTracker;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -38,19 +46,29 @@ import java.util.List;
 public class BookController {
 
     private final BookService bookService;
+    private final PricingService pricingService;
+    private final CatalogFragmentCache catalogFragmentCache;
+    private final TrendingTracker trendingTracker;
 
     /**
      * Displays the public list of books, with an optional search functionality.
+     * <p>
+     * The book grid does not depend on the signed-in user, so it is taken from the
+     * {@link CatalogFragmentCache}, and only the surrounding page is rendered per request.
      *
-     * @param keyword An optional search term to filter books by name, author, or genre.
-     * @param model   The {@link Model} to which the list of books and search keyword are added.
+     * @param keyword  An optional search term to filter books by name, author, or genre.
+     * @param model    The {@link Model} to which the rendered book grid, search keyword and trending
+     *                 books are added.
+     * @param request  The current request, used to render links in the grid.
+     * @param response The current response, used to render links in the grid.
      * @return The view name for the public book listing page ("books/list").
      */
     @GetMapping("/list")
-    public String getAllBooks(@RequestParam(value = "keyword", required = false) String keyword, Model model) {
-        List<BookDTO> books = findBooksByKeyword(keyword);
-        model.addAttribute("books", books);
+    public String getAllBooks(@RequestParam(value = "keyword", required = false) String keyword, Model model,
+                              HttpServletRequest request, HttpServletResponse response) {
+        model.addAttribute("catalogGrid", catalogFragmentCache.render(keyword, request, response));
         model.addAttribute("keyword", keyword);
+        model.addAttribute("trending", trendingTracker.getTrending());
         return "books/list";
     }
 
@@ -72,8 +90,7 @@ public class BookController {
     }
 
     /**
-     * A private helper method to fetch books, avoiding code duplication between
-     * the public list and the admin management page.
+     * A private helper method to fetch books for the admin management page.
      *
      * @param keyword The search term. If null or blank, all books are returned.
      * @return A list of {@link BookDTO} objects.
@@ -89,12 +106,14 @@ public class BookController {
      * Displays the detailed view of a single book.
      *
      * @param id    The ID of the book to display, extracted from the URL path.
-     * @param model The {@link Model} to which the found book object is added.
+     * @param model The {@link Model} to which the found book object and the books its buyers also
+     *              bought are added.
      * @return The view name for the book detail page ("books/view").
      */
     @GetMapping("/view/{id}")
     public String getBookById(@PathVariable Long id, Model model) {
         model.addAttribute("book", bookService.getBookById(id));
+        model.addAttribute("alsoBought", bookService.getCustomersAlsoBought(id));
         return "books/view";
     }
 
@@ -176,6 +195,27 @@ public class BookController {
         return "redirect:/books/manage";
     }
 
+    /**
+     * Applies a bulk price change to the books of a genre, of an author, or of a list of IDs.
+     * This endpoint is restricted to users with the 'ADMIN' role.
+     *
+     * @param change             The price change submitted from the management page.
+     * @param redirectAttributes Used to pass a success or error message after the redirect.
+     * @return A redirect string to the book management page.
+     */
+    @PostMapping("/prices")
+    @PreAuthorize("hasRole('ADMIN')")
+    public String changePrices(@ModelAttribute PriceChangeDTO change, RedirectAttributes redirectAttributes) {
+        try {
+            PriceChangeResultDTO result = pricingService.applyPriceChange(change);
+            redirectAttributes.addFlashAttribute("successMessage", "Repriced " + result.books()
+                    + " book(s) and updated " + result.draftOrders() + " cart(s).");
+        } catch (CustomBadRequestException e) {
+            redirectAttributes.addFlashAttribute("errorMessage", e.getMessage());
+        }
+        return "redirect:/books/manage";
+    }
+
     /**
      * Handles the deletion of a book by its ID.
      * This endpoint is restricted to users with the 'ADMIN' role.
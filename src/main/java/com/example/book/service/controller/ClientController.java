@@ -1,12 +1,15 @@
 package com.example.book.service.controller;
 
-import com.example.book.service.dto.ClientDTO;
+import com.example.book.service.dto.ClientPageDTO;
+import com.example.book.service.dto.ClientSort;
 import com.example.book.service.service.ClientService;
-import lombok.RequiredArgsConstructor;
+import com.example.book.service.service.ClientStatsService;
+import com.example.book.service.dto.UserPrincipal;
+import com.example.book.service.idempotency.Idempotent;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -15,7 +18,6 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 import java.math.BigDecimal;
-import java.util.List;
 
 
 /**
@@ -32,10 +34,18 @@ import java.util.List;
  */
 @Controller
 @RequestMapping("/clients")
-@RequiredArgsConstructor
 public class ClientController {
 
     private final ClientService clientService;
+    private final ClientStatsService clientStatsService;
+    private final int pageSize;
+
+    public ClientController(ClientService clientService, ClientStatsService clientStatsService,
+                            @Value("${app.clients.page-size:50}") int pageSize) {
+        this.clientService = clientService;
+        this.clientStatsService = clientStatsService;
+        this.pageSize = pageSize;
+    }
 
     /**
      * Displays the profile page for the currently authenticated client.
@@ -44,42 +54,68 @@ public class ClientController {
      * client's details using their email (username) from the security context and
      * adds the client DTO to the model for rendering.
      *
-     * @param userDetails The currently authenticated user's details, injected by Spring Security.
+     * @param principal   The currently authenticated user's details, injected by Spring Security.
      * @param model       The {@link Model} to which the client data is added.
      * @return The view name for the client profile page ("clients/profile").
      */
     @GetMapping("/profile")
     @PreAuthorize("hasRole('CLIENT')")
-    public String viewMyProfile(@AuthenticationPrincipal UserDetails userDetails, Model model) {
-        model.addAttribute("client", clientService.getClientByEmail(userDetails.getUsername()));
+    public String viewMyProfile(@AuthenticationPrincipal UserPrincipal principal, Model model) {
+        model.addAttribute("client", clientService.getClientByEmail(principal.email()));
         return "clients/profile";
     }
 
     /**
-     * Displays a list of all clients for administrative purposes.
+     * Displays one page of the client directory for administrative purposes.
      * <p>
      * This method is only accessible to users with the 'ADMIN' role. It supports an
-     * optional search functionality by email. If an email keyword is provided, it returns
-     * a filtered list; otherwise, it returns all clients.
+     * optional search by email and a choice of sort order. Pages hold
+     * {@code app.clients.page-size} clients and link to the next page by the ID of
+     * their last client.
      *
      * @param email An optional request parameter to filter clients by their email address.
-     * @param model The {@link Model} to which the list of clients and the search keyword are added.
+     * @param sort  The order of the clients, by name unless given.
+     * @param after The ID of the client the page starts after; absent for the first page.
+     * @param model The {@link Model} to which the page, the search keyword and the sort orders are added.
      * @return The view name for the admin-facing client list ("clients/list").
      */
     @GetMapping("/list")
     @PreAuthorize("hasRole('ADMIN')")
-    public String listAllClients(@RequestParam(value = "email", required = false) String email, Model model) {
-        List<ClientDTO> clients;
-        if (email != null && !email.isBlank()) {
-            clients = clientService.searchClientsByEmail(email);
-        } else {
-            clients = clientService.getAllClients();
-        }
-        model.addAttribute("clients", clients);
+    public String listAllClients(@RequestParam(value = "email", required = false) String email,
+                                 @RequestParam(value = "sort", defaultValue = "NAME") ClientSort sort,
+                                 @RequestParam(value = "after", required = false) Long after,
+                                 Model model) {
+        ClientPageDTO page = clientService.getClientPage(email, sort, after, pageSize);
+        model.addAttribute("clients", page.clients());
+        model.addAttribute("nextAfter", page.nextAfter());
         model.addAttribute("email", email); // Pass the keyword back to the view
+        model.addAttribute("sort", sort);
+        model.addAttribute("sorts", ClientSort.values());
+        model.addAttribute("firstPage", after == null);
         return "clients/list";
     }
 
+    /**
+     * Handles the action for an admin to recompute the order statistics of all clients.
+     * <p>
+     * The statistics are kept current as orders change, so this is only needed to repair drift,
+     * e.g. after orders were corrected directly in the database. The rebuild runs in the
+     * background, so the admin is redirected as soon as it has started.
+     *
+     * @param redirectAttributes Used to add a flash attribute for the result message.
+     * @return A redirect string to the client management page.
+     */
+    @PostMapping("/stats/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public String rebuildClientStats(RedirectAttributes redirectAttributes) {
+        if (clientStatsService.startRebuild()) {
+            redirectAttributes.addFlashAttribute("successMessage", "The rebuild of the order statistics has started.");
+        } else {
+            redirectAttributes.addFlashAttribute("errorMessage", "A rebuild of the order statistics is already running.");
+        }
+        return "redirect:/clients/list";
+    }
+
     /**
      * Handles the action to block a specific client account.
      * <p>
@@ -125,27 +161,50 @@ public class ClientController {
      * amount, delegates the balance update logic to the {@link ClientService}, and handles
      * potential errors (e.g., a non-positive amount). It then redirects back to the
      * profile page with a success or error message.
+     * <p>
+     * Requests carrying the {@code X-Fragment: true} header, sent by {@code fragments.js}, are
+     * answered with just the balance snippet and its message instead of a redirect.
      *
      * @param amount             The amount to add to the balance, from the form.
-     * @param userDetails        The currently authenticated user's details, for security.
+     * @param principal          The currently authenticated user's details, for security.
+     * @param fragment           Whether only the updated balance snippet should be rendered.
+     * @param model              The {@link Model} for the balance snippet.
      * @param redirectAttributes Used to add flash attributes for success or error messages.
-     * @return A redirect string to the client's profile page.
+     * @return The balance snippet, or a redirect string to the client's profile page.
      */
     @PostMapping("/profile/topup")
     @PreAuthorize("hasRole('CLIENT')")
+    @Idempotent
     public String handleTopUpBalance(@RequestParam("amount") BigDecimal amount,
-                                     @AuthenticationPrincipal UserDetails userDetails,
+                                     @AuthenticationPrincipal UserPrincipal principal,
+                                     @RequestHeader(value = "X-Fragment", defaultValue = "false") boolean fragment,
+                                     Model model,
                                      RedirectAttributes redirectAttributes) {
+        String messageAttribute;
+        String message;
+        BigDecimal balance = null;
         try {
-            clientService.topUpBalance(userDetails.getUsername(), amount);
-            redirectAttributes.addFlashAttribute("successMessage", "Your balance has been successfully topped up by $" + amount + "!");
+            balance = clientService.topUpBalance(principal.email(), amount);
+            messageAttribute = "successMessage";
+            message = "Your balance has been successfully topped up by $" + amount + "!";
         } catch (IllegalArgumentException e) {
             // Catches specific, expected errors like a negative amount.
-            redirectAttributes.addFlashAttribute("errorMessage", e.getMessage());
+            messageAttribute = "errorMessage";
+            message = e.getMessage();
         } catch (Exception e) {
             // Catches any other unexpected errors.
-            redirectAttributes.addFlashAttribute("errorMessage", "An unexpected error occurred. Please try again.");
+            messageAttribute = "errorMessage";
+            message = "An unexpected error occurred. Please try again.";
+        }
+        if (fragment) {
+            if (balance == null) {
+                balance = clientService.getClientByEmail(principal.email()).getBalance();
+            }
+            model.addAttribute("balance", balance);
+            model.addAttribute(messageAttribute, message);
+            return "fragments/client :: balance";
         }
+        redirectAttributes.addFlashAttribute(messageAttribute, message);
         return "redirect:/clients/profile";
     }
 }
\ No newline at end of file
@@ -1,13 +1,24 @@
 package com.example.book.service.controller;
 
+import com.example.book.service.dto.CartSummaryDTO;
 import com.example.book.service.dto.OrderDTO;
+import com.example.book.service.events.OrderEventHub;
 import com.example.book.service.exception.InsufficientFundsException;
 import com.example.book.service.service.OrderService;
+import com.example.book.service.dto.UserPrincipal;
+import com.example.book.service.idempotency.Idempotent;
+import com.example.book.service.model.enums.Role;
+import com.example.book.service.service.counters.BookCounters;
+import com.example.book.service.service.trending.TrendingTracker;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -30,6 +41,13 @@ import java.util.List;
  *   in the system.</li>
  * </ul>
  * Security is enforced at the method level using {@code @PreAuthorize} annotations.
+ * <p>
+ * The cart and order actions answer requests carrying the {@code X-Fragment: true} header,
+ * sent by {@code fragments.js}, with just the updated cart badge or order row instead of a
+ * redirect to a full page. Without the header they behave as plain form posts.
+ * <p>
+ * Open order pages also listen on {@code /orders/events}, a server-sent event stream of status
+ * changes served by the {@link OrderEventHub}.
  */
 @Controller
 @RequestMapping("/orders")
@@ -37,6 +55,9 @@ import java.util.List;
 public class OrderController {
 
     private final OrderService orderService;
+    private final OrderEventHub orderEventHub;
+    private final TrendingTracker trendingTracker;
+    private final BookCounters bookCounters;
 
     /**
      * Displays the "My Orders" page for the currently authenticated client.
@@ -45,15 +66,15 @@ public class OrderController {
      * one for the current shopping cart (draft orders) and one for the order history.
      * It is accessible only to users with the 'CLIENT' role.
      *
-     * @param userDetails The currently authenticated user, injected by Spring Security.
+     * @param principal   The currently authenticated user, injected by Spring Security.
      * @param model       The {@link Model} to which the order lists are added.
      * @return The view name for the client's order page ("orders/list").
      */
     @GetMapping("/my")
     @PreAuthorize("hasRole('CLIENT')")
-    public String getCurrentClientOrders(@AuthenticationPrincipal UserDetails userDetails, Model model) {
-        if (userDetails != null) {
-            String email = userDetails.getUsername();
+    public String getCurrentClientOrders(@AuthenticationPrincipal UserPrincipal principal, Model model) {
+        if (principal != null) {
+            String email = principal.email();
             // Assuming OrderService provides methods to get orders by status
             model.addAttribute("draftOrders", orderService.getDraftOrdersByClient(email));
             model.addAttribute("completedOrders", orderService.getCompletedOrdersByClient(email));
@@ -89,13 +110,22 @@ public class OrderController {
      * Handles the action for an admin to confirm a submitted order.
      *
      * @param orderId            The ID of the order to confirm.
+     * @param fragment           Whether only the updated order row should be rendered.
+     * @param model              The {@link Model} for the order row fragment.
      * @param redirectAttributes Used to add a success flash message.
-     * @return A redirect to the admin order management page.
+     * @return The order row fragment, or a redirect to the admin order management page.
      */
     @PostMapping("/{orderId}/confirm")
     @PreAuthorize("hasRole('ADMIN')")
-    public String confirmOrder(@PathVariable Long orderId, RedirectAttributes redirectAttributes) {
-        orderService.confirmOrder(orderId);
+    public String confirmOrder(@PathVariable Long orderId,
+                               @RequestHeader(value = "X-Fragment", defaultValue = "false") boolean fragment,
+                               Model model,
+                               RedirectAttributes redirectAttributes) {
+        OrderDTO order = orderService.confirmOrder(orderId);
+        if (fragment) {
+            model.addAttribute("order", order);
+            return "fragments/orders :: row";
+        }
         redirectAttributes.addFlashAttribute("successMessage", "Order #" + orderId + " has been confirmed.");
         return "redirect:/orders/all";
     }
@@ -110,33 +140,70 @@ public class OrderController {
      *
      * @param orderId            The ID of the order to cancel.
      * @param returnUrl          A parameter indicating where to redirect the user after cancellation.
+     * @param fragment           Whether only the updated order row should be rendered.
+     * @param model              The {@link Model} for the order row fragment.
      * @param redirectAttributes Used to add a success flash message.
-     * @return A redirect string based on the provided {@code returnUrl}.
+     * @return The order row fragment, or a redirect string based on the provided {@code returnUrl}.
      */
     @PostMapping("/{orderId}/cancel")
     @PreAuthorize("hasRole('ADMIN') or @orderSecurityService.isOrderOwner(authentication, #orderId)")
     public String cancelOrder(@PathVariable Long orderId,
                               @RequestParam(defaultValue = "/orders/my") String returnUrl,
+                              @RequestHeader(value = "X-Fragment", defaultValue = "false") boolean fragment,
+                              Model model,
                               RedirectAttributes redirectAttributes) {
-        orderService.cancelOrder(orderId);
+        OrderDTO order = orderService.cancelOrder(orderId);
+        if (fragment) {
+            model.addAttribute("order", order);
+            return "fragments/orders :: row";
+        }
         redirectAttributes.addFlashAttribute("successMessage", "Order #" + orderId + " has been cancelled.");
         return "redirect:" + returnUrl;
     }
 
     /**
-     * Handles a client's request to add a book to their shopping cart.
+     * Handles the action for an admin to cancel, and refund, every paid order containing a book,
+     * e.g. before the book is withdrawn from sale.
+     *
+     * @param bookId             The ID of the book whose orders are to be cancelled.
+     * @param redirectAttributes Used to add a success flash message.
+     * @return A redirect to the admin book management page.
+     */
+    @PostMapping("/cancel-by-book/{bookId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public String cancelOrdersContainingBook(@PathVariable Long bookId, RedirectAttributes redirectAttributes) {
+        int cancelled = orderService.cancelOrdersContainingBook(bookId);
+        redirectAttributes.addFlashAttribute("successMessage",
+                cancelled + " order(s) containing book #" + bookId + " have been cancelled and refunded.");
+        return "redirect:/books/manage";
+    }
+
+    /**
+     * Handles a client's request to add a book to their shopping cart, which also counts towards
+     * the book trending and its cart-add counter.
      *
      * @param bookId             The ID of the book to add.
-     * @param userDetails        The currently authenticated client.
+     * @param principal          The currently authenticated client.
+     * @param fragment           Whether only the updated cart badge should be rendered.
+     * @param model              The {@link Model} for the cart badge fragment.
      * @param redirectAttributes Used to add a success flash message.
-     * @return A redirect to the main book list page.
+     * @return The cart badge fragment, or a redirect to the main book list page.
      */
     @PostMapping("/cart/add/{bookId}")
     @PreAuthorize("hasRole('CLIENT')")
+    @Idempotent
     public String addBookToCart(@PathVariable Long bookId,
-                                @AuthenticationPrincipal UserDetails userDetails,
+                                @AuthenticationPrincipal UserPrincipal principal,
+                                @RequestHeader(value = "X-Fragment", defaultValue = "false") boolean fragment,
+                                Model model,
                                 RedirectAttributes redirectAttributes) {
-        orderService.addBookToDraftOrder(bookId, userDetails.getUsername());
+        CartSummaryDTO cart = orderService.addBookToDraftOrder(bookId, principal.email());
+        trendingTracker.recordCartAdd(bookId);
+        bookCounters.recordCartAdd(bookId);
+        if (fragment) {
+            model.addAttribute("cart", cart);
+            return "fragments/cart :: badge";
+        }
         redirectAttributes.addFlashAttribute("successMessage", "Book added to your cart!");
         return "redirect:/books/list";
     }
@@ -154,6 +221,7 @@ public class OrderController {
      */
     @PostMapping("/cart/submit")
     @PreAuthorize("hasRole('CLIENT')")
+    @Idempotent
     public String submitCartOrder(@RequestParam Long orderId, RedirectAttributes redirectAttributes) {
         try {
             orderService.submitOrder(orderId);
@@ -167,4 +235,27 @@ public class OrderController {
         }
         return "redirect:/orders/my";
     }
-}
\ No newline at end of file
+
+    /**
+     * Opens a server-sent event stream of order status changes.
+     * <p>
+     * Administrators receive the changes of all orders, clients only those of their own orders.
+     * When the hub already serves its maximum number of streams, the request is answered with
+     * {@code 503 Service Unavailable} and a {@code Retry-After} header, which {@code EventSource}
+     * treats as a reason to stop reconnecting.
+     *
+     * @param principal The currently authenticated user.
+     * @return The event stream, or a 503 response if no stream can be opened.
+     */
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<SseEmitter> streamOrderEvents(@AuthenticationPrincipal UserPrincipal principal) {
+        SseEmitter emitter = principal.role() == Role.ADMIN
+                ? orderEventHub.subscribeAdmin()
+                : orderEventHub.subscribeClient(principal.email());
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "30").build();
+        }
+        return ResponseEntity.ok().header("X-Accel-Buffering", "no").body(emitter);
+    }
+}
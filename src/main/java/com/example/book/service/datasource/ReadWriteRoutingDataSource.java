@@ -0,0 +1,65 @@
+package com.example.book.service.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Routes connections of read-only transactions to the replica and everything else to the primary.
+ * <p>
+ * A connection goes to the replica only when all of the following hold:
+ * <ul>
+ *   <li>it is requested inside a transaction marked {@code readOnly = true};</li>
+ *   <li>the {@link ReplicaLagMonitor} reports the replica as available and within the allowed lag;</li>
+ *   <li>the current user has not written within the read-your-writes window tracked by the
+ *       {@link ReadYourWritesTracker}.</li>
+ * </ul>
+ * Any other connection goes to the primary. When a read-write transaction on the primary commits,
+ * the write is recorded so that the user's next reads also go to the primary.
+ * <p>
+ * The read-only flag is only known once the transaction has started, so this data source must be
+ * wrapped in a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, which
+ * defers the lookup until the first statement is executed.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    /**
+     * The lookup keys of the two target data sources.
+     */
+    public enum Route {
+        PRIMARY,
+        REPLICA
+    }
+
+    private final ReplicaLagMonitor lagMonitor;
+    private final ReadYourWritesTracker readYourWritesTracker;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica,
+                                      ReplicaLagMonitor lagMonitor, ReadYourWritesTracker readYourWritesTracker) {
+        this.lagMonitor = lagMonitor;
+        this.readYourWritesTracker = readYourWritesTracker;
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        boolean readOnly = TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        if (readOnly && lagMonitor.isReplicaUsable() && !readYourWritesTracker.isPinnedToPrimary()) {
+            return Route.REPLICA;
+        }
+        if (!readOnly && TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    readYourWritesTracker.recordWrite();
+                }
+            });
+        }
+        return Route.PRIMARY;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.book.service.datasource;
+
+import jakarta.servlet.http.HttpSession;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Keeps a user's reads on the primary for a short time after they wrote something.
+ * <p>
+ * Replication is asynchronous, so a client who has just topped up their balance or submitted an
+ * order could otherwise be redirected to a page that is rendered from a replica that has not yet
+ * applied the change. The time of the user's last committed write is stored in their HTTP session:
+ * <ul>
+ *   <li>the pin applies on every node, including with the shared JDBC session store;</li>
+ *   <li>other users keep reading from the replica.</li>
+ * </ul>
+ * Work that runs outside an HTTP request, such as scheduled jobs, has no session and is never pinned.
+ * Neither is a request without a session: creating one just to hold the pin would give every anonymous
+ * or stateless caller a session row in the shared store.
+ */
+public class ReadYourWritesTracker {
+
+    static final String LAST_WRITE_ATTRIBUTE = ReadYourWritesTracker.class.getName() + ".LAST_WRITE";
+
+    private final Duration stickyWindow;
+    private final Clock clock;
+
+    public ReadYourWritesTracker(Duration stickyWindow) {
+        this(stickyWindow, Clock.systemUTC());
+    }
+
+    ReadYourWritesTracker(Duration stickyWindow, Clock clock) {
+        this.stickyWindow = stickyWindow;
+        this.clock = clock;
+    }
+
+    /**
+     * Records that the current user has just committed a write, if they already have a session.
+     */
+    public void recordWrite() {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            HttpSession session = attributes.getRequest().getSession(false);
+            if (session != null) {
+                session.setAttribute(LAST_WRITE_ATTRIBUTE, clock.millis());
+            }
+        }
+    }
+
+    /**
+     * @return {@code true} if the current user wrote within the sticky window and must read from the primary.
+     */
+    public boolean isPinnedToPrimary() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return false;
+        }
+        Object lastWrite = attributes.getAttribute(LAST_WRITE_ATTRIBUTE, RequestAttributes.SCOPE_SESSION);
+        return lastWrite instanceof Long millis && clock.millis() - millis < stickyWindow.toMillis();
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.book.service.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Measures how far the replica is behind the primary and decides whether it may serve reads.
+ * <p>
+ * Each probe reads the single row of the {@code replication_heartbeat} table from the replica and then
+ * writes the current time to it on the primary. The replica is compared with the heartbeat written by
+ * the previous probe, which it has had a whole interval to apply: if it has applied it, the lag is
+ * zero, otherwise it is the age of the heartbeat the replica returns. Reading the heartbeat back right
+ * after writing it would report about one interval of lag for a replica that is only milliseconds
+ * behind. The replica is marked unusable, and all reads fall back to the primary, when:
+ * <ul>
+ *   <li>the lag exceeds {@code maxLag};</li>
+ *   <li>the probe fails on either side.</li>
+ * </ul>
+ * It is marked usable again by the next successful probe within the limit.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+    private static final String WRITE_HEARTBEAT = "UPDATE replication_heartbeat SET beat_at = ? WHERE id = 1";
+    private static final String READ_HEARTBEAT = "SELECT beat_at FROM replication_heartbeat WHERE id = 1";
+
+    private final JdbcTemplate primary;
+    private final JdbcTemplate replica;
+    private final Duration maxLag;
+    private final Clock clock;
+
+    private volatile boolean replicaUsable;
+    private volatile long lagMillis = -1;
+    private long lastBeat = -1;
+
+    public ReplicaLagMonitor(DataSource primary, DataSource replica, Duration maxLag, MeterRegistry meterRegistry) {
+        this(primary, replica, maxLag, meterRegistry, Clock.systemUTC());
+    }
+
+    ReplicaLagMonitor(DataSource primary, DataSource replica, Duration maxLag, MeterRegistry meterRegistry, Clock clock) {
+        this.primary = new JdbcTemplate(primary);
+        this.replica = new JdbcTemplate(replica);
+        this.maxLag = maxLag;
+        this.clock = clock;
+        Gauge.builder("bookstore.datasource.replica.lag", this, monitor -> monitor.lagMillis)
+                .description("Replication lag measured by the last heartbeat probe, or -1 if it failed")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return {@code true} if read-only transactions may use the replica.
+     */
+    public boolean isReplicaUsable() {
+        return replicaUsable;
+    }
+
+    /**
+     * @return the lag measured by the last probe in milliseconds, or {@code -1} if it failed.
+     */
+    public long getLagMillis() {
+        return lagMillis;
+    }
+
+    /**
+     * Checks the replica against the previous heartbeat and writes the next one to the primary.
+     */
+    @Scheduled(fixedDelayString = "${app.datasource.replica.lag-probe-interval:PT1S}")
+    public void probe() {
+        long now = clock.millis();
+        try {
+            List<Long> beats = replica.queryForList(READ_HEARTBEAT, Long.class);
+            long lag = beats.isEmpty() ? Long.MAX_VALUE : lag(beats.get(0), now);
+            primary.update(WRITE_HEARTBEAT, now);
+            lastBeat = now;
+            update(lag, lag <= maxLag.toMillis());
+        } catch (DataAccessException e) {
+            log.warn("Replica lag probe failed, routing reads to the primary: {}", e.getMessage());
+            update(-1, false);
+        }
+    }
+
+    private long lag(long replicaBeat, long now) {
+        if (lastBeat >= 0 && replicaBeat >= lastBeat) {
+            return 0;
+        }
+        return Math.max(0, now - replicaBeat);
+    }
+
+    private void update(long lag, boolean usable) {
+        lagMillis = lag;
+        if (usable != replicaUsable) {
+            log.info(usable ? "Replica is within {} ms of the primary, routing read-only transactions to it"
+                    : "Replica lag {} ms exceeds the limit, routing reads to the primary", lag);
+        }
+        replicaUsable = usable;
+    }
+}
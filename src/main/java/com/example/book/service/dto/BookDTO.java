@@ -24,5 +24,14 @@ public class BookDTO {
     private String characteristics;
     private String description;
     private Language language;
+
+    /**
+     * Creates a book without its text fields ({@code characteristics} and {@code description}),
+     * for queries that must not read the LOB columns.
+     */
+    public BookDTO(Long id, String name, String genre, AgeGroup targetAgeGroup, BigDecimal price,
+                   LocalDate publicationDate, String author, Integer pages, Language language) {
+        this(id, name, genre, targetAgeGroup, price, publicationDate, author, pages, null, null, language);
+    }
 }
 
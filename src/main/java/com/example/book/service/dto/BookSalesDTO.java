@@ -0,0 +1,14 @@
+package com.example.book.service.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * The sales of one book over a period, as shown in the best-seller list of the analytics dashboard.
+ *
+ * @param bookId  the ID of the book.
+ * @param name    the name of the book, or {@code null} if it has been deleted.
+ * @param units   the number of copies sold.
+ * @param revenue the revenue of the copies sold.
+ */
+public record BookSalesDTO(Long bookId, String name, long units, BigDecimal revenue) {
+}
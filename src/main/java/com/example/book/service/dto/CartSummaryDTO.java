@@ -0,0 +1,13 @@
+package com.example.book.service.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * The state of a client's shopping cart after a change, as shown in the cart badge.
+ *
+ * @param orderId   the ID of the draft order backing the cart.
+ * @param itemCount the number of books in the cart, counting every copy.
+ * @param total     the total price of the cart.
+ */
+public record CartSummaryDTO(Long orderId, int itemCount, BigDecimal total) {
+}
@@ -3,6 +3,7 @@ package com.example.book.service.dto;
 import lombok.*;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 
 @Getter
 @Setter
@@ -16,6 +17,17 @@ public class ClientDTO {
     private String lastName;
     private BigDecimal balance;
     private Boolean enabled;
+    private LocalDateTime registeredAt;
+    private Integer orderCount;
+    private BigDecimal lifetimeSpend;
+    private LocalDateTime lastOrderAt;
 
+    /**
+     * Creates a client without order statistics, as projected by the profile queries.
+     */
+    public ClientDTO(Long id, String email, String firstName, String lastName, BigDecimal balance,
+                     Boolean enabled, LocalDateTime registeredAt) {
+        this(id, email, firstName, lastName, balance, enabled, registeredAt, null, null, null);
+    }
 }
 
@@ -0,0 +1,12 @@
+package com.example.book.service.dto;
+
+import java.util.List;
+
+/**
+ * One page of the admin client directory.
+ *
+ * @param clients   the clients on the page, in the requested order.
+ * @param nextAfter the ID of the client the next page starts after, or {@code null} on the last page.
+ */
+public record ClientPageDTO(List<ClientDTO> clients, Long nextAfter) {
+}
@@ -0,0 +1,71 @@
+package com.example.book.service.dto;
+
+import com.example.book.service.model.Client;
+import org.springframework.data.domain.Sort;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * The orders in which the admin client directory can be listed.
+ * <p>
+ * Every order ends with the client ID, so it is total and can be paged by keyset: a page starts
+ * after the sort key of the last client of the previous page. Each order is backed by an index with
+ * the same columns, created in {@code V9__Create_client_directory_indexes.sql}.
+ * <p>
+ * The balance orders use the balance snapshot, which is indexed, rather than the current balance,
+ * which is computed from the ledger. They may therefore lag behind the balances shown by up to one
+ * ledger compaction interval.
+ */
+public enum ClientSort {
+
+    NAME("Name", Sort.by("lastName", "firstName", "id")),
+    NEWEST("Newest first", Sort.by(Sort.Direction.DESC, "registeredAt", "id")),
+    OLDEST("Oldest first", Sort.by("registeredAt", "id")),
+    BALANCE_HIGH("Highest balance", Sort.by(Sort.Direction.DESC, "balance", "id")),
+    BALANCE_LOW("Lowest balance", Sort.by("balance", "id"));
+
+    private static final Map<String, Function<Client, Object>> PROPERTIES = Map.of(
+            "lastName", Client::getLastName,
+            "firstName", Client::getFirstName,
+            "registeredAt", Client::getRegisteredAt,
+            "balance", Client::getBalance,
+            "id", Client::getId);
+
+    private final String label;
+    private final Sort sort;
+
+    ClientSort(String label, Sort sort) {
+        this.label = label;
+        this.sort = sort;
+    }
+
+    /**
+     * @return the name of the order, as shown to admins.
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * @return the sort, including the ID that breaks ties.
+     */
+    public Sort getSort() {
+        return sort;
+    }
+
+    /**
+     * Reads the sort key of a client, which a page following the client starts after.
+     *
+     * @param client the last client of a page.
+     * @return the values of the sorted properties, keyed by property name.
+     */
+    public Map<String, Object> keyOf(Client client) {
+        Map<String, Object> key = new LinkedHashMap<>();
+        for (Sort.Order order : sort) {
+            key.put(order.getProperty(), PROPERTIES.get(order.getProperty()).apply(client));
+        }
+        return key;
+    }
+}
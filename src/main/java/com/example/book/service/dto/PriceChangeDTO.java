@@ -0,0 +1,26 @@
+package com.example.book.service.dto;
+
+import com.example.book.service.model.enums.PriceChangeMode;
+import com.example.book.service.model.enums.PriceChangeScope;
+import lombok.*;
+
+import java.math.BigDecimal;
+
+/**
+ * A bulk price change, as submitted from the book management page.
+ * <p>
+ * The {@code target} is a genre or an author name, or a comma-separated list of book IDs,
+ * depending on the {@code scope}. The {@code amount} is a percentage or an amount of money
+ * depending on the {@code mode}; a negative amount lowers the prices.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PriceChangeDTO {
+    private PriceChangeScope scope;
+    private String target;
+    private PriceChangeMode mode;
+    private BigDecimal amount;
+}
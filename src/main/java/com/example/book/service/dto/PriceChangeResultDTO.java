@@ -0,0 +1,10 @@
+package com.example.book.service.dto;
+
+/**
+ * The outcome of a bulk price change.
+ *
+ * @param books       the number of books repriced.
+ * @param draftOrders the number of draft orders whose totals were recomputed.
+ */
+public record PriceChangeResultDTO(int books, int draftOrders) {
+}
@@ -0,0 +1,13 @@
+package com.example.book.service.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * The sales of one group, such as a genre or a day, over a period of the analytics dashboard.
+ *
+ * @param key     the group: a genre name or an ISO date.
+ * @param units   the number of copies sold.
+ * @param revenue the revenue of the copies sold.
+ */
+public record SalesTotalDTO(String key, long units, BigDecimal revenue) {
+}
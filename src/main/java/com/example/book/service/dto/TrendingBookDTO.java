@@ -0,0 +1,12 @@
+package com.example.book.service.dto;
+
+/**
+ * A book in the "trending now" list.
+ *
+ * @param id     the ID of the book.
+ * @param name   the name of the book.
+ * @param author the author of the book.
+ * @param score  the estimated weighted number of views and cart adds in the window.
+ */
+public record TrendingBookDTO(Long id, String name, String author, long score) {
+}
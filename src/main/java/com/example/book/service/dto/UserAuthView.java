@@ -0,0 +1,25 @@
+package com.example.book.service.dto;
+
+import com.example.book.service.model.enums.Role;
+
+/**
+ * A flat, read-only projection of the columns needed to authenticate a user.
+ * <p>
+ * It is populated by a native query against the {@code users} table alone, so loading
+ * a principal never joins the {@code clients} or {@code admins} tables of the JOINED
+ * inheritance hierarchy.
+ *
+ * @see com.example.book.service.repo.UserRepository#findAuthViewByEmail(String)
+ */
+public interface UserAuthView {
+
+    Long getId();
+
+    String getEmail();
+
+    String getPassword();
+
+    Role getRole();
+
+    Boolean getEnabled();
+}
@@ -0,0 +1,85 @@
+package com.example.book.service.dto;
+
+import com.example.book.service.model.User;
+import com.example.book.service.model.enums.Role;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.io.Serial;
+import java.util.Collection;
+
+/**
+ * A compact, immutable representation of an authenticated user.
+ * <p>
+ * This record is what Spring Security keeps in the {@code SecurityContext} (and therefore
+ * in every {@code HttpSession}) instead of the {@link User} JPA entity. It carries only the
+ * fields needed for authorization decisions, has no Hibernate proxies or Lombok state, and
+ * serializes to a fraction of the entity's size, which keeps sessions cheap both in memory
+ * and in a shared session store.
+ * <p>
+ * The {@code password} component is only populated while the login is being verified.
+ * Once authentication succeeds, the principal stored in the session is replaced by
+ * {@link #withoutPassword()}, so the password hash never leaves the login request.
+ *
+ * @param id       the identifier of the user.
+ * @param email    the email address, which also serves as the username.
+ * @param password the hashed password, or {@code null} once authentication has completed.
+ * @param role     the role of the user.
+ * @param enabled  whether the account was enabled at login time.
+ */
+public record UserPrincipal(Long id, String email, String password, Role role, boolean enabled)
+        implements UserDetails {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Builds a principal from a loaded {@link User} entity.
+     *
+     * @param user the user entity.
+     * @return a new {@link UserPrincipal} holding the entity's security-relevant fields.
+     */
+    public static UserPrincipal from(User user) {
+        return new UserPrincipal(user.getId(), user.getEmail(), user.getPassword(), user.getRole(), user.isEnabled());
+    }
+
+    /**
+     * Builds a principal from the flat authentication projection.
+     *
+     * @param view the projection loaded from the {@code users} table.
+     * @return a new {@link UserPrincipal} holding the projected fields.
+     */
+    public static UserPrincipal from(UserAuthView view) {
+        return new UserPrincipal(view.getId(), view.getEmail(), view.getPassword(), view.getRole(),
+                Boolean.TRUE.equals(view.getEnabled()));
+    }
+
+    /**
+     * Returns a copy of this principal with the password hash removed.
+     *
+     * @return a {@link UserPrincipal} suitable for storing in the session.
+     */
+    public UserPrincipal withoutPassword() {
+        return password == null ? this : new UserPrincipal(id, email, null, role, enabled);
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return role.getAuthorities();
+    }
+
+    @Override
+    public String getPassword() {
+        return password;
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+}
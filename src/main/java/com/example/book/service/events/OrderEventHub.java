@@ -0,0 +1,257 @@
+package com.example.book.service.events;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fans out {@link OrderStatusChangedEvent}s to server-sent event streams.
+ * <p>
+ * Clients subscribe to the changes of their own orders and administrators to all changes. The
+ * stream is an {@link SseEmitter}, so an open connection holds no request thread, and an idle
+ * subscriber costs only the emitter and a small record.
+ * <p>
+ * Publishing never blocks on a subscriber. Each event is appended to the subscriber's buffer, which
+ * is allocated on first use and holds at most {@code bufferSize} events, and a drain task writes
+ * the buffer to the connection on a virtual thread. If a subscriber falls that far behind, its
+ * buffer is cleared and replaced by a single {@value #RESYNC_EVENT} event, which tells the page to
+ * reload. Subscribers whose connection fails, times out or completes are removed. A heartbeat
+ * comment every {@code heartbeat-interval} detects connections that were dropped silently.
+ */
+@Slf4j
+@Component
+public class OrderEventHub {
+
+    /**
+     * The SSE event name of an order status change.
+     */
+    public static final String STATUS_EVENT = "order-status";
+
+    /**
+     * The SSE event name sent after a subscriber's buffer overflowed.
+     */
+    public static final String RESYNC_EVENT = "resync";
+
+    private final Set<Subscriber> admins = ConcurrentHashMap.newKeySet();
+    private final ConcurrentMap<String, Set<Subscriber>> clients = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final int maxSubscribers;
+    private final int bufferSize;
+    private final long timeoutMillis;
+    private final Counter overflows;
+
+    public OrderEventHub(@Value("${app.order-events.max-subscribers:10000}") int maxSubscribers,
+                         @Value("${app.order-events.buffer-size:32}") int bufferSize,
+                         @Value("${app.order-events.timeout:PT30M}") Duration timeout,
+                         MeterRegistry meterRegistry) {
+        this.maxSubscribers = maxSubscribers;
+        this.bufferSize = bufferSize;
+        this.timeoutMillis = timeout.toMillis();
+        Gauge.builder("bookstore.order.events.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Open order status event streams")
+                .register(meterRegistry);
+        this.overflows = Counter.builder("bookstore.order.events.overflows")
+                .description("Subscribers that fell too far behind and were asked to reload")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Opens a stream of status changes of one client's orders.
+     *
+     * @param clientEmail the email of the client.
+     * @return the emitter to return from the controller, or {@code null} if the hub is full.
+     */
+    public SseEmitter subscribeClient(String clientEmail) {
+        Subscriber subscriber = newSubscriber();
+        if (subscriber == null) {
+            return null;
+        }
+        Set<Subscriber> set = clients.computeIfAbsent(clientEmail, email -> ConcurrentHashMap.newKeySet());
+        set.add(subscriber);
+        subscriber.onClose(() -> clients.computeIfPresent(clientEmail, (email, current) -> {
+            current.remove(subscriber);
+            return current.isEmpty() ? null : current;
+        }));
+        return subscriber.emitter;
+    }
+
+    /**
+     * Opens a stream of status changes of all orders.
+     *
+     * @return the emitter to return from the controller, or {@code null} if the hub is full.
+     */
+    public SseEmitter subscribeAdmin() {
+        Subscriber subscriber = newSubscriber();
+        if (subscriber == null) {
+            return null;
+        }
+        admins.add(subscriber);
+        subscriber.onClose(() -> admins.remove(subscriber));
+        return subscriber.emitter;
+    }
+
+    /**
+     * Delivers a status change to the owning client and to all administrators, once the
+     * transaction that made it has committed.
+     *
+     * @param event the status change.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        Set<Subscriber> owners = clients.get(event.clientEmail());
+        if (owners != null) {
+            owners.forEach(subscriber -> subscriber.enqueue(SseEmitter.event().name(STATUS_EVENT).data(event)));
+        }
+        admins.forEach(subscriber -> subscriber.enqueue(SseEmitter.event().name(STATUS_EVENT).data(event)));
+    }
+
+    /**
+     * Sends a comment to every subscriber, which removes connections that were closed by the peer.
+     */
+    @Scheduled(fixedDelayString = "${app.order-events.heartbeat-interval:PT30S}",
+            initialDelayString = "${app.order-events.heartbeat-interval:PT30S}")
+    public void sendHeartbeats() {
+        admins.forEach(subscriber -> subscriber.enqueue(SseEmitter.event().comment("heartbeat")));
+        clients.values().forEach(set -> set.forEach(subscriber -> subscriber.enqueue(SseEmitter.event().comment("heartbeat"))));
+    }
+
+    /**
+     * @return the number of open streams.
+     */
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        admins.forEach(subscriber -> subscriber.emitter.complete());
+        clients.values().forEach(set -> set.forEach(subscriber -> subscriber.emitter.complete()));
+        senders.shutdown();
+    }
+
+    /**
+     * Creates the emitter of a new stream.
+     *
+     * @param timeoutMillis the time after which the stream is closed, in milliseconds.
+     * @return a new emitter.
+     */
+    protected SseEmitter createEmitter(long timeoutMillis) {
+        return new SseEmitter(timeoutMillis);
+    }
+
+    private Subscriber newSubscriber() {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            return null;
+        }
+        Subscriber subscriber = new Subscriber(createEmitter(timeoutMillis));
+        subscriber.onClose(subscriberCount::decrementAndGet);
+        return subscriber;
+    }
+
+    /**
+     * One open stream with its pending events.
+     */
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private ArrayDeque<SseEmitter.SseEventBuilder> buffer;
+        private boolean draining;
+        private boolean closed;
+        private Runnable closeActions = () -> { };
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+            emitter.onCompletion(this::close);
+            emitter.onTimeout(this::close);
+            emitter.onError(error -> close());
+        }
+
+        private synchronized void onClose(Runnable action) {
+            Runnable previous = closeActions;
+            closeActions = () -> {
+                previous.run();
+                action.run();
+            };
+        }
+
+        private void close() {
+            Runnable actions;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                buffer = null;
+                actions = closeActions;
+            }
+            actions.run();
+        }
+
+        private void enqueue(SseEmitter.SseEventBuilder event) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                if (buffer == null) {
+                    buffer = new ArrayDeque<>(4);
+                }
+                if (buffer.size() >= bufferSize) {
+                    buffer.clear();
+                    buffer.add(SseEmitter.event().name(RESYNC_EVENT).data(""));
+                    overflows.increment();
+                } else {
+                    buffer.add(event);
+                }
+                if (draining) {
+                    return;
+                }
+                draining = true;
+            }
+            senders.execute(this::drain);
+        }
+
+        private void drain() {
+            while (true) {
+                SseEmitter.SseEventBuilder next;
+                synchronized (this) {
+                    next = buffer == null ? null : buffer.poll();
+                    if (next == null) {
+                        // Idle subscribers give their buffer back.
+                        buffer = null;
+                        draining = false;
+                        return;
+                    }
+                }
+                try {
+                    emitter.send(next);
+                } catch (IOException | IllegalStateException e) {
+                    log.debug("Dropping order event subscriber: {}", e.getMessage());
+                    emitter.completeWithError(e);
+                    close();
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.book.service.events;
+
+import com.example.book.service.model.enums.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Published by the order service when an order moves to another status.
+ * <p>
+ * The event is delivered to subscribers of the {@link OrderEventHub} once the transaction that
+ * changed the order has committed, and is also what they receive as the event payload.
+ *
+ * @param orderId     the ID of the order.
+ * @param clientEmail the email of the client who owns the order.
+ * @param from        the previous status.
+ * @param to          the new status.
+ * @param price       the order total.
+ * @param changedAt   when the change was made.
+ */
+public record OrderStatusChangedEvent(Long orderId, String clientEmail, OrderStatus from, OrderStatus to,
+                                      BigDecimal price, Instant changedAt) {
+}
@@ -0,0 +1,94 @@
+package com.example.book.service.idempotency;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.time.Duration;
+
+/**
+ * Deduplicates submissions of handlers annotated with {@link Idempotent}.
+ * <p>
+ * The key sent in the {@value #KEY_PARAMETER} form field is scoped to the authenticated user and
+ * the request URI before it is claimed in the {@link IdempotencyStore}:
+ * <ul>
+ *   <li>The first request with a key is processed normally and its response (status and redirect
+ *       location) is recorded once the request completes.</li>
+ *   <li>A duplicate of a completed request is answered with the recorded response.</li>
+ *   <li>A duplicate that arrives while the first request is still running waits for its outcome,
+ *       up to {@code app.idempotency.wait-timeout}, and is answered with {@code 409 Conflict} if
+ *       none becomes available.</li>
+ * </ul>
+ * Requests that fail with an exception or a server error release their key so that they can be
+ * retried. Requests without a key are processed as before.
+ */
+@Component
+@RequiredArgsConstructor
+public class IdempotencyInterceptor implements HandlerInterceptor {
+
+    /**
+     * The name of the form field carrying the idempotency key.
+     */
+    public static final String KEY_PARAMETER = "idempotencyKey";
+
+    private static final String CLAIM_ATTRIBUTE = IdempotencyInterceptor.class.getName() + ".CLAIM";
+
+    private final IdempotencyStore idempotencyStore;
+
+    @Value("${app.idempotency.wait-timeout:PT10S}")
+    private Duration waitTimeout;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        if (!(handler instanceof HandlerMethod handlerMethod) || !handlerMethod.hasMethodAnnotation(Idempotent.class)) {
+            return true;
+        }
+        String key = request.getParameter(KEY_PARAMETER);
+        if (key == null || key.isBlank()) {
+            return true;
+        }
+
+        IdempotencyStore.Claim claim = idempotencyStore.claim(scope(request, key));
+        if (claim.acquired()) {
+            request.setAttribute(CLAIM_ATTRIBUTE, claim.id());
+            return true;
+        }
+
+        IdempotencyStore.Outcome outcome = claim.awaitOutcome(waitTimeout);
+        if (outcome == null) {
+            response.sendError(HttpStatus.CONFLICT.value(), "This request is already being processed.");
+        } else if (outcome.redirectLocation() != null) {
+            response.sendRedirect(outcome.redirectLocation());
+        } else {
+            response.setStatus(outcome.status());
+        }
+        return false;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object id = request.getAttribute(CLAIM_ATTRIBUTE);
+        if (id == null) {
+            return;
+        }
+        if (ex != null || response.getStatus() >= HttpStatus.INTERNAL_SERVER_ERROR.value()) {
+            idempotencyStore.release((String) id);
+        } else {
+            idempotencyStore.complete((String) id,
+                    new IdempotencyStore.Outcome(response.getStatus(), response.getHeader("Location")));
+        }
+    }
+
+    private static String scope(HttpServletRequest request, String key) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String principal = authentication != null ? authentication.getName() : "";
+        return principal + '\n' + request.getRequestURI() + '\n' + key;
+    }
+}
@@ -0,0 +1,256 @@
+package com.example.book.service.idempotency;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.*;
+
+/**
+ * Remembers recently seen idempotency keys and the outcome of the request that first used them.
+ * <p>
+ * The store has two tiers:
+ * <ul>
+ *   <li>A bounded in-memory map, which answers duplicates on the same node in O(1) and lets a
+ *       duplicate that arrives while the first request is still running wait for its outcome.</li>
+ *   <li>The compact {@code idempotency_keys} table, keyed by a SHA-256 hash of the scoped key,
+ *       which makes keys visible to other nodes and survives restarts.</li>
+ * </ul>
+ * Keys expire after {@code app.idempotency.ttl}. Expired rows are deleted by a scheduled job in
+ * bounded batches; the in-memory tier evicts its oldest entries once it reaches its capacity.
+ *
+ * @see IdempotencyInterceptor
+ */
+@Slf4j
+@Component
+public class IdempotencyStore {
+
+    private static final String INSERT_KEY =
+            "INSERT INTO idempotency_keys (key_hash, status, created_at) VALUES (?, 'IN_PROGRESS', ?)";
+    private static final String TAKE_OVER_EXPIRED_KEY =
+            "UPDATE idempotency_keys SET status = 'IN_PROGRESS', response_status = NULL, redirect_location = NULL, "
+                    + "created_at = ? WHERE key_hash = ? AND created_at < ?";
+    private static final String COMPLETE_KEY =
+            "UPDATE idempotency_keys SET status = 'COMPLETED', response_status = ?, redirect_location = ? WHERE key_hash = ?";
+    private static final String SELECT_KEY =
+            "SELECT status, response_status, redirect_location, created_at FROM idempotency_keys WHERE key_hash = ?";
+    private static final String DELETE_KEY = "DELETE FROM idempotency_keys WHERE key_hash = ?";
+    private static final String DELETE_EXPIRED = "DELETE FROM idempotency_keys WHERE created_at < ? LIMIT ?";
+
+    /**
+     * The number of times a key is inserted again when its row disappears between a failed insert
+     * and the read of the stored outcome.
+     */
+    private static final int MAX_CLAIM_ATTEMPTS = 3;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int capacity;
+    private final Duration ttl;
+    private final int cleanupBatchSize;
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Queue<String> insertionOrder = new ConcurrentLinkedQueue<>();
+
+    public IdempotencyStore(JdbcTemplate jdbcTemplate,
+                            @Value("${app.idempotency.capacity:100000}") int capacity,
+                            @Value("${app.idempotency.ttl:PT24H}") Duration ttl,
+                            @Value("${app.idempotency.cleanup-batch-size:1000}") int cleanupBatchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.capacity = capacity;
+        this.ttl = ttl;
+        this.cleanupBatchSize = cleanupBatchSize;
+    }
+
+    /**
+     * Attempts to claim a key for a new request.
+     *
+     * @param scopedKey the key, already scoped to the user and route.
+     * @return a {@link Claim} that is either acquired (the caller should process the request and then
+     *         call {@link #complete} or {@link #release}) or holds the outcome of an earlier request.
+     */
+    public Claim claim(String scopedKey) {
+        String id = hash(scopedKey);
+        Entry entry = new Entry(System.currentTimeMillis());
+        Entry existing = entries.putIfAbsent(id, entry);
+        if (existing != null && !existing.isExpired(ttl)) {
+            return new Claim(id, false, existing.outcome);
+        }
+        if (existing != null) {
+            entries.replace(id, existing, entry);
+        }
+        insertionOrder.add(id);
+        evictIfFull();
+
+        byte[] keyHash = HexFormat.of().parseHex(id);
+        for (int attempt = 0; attempt < MAX_CLAIM_ATTEMPTS; attempt++) {
+            try {
+                jdbcTemplate.update(INSERT_KEY, keyHash, entry.createdAt);
+                return new Claim(id, true, entry.outcome);
+            } catch (DuplicateKeyException e) {
+                // Another node (or this node before a restart) has already seen the key. A row that
+                // has expired but not been purged yet is taken over as if it were absent.
+                if (jdbcTemplate.update(TAKE_OVER_EXPIRED_KEY, entry.createdAt, keyHash, entry.createdAt - ttl.toMillis()) == 1) {
+                    return new Claim(id, true, entry.outcome);
+                }
+                Outcome stored = loadStoredOutcome(id);
+                if (stored != null) {
+                    entry.outcome.complete(stored);
+                    return new Claim(id, false, entry.outcome);
+                }
+                // The row was released, purged or expired in the meantime; claim the key again.
+            }
+        }
+        entries.remove(id, entry);
+        entry.outcome.complete(null);
+        return new Claim(id, false, entry.outcome);
+    }
+
+    /**
+     * Records the outcome of a claimed key, releasing any duplicates waiting for it.
+     *
+     * @param id      the id returned by {@link Claim#id()}.
+     * @param outcome the response of the first request.
+     */
+    public void complete(String id, Outcome outcome) {
+        jdbcTemplate.update(COMPLETE_KEY, outcome.status(), outcome.redirectLocation(), HexFormat.of().parseHex(id));
+        Entry entry = entries.get(id);
+        if (entry != null) {
+            entry.outcome.complete(outcome);
+        }
+    }
+
+    /**
+     * Forgets a claimed key whose request failed, so that the client can retry it.
+     *
+     * @param id the id returned by {@link Claim#id()}.
+     */
+    public void release(String id) {
+        jdbcTemplate.update(DELETE_KEY, HexFormat.of().parseHex(id));
+        Entry entry = entries.remove(id);
+        if (entry != null) {
+            entry.outcome.complete(null);
+        }
+    }
+
+    /**
+     * Deletes expired keys from the database in bounded batches and drops expired local entries.
+     */
+    @Scheduled(fixedDelayString = "${app.idempotency.cleanup-interval:PT5M}")
+    public void purgeExpiredKeys() {
+        long threshold = System.currentTimeMillis() - ttl.toMillis();
+        int deleted;
+        int total = 0;
+        do {
+            deleted = jdbcTemplate.update(DELETE_EXPIRED, threshold, cleanupBatchSize);
+            total += deleted;
+        } while (deleted == cleanupBatchSize);
+        entries.values().removeIf(entry -> entry.isExpired(ttl));
+        insertionOrder.removeIf(id -> !entries.containsKey(id));
+        if (total > 0) {
+            log.debug("Purged {} expired idempotency keys", total);
+        }
+    }
+
+    private void evictIfFull() {
+        while (entries.size() > capacity) {
+            String oldest = insertionOrder.poll();
+            if (oldest == null) {
+                return;
+            }
+            Entry entry = entries.get(oldest);
+            // Never evict a key whose request is still running; duplicates may be waiting on it.
+            if (entry != null && entry.outcome.isDone()) {
+                entries.remove(oldest, entry);
+            } else if (entry != null) {
+                insertionOrder.add(oldest);
+                return;
+            }
+        }
+    }
+
+    private Outcome loadStoredOutcome(String id) {
+        List<Outcome> rows = jdbcTemplate.query(SELECT_KEY, (rs, rowNum) -> {
+            if (rs.getLong("created_at") < System.currentTimeMillis() - ttl.toMillis()) {
+                return null;
+            }
+            if (!"COMPLETED".equals(rs.getString("status"))) {
+                return Outcome.IN_PROGRESS_ELSEWHERE;
+            }
+            return new Outcome(rs.getInt("response_status"), rs.getString("redirect_location"));
+        }, (Object) HexFormat.of().parseHex(id));
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    private static String hash(String scopedKey) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(scopedKey.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * The recorded response of the first request that used a key.
+     *
+     * @param status           the HTTP status of the response.
+     * @param redirectLocation the {@code Location} of a redirect response, or {@code null}.
+     */
+    public record Outcome(int status, String redirectLocation) {
+
+        /**
+         * Marks a key whose first request is still being processed on another node.
+         */
+        public static final Outcome IN_PROGRESS_ELSEWHERE = new Outcome(409, null);
+    }
+
+    /**
+     * The result of {@link #claim(String)}.
+     *
+     * @param id       the hashed key, used to complete or release the claim.
+     * @param acquired {@code true} if the caller owns the key and must process the request.
+     * @param outcome  the (possibly not yet completed) outcome of the first request.
+     */
+    public record Claim(String id, boolean acquired, CompletableFuture<Outcome> outcome) {
+
+        /**
+         * Waits for the outcome of the first request.
+         *
+         * @param timeout the maximum time to wait.
+         * @return the outcome, or {@code null} if the first request failed or did not finish in time.
+         */
+        public Outcome awaitOutcome(Duration timeout) {
+            try {
+                return outcome.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException | ExecutionException e) {
+                return null;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final long createdAt;
+        private final CompletableFuture<Outcome> outcome = new CompletableFuture<>();
+
+        private Entry(long createdAt) {
+            this.createdAt = createdAt;
+        }
+
+        private boolean isExpired(Duration ttl) {
+            return createdAt < System.currentTimeMillis() - ttl.toMillis();
+        }
+    }
+}
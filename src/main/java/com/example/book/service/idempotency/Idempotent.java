@@ -0,0 +1,21 @@
+package com.example.book.service.idempotency;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a controller handler whose form submissions carry an {@code idempotencyKey} token.
+ * <p>
+ * Repeated submissions of the same token by the same user (double clicks, browser retries,
+ * back-and-resubmit) are answered by {@link IdempotencyInterceptor} with the outcome of the
+ * first submission, without invoking the handler or the services behind it again.
+ *
+ * @see IdempotencyInterceptor
+ * @see IdempotencyStore
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Idempotent {
+}
@@ -17,5 +17,6 @@ public interface BookItemMapper {
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "book", ignore = true)
     @Mapping(target = "order", ignore = true)
+    @Mapping(target = "unitPrice", ignore = true)
     BookItem toEntity(BookItemDTO dto);
 }
@@ -8,10 +8,12 @@ import org.mapstruct.*;
 public interface BookMapper {
     BookDTO toDTO(Book book);
     @Mapping(target = "id", ignore = true)
+    @Mapping(target = "version", ignore = true)
     Book toEntity(BookDTO dto);
 
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
     @Mapping(target = "id", ignore = true)
+    @Mapping(target = "version", ignore = true)
     void updateBookFromDTO(BookDTO dto, @MappingTarget Book entity);
 }
 
@@ -8,17 +8,39 @@ import org.mapstruct.*;
 @Mapper(componentModel = "spring")
 public interface ClientMapper {
 
+    @Mapping(source = "currentBalance", target = "balance")
+    @Mapping(target = "orderCount", ignore = true)
+    @Mapping(target = "lifetimeSpend", ignore = true)
+    @Mapping(target = "lastOrderAt", ignore = true)
     ClientDTO toDTO(Client client);
 
+    /**
+     * Maps a client of the admin client directory, whose order statistics were fetched with it.
+     */
+    @Mapping(source = "currentBalance", target = "balance")
+    @Mapping(source = "stats.orderCount", target = "orderCount", defaultValue = "0")
+    @Mapping(source = "stats.lifetimeSpend", target = "lifetimeSpend", defaultValue = "0")
+    @Mapping(source = "stats.lastOrderAt", target = "lastOrderAt")
+    ClientDTO toDirectoryDTO(Client client);
+
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "role", expression = "java(com.example.book.service.model.enums.Role.CLIENT)")
     @Mapping(target = "enabled", constant = "true")
+    @Mapping(target = "registeredAt", ignore = true)
+    @Mapping(target = "emailGrams", ignore = true)
+    @Mapping(target = "balanceLedgerId", ignore = true)
+    @Mapping(target = "currentBalance", ignore = true)
+    @Mapping(target = "stats", ignore = true)
     Client toEntity(ClientCreateRequestDTO dto);
 
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "role", ignore = true)
     @Mapping(target = "password", ignore = true)
+    @Mapping(target = "balance", ignore = true)
+    @Mapping(target = "balanceLedgerId", ignore = true)
+    @Mapping(target = "currentBalance", ignore = true)
+    @Mapping(target = "stats", ignore = true)
     void updateClientFromDTO(ClientDTO dto, @MappingTarget Client entity);
 }
 
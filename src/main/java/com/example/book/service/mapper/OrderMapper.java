@@ -10,7 +10,7 @@ import org.mapstruct.*;
 public interface OrderMapper {
 
     @Mapping(source = "client.email", target = "clientEmail")
-    @Mapping(source = "client.balance", target = "clientBalance")
+    @Mapping(source = "client.currentBalance", target = "clientBalance")
     OrderDTO toDTO(Order order);
 
 
@@ -20,6 +20,7 @@ public interface OrderMapper {
     @Mapping(target = "status", ignore = true)
     @Mapping(target = "orderDate", ignore = true)
     @Mapping(target = "price", ignore = true)
+    @Mapping(target = "version", ignore = true)
     Order toEntity(OrderDTO dto);
 
 
@@ -0,0 +1,99 @@
+package com.example.book.service.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Times every public service method and controller handler.
+ * <p>
+ * Each call is recorded in the {@value #METRIC_NAME} timer with the following tags:
+ * <ul>
+ *   <li>{@code layer} – {@code service} or {@code controller}.</li>
+ *   <li>{@code class} and {@code method} – the simple class name and the method name.</li>
+ *   <li>{@code exception} – the simple name of the thrown exception, or {@code none}.</li>
+ *   <li>{@code transition} – the {@link OrderTransition} declared on the method, or {@code none}.</li>
+ * </ul>
+ * The timer's count gives throughput, calls with an {@code exception} other than {@code none}
+ * give error counts, and the percentiles and histogram buckets are configured through the
+ * {@code management.metrics.distribution.*} properties.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class MethodMetricsAspect {
+
+    /**
+     * The name of the timer that records service and controller calls.
+     */
+    public static final String METRIC_NAME = "bookstore.method.calls";
+
+    private static final String NONE = "none";
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<Method, Tags> staticTags = new ConcurrentHashMap<>();
+
+    @Around("execution(public * com.example.book.service.service.impl..*(..))")
+    public Object timeServiceMethod(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(joinPoint, "service");
+    }
+
+    @Around("execution(public * com.example.book.service.controller..*(..))")
+    public Object timeControllerHandler(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(joinPoint, "controller");
+    }
+
+    private Object time(ProceedingJoinPoint joinPoint, String layer) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String exception = NONE;
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+            Tags tags = staticTags.computeIfAbsent(method, m -> tagsFor(m, joinPoint.getTarget().getClass(), layer));
+            sample.stop(Timer.builder(METRIC_NAME)
+                    .description("Latency of service methods and controller handlers")
+                    .tags(tags)
+                    .tag("exception", exception)
+                    .register(meterRegistry));
+        }
+    }
+
+    private static Tags tagsFor(Method method, Class<?> targetClass, String layer) {
+        OrderTransition transition = method.getAnnotation(OrderTransition.class);
+        if (transition == null) {
+            try {
+                transition = targetClass.getMethod(method.getName(), method.getParameterTypes())
+                        .getAnnotation(OrderTransition.class);
+            } catch (NoSuchMethodException e) {
+                // The method is not public on the target class; no transition to report.
+            }
+        }
+        return Tags.of(
+                "layer", layer,
+                "class", targetClass.getSimpleName(),
+                "method", method.getName(),
+                "transition", transition == null ? NONE : describe(transition));
+    }
+
+    private static String describe(OrderTransition transition) {
+        return Arrays.stream(transition.from()).map(Enum::name).collect(Collectors.joining("|"))
+                + "->" + transition.to().name();
+    }
+}
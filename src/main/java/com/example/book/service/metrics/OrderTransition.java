@@ -0,0 +1,30 @@
+package com.example.book.service.metrics;
+
+import com.example.book.service.model.enums.OrderStatus;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares the {@link OrderStatus} transition performed by a service method.
+ * <p>
+ * {@link MethodMetricsAspect} adds the transition as a {@code transition} tag (for example
+ * {@code SUBMITTED->CONFIRMED}) to the method's timer, so that latency and failures can be
+ * broken down by lifecycle step.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface OrderTransition {
+
+    /**
+     * @return the statuses the order may be in before the method runs.
+     */
+    OrderStatus[] from();
+
+    /**
+     * @return the status the order is in after the method succeeds.
+     */
+    OrderStatus to();
+}
@@ -0,0 +1,67 @@
+package com.example.book.service.model;
+
+import com.example.book.service.model.enums.LedgerEntryType;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One movement of a client's balance, as recorded in the append-only {@code balance_ledger} table.
+ * <p>
+ * Entries are inserted and never updated or deleted. The balance of a client is the snapshot kept
+ * in {@link Client#getBalance()} plus the sum of the client's entries recorded after the snapshot
+ * was taken, and the entries as a whole are the audit trail against which balances are reconciled.
+ *
+ * @see Client
+ * @see LedgerEntryType
+ */
+@Entity
+@Table(name = "balance_ledger")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BalanceLedgerEntry {
+
+    /**
+     * The unique identifier of the entry, which also orders the entries of a client.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * The ID of the client whose balance moved. Kept as a plain column so that appending an
+     * entry never loads the client.
+     */
+    @Column(name = "client_id", nullable = false, updatable = false)
+    private Long clientId;
+
+    /**
+     * What caused the movement.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entry_type", nullable = false, updatable = false, length = 20)
+    private LedgerEntryType type;
+
+    /**
+     * The signed amount: positive for credits such as top-ups and refunds, negative for debits.
+     */
+    @Column(name = "amount", nullable = false, updatable = false, precision = 19, scale = 2)
+    private BigDecimal amount;
+
+    /**
+     * The order the movement belongs to, if any.
+     */
+    @Column(name = "order_id", updatable = false)
+    private Long orderId;
+
+    /**
+     * When the entry was recorded.
+     */
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
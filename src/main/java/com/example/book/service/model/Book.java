@@ -116,6 +116,14 @@ public class Book {
     @Column(name = "language", length = 20)
     private Language language;
 
+    /**
+     * The optimistic-locking version, incremented by every update of the book.
+     * It also serves as the validator of the book's representations in the JSON API.
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
 
     /**
      * Compares two Book objects for equality.
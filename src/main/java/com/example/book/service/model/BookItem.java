@@ -5,6 +5,7 @@ import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
 
+import java.math.BigDecimal;
 import java.util.Objects;
 
 /**
@@ -79,6 +80,13 @@ public class BookItem {
     @Column(name = "quantity", nullable = false)
     private Integer quantity;
 
+    /**
+     * The price of one copy when the order was submitted, or {@code null} while it is a draft.
+     * Written by the sales analytics in the submitting transaction, never through the entity.
+     */
+    @Column(name = "unit_price", precision = 10, scale = 2, insertable = false, updatable = false)
+    private BigDecimal unitPrice;
+
     /**
      * Compares two BookItem objects for equality.
      * They are considered equal if they have the same ID. This is a common and reliable
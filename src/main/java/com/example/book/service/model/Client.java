@@ -1,13 +1,24 @@
 package com.example.book.service.model;
 
+import jakarta.persistence.CollectionTable;
 import jakarta.persistence.Column;
+import jakarta.persistence.ElementCollection;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.PrePersist;
 import jakarta.persistence.PrimaryKeyJoinColumn;
 import jakarta.persistence.Table;
 import lombok.*;
 import lombok.experimental.SuperBuilder;
+import org.hibernate.annotations.Formula;
 
 import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
 
 /**
  * Represents a Client user in the system.
@@ -37,13 +48,88 @@ import java.math.BigDecimal;
 public class Client extends User {
 
     /**
-     * The monetary balance available to the client for making purchases.
+     * The snapshot of the client's balance, which includes every ledger entry up to
+     * {@link #balanceLedgerId}.
      * <p>
-     * This field is non-nullable and defaults to {@code BigDecimal.ZERO} for all
-     * new clients upon creation. It is updated when a client tops up their account
-     * or when an order is successfully submitted.
+     * Balance changes are appended to the {@link BalanceLedgerEntry balance ledger} instead of being
+     * written here, and the snapshot is only moved forward by the ledger compactor. The column is
+     * therefore never updated through this entity; use {@link #currentBalance} to read the balance.
      */
-    @Column(name = "balance", nullable = false)
+    @Column(name = "balance", nullable = false, updatable = false)
     @Builder.Default
     private BigDecimal balance = BigDecimal.ZERO;
+
+    /**
+     * The ID of the last ledger entry included in the {@link #balance} snapshot.
+     */
+    @Column(name = "balance_ledger_id", nullable = false, updatable = false)
+    @Builder.Default
+    private Long balanceLedgerId = 0L;
+
+    /**
+     * The current balance: the snapshot plus the ledger entries recorded after it, read with the
+     * client through the covering index on {@code balance_ledger (client_id, id, amount)}.
+     */
+    @Formula("(balance + COALESCE((SELECT SUM(l.amount) FROM balance_ledger l "
+            + "WHERE l.client_id = user_id AND l.id > balance_ledger_id), 0))")
+    @Setter(AccessLevel.NONE)
+    private BigDecimal currentBalance;
+
+    /**
+     * @return the current balance, or the snapshot if the client has not been read from the database.
+     */
+    public BigDecimal getCurrentBalance() {
+        return currentBalance != null ? currentBalance : balance;
+    }
+
+    /**
+     * The client's order statistics, joined from the {@code client_stats} read model.
+     * <p>
+     * The association shares the client's primary key column and is never written through the
+     * client. It is only read where it is fetched with the client, by the admin client directory;
+     * a client who has never submitted an order may have no statistics row.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", insertable = false, updatable = false)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private ClientStats stats;
+
+    /**
+     * The distinct lower-case trigrams of the client's email, which back the substring search of the
+     * admin client directory. They are only ever written, never read through the entity.
+     */
+    @ElementCollection
+    @CollectionTable(name = "client_email_grams", joinColumns = @JoinColumn(name = "user_id"))
+    @Column(name = "gram", nullable = false, length = 3)
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @Builder.Default
+    private Set<String> emailGrams = new HashSet<>();
+
+    /**
+     * Indexes the email of a new client. Emails cannot be changed after registration, so this is
+     * the only time the trigrams are written.
+     */
+    @PrePersist
+    void indexEmail() {
+        emailGrams = trigrams(getEmail());
+    }
+
+    /**
+     * Splits a text into its distinct lower-case trigrams, in order of first occurrence.
+     *
+     * @param text the text to split.
+     * @return the trigrams, or an empty set if the text is shorter than three characters.
+     */
+    public static Set<String> trigrams(String text) {
+        String lower = text.toLowerCase(Locale.ROOT);
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= lower.length(); i++) {
+            grams.add(lower.substring(i, i + 3));
+        }
+        return grams;
+    }
 }
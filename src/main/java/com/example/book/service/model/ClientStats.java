@@ -0,0 +1,54 @@
+package com.example.book.service.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * The order statistics of one client, as kept in the {@code client_stats} read model.
+ * <p>
+ * The statistics are not computed from the orders when they are read. They are updated with deltas
+ * in the transaction that changes an order's status, and can be recomputed from scratch by the
+ * rebuild job; see {@code ClientStatsService}. The entity is therefore read-only.
+ *
+ * @see Client#getStats()
+ */
+@Entity
+@Table(name = "client_stats")
+@Immutable
+@Getter
+@NoArgsConstructor
+public class ClientStats {
+
+    /**
+     * The ID of the client the statistics belong to.
+     */
+    @Id
+    @Column(name = "client_id")
+    private Long clientId;
+
+    /**
+     * The number of the client's paid orders, i.e. submitted or confirmed ones.
+     */
+    @Column(name = "order_count", nullable = false)
+    private Integer orderCount;
+
+    /**
+     * The total price of the client's paid orders. Cancelled orders are refunded and not included.
+     */
+    @Column(name = "lifetime_spend", nullable = false, precision = 19, scale = 2)
+    private BigDecimal lifetimeSpend;
+
+    /**
+     * The date of the client's latest submitted order, including cancelled ones, or {@code null}.
+     */
+    @Column(name = "last_order_at")
+    private LocalDateTime lastOrderAt;
+}
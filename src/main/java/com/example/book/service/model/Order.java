@@ -96,6 +96,14 @@ public class Order {
     @Builder.Default
     private OrderStatus status = OrderStatus.DRAFT;
 
+    /**
+     * The optimistic-locking version. A status change made from a stale copy of the order, such
+     * as a cancellation racing with a bulk cancellation, fails instead of being applied twice.
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     /**
      * Compares two Order objects for equality.
      * Two orders are considered equal if they have the same ID.
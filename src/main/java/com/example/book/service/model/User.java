@@ -10,10 +10,12 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.experimental.SuperBuilder;
+import org.hibernate.annotations.CreationTimestamp;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
@@ -101,6 +103,13 @@ public abstract class User implements UserDetails {
     @Column(name = "role", nullable = false)
     private Role role;
 
+    /**
+     * The time the user registered, set when the user is first saved.
+     */
+    @CreationTimestamp
+    @Column(name = "registered_at", nullable = false, updatable = false)
+    private LocalDateTime registeredAt;
+
     /**
      * Compares two User objects for equality.
      * Two users are considered equal if they have the same ID and email.
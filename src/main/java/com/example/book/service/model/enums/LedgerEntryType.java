@@ -0,0 +1,7 @@
+package com.example.book.service.model.enums;
+
+public enum LedgerEntryType {
+    TOP_UP,
+    ORDER_DEBIT,
+    REFUND
+}
@@ -0,0 +1,9 @@
+package com.example.book.service.model.enums;
+
+/**
+ * How the amount of a bulk price change is applied to each price.
+ */
+public enum PriceChangeMode {
+    PERCENT,
+    ABSOLUTE
+}
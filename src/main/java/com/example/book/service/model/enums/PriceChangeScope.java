@@ -0,0 +1,10 @@
+package com.example.book.service.model.enums;
+
+/**
+ * The books a bulk price change applies to.
+ */
+public enum PriceChangeScope {
+    GENRE,
+    AUTHOR,
+    IDS
+}
@@ -1,7 +1,21 @@
 package com.example.book.service.model.enums;
 
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+
 public enum Role {
     CLIENT,
-    ADMIN
-}
+    ADMIN;
 
+    /**
+     * The Spring Security authorities granted by this role, built once per constant
+     * so that authorization checks do not allocate a new list on every call.
+     */
+    private final List<GrantedAuthority> authorities = List.of(new SimpleGrantedAuthority("ROLE_" + name()));
+
+    public List<GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.book.service.repo;
+
+import com.example.book.service.model.BalanceLedgerEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BalanceLedgerRepository extends JpaRepository<BalanceLedgerEntry, Long> {
+
+    String CURRENT_BALANCE = "SELECT c.balance + COALESCE((SELECT SUM(l.amount) FROM balance_ledger l " +
+            "WHERE l.client_id = c.user_id AND l.id > c.balance_ledger_id), 0) " +
+            "FROM clients c WHERE c.user_id = :clientId";
+
+    @Query(value = CURRENT_BALANCE, nativeQuery = true)
+    Optional<BigDecimal> findCurrentBalance(@Param("clientId") Long clientId);
+
+    /**
+     * Locks the client's row until the transaction ends, so that concurrent debits of the same
+     * client are checked one after the other, and reads its balance snapshot. The row is locked,
+     * not written.
+     *
+     * @return a single row of {@code [balance, balanceLedgerId]}, or none if the client does not exist.
+     */
+    @Query(value = "SELECT c.balance, c.balance_ledger_id FROM clients c WHERE c.user_id = :clientId FOR UPDATE",
+            nativeQuery = true)
+    List<Object[]> lockSnapshot(@Param("clientId") Long clientId);
+
+    /**
+     * Reads the amounts of the client's ledger entries after {@code afterId} with a locking read.
+     * Unlike the plain reads of {@link #findCurrentBalance}, a locking read sees the latest
+     * committed entries even in a repeatable-read transaction whose snapshot predates them.
+     */
+    @Query(value = "SELECT l.amount FROM balance_ledger l WHERE l.client_id = :clientId AND l.id > :afterId FOR UPDATE",
+            nativeQuery = true)
+    List<BigDecimal> lockAmountsAfter(@Param("clientId") Long clientId, @Param("afterId") Long afterId);
+
+    /**
+     * Finds clients with ledger entries that are not yet in their snapshot and were recorded
+     * before {@code cutoff}, with the ID of the last such entry of each client.
+     *
+     * @return rows of {@code [clientId, lastEntryId]}.
+     */
+    @Query(value = "SELECT l.client_id, MAX(l.id) FROM balance_ledger l " +
+            "JOIN clients c ON c.user_id = l.client_id " +
+            "WHERE l.id > c.balance_ledger_id AND l.created_at < :cutoff " +
+            "GROUP BY l.client_id ORDER BY l.client_id LIMIT :limit", nativeQuery = true)
+    List<Object[]> findCompactionCandidates(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+
+    /**
+     * Folds the client's ledger entries up to {@code upToId} into its balance snapshot.
+     * The balance is assigned before the snapshot ID, which MySQL evaluates left to right.
+     */
+    @Modifying
+    @Query(value = "UPDATE clients c SET " +
+            "balance = balance + COALESCE((SELECT SUM(l.amount) FROM balance_ledger l " +
+            "WHERE l.client_id = c.user_id AND l.id > c.balance_ledger_id AND l.id <= :upToId), 0), " +
+            "balance_ledger_id = :upToId " +
+            "WHERE c.user_id = :clientId AND c.balance_ledger_id < :upToId", nativeQuery = true)
+    int foldIntoSnapshot(@Param("clientId") Long clientId, @Param("upToId") Long upToId);
+}
@@ -1,13 +1,20 @@
 package com.example.book.service.repo;
 
+import com.example.book.service.dto.BookDTO;
 import com.example.book.service.model.Book;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface BookRepository extends JpaRepository<Book, Long> {
@@ -16,9 +23,53 @@ public interface BookRepository extends JpaRepository<Book, Long> {
 
     Optional<Book> findByName(String name);
 
+    boolean existsByName(String name);
+
+    @Query("SELECT b.name FROM Book b")
+    Stream<String> streamAllNames();
+
     @Query("SELECT b FROM Book b WHERE " +
             "LOWER(b.name) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
             "LOWER(b.author) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
             "LOWER(b.genre) LIKE LOWER(CONCAT('%', :keyword, '%'))")
     List<Book> searchBooks(@Param("keyword") String keyword);
+
+    @Query("SELECT b.version FROM Book b WHERE b.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    /**
+     * Streams the books with an ID greater than {@code afterId} in ID order, without reading the
+     * {@code characteristics} and {@code description} LOB columns.
+     */
+    @Query("SELECT new com.example.book.service.dto.BookDTO(b.id, b.name, b.genre, b.targetAgeGroup, b.price, " +
+            "b.publicationDate, b.author, b.pages, b.language) FROM Book b WHERE b.id > :afterId ORDER BY b.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "100"))
+    Stream<BookDTO> streamSummariesAfter(@Param("afterId") long afterId, Limit limit);
+
+    /**
+     * Finds the books with the given IDs, without reading the {@code characteristics} and
+     * {@code description} LOB columns.
+     */
+    @Query("SELECT new com.example.book.service.dto.BookDTO(b.id, b.name, b.genre, b.targetAgeGroup, b.price, " +
+            "b.publicationDate, b.author, b.pages, b.language) FROM Book b WHERE b.id IN :ids")
+    List<BookDTO> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Streams the books with an ID greater than {@code afterId} in ID order, including their text fields.
+     */
+    @Query("SELECT new com.example.book.service.dto.BookDTO(b.id, b.name, b.genre, b.targetAgeGroup, b.price, " +
+            "b.publicationDate, b.author, b.pages, b.characteristics, b.description, b.language) " +
+            "FROM Book b WHERE b.id > :afterId ORDER BY b.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "100"))
+    Stream<BookDTO> streamBooksAfter(@Param("afterId") long afterId, Limit limit);
+
+    /**
+     * Summarises the keyset page of at most {@code limit} books after {@code afterId} as
+     * "{@code count-maxId-versionSum}". Any insert, update or delete that changes the page
+     * changes the summary, which reads only the ID and version columns.
+     */
+    @Query(value = "SELECT CONCAT(COUNT(*), '-', COALESCE(MAX(p.id), 0), '-', COALESCE(SUM(p.version), 0)) " +
+            "FROM (SELECT id, version FROM books WHERE id > :afterId ORDER BY id LIMIT :limit) p",
+            nativeQuery = true)
+    String summarisePageAfter(@Param("afterId") long afterId, @Param("limit") int limit);
 }
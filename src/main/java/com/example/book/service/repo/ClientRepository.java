@@ -1,17 +1,83 @@
 package com.example.book.service.repo;
 
+import com.example.book.service.dto.ClientDTO;
 import com.example.book.service.model.Client;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 
 @Repository
-public interface ClientRepository extends JpaRepository<Client, Long> {
+public interface ClientRepository extends JpaRepository<Client, Long>, JpaSpecificationExecutor<Client> {
+
+    /**
+     * The maximum number of trigrams of a search text that are joined. The substring match itself
+     * is always checked; the trigrams only narrow down the candidates, and a few spread over the
+     * text narrow them down about as well as all of them.
+     */
+    int MAX_SEARCH_GRAMS = 4;
 
     Optional<Client> findByEmail(String email);
 
-    List<Client> findByEmailContainingIgnoreCase(String email);
+    @Query(value = "SELECT id FROM users WHERE email = :email AND role = 'CLIENT'", nativeQuery = true)
+    Optional<Long> findIdByEmail(@Param("email") String email);
+
+    @Query("SELECT new com.example.book.service.dto.ClientDTO(c.id, c.email, c.firstName, c.lastName, c.currentBalance, c.enabled, c.registeredAt) " +
+            "FROM Client c WHERE c.email = :email")
+    Optional<ClientDTO> findDTOByEmail(@Param("email") String email);
+
+    @Query("SELECT c.id, c.email FROM Client c WHERE c.id IN :ids")
+    List<Object[]> findEmailsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Matches the clients whose email contains a text, ignoring case.
+     * <p>
+     * For a text of at least three characters, the clients are first narrowed down by joining the
+     * {@code client_email_grams} rows of up to {@value #MAX_SEARCH_GRAMS} of its trigrams, so the
+     * database starts from the rarest trigram's index entries instead of scanning every email. A
+     * shorter text can only be matched by a scan.
+     *
+     * @param text the text to search for.
+     * @return the specification.
+     */
+    static Specification<Client> emailContains(String text) {
+        String lower = text.toLowerCase(Locale.ROOT);
+        List<String> grams = new ArrayList<>(Client.trigrams(lower));
+        return (root, query, cb) -> {
+            int joined = Math.min(grams.size(), MAX_SEARCH_GRAMS);
+            for (int i = 0; i < joined; i++) {
+                // Spread the joined trigrams evenly over the text, always including the first and the last.
+                String gram = grams.get(joined == 1 ? 0 : i * (grams.size() - 1) / (joined - 1));
+                Join<Client, String> join = root.join("emailGrams");
+                join.on(cb.equal(join, gram));
+            }
+            String pattern = "%" + lower.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+            return cb.like(cb.lower(root.get("email")), pattern, '\\');
+        };
+    }
 
+    /**
+     * Fetches the clients' order statistics with them, with an outer join on the primary key, so a
+     * page of the client directory is still read with a single query.
+     *
+     * @return the specification, which adds no restriction.
+     */
+    static Specification<Client> fetchingStats() {
+        return (root, query, cb) -> {
+            if (query.getResultType() == Client.class) {
+                root.fetch("stats", JoinType.LEFT);
+            }
+            return null;
+        };
+    }
 }
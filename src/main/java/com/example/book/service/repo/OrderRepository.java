@@ -2,26 +2,68 @@ package com.example.book.service.repo;
 
 import com.example.book.service.model.Order;
 import com.example.book.service.model.enums.OrderStatus;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+/**
+ * Repository for {@link Order} entities.
+ * <p>
+ * Every query whose result is mapped to an {@code OrderDTO} fetches the client, the line items and
+ * their books in the same statement through an entity graph, so that rendering a list of orders
+ * costs one query regardless of how many orders or items it contains.
+ */
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
 
+    @Override
+    @EntityGraph(attributePaths = {"client", "bookItems", "bookItems.book"})
+    Optional<Order> findById(Long id);
+
+    @Override
+    @EntityGraph(attributePaths = {"client", "bookItems", "bookItems.book"})
+    List<Order> findAll(Sort sort);
+
+    @EntityGraph(attributePaths = {"bookItems", "bookItems.book"})
     Optional<Order> findByClientIdAndStatus(Long clientId, OrderStatus status);
 
+    @Query("SELECT COUNT(o) > 0 FROM Order o WHERE o.id = :orderId AND o.client.email = :clientEmail")
+    boolean existsByIdAndClientEmail(@Param("orderId") Long orderId, @Param("clientEmail") String clientEmail);
+
+    @EntityGraph(attributePaths = {"client", "bookItems", "bookItems.book"})
     @Query("SELECT o FROM Order o JOIN o.client c WHERE LOWER(c.email) LIKE LOWER(CONCAT('%', :email, '%'))")
     List<Order> findOrdersByClientEmail(@Param("email") String email);
 
+    @EntityGraph(attributePaths = {"client", "bookItems", "bookItems.book"})
     @Query("SELECT o FROM Order o WHERE o.client.email = :clientEmail AND o.status = :status")
     List<Order> findAllByClientEmailAndStatus(@Param("clientEmail") String clientEmail, @Param("status") OrderStatus status);
 
 
+    @EntityGraph(attributePaths = {"client", "bookItems", "bookItems.book"})
     @Query("SELECT o FROM Order o WHERE o.client.email = :clientEmail AND o.status <> :status")
     List<Order> findAllByClientEmailAndStatusNot(@Param("clientEmail") String clientEmail, @Param("status") OrderStatus status);
+
+    /**
+     * Locks the submitted and confirmed orders that contain a book, without locking the book
+     * items or the clients.
+     *
+     * @return rows of {@code [orderId, clientId, price, status]}, in order ID order.
+     */
+    @Query(value = "SELECT o.id, o.client_id, o.price, o.status FROM orders o " +
+            "WHERE o.status IN ('SUBMITTED', 'CONFIRMED') " +
+            "AND o.id IN (SELECT i.order_id FROM order_items i WHERE i.book_id = :bookId) " +
+            "ORDER BY o.id FOR UPDATE", nativeQuery = true)
+    List<Object[]> lockPaidOrdersContainingBook(@Param("bookId") Long bookId);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Order o SET o.status = :status, o.version = o.version + 1 WHERE o.id IN :ids")
+    int updateStatusByIdIn(@Param("ids") Collection<Long> ids, @Param("status") OrderStatus status);
 }
@@ -1,12 +1,25 @@
 package com.example.book.service.repo;
 
+import com.example.book.service.dto.UserAuthView;
 import com.example.book.service.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
+
+    @Query(value = "SELECT id, email, password, role, is_enabled AS enabled FROM users WHERE email = :email",
+            nativeQuery = true)
+    Optional<UserAuthView> findAuthViewByEmail(@Param("email") String email);
+
+    @Query(value = "SELECT email FROM users", nativeQuery = true)
+    Stream<String> streamAllEmails();
+
+    boolean existsByEmail(String email);
 }
@@ -1,5 +1,6 @@
 package com.example.book.service.service;
 
+import com.example.book.service.dto.UserPrincipal;
 import com.example.book.service.repo.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -31,17 +32,18 @@ public class AppUserDetailsService implements UserDetailsService {
      * Locates the user based on the provided email address.
      * <p>
      * This method is called by the Spring Security framework during the authentication
-     * process when a user attempts to log in.
+     * process when a user attempts to log in. It reads a flat projection from the
+     * {@code users} table only, avoiding the outer joins of a polymorphic {@code User} load.
      *
      * @param email the email address identifying the user whose data is required.
-     * @return a {@link UserDetails} object containing the user's information. In this
-     *         application, the {@code com.example.book.service.model.User} entity
-     *         itself implements {@code UserDetails}.
+     * @return a {@link UserPrincipal} containing the user's security-relevant information.
+     *         The JPA entity itself is not returned, so it never ends up in the session.
      * @throws UsernameNotFoundException if the user could not be found with the given email.
      */
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        return userRepository.findByEmail(email)
+        return userRepository.findAuthViewByEmail(email)
+                .map(UserPrincipal::from)
                 .orElseThrow(() -> new UsernameNotFoundException("User with email '" + email + "' not found"));
     }
 }
\ No newline at end of file
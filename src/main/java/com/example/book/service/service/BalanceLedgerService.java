@@ -0,0 +1,87 @@
+package com.example.book.service.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Defines the contract for reading and moving client balances through the balance ledger.
+ * <p>
+ * A balance is never updated in place. Every movement is appended to the ledger, and the
+ * balance is the client's snapshot plus the entries recorded after it. A background compactor
+ * periodically folds older entries into the snapshots, which keeps the balance query short
+ * without touching the client rows on the hot path.
+ */
+public interface BalanceLedgerService {
+
+    /**
+     * Computes a client's current balance.
+     *
+     * @param clientId The ID of the client.
+     * @return The current balance.
+     */
+    BigDecimal getBalance(Long clientId);
+
+    /**
+     * Computes a client's current balance and locks it until the current transaction ends, so
+     * that a debit checked against it cannot race with another debit of the same client.
+     * Must be called inside a transaction.
+     *
+     * @param clientId The ID of the client.
+     * @return The current balance.
+     */
+    BigDecimal lockBalance(Long clientId);
+
+    /**
+     * Records money added to a client's balance by the client.
+     *
+     * @param clientId The ID of the client.
+     * @param amount   The positive amount added.
+     */
+    void recordTopUp(Long clientId, BigDecimal amount);
+
+    /**
+     * Records the payment of an order from a client's balance.
+     *
+     * @param clientId The ID of the client.
+     * @param orderId  The ID of the order paid for.
+     * @param amount   The positive amount paid.
+     */
+    void recordOrderDebit(Long clientId, Long orderId, BigDecimal amount);
+
+    /**
+     * Records the return of an order's payment to a client's balance.
+     *
+     * @param clientId The ID of the client.
+     * @param orderId  The ID of the refunded order.
+     * @param amount   The positive amount returned.
+     */
+    void recordRefund(Long clientId, Long orderId, BigDecimal amount);
+
+    /**
+     * Records the refunds of many orders at once, as one entry per order, written in a single batch.
+     *
+     * @param refunds The refunded orders.
+     */
+    void recordRefunds(List<Refund> refunds);
+
+    /**
+     * The refund of one order.
+     *
+     * @param clientId The ID of the client.
+     * @param orderId  The ID of the refunded order.
+     * @param amount   The positive amount returned.
+     */
+    record Refund(Long clientId, Long orderId, BigDecimal amount) {
+    }
+
+    /**
+     * Folds ledger entries recorded before {@code cutoff} into the balance snapshots of at most
+     * {@code maxClients} clients.
+     *
+     * @param cutoff     Entries recorded at or after this time are left in the ledger delta.
+     * @param maxClients The maximum number of clients to compact.
+     * @return The number of clients whose snapshot was moved forward.
+     */
+    int compact(LocalDateTime cutoff, int maxClients);
+}
@@ -3,6 +3,7 @@ package com.example.book.service.service;
 import com.example.book.service.dto.BookDTO;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Defines the contract for business operations related to books.
@@ -70,4 +71,49 @@ public interface BookService {
      *         if no matches are found.
      */
     List<BookDTO> searchBooks(String keyword);
-}
\ No newline at end of file
+
+    /**
+     * Retrieves the version of a book, which changes whenever the book is updated.
+     *
+     * @param id The ID of the book. Must not be null.
+     * @return The current version of the book.
+     */
+    long getBookVersion(Long id);
+
+    /**
+     * Summarises a keyset page of the catalog without reading the books themselves.
+     * <p>
+     * The summary of a page changes whenever a book on it is added, updated or removed, so it can
+     * serve as the validator of the page (an ETag).
+     *
+     * @param afterId The ID after which the page starts; {@code 0} for the first page.
+     * @param limit   The maximum number of books on the page.
+     * @return An opaque summary of the page.
+     */
+    String getCatalogPageSummary(long afterId, int limit);
+
+    /**
+     * Passes a keyset page of the catalog, in ID order, to {@code action} one book at a time,
+     * while the books are still being read from the database.
+     *
+     * @param afterId      The ID after which the page starts; {@code 0} for the first page.
+     * @param limit        The maximum number of books to pass.
+     * @param withText     Whether to read the {@code characteristics} and {@code description}
+     *                     text fields; when {@code false} they are left {@code null}.
+     * @param action       Receives each book.
+     * @return The number of books passed to {@code action}.
+     */
+    int forEachBookAfter(long afterId, int limit, boolean withText, Consumer<BookDTO> action);
+
+    /**
+     * Retrieves the books most often bought together with a book ("customers also bought"),
+     * best first.
+     * <p>
+     * The books are read without their {@code characteristics} and {@code description} text fields.
+     *
+     * @param id The ID of the book. Must not be null.
+     * @return A {@code List<BookDTO>} of the recommended books. The list is empty if no
+     *         confirmed order contains the book together with another one.
+     */
+    List<BookDTO> getCustomersAlsoBought(Long id);
+}
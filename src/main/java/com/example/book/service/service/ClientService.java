@@ -2,9 +2,10 @@ package com.example.book.service.service;
 
 import com.example.book.service.dto.ClientCreateRequestDTO;
 import com.example.book.service.dto.ClientDTO;
+import com.example.book.service.dto.ClientPageDTO;
+import com.example.book.service.dto.ClientSort;
 
 import java.math.BigDecimal;
-import java.util.List;
 
 /**
  * Defines the contract for business operations related to clients (users).
@@ -16,11 +17,18 @@ import java.util.List;
 public interface ClientService {
 
     /**
-     * Retrieves a list of all clients. This is an administrative action.
+     * Retrieves one page of the client directory. This is an administrative action.
+     * <p>
+     * Pages are addressed by keyset: each page starts after the last client of the previous one, so
+     * every page costs the same, however deep it is.
      *
-     * @return A list of all {@link ClientDTO} objects.
+     * @param email An optional keyword to match against client emails (case-insensitive).
+     * @param sort  The order of the clients.
+     * @param after The ID of the client the page starts after, or {@code null} for the first page.
+     * @param limit The maximum number of clients on the page.
+     * @return A {@link ClientPageDTO} with the clients and the start of the next page.
      */
-    List<ClientDTO> getAllClients();
+    ClientPageDTO getClientPage(String email, ClientSort sort, Long after, int limit);
 
     /**
      * Creates a new client account. This action is typically available to the public.
@@ -57,15 +65,8 @@ public interface ClientService {
      *
      * @param clientEmail The email of the client whose balance is to be topped up.
      * @param amount      The positive amount to add to the balance.
+     * @return The client's balance after the top-up.
      * @throws IllegalArgumentException if the amount is not a positive value.
      */
-    void topUpBalance(String clientEmail, BigDecimal amount);
-
-    /**
-     * Searches for clients whose email contains the given keyword. Case-insensitive.
-     *
-     * @param email The keyword to search for within client emails.
-     * @return A list of matching {@link ClientDTO} objects.
-     */
-    List<ClientDTO> searchClientsByEmail(String email);
+    BigDecimal topUpBalance(String clientEmail, BigDecimal amount);
 }
@@ -0,0 +1,61 @@
+package com.example.book.service.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Defines the contract for maintaining the per-client order statistics of the {@code client_stats}
+ * read model.
+ * <p>
+ * The statistics are updated incrementally, with one delta statement per client, in the same
+ * transaction as the order status change they reflect. Reading them is then a primary key lookup
+ * instead of an aggregation over the client's orders. Confirming an order changes none of the
+ * statistics, since the order was already counted when it was submitted and paid for.
+ */
+public interface ClientStatsService {
+
+    /**
+     * Counts a submitted order. Must be called inside the transaction that submits it.
+     *
+     * @param clientId  The ID of the client.
+     * @param price     The price paid for the order.
+     * @param orderDate The date of the order.
+     */
+    void recordSubmission(Long clientId, BigDecimal price, LocalDateTime orderDate);
+
+    /**
+     * Removes a cancelled, and refunded, order from the counts. Must be called inside the
+     * transaction that cancels it.
+     *
+     * @param clientId The ID of the client.
+     * @param price    The price refunded for the order.
+     */
+    void recordCancellation(Long clientId, BigDecimal price);
+
+    /**
+     * Removes many cancelled orders from the counts at once, with one delta per client written in a
+     * single batch. Must be called inside the transaction that cancels them.
+     *
+     * @param pricesByClientId The prices of the cancelled orders, keyed by the ID of their client.
+     */
+    void recordCancellations(Map<Long, List<BigDecimal>> pricesByClientId);
+
+    /**
+     * Recomputes the statistics of every client from the orders, replacing the incrementally
+     * maintained values. Clients are processed in ranges of IDs, several ranges in parallel and
+     * each in its own transaction.
+     *
+     * @return The number of clients whose statistics were recomputed.
+     */
+    int rebuild();
+
+    /**
+     * Starts a {@link #rebuild()} in the background and returns at once. Does nothing if a rebuild
+     * started this way is still running.
+     *
+     * @return {@code true} if the rebuild was started, {@code false} if one is already running.
+     */
+    boolean startRebuild();
+}
@@ -34,9 +34,9 @@ public class OrderSecurityService {
      * Verifies if the currently authenticated user is the owner of the order
      * specified by the given {@code orderId}.
      * <p>
-     * This method is essential for protecting order data. It works by finding the order
-     * in the database and comparing the email of the associated client with the email
-     * of the currently authenticated user.
+     * This method is essential for protecting order data. It works by checking whether
+     * an order with the given ID exists whose client has the email of the currently
+     * authenticated user, without loading either entity.
      *
      * @param authentication The {@link Authentication} object, automatically provided by Spring Security.
      *                       It holds the identity of the currently logged-in user.
@@ -50,12 +50,8 @@ public class OrderSecurityService {
         // Get the email of the currently logged-in user.
         String currentUserEmail = authentication.getName();
 
-        // Find the order by its ID.
-        return orderRepository.findById(orderId)
-                // If the order is found, navigate to its associated Client and get their email,
-                // then compare it with the current user's email.
-                .map(order -> order.getClient().getEmail().equals(currentUserEmail))
-                // If no order is found for the given ID, deny access by defaulting to false.
-                .orElse(false);
+        // Check ownership with a single existence query instead of loading the order and its client.
+        // If no order is found for the given ID, or it belongs to someone else, access is denied.
+        return orderRepository.existsByIdAndClientEmail(orderId, currentUserEmail);
     }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.example.book.service.service;
 
+import com.example.book.service.dto.CartSummaryDTO;
 import com.example.book.service.dto.OrderDTO;
 
 import java.util.List;
@@ -62,14 +63,27 @@ public interface OrderService {
      * Cancels an order.
      * <p>
      * This action transitions an order's status to 'CANCELLED'. It can be performed
-     * by an admin or by the client who owns the order. Note: this method does not
-     * currently handle refund logic.
+     * by an admin or by the client who owns the order. Since both submitted and confirmed
+     * orders have been paid for, the order total is refunded to the client's balance in the
+     * same transaction.
      *
      * @param orderId The ID of the order to cancel.
      * @return An {@link OrderDTO} representing the cancelled order.
      */
     OrderDTO cancelOrder(Long orderId);
 
+    /**
+     * Cancels every submitted or confirmed order that contains a book (Admin action).
+     * <p>
+     * This is used when a book is withdrawn from sale. Each cancelled order is refunded like a
+     * single cancellation, but the refunds are summed per client, so a client with many affected
+     * orders receives a single balance entry.
+     *
+     * @param bookId The ID of the book whose orders are to be cancelled.
+     * @return The number of orders cancelled.
+     */
+    int cancelOrdersContainingBook(Long bookId);
+
     /**
      * Retrieves a list of all orders in the system (Admin action).
      *
@@ -87,8 +101,9 @@ public interface OrderService {
      *
      * @param bookId      The ID of the book to add to the cart.
      * @param clientEmail The email of the client performing the action.
+     * @return A {@link CartSummaryDTO} with the item count and total of the updated cart.
      */
-    void addBookToDraftOrder(Long bookId, String clientEmail);
+    CartSummaryDTO addBookToDraftOrder(Long bookId, String clientEmail);
 
     /**
      * Searches for all orders belonging to clients whose email matches a keyword (Admin action).
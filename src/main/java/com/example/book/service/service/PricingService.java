@@ -0,0 +1,36 @@
+package com.example.book.service.service;
+
+import com.example.book.service.dto.PriceChangeDTO;
+import com.example.book.service.dto.PriceChangeResultDTO;
+
+import java.util.Collection;
+
+/**
+ * Defines the contract for changing book prices in bulk.
+ * <p>
+ * A change applies to every book of a genre, of an author, or of a set of IDs at once. The total
+ * of a draft order is the price of its items at the books' current prices, so the totals of the
+ * draft orders that contain a repriced book are recomputed in the same transaction. Orders that
+ * have been submitted keep the total they were placed at.
+ */
+public interface PricingService {
+
+    /**
+     * Reprices the books selected by a change and recomputes the totals of the draft orders
+     * containing them. Nothing is changed if any price would fall below 0.01.
+     *
+     * @param change The change to apply.
+     * @return The number of books repriced and of draft orders recomputed.
+     */
+    PriceChangeResultDTO applyPriceChange(PriceChangeDTO change);
+
+    /**
+     * Recomputes the totals of the draft orders containing any of the given books from the
+     * books' current prices. Must be called inside the transaction that changed the prices,
+     * once they have been written.
+     *
+     * @param bookIds The IDs of the repriced books.
+     * @return The number of draft orders recomputed.
+     */
+    int repriceDraftOrders(Collection<Long> bookIds);
+}
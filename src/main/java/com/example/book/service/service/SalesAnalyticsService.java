@@ -0,0 +1,83 @@
+package com.example.book.service.service;
+
+import com.example.book.service.dto.BookSalesDTO;
+import com.example.book.service.dto.SalesTotalDTO;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Defines the contract for the sales analytics: units sold and revenue per book and per genre for
+ * each day, kept in rollup tables.
+ * <p>
+ * An order counts as sold once it is confirmed, on the day it was placed, at the prices it was
+ * paid when it was submitted. The rollups are updated
+ * incrementally in the transaction that confirms an order, and the update is reversed if a
+ * confirmed order is cancelled. Reports only ever read the rollups, so their cost depends on the
+ * length of the period and the size of the catalog, not on the order history.
+ */
+public interface SalesAnalyticsService {
+
+    /**
+     * Stores the price each item of a submitted order is paid at, which is the book's current
+     * price, as the order total was computed from. Must be called inside the transaction that
+     * submits it.
+     *
+     * @param orderId The ID of the submitted order.
+     */
+    void recordSubmission(Long orderId);
+
+    /**
+     * Adds a confirmed order to the rollups, at the prices stored when it was submitted.
+     * Must be called inside the transaction that confirms it.
+     *
+     * @param orderId The ID of the confirmed order.
+     */
+    void recordConfirmation(Long orderId);
+
+    /**
+     * Removes cancelled orders that had been confirmed from the rollups, at the prices they were
+     * added with. Must be called inside the transaction that cancels them.
+     *
+     * @param orderIds The IDs of the cancelled orders; all of them must have been confirmed.
+     */
+    void recordCancellations(Collection<Long> orderIds);
+
+    /**
+     * Retrieves the books that sold the most copies in a period.
+     *
+     * @param from  The first day of the period.
+     * @param to    The last day of the period.
+     * @param limit The maximum number of books.
+     * @return The best-selling books, by units sold and then revenue.
+     */
+    List<BookSalesDTO> getBestSellers(LocalDate from, LocalDate to, int limit);
+
+    /**
+     * Retrieves the sales of each genre in a period.
+     *
+     * @param from The first day of the period.
+     * @param to   The last day of the period.
+     * @return The sales per genre, by revenue.
+     */
+    List<SalesTotalDTO> getSalesByGenre(LocalDate from, LocalDate to);
+
+    /**
+     * Retrieves the sales of each day in a period that had any.
+     *
+     * @param from The first day of the period.
+     * @param to   The last day of the period.
+     * @return The sales per day, in date order.
+     */
+    List<SalesTotalDTO> getSalesByDay(LocalDate from, LocalDate to);
+
+    /**
+     * Recomputes the rollups from the confirmed orders, replacing the incrementally maintained
+     * values. Days are processed in ranges, several ranges in parallel and each in its own
+     * transaction.
+     *
+     * @return The number of day ranges recomputed.
+     */
+    int backfill();
+}
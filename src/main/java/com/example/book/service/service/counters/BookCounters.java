@@ -0,0 +1,181 @@
+package com.example.book.service.service.counters;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Counts the views and cart adds of each book, and persists them to {@code book_counters}.
+ * <p>
+ * Counting a request only increments a {@link LongAdder}, which spreads contended increments
+ * over per-thread cells, so a popular book costs neither a row lock nor a shared cache line. Every
+ * {@code app.book-counters.flush-interval}, the deltas accumulated since the last flush are taken
+ * with {@link LongAdder#sumThenReset()} and added to their rows in one JDBC batch of upserts, in
+ * one transaction and in book ID order, so concurrent flushes from several nodes cannot deadlock.
+ * Books deleted in the meantime are skipped.
+ * <p>
+ * Loss bounds: counts are only in memory until their flush commits. A crash therefore loses at
+ * most the counts of one flush interval plus the duration of the flush in progress; a graceful
+ * shutdown flushes first and loses nothing. A failed flush adds its deltas back to the
+ * accumulators and is retried with the next one, so a database outage loses nothing unless the
+ * node also goes down.
+ * <p>
+ * Metrics: {@code bookstore.book.counters.flush.lag} is the time since the last successful flush,
+ * which is also the age of the oldest count not persisted yet, and should stay below the interval
+ * plus the flush time; {@code bookstore.book.counters.flush} times the flushes, and
+ * {@code bookstore.book.counters.flush.failures} counts the failed ones.
+ * <p>
+ * One pair of accumulators is kept for every book counted since startup, so memory is bounded by
+ * the size of the catalog.
+ */
+@Slf4j
+@Component
+public class BookCounters {
+
+    /**
+     * Binds the deltas a second time for the update clause rather than reading them back with the
+     * {@code VALUES()} function that MySQL deprecates; H2 does not understand the row-alias form.
+     */
+    private static final String ADD_COUNTS =
+            "INSERT INTO book_counters (book_id, view_count, cart_add_count) SELECT id, ?, ? FROM books WHERE id = ? "
+                    + "ON DUPLICATE KEY UPDATE view_count = view_count + ?, cart_add_count = cart_add_count + ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<Long, Counts> counts = new ConcurrentHashMap<>();
+    private final Timer flushTimer;
+    private final Counter flushFailures;
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private volatile long lastFlushMillis = System.currentTimeMillis();
+
+    public BookCounters(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        Gauge.builder("bookstore.book.counters.flush.lag", this,
+                        counters -> System.currentTimeMillis() - counters.lastFlushMillis)
+                .description("Time since the book counters were last flushed, the age of the oldest unsaved count")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("bookstore.book.counters.flush")
+                .description("Duration of the book counter flushes")
+                .register(meterRegistry);
+        this.flushFailures = Counter.builder("bookstore.book.counters.flush.failures")
+                .description("Book counter flushes that failed and were left for the next one")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Counts a view of a book's page.
+     *
+     * @param bookId the ID of the book.
+     */
+    public void recordView(long bookId) {
+        countsOf(bookId).views.increment();
+    }
+
+    /**
+     * Counts a book being added to a cart.
+     *
+     * @param bookId the ID of the book.
+     */
+    public void recordCartAdd(long bookId) {
+        countsOf(bookId).cartAdds.increment();
+    }
+
+    private Counts countsOf(long bookId) {
+        Counts bookCounts = counts.get(bookId);
+        return bookCounts != null ? bookCounts : counts.computeIfAbsent(bookId, id -> new Counts());
+    }
+
+    /**
+     * Adds the counts accumulated since the last flush to the database. Flushes do not overlap;
+     * they are serialized with a {@link ReentrantLock} rather than {@code synchronized}, so that a
+     * flush running on a virtual thread does not pin its carrier for the batch and the commit.
+     *
+     * @return the number of books whose counts were written, or {@code -1} if the flush failed.
+     */
+    @Scheduled(initialDelayString = "${app.book-counters.flush-interval:PT5S}",
+            fixedDelayString = "${app.book-counters.flush-interval:PT5S}")
+    public int flush() {
+        flushLock.lock();
+        try {
+            return flushLocked();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private int flushLocked() {
+        long started = System.currentTimeMillis();
+        List<long[]> deltas = new ArrayList<>();
+        counts.forEach((bookId, bookCounts) -> {
+            long views = bookCounts.views.sumThenReset();
+            long cartAdds = bookCounts.cartAdds.sumThenReset();
+            if (views != 0 || cartAdds != 0) {
+                deltas.add(new long[]{bookId, views, cartAdds});
+            }
+        });
+        if (deltas.isEmpty()) {
+            lastFlushMillis = started;
+            return 0;
+        }
+        deltas.sort(Comparator.comparingLong(delta -> delta[0]));
+
+        try {
+            flushTimer.record(() -> transactionTemplate.executeWithoutResult(tx -> jdbcTemplate.batchUpdate(ADD_COUNTS,
+                    deltas, deltas.size(), (statement, delta) -> {
+                        statement.setLong(1, delta[1]);
+                        statement.setLong(2, delta[2]);
+                        statement.setLong(3, delta[0]);
+                        statement.setLong(4, delta[1]);
+                        statement.setLong(5, delta[2]);
+                    })));
+        } catch (RuntimeException e) {
+            // Not only DataAccessException: an unreachable database fails the transaction begin, and
+            // a failed commit, with a TransactionException, and the deltas have been taken already.
+            for (long[] delta : deltas) {
+                Counts bookCounts = countsOf(delta[0]);
+                bookCounts.views.add(delta[1]);
+                bookCounts.cartAdds.add(delta[2]);
+            }
+            flushFailures.increment();
+            log.warn("Failed to flush the counters of {} books, retrying with the next flush: {}",
+                    deltas.size(), e.getMessage());
+            return -1;
+        }
+        lastFlushMillis = started;
+        return deltas.size();
+    }
+
+    /**
+     * Flushes the remaining counts when the application shuts down.
+     */
+    @PreDestroy
+    void shutdown() {
+        flush();
+    }
+
+    /**
+     * The counts of one book accumulated since the last flush.
+     */
+    private static final class Counts {
+        private final LongAdder views = new LongAdder();
+        private final LongAdder cartAdds = new LongAdder();
+    }
+}
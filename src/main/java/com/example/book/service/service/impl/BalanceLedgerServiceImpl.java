@@ -0,0 +1,142 @@
+package com.example.book.service.service.impl;
+
+import com.example.book.service.exception.NotFoundException;
+import com.example.book.service.model.BalanceLedgerEntry;
+import com.example.book.service.model.enums.LedgerEntryType;
+import com.example.book.service.repo.BalanceLedgerRepository;
+import com.example.book.service.service.BalanceLedgerService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * The concrete implementation of the {@link BalanceLedgerService} interface.
+ * <p>
+ * Movements are single inserts into {@code balance_ledger}; the {@code clients} row is only
+ * written by {@link #compact}, once per client and compaction run however many movements it
+ * folds. Debits lock the client's row (without writing it) while the balance is checked, which
+ * serialises debits of one client but leaves different clients, and all credits, independent.
+ * <p>
+ * Both the snapshot and the entries after it are read with locking reads when a balance is
+ * checked. In a repeatable-read transaction, a plain read would return the transaction's snapshot,
+ * which may have been taken before another debit of the client committed while this one waited
+ * for the lock.
+ */
+@Service
+@RequiredArgsConstructor
+public class BalanceLedgerServiceImpl implements BalanceLedgerService {
+
+    private static final String INSERT_ENTRY =
+            "INSERT INTO balance_ledger (client_id, entry_type, amount, order_id, created_at) VALUES (?, ?, ?, ?, ?)";
+
+    private final BalanceLedgerRepository balanceLedgerRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public BigDecimal getBalance(Long clientId) {
+        return balanceLedgerRepository.findCurrentBalance(clientId)
+                .orElseThrow(() -> new NotFoundException("Client not found with id: " + clientId));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public BigDecimal lockBalance(Long clientId) {
+        List<Object[]> snapshot = balanceLedgerRepository.lockSnapshot(clientId);
+        if (snapshot.isEmpty()) {
+            throw new NotFoundException("Client not found with id: " + clientId);
+        }
+        BigDecimal balance = (BigDecimal) snapshot.get(0)[0];
+        Long balanceLedgerId = ((Number) snapshot.get(0)[1]).longValue();
+        return balanceLedgerRepository.lockAmountsAfter(clientId, balanceLedgerId).stream()
+                .reduce(balance, BigDecimal::add);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public void recordTopUp(Long clientId, BigDecimal amount) {
+        append(clientId, LedgerEntryType.TOP_UP, amount, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public void recordOrderDebit(Long clientId, Long orderId, BigDecimal amount) {
+        append(clientId, LedgerEntryType.ORDER_DEBIT, amount.negate(), orderId);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public void recordRefund(Long clientId, Long orderId, BigDecimal amount) {
+        append(clientId, LedgerEntryType.REFUND, amount, orderId);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The entries are inserted with a JDBC batch on the connection of the current transaction,
+     * since identity-generated entities cannot be batched by the persistence provider.
+     */
+    @Override
+    @Transactional
+    public void recordRefunds(List<Refund> refunds) {
+        if (refunds.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = refunds.stream()
+                .map(refund -> new Object[]{refund.clientId(), LedgerEntryType.REFUND.name(), refund.amount(), refund.orderId(), now})
+                .toList();
+        jdbcTemplate.batchUpdate(INSERT_ENTRY, rows);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Entries are only folded once they are older than the cutoff, so that an entry whose
+     * transaction has not committed yet cannot end up below a snapshot ID and be skipped.
+     */
+    @Override
+    @Transactional
+    public int compact(LocalDateTime cutoff, int maxClients) {
+        List<Object[]> candidates = balanceLedgerRepository.findCompactionCandidates(cutoff, maxClients);
+        int compacted = 0;
+        for (Object[] candidate : candidates) {
+            Long clientId = ((Number) candidate[0]).longValue();
+            Long upToId = ((Number) candidate[1]).longValue();
+            compacted += balanceLedgerRepository.foldIntoSnapshot(clientId, upToId);
+        }
+        return compacted;
+    }
+
+    private void append(Long clientId, LedgerEntryType type, BigDecimal amount, Long orderId) {
+        balanceLedgerRepository.save(BalanceLedgerEntry.builder()
+                .clientId(clientId)
+                .type(type)
+                .amount(amount)
+                .orderId(orderId)
+                .createdAt(LocalDateTime.now())
+                .build());
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.book.service.service.impl;
 
+import com.example.book.service.cache.CatalogVersion;
 import com.example.book.service.dto.BookDTO;
 import com.example.book.service.exception.AlreadyExistException;
 import com.example.book.service.exception.NotFoundException;
@@ -7,13 +8,25 @@ import com.example.book.service.mapper.BookMapper;
 import com.example.book.service.model.Book;
 import com.example.book.service.repo.BookRepository;
 import com.example.book.service.service.BookService;
+import com.example.book.service.service.PricingService;
+import com.example.book.service.service.recommendation.CoPurchaseRecommender;
+import com.example.book.service.service.uniqueness.UniqueConstraints;
+import com.example.book.service.service.uniqueness.UniqueKeyRegistry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * The concrete implementation of the {@link BookService} interface.
@@ -25,7 +38,8 @@ import java.util.stream.Collectors;
  * Methods that modify data (add, update, delete) are secured at the method level
  * with {@code @PreAuthorize("hasRole('ADMIN')")}, ensuring that only administrators
  * can manage the book catalog. All data-modifying methods are also marked as
- * {@code @Transactional} to ensure data consistency.
+ * {@code @Transactional} to ensure data consistency, and advance the {@link CatalogVersion}
+ * so that cached catalog pages are rendered again once they commit.
  */
 @Service
 @RequiredArgsConstructor
@@ -33,6 +47,10 @@ public class BookServiceImpl implements BookService {
 
     private final BookRepository bookRepository;
     private final BookMapper bookMapper;
+    private final UniqueKeyRegistry uniqueKeyRegistry;
+    private final CatalogVersion catalogVersion;
+    private final CoPurchaseRecommender coPurchaseRecommender;
+    private final PricingService pricingService;
 
     /**
      * {@inheritDoc}
@@ -61,7 +79,14 @@ public class BookServiceImpl implements BookService {
      * {@inheritDoc}
      * <p>
      * This implementation includes a crucial validation step: it checks if the new
-     * book name is already in use by another book before attempting to save.
+     * book name is already in use by another book before attempting to save. The check
+     * is skipped when the {@link UniqueKeyRegistry} knows the name is free, in which case
+     * the database unique constraint enforces the rule and its violation is reported as
+     * {@link AlreadyExistException}. Other integrity violations raised by the same flush are
+     * rethrown as they are.
+     * <p>
+     * When the price changes, the totals of the draft orders containing the book are recomputed
+     * by the {@link PricingService} in the same transaction.
      */
     @Override
     @Transactional
@@ -72,17 +97,38 @@ public class BookServiceImpl implements BookService {
                 .orElseThrow(() -> new NotFoundException("Book not found with id: ".concat(String.valueOf(id))));
 
         // If the name is being changed, we must check if the new name is already taken.
-        if (!bookToUpdate.getName().equals(bookDTO.getName())) {
-            bookRepository.findByName(bookDTO.getName()).ifPresent(b -> {
-                throw new AlreadyExistException("A book with the name '" + bookDTO.getName() + "' already exists.");
-            });
+        boolean nameChanged = !bookToUpdate.getName().equals(bookDTO.getName());
+        if (nameChanged) {
+            ensureBookNameIsFree(bookDTO.getName());
         }
+        boolean priceChanged = bookDTO.getPrice() != null
+                && (bookToUpdate.getPrice() == null || bookToUpdate.getPrice().compareTo(bookDTO.getPrice()) != 0);
 
         // Use the mapper to update the entity with new data from the DTO.
         bookMapper.updateBookFromDTO(bookDTO, bookToUpdate);
 
         // Save the updated entity and return its DTO representation.
-        Book saved = bookRepository.save(bookToUpdate);
+        Book saved;
+        try {
+            saved = bookRepository.save(bookToUpdate);
+            if (nameChanged || priceChanged) {
+                // Flush now so that a unique-name violation surfaces here rather than at commit,
+                // and so that the draft orders are repriced from the new price.
+                bookRepository.flush();
+            }
+            if (nameChanged) {
+                uniqueKeyRegistry.addBookName(bookDTO.getName());
+            }
+        } catch (DataIntegrityViolationException e) {
+            if (!UniqueConstraints.isViolatedBy(e)) {
+                throw e;
+            }
+            throw new AlreadyExistException("A book with the name '" + bookDTO.getName() + "' already exists.");
+        }
+        if (priceChanged) {
+            pricingService.repriceDraftOrders(List.of(id));
+        }
+        catalogVersion.advance();
         return bookMapper.toDTO(saved);
     }
 
@@ -97,29 +143,52 @@ public class BookServiceImpl implements BookService {
         Book book = bookRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException("Book not found with id: ".concat(String.valueOf(id))));
         bookRepository.delete(book);
+        catalogVersion.advance();
     }
 
     /**
      * {@inheritDoc}
      * <p>
      * This implementation ensures that a new book cannot be created with a name
-     * that already exists in the database.
+     * that already exists in the database, relying on the unique constraint when the
+     * {@link UniqueKeyRegistry} knows the name is free.
      */
     @Override
     @Transactional
     @PreAuthorize("hasRole('ADMIN')")
     public BookDTO addBook(BookDTO bookDTO) {
         // Business rule: Book names must be unique.
-        bookRepository.findByName(bookDTO.getName()).ifPresent(b -> {
-            throw new AlreadyExistException("A book with the name '" + bookDTO.getName() + "' already exists.");
-        });
+        ensureBookNameIsFree(bookDTO.getName());
 
         // Convert DTO to entity, save it, and return the new DTO.
         Book book = bookMapper.toEntity(bookDTO);
-        Book saved = bookRepository.save(book);
+        Book saved;
+        try {
+            // The identity-generated ID makes the insert immediate, so a duplicate name fails here.
+            saved = bookRepository.save(book);
+        } catch (DataIntegrityViolationException e) {
+            if (!UniqueConstraints.isViolatedBy(e)) {
+                throw e;
+            }
+            throw new AlreadyExistException("A book with the name '" + bookDTO.getName() + "' already exists.");
+        }
+        uniqueKeyRegistry.addBookName(bookDTO.getName());
+        catalogVersion.advance();
         return bookMapper.toDTO(saved);
     }
 
+    /**
+     * Throws {@link AlreadyExistException} if a book with the given name exists.
+     * The database is only queried when the {@link UniqueKeyRegistry} reports the name as possibly taken.
+     *
+     * @param name the book name to check.
+     */
+    private void ensureBookNameIsFree(String name) {
+        if (uniqueKeyRegistry.mightContainBookName(name) && bookRepository.existsByName(name)) {
+            throw new AlreadyExistException("A book with the name '" + name + "' already exists.");
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -130,4 +199,66 @@ public class BookServiceImpl implements BookService {
                 .map(bookMapper::toDTO)
                 .collect(Collectors.toList());
     }
-}
\ No newline at end of file
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public long getBookVersion(Long id) {
+        return bookRepository.findVersionById(id)
+                .orElseThrow(() -> new NotFoundException("Book not found with id: " + id));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public String getCatalogPageSummary(long afterId, int limit) {
+        return bookRepository.summarisePageAfter(afterId, limit);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The books are projected straight into DTOs, so none of them is attached to the
+     * persistence context, and the result set is read with a bounded fetch size. Memory use
+     * therefore does not grow with the size of the page.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public int forEachBookAfter(long afterId, int limit, boolean withText, Consumer<BookDTO> action) {
+        int count = 0;
+        try (Stream<BookDTO> books = withText
+                ? bookRepository.streamBooksAfter(afterId, Limit.of(limit))
+                : bookRepository.streamSummariesAfter(afterId, Limit.of(limit))) {
+            for (BookDTO book : (Iterable<BookDTO>) books::iterator) {
+                action.accept(book);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The IDs are looked up in the {@link CoPurchaseRecommender}, so only a book that has
+     * recommendations costs a query, which reads them all at once.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<BookDTO> getCustomersAlsoBought(Long id) {
+        long[] ids = coPurchaseRecommender.recommend(id);
+        if (ids.length == 0) {
+            return List.of();
+        }
+        Map<Long, BookDTO> books = bookRepository.findSummariesByIdIn(Arrays.stream(ids).boxed().toList()).stream()
+                .collect(Collectors.toMap(BookDTO::getId, Function.identity()));
+        return Arrays.stream(ids)
+                .mapToObj(books::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+}
@@ -2,14 +2,24 @@ package com.example.book.service.service.impl;
 
 import com.example.book.service.dto.ClientCreateRequestDTO;
 import com.example.book.service.dto.ClientDTO;
+import com.example.book.service.dto.ClientPageDTO;
+import com.example.book.service.dto.ClientSort;
 import com.example.book.service.exception.AlreadyExistException;
 import com.example.book.service.exception.NotFoundException;
 import com.example.book.service.mapper.ClientMapper;
 import com.example.book.service.model.Client;
 import com.example.book.service.model.enums.Role;
 import com.example.book.service.repo.ClientRepository;
+import com.example.book.service.repo.UserRepository;
+import com.example.book.service.service.BalanceLedgerService;
 import com.example.book.service.service.ClientService;
+import com.example.book.service.service.uniqueness.UniqueConstraints;
+import com.example.book.service.service.uniqueness.UniqueKeyRegistry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -17,7 +27,6 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * The concrete implementation of the {@link ClientService} interface.
@@ -33,20 +42,45 @@ import java.util.stream.Collectors;
 public class ClientServiceImpl implements ClientService {
 
     private final ClientRepository clientRepository;
+    private final UserRepository userRepository;
     private final ClientMapper clientMapper;
     private final PasswordEncoder passwordEncoder;
+    private final UniqueKeyRegistry uniqueKeyRegistry;
+    private final BalanceLedgerService balanceLedgerService;
 
     /**
      * {@inheritDoc}
      * This action is restricted to administrators.
+     * <p>
+     * The page is read with one query that walks the index of the sort order from the previous
+     * page's last client, whose sort key is looked up by its ID. The clients' order statistics are
+     * joined from the {@code client_stats} read model by primary key. An email keyword is matched through
+     * the email trigram index; see {@link ClientRepository#emailContains(String)}.
      */
     @Override
     @Transactional(readOnly = true)
     @PreAuthorize("hasRole('ADMIN')")
-    public List<ClientDTO> getAllClients() {
-        return clientRepository.findAll().stream()
-                .map(clientMapper::toDTO)
-                .collect(Collectors.toList());
+    public ClientPageDTO getClientPage(String email, ClientSort sort, Long after, int limit) {
+        ScrollPosition position = ScrollPosition.keyset();
+        if (after != null) {
+            Client last = clientRepository.findById(after)
+                    .orElseThrow(() -> new NotFoundException("Client not found with id: " + after));
+            position = ScrollPosition.forward(sort.keyOf(last));
+        }
+        Specification<Client> filter = email == null || email.isBlank()
+                ? ClientRepository.fetchingStats()
+                : ClientRepository.fetchingStats().and(ClientRepository.emailContains(email.trim()));
+
+        ScrollPosition start = position;
+        Window<Client> page = clientRepository.findBy(filter, query -> query
+                .sortBy(sort.getSort())
+                .limit(limit)
+                .scroll(start));
+        List<ClientDTO> clients = page.getContent().stream()
+                .map(clientMapper::toDirectoryDTO)
+                .toList();
+        Long nextAfter = page.hasNext() ? page.getContent().get(page.size() - 1).getId() : null;
+        return new ClientPageDTO(clients, nextAfter);
     }
 
     /**
@@ -54,11 +88,17 @@ public class ClientServiceImpl implements ClientService {
      * <p>
      * This implementation ensures the email is unique, encodes the password,
      * and sets default values (enabled status, client role) for the new user.
+     * <p>
+     * The database unique constraint on the email is the source of truth. The
+     * {@link UniqueKeyRegistry} only lets the common case of a never-seen email skip the
+     * existence check; a unique-constraint violation on insert is reported as
+     * {@link AlreadyExistException} just like a positive check, and any other integrity
+     * violation is rethrown.
      */
     @Override
     @Transactional
     public ClientDTO addClient(ClientCreateRequestDTO dto) {
-        if (clientRepository.findByEmail(dto.getEmail()).isPresent()) {
+        if (uniqueKeyRegistry.mightContainEmail(dto.getEmail()) && userRepository.existsByEmail(dto.getEmail())) {
             throw new AlreadyExistException("Client already exists with email: " + dto.getEmail());
         }
 
@@ -67,7 +107,17 @@ public class ClientServiceImpl implements ClientService {
         client.setEnabled(true);
         client.setRole(Role.CLIENT);
 
-        Client saved = clientRepository.save(client);
+        Client saved;
+        try {
+            // The identity-generated ID makes the insert immediate, so a duplicate email fails here.
+            saved = clientRepository.save(client);
+        } catch (DataIntegrityViolationException e) {
+            if (!UniqueConstraints.isViolatedBy(e)) {
+                throw e;
+            }
+            throw new AlreadyExistException("Client already exists with email: " + dto.getEmail());
+        }
+        uniqueKeyRegistry.addEmail(dto.getEmail());
         return clientMapper.toDTO(saved);
     }
 
@@ -101,12 +151,13 @@ public class ClientServiceImpl implements ClientService {
 
     /**
      * {@inheritDoc}
+     * <p>
+     * The DTO is projected directly by the query, so no {@link Client} entity is loaded.
      */
     @Override
     @Transactional(readOnly = true)
     public ClientDTO getClientByEmail(String email) {
-        return clientRepository.findByEmail(email)
-                .map(clientMapper::toDTO)
+        return clientRepository.findDTOByEmail(email)
                 .orElseThrow(() -> new NotFoundException("Client not found with email: " + email));
     }
 
@@ -115,30 +166,21 @@ public class ClientServiceImpl implements ClientService {
      * <p>
      * This method is secured to ensure that an authenticated client can only top up
      * their own balance. It also validates that the top-up amount is positive.
+     * <p>
+     * The top-up is appended to the balance ledger; the client row is only read.
      */
     @Override
     @Transactional
     @PreAuthorize("hasRole('CLIENT') and #clientEmail == authentication.name")
-    public void topUpBalance(String clientEmail, BigDecimal amount) {
+    public BigDecimal topUpBalance(String clientEmail, BigDecimal amount) {
         if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
             throw new IllegalArgumentException("Top-up amount must be positive.");
         }
 
-        Client client = clientRepository.findByEmail(clientEmail)
+        ClientDTO client = clientRepository.findDTOByEmail(clientEmail)
                 .orElseThrow(() -> new NotFoundException("Client not found with email: " + clientEmail));
 
-        client.setBalance(client.getBalance().add(amount));
-        clientRepository.save(client);
-    }
-
-    /**
-     * {@inheritDoc}
-     */
-    @Override
-    @Transactional(readOnly = true)
-    public List<ClientDTO> searchClientsByEmail(String email) {
-        return clientRepository.findByEmailContainingIgnoreCase(email).stream()
-                .map(clientMapper::toDTO)
-                .collect(Collectors.toList());
+        balanceLedgerService.recordTopUp(client.getId(), amount);
+        return client.getBalance().add(amount);
     }
 }
\ No newline at end of file
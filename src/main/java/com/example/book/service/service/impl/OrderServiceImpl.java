@@ -1,24 +1,35 @@
 package com.example.book.service.service.impl;
 
+import com.example.book.service.dto.CartSummaryDTO;
 import com.example.book.service.dto.OrderDTO;
+import com.example.book.service.events.OrderStatusChangedEvent;
 import com.example.book.service.exception.CustomBadRequestException;
 import com.example.book.service.exception.InsufficientFundsException;
 import com.example.book.service.exception.NotFoundException;
 import com.example.book.service.mapper.OrderMapper;
+import com.example.book.service.metrics.OrderTransition;
 import com.example.book.service.model.*;
 import com.example.book.service.model.enums.OrderStatus;
 import com.example.book.service.repo.BookRepository;
 import com.example.book.service.repo.ClientRepository;
 import com.example.book.service.repo.OrderRepository;
+import com.example.book.service.service.BalanceLedgerService;
+import com.example.book.service.service.ClientStatsService;
 import com.example.book.service.service.OrderService;
+import com.example.book.service.service.SalesAnalyticsService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Sort;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -33,15 +44,27 @@ import java.util.stream.Collectors;
  * All methods are secured with {@code @PreAuthorize} annotations to enforce
  * role-based and ownership-based access control. All operations that modify
  * the database are marked as {@code @Transactional} to ensure data integrity.
+ * <p>
+ * Every status transition publishes an {@link OrderStatusChangedEvent}, which is streamed to the
+ * owning client and to administrators once the transaction commits.
  */
 @Service
 @RequiredArgsConstructor
 public class OrderServiceImpl implements OrderService {
 
+    /**
+     * The maximum number of orders cancelled by one bulk update, which bounds its {@code IN} list.
+     */
+    private static final int CANCELLATION_CHUNK_SIZE = 1000;
+
     private final OrderRepository orderRepository;
     private final ClientRepository clientRepository;
     private final BookRepository bookRepository;
     private final OrderMapper orderMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BalanceLedgerService balanceLedgerService;
+    private final ClientStatsService clientStatsService;
+    private final SalesAnalyticsService salesAnalyticsService;
 
     /**
      * {@inheritDoc}
@@ -75,13 +98,15 @@ public class OrderServiceImpl implements OrderService {
      * This implementation contains critical business logic:
      * 1. Validates that the order is in 'DRAFT' status.
      * 2. Checks if the client has sufficient balance to cover the order price.
-     * 3. Deducts the order price from the client's balance.
-     * 4. Updates the order status to 'SUBMITTED'.
+     * 3. Records the payment of the order price in the client's balance ledger.
+     * 4. Updates the order status to 'SUBMITTED' and counts the order in the client's statistics.
+     * 5. Stores the price each item is paid at, which the sales analytics count once it is confirmed.
      * The entire operation is transactional.
      */
     @Override
     @Transactional
     @PreAuthorize("hasRole('CLIENT') and @orderSecurityService.isOrderOwner(authentication, #orderId)")
+    @OrderTransition(from = OrderStatus.DRAFT, to = OrderStatus.SUBMITTED)
     public OrderDTO submitOrder(Long orderId) {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new NotFoundException("Order not found with id: " + orderId));
@@ -93,29 +118,39 @@ public class OrderServiceImpl implements OrderService {
         Client client = order.getClient();
         BigDecimal orderPrice = order.getPrice();
 
-        // Business rule: Check for sufficient funds before proceeding.
-        if (client.getBalance().compareTo(orderPrice) < 0) {
-            BigDecimal shortfall = orderPrice.subtract(client.getBalance());
+        // Business rule: Check for sufficient funds before proceeding. The balance stays locked
+        // until commit, and is read with locking reads, so a concurrent submission by the same
+        // client sees this debit even if its transaction's snapshot predates it.
+        BigDecimal balance = balanceLedgerService.lockBalance(client.getId());
+        if (balance.compareTo(orderPrice) < 0) {
+            BigDecimal shortfall = orderPrice.subtract(balance);
             throw new InsufficientFundsException(
-                    "Insufficient funds to submit the order. Your balance is $" + client.getBalance() +
+                    "Insufficient funds to submit the order. Your balance is $" + balance +
                             ", but the order total is $" + orderPrice + ". Please top up your balance by at least $" + shortfall + "."
             );
         }
 
-        // Deduct funds and update status in a single transaction.
-        client.setBalance(client.getBalance().subtract(orderPrice));
+        // Debit the funds and update status in a single transaction.
+        balanceLedgerService.recordOrderDebit(client.getId(), order.getId(), orderPrice);
+        clientStatsService.recordSubmission(client.getId(), orderPrice, order.getOrderDate());
+        salesAnalyticsService.recordSubmission(order.getId());
+        OrderStatus previousStatus = order.getStatus();
         order.setStatus(OrderStatus.SUBMITTED);
 
         Order savedOrder = orderRepository.save(order);
+        publishStatusChange(order, previousStatus);
         return orderMapper.toDTO(savedOrder);
     }
 
     /**
      * {@inheritDoc}
+     * <p>
+     * The confirmed order is added to the sales analytics rollups in the same transaction.
      */
     @Override
     @Transactional
     @PreAuthorize("hasRole('ADMIN')")
+    @OrderTransition(from = OrderStatus.SUBMITTED, to = OrderStatus.CONFIRMED)
     public OrderDTO confirmOrder(Long orderId) {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new NotFoundException("Order not found with id: " + orderId));
@@ -125,17 +160,26 @@ public class OrderServiceImpl implements OrderService {
             throw new CustomBadRequestException("Only orders in SUBMITTED status can be confirmed");
         }
 
+        salesAnalyticsService.recordConfirmation(order.getId());
+        OrderStatus previousStatus = order.getStatus();
         order.setStatus(OrderStatus.CONFIRMED);
         Order savedOrder = orderRepository.save(order);
+        publishStatusChange(order, previousStatus);
         return orderMapper.toDTO(savedOrder);
     }
 
     /**
      * {@inheritDoc}
+     * <p>
+     * The refund is appended to the balance ledger rather than written to the client row. The
+     * order's version is checked when its status is written, so an order that was cancelled
+     * concurrently, e.g. by {@link #cancelOrdersContainingBook(Long)}, fails the whole transaction
+     * instead of being refunded twice. A confirmed order is also removed from the sales analytics.
      */
     @Override
     @Transactional
     @PreAuthorize("hasRole('ADMIN') or @orderSecurityService.isOrderOwner(authentication, #orderId)")
+    @OrderTransition(from = {OrderStatus.SUBMITTED, OrderStatus.CONFIRMED}, to = OrderStatus.CANCELLED)
     public OrderDTO cancelOrder(Long orderId) {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new NotFoundException("Order not found with id: " + orderId));
@@ -145,11 +189,77 @@ public class OrderServiceImpl implements OrderService {
             throw new CustomBadRequestException("Only orders in SUBMITTED or CONFIRMED status can be cancelled");
         }
 
+        // Both submitted and confirmed orders have been paid for, so the payment is returned.
+        balanceLedgerService.recordRefund(order.getClient().getId(), order.getId(), order.getPrice());
+        clientStatsService.recordCancellation(order.getClient().getId(), order.getPrice());
+        if (order.getStatus() == OrderStatus.CONFIRMED) {
+            salesAnalyticsService.recordCancellations(List.of(order.getId()));
+        }
+        OrderStatus previousStatus = order.getStatus();
         order.setStatus(OrderStatus.CANCELLED);
         Order savedOrder = orderRepository.save(order);
+        publishStatusChange(order, previousStatus);
         return orderMapper.toDTO(savedOrder);
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The affected orders are locked and read as plain rows, without loading entities, and then
+     * cancelled with bulk updates of {@value #CANCELLATION_CHUNK_SIZE} orders each. The bulk
+     * updates increment the orders' versions, so a concurrent single cancellation of one of them
+     * fails instead of refunding it again. Refunds are written as one batch of ledger entries, one
+     * per order so that each can be traced to the order it returns, and no client row is locked.
+     * The client statistics are updated with one delta per client, and the confirmed orders among
+     * them are reversed in the sales analytics with set-based updates.
+     */
+    @Override
+    @Transactional
+    @PreAuthorize("hasRole('ADMIN')")
+    @OrderTransition(from = {OrderStatus.SUBMITTED, OrderStatus.CONFIRMED}, to = OrderStatus.CANCELLED)
+    public int cancelOrdersContainingBook(Long bookId) {
+        if (!bookRepository.existsById(bookId)) {
+            throw new NotFoundException("Book not found with id: " + bookId);
+        }
+
+        List<Object[]> orders = orderRepository.lockPaidOrdersContainingBook(bookId);
+        if (orders.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> orderIds = new ArrayList<>(orders.size());
+        List<Long> confirmedOrderIds = new ArrayList<>();
+        Map<Long, List<BigDecimal>> pricesByClientId = new LinkedHashMap<>();
+        List<BalanceLedgerService.Refund> refunds = new ArrayList<>(orders.size());
+        for (Object[] row : orders) {
+            Long clientId = ((Number) row[1]).longValue();
+            orderIds.add(((Number) row[0]).longValue());
+            if (OrderStatus.CONFIRMED.name().equals(row[3])) {
+                confirmedOrderIds.add(((Number) row[0]).longValue());
+            }
+            pricesByClientId.computeIfAbsent(clientId, id -> new ArrayList<>()).add((BigDecimal) row[2]);
+            refunds.add(new BalanceLedgerService.Refund(clientId, ((Number) row[0]).longValue(), (BigDecimal) row[2]));
+        }
+
+        for (int from = 0; from < orderIds.size(); from += CANCELLATION_CHUNK_SIZE) {
+            List<Long> chunk = orderIds.subList(from, Math.min(from + CANCELLATION_CHUNK_SIZE, orderIds.size()));
+            orderRepository.updateStatusByIdIn(chunk, OrderStatus.CANCELLED);
+        }
+        balanceLedgerService.recordRefunds(refunds);
+        clientStatsService.recordCancellations(pricesByClientId);
+        salesAnalyticsService.recordCancellations(confirmedOrderIds);
+
+        Map<Long, String> emailsByClientId = clientRepository.findEmailsByIdIn(pricesByClientId.keySet()).stream()
+                .collect(Collectors.toMap(row -> ((Number) row[0]).longValue(), row -> (String) row[1]));
+        Instant now = Instant.now();
+        for (Object[] row : orders) {
+            eventPublisher.publishEvent(new OrderStatusChangedEvent(((Number) row[0]).longValue(),
+                    emailsByClientId.get(((Number) row[1]).longValue()),
+                    OrderStatus.valueOf((String) row[3]), OrderStatus.CANCELLED, (BigDecimal) row[2], now));
+        }
+        return orders.size();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -170,21 +280,24 @@ public class OrderServiceImpl implements OrderService {
      * active draft order or creates a new one if none exists. It then adds the
      * specified book to the order, incrementing the quantity if the book is already
      * present. Finally, it recalculates and updates the total price of the order.
+     * <p>
+     * Only the client's ID is looked up; the {@link Client} entity is referenced by proxy
+     * and never loaded, since the cart only needs it as a foreign key.
      */
     @Override
     @Transactional
     @PreAuthorize("hasRole('CLIENT')")
-    public void addBookToDraftOrder(Long bookId, String clientEmail) {
-        Client client = clientRepository.findByEmail(clientEmail)
+    public CartSummaryDTO addBookToDraftOrder(Long bookId, String clientEmail) {
+        Long clientId = clientRepository.findIdByEmail(clientEmail)
                 .orElseThrow(() -> new NotFoundException("Client not found with email: " + clientEmail));
         Book book = bookRepository.findById(bookId)
                 .orElseThrow(() -> new NotFoundException("Book not found with id: " + bookId));
 
         // Find an existing draft order or create a new one on the fly.
-        Order draftOrder = orderRepository.findByClientIdAndStatus(client.getId(), OrderStatus.DRAFT)
+        Order draftOrder = orderRepository.findByClientIdAndStatus(clientId, OrderStatus.DRAFT)
                 .orElseGet(() -> {
                     Order newOrder = new Order();
-                    newOrder.setClient(client);
+                    newOrder.setClient(clientRepository.getReferenceById(clientId));
                     newOrder.setOrderDate(LocalDateTime.now());
                     newOrder.setStatus(OrderStatus.DRAFT);
                     newOrder.setPrice(BigDecimal.ZERO);
@@ -216,7 +329,10 @@ public class OrderServiceImpl implements OrderService {
         draftOrder.setPrice(totalPrice);
 
         // Save the order, which will also cascade-save any new or updated BookItems.
+        // The draft is managed (or persisted with an identity ID), so it carries the saved state.
         orderRepository.save(draftOrder);
+        int itemCount = draftOrder.getBookItems().stream().mapToInt(BookItem::getQuantity).sum();
+        return new CartSummaryDTO(draftOrder.getId(), itemCount, totalPrice);
     }
 
     /**
@@ -229,4 +345,12 @@ public class OrderServiceImpl implements OrderService {
                 .map(orderMapper::toDTO)
                 .collect(Collectors.toList());
     }
-}
\ No newline at end of file
+
+    /**
+     * Announces that an order has left {@code previousStatus}; the event is delivered after commit.
+     */
+    private void publishStatusChange(Order order, OrderStatus previousStatus) {
+        eventPublisher.publishEvent(new OrderStatusChangedEvent(order.getId(), order.getClient().getEmail(),
+                previousStatus, order.getStatus(), order.getPrice(), Instant.now()));
+    }
+}
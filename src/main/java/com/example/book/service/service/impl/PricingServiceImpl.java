@@ -0,0 +1,152 @@
+package com.example.book.service.service.impl;
+
+import com.example.book.service.cache.CatalogVersion;
+import com.example.book.service.dto.PriceChangeDTO;
+import com.example.book.service.dto.PriceChangeResultDTO;
+import com.example.book.service.exception.CustomBadRequestException;
+import com.example.book.service.model.enums.PriceChangeMode;
+import com.example.book.service.service.PricingService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The concrete implementation of the {@link PricingService} interface.
+ * <p>
+ * A change is applied with set-based statements whatever the number of books or orders it
+ * concerns: one {@code UPDATE} of the books, one query checking that no repriced book fell below
+ * 0.01, and one {@code UPDATE} of the draft orders that recomputes each total from its items in
+ * a correlated subquery. No book or order is loaded. The check runs after the books are
+ * updated, so it reads the prices the update computed from the latest committed ones, on rows it
+ * now holds locked; a check made beforehand would read a snapshot that a concurrent price edit
+ * may already have changed. A failed check rolls the whole change back. Both updates increment
+ * the {@code version} column, so that a concurrent edit of a repriced book, or a cart change made
+ * from a stale total, fails its optimistic lock check instead of overwriting the new values.
+ * <p>
+ * Every change is written as {@code price * factor + delta}, rounded to cents: a percentage sets
+ * the factor and an absolute amount the delta. The books of a genre or an author are found
+ * through the indexes on those columns, and their draft orders through the
+ * {@code (book_id, order_id)} index of the order items.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PricingServiceImpl implements PricingService {
+
+    /**
+     * The maximum number of book IDs a change may list, which bounds its {@code IN} list.
+     */
+    private static final int MAX_IDS = 1000;
+
+    private static final BigDecimal MIN_PRICE = new BigDecimal("0.01");
+
+    private static final String COUNT_BELOW_MINIMUM =
+            "SELECT COUNT(*) FROM books b WHERE %s AND b.price < :minPrice";
+
+    private static final String REPRICE_BOOKS =
+            "UPDATE books b SET price = ROUND(b.price * :factor + :delta, 2), version = version + 1 WHERE %s";
+
+    private static final String REPRICE_DRAFT_ORDERS =
+            "UPDATE orders SET price = (SELECT COALESCE(SUM(i.quantity * b.price), 0) "
+                    + "FROM order_items i JOIN books b ON b.id = i.book_id WHERE i.order_id = orders.id), "
+                    + "version = version + 1 "
+                    + "WHERE status = 'DRAFT' AND id IN (SELECT i.order_id FROM order_items i "
+                    + "JOIN books b ON b.id = i.book_id WHERE %s)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final CatalogVersion catalogVersion;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    @PreAuthorize("hasRole('ADMIN')")
+    public PriceChangeResultDTO applyPriceChange(PriceChangeDTO change) {
+        if (change.getScope() == null || change.getMode() == null || change.getAmount() == null
+                || change.getTarget() == null || change.getTarget().isBlank()) {
+            throw new CustomBadRequestException("A price change needs a scope, a target, a mode and an amount.");
+        }
+
+        MapSqlParameterSource params = new MapSqlParameterSource("minPrice", MIN_PRICE);
+        if (change.getMode() == PriceChangeMode.PERCENT) {
+            params.addValue("factor", BigDecimal.ONE.add(change.getAmount().movePointLeft(2)))
+                    .addValue("delta", BigDecimal.ZERO);
+        } else {
+            params.addValue("factor", BigDecimal.ONE).addValue("delta", change.getAmount());
+        }
+        String books = switch (change.getScope()) {
+            case GENRE -> {
+                params.addValue("target", change.getTarget().trim());
+                yield "b.genre = :target";
+            }
+            case AUTHOR -> {
+                params.addValue("target", change.getTarget().trim());
+                yield "b.author = :target";
+            }
+            case IDS -> {
+                params.addValue("ids", parseIds(change.getTarget()));
+                yield "b.id IN (:ids)";
+            }
+        };
+
+        int repriced = jdbcTemplate.update(REPRICE_BOOKS.formatted(books), params);
+        // Every stored price is at least a cent, so any book below it now was taken there by this change.
+        Integer belowMinimum = repriced == 0 ? null
+                : jdbcTemplate.queryForObject(COUNT_BELOW_MINIMUM.formatted(books), params, Integer.class);
+        if (belowMinimum != null && belowMinimum > 0) {
+            throw new CustomBadRequestException("The change would price " + belowMinimum + " book(s) below " + MIN_PRICE + ".");
+        }
+        int draftOrders = repriced == 0 ? 0 : jdbcTemplate.update(REPRICE_DRAFT_ORDERS.formatted(books), params);
+        if (repriced > 0) {
+            catalogVersion.advance();
+        }
+        log.info("Repriced {} books by {} {} and recomputed {} draft orders",
+                repriced, change.getAmount(), change.getMode(), draftOrders);
+        return new PriceChangeResultDTO(repriced, draftOrders);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int repriceDraftOrders(Collection<Long> bookIds) {
+        if (bookIds.isEmpty()) {
+            return 0;
+        }
+        return jdbcTemplate.update(REPRICE_DRAFT_ORDERS.formatted("b.id IN (:ids)"),
+                new MapSqlParameterSource("ids", bookIds));
+    }
+
+    /**
+     * Parses a comma-separated list of book IDs.
+     */
+    private static List<Long> parseIds(String target) {
+        List<Long> ids;
+        try {
+            ids = Arrays.stream(target.split(","))
+                    .map(String::trim)
+                    .filter(id -> !id.isEmpty())
+                    .map(Long::valueOf)
+                    .distinct()
+                    .toList();
+        } catch (NumberFormatException e) {
+            throw new CustomBadRequestException("Book IDs must be a comma-separated list of numbers.");
+        }
+        if (ids.isEmpty() || ids.size() > MAX_IDS) {
+            throw new CustomBadRequestException("A price change must list between 1 and " + MAX_IDS + " book IDs.");
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,295 @@
+package com.example.book.service.service.impl;
+
+import com.example.book.service.dto.BookSalesDTO;
+import com.example.book.service.dto.SalesTotalDTO;
+import com.example.book.service.service.SalesAnalyticsService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The concrete implementation of the {@link SalesAnalyticsService} interface.
+ * <p>
+ * The items of the orders concerned are read with one grouped query, and the rollups are written
+ * with one batched upsert ({@code INSERT ... ON DUPLICATE KEY UPDATE}) per rollup table whatever the
+ * number of items or orders. The update clause takes the delta from its own parameters instead of
+ * the {@code VALUES()} function that MySQL deprecates, which is why the sums are not computed by an
+ * {@code INSERT ... SELECT}; the row-alias form that would allow one is not understood by H2. The
+ * rows of each batch are sorted by key, so that concurrent confirmations lock them in the same
+ * order. Submitting an order stores the price each item is paid at in
+ * {@code order_items.unit_price}, and the book's genre in {@code order_items.genre}; the rollups
+ * are computed from those stored values, so they agree with what the client was charged whatever
+ * the book costs when the order is confirmed, and a cancellation reverses exactly what the
+ * confirmation added, to the same genre, even if the book has been edited since. Items without a
+ * stored price are skipped. The rollups do not reference the books, so the sales of a deleted
+ * book are kept.
+ * <p>
+ * The backfill recomputes ranges of {@code app.analytics.backfill-chunk-days} days, at most
+ * {@code app.analytics.backfill-parallelism} at a time. Each range deletes its rollup rows and
+ * recomputes them from the confirmed orders placed in it, in one transaction, using the
+ * {@code (status, order_date)} index of the orders.
+ */
+@Slf4j
+@Service
+public class SalesAnalyticsServiceImpl implements SalesAnalyticsService {
+
+    /**
+     * The maximum number of orders applied by one statement, which bounds its {@code IN} list.
+     */
+    private static final int MAX_ORDERS_PER_STATEMENT = 1000;
+
+    private static final String STORE_UNIT_PRICES =
+            "UPDATE order_items SET unit_price = (SELECT b.price FROM books b WHERE b.id = order_items.book_id), "
+                    + "genre = (SELECT b.genre FROM books b WHERE b.id = order_items.book_id) "
+                    + "WHERE order_id = :orderId";
+
+    private static final String ORDER_SALES =
+            "SELECT CAST(o.order_date AS DATE), i.book_id, i.genre, SUM(i.quantity), SUM(i.quantity * i.unit_price) "
+                    + "FROM orders o JOIN order_items i ON i.order_id = o.id "
+                    + "WHERE o.id IN (:orderIds) AND i.unit_price IS NOT NULL "
+                    + "GROUP BY CAST(o.order_date AS DATE), i.book_id, i.genre";
+
+    private static final String APPLY_BOOK_SALES =
+            "INSERT INTO sales_book_daily (sales_date, book_id, units, revenue) VALUES (:salesDate, :bookId, :units, :revenue) "
+                    + "ON DUPLICATE KEY UPDATE units = units + :units, revenue = revenue + :revenue";
+
+    private static final String APPLY_GENRE_SALES =
+            "INSERT INTO sales_genre_daily (sales_date, genre, units, revenue) VALUES (:salesDate, :genre, :units, :revenue) "
+                    + "ON DUPLICATE KEY UPDATE units = units + :units, revenue = revenue + :revenue";
+
+    private static final String BEST_SELLERS =
+            "SELECT s.book_id, b.name, s.units, s.revenue FROM ("
+                    + "SELECT book_id, SUM(units) AS units, SUM(revenue) AS revenue FROM sales_book_daily "
+                    + "WHERE sales_date BETWEEN :from AND :to GROUP BY book_id HAVING SUM(units) > 0 "
+                    + "ORDER BY units DESC, revenue DESC LIMIT :limit) s "
+                    + "LEFT JOIN books b ON b.id = s.book_id ORDER BY s.units DESC, s.revenue DESC";
+
+    private static final String SALES_BY_GENRE =
+            "SELECT genre, SUM(units) AS units, SUM(revenue) AS revenue FROM sales_genre_daily "
+                    + "WHERE sales_date BETWEEN :from AND :to GROUP BY genre HAVING SUM(units) > 0 "
+                    + "ORDER BY revenue DESC, genre";
+
+    private static final String SALES_BY_DAY =
+            "SELECT sales_date, SUM(units) AS units, SUM(revenue) AS revenue FROM sales_genre_daily "
+                    + "WHERE sales_date BETWEEN :from AND :to GROUP BY sales_date HAVING SUM(units) > 0 "
+                    + "ORDER BY sales_date";
+
+    private static final String BACKFILL_BOUNDS =
+            "SELECT MIN(d), MAX(d) FROM ("
+                    + "SELECT CAST(MIN(order_date) AS DATE) AS d FROM orders WHERE status = 'CONFIRMED' "
+                    + "UNION ALL SELECT CAST(MAX(order_date) AS DATE) FROM orders WHERE status = 'CONFIRMED' "
+                    + "UNION ALL SELECT MIN(sales_date) FROM sales_book_daily "
+                    + "UNION ALL SELECT MAX(sales_date) FROM sales_book_daily) bounds";
+
+    private static final String BACKFILL_UNIT_PRICES =
+            "UPDATE order_items SET unit_price = (SELECT b.price FROM books b WHERE b.id = order_items.book_id), "
+                    + "genre = (SELECT b.genre FROM books b WHERE b.id = order_items.book_id) "
+                    + "WHERE unit_price IS NULL AND order_id IN (SELECT o.id FROM orders o "
+                    + "WHERE o.status = 'CONFIRMED' AND o.order_date >= :from AND o.order_date < :until)";
+
+    private static final String BACKFILL_BOOK_SALES =
+            "INSERT INTO sales_book_daily (sales_date, book_id, units, revenue) "
+                    + "SELECT CAST(o.order_date AS DATE), i.book_id, SUM(i.quantity), SUM(i.quantity * i.unit_price) "
+                    + "FROM orders o JOIN order_items i ON i.order_id = o.id "
+                    + "WHERE o.status = 'CONFIRMED' AND o.order_date >= :from AND o.order_date < :until "
+                    + "GROUP BY CAST(o.order_date AS DATE), i.book_id";
+
+    private static final String BACKFILL_GENRE_SALES =
+            "INSERT INTO sales_genre_daily (sales_date, genre, units, revenue) "
+                    + "SELECT CAST(o.order_date AS DATE), i.genre, SUM(i.quantity), SUM(i.quantity * i.unit_price) "
+                    + "FROM orders o JOIN order_items i ON i.order_id = o.id "
+                    + "WHERE o.status = 'CONFIRMED' AND o.order_date >= :from AND o.order_date < :until "
+                    + "GROUP BY CAST(o.order_date AS DATE), i.genre";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int backfillChunkDays;
+    private final int backfillParallelism;
+
+    public SalesAnalyticsServiceImpl(NamedParameterJdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                     @Value("${app.analytics.backfill-chunk-days:31}") int backfillChunkDays,
+                                     @Value("${app.analytics.backfill-parallelism:4}") int backfillParallelism) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.backfillChunkDays = backfillChunkDays;
+        this.backfillParallelism = backfillParallelism;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordSubmission(Long orderId) {
+        jdbcTemplate.update(STORE_UNIT_PRICES, Map.of("orderId", orderId));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordConfirmation(Long orderId) {
+        apply(List.of(orderId), 1);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordCancellations(Collection<Long> orderIds) {
+        List<Long> ids = List.copyOf(orderIds);
+        for (int from = 0; from < ids.size(); from += MAX_ORDERS_PER_STATEMENT) {
+            apply(ids.subList(from, Math.min(from + MAX_ORDERS_PER_STATEMENT, ids.size())), -1);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<BookSalesDTO> getBestSellers(LocalDate from, LocalDate to, int limit) {
+        return jdbcTemplate.query(BEST_SELLERS, period(from, to).addValue("limit", limit),
+                (rs, rowNum) -> new BookSalesDTO(rs.getLong(1), rs.getString(2), rs.getLong(3), rs.getBigDecimal(4)));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<SalesTotalDTO> getSalesByGenre(LocalDate from, LocalDate to) {
+        return jdbcTemplate.query(SALES_BY_GENRE, period(from, to),
+                (rs, rowNum) -> new SalesTotalDTO(rs.getString(1), rs.getLong(2), rs.getBigDecimal(3)));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<SalesTotalDTO> getSalesByDay(LocalDate from, LocalDate to) {
+        return jdbcTemplate.query(SALES_BY_DAY, period(from, to),
+                (rs, rowNum) -> new SalesTotalDTO(rs.getDate(1).toLocalDate().toString(), rs.getLong(2), rs.getBigDecimal(3)));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The days covered are those of the confirmed orders and of the existing rollup rows, so rows
+     * left over from orders that were cancelled outside the application are cleared too. A failed
+     * range fails the backfill after the other ranges have finished; the ranges already recomputed
+     * stay committed, and the backfill can simply be run again.
+     */
+    @Override
+    public int backfill() {
+        LocalDate[] bounds = jdbcTemplate.queryForObject(BACKFILL_BOUNDS, Map.of(), (rs, rowNum) -> new LocalDate[]{
+                rs.getDate(1) == null ? null : rs.getDate(1).toLocalDate(),
+                rs.getDate(2) == null ? null : rs.getDate(2).toLocalDate()});
+        if (bounds == null || bounds[0] == null) {
+            return 0;
+        }
+
+        List<Future<?>> ranges = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(backfillParallelism)) {
+            for (LocalDate from = bounds[0]; !from.isAfter(bounds[1]); from = from.plusDays(backfillChunkDays)) {
+                MapSqlParameterSource range = new MapSqlParameterSource()
+                        .addValue("from", Date.valueOf(from))
+                        .addValue("until", Date.valueOf(from.plusDays(backfillChunkDays)));
+                ranges.add(executor.submit(() -> transactionTemplate.executeWithoutResult(tx -> {
+                    jdbcTemplate.update("DELETE FROM sales_genre_daily WHERE sales_date >= :from AND sales_date < :until", range);
+                    jdbcTemplate.update("DELETE FROM sales_book_daily WHERE sales_date >= :from AND sales_date < :until", range);
+                    jdbcTemplate.update(BACKFILL_UNIT_PRICES, range);
+                    jdbcTemplate.update(BACKFILL_BOOK_SALES, range);
+                    jdbcTemplate.update(BACKFILL_GENRE_SALES, range);
+                })));
+            }
+        }
+
+        for (Future<?> range : ranges) {
+            try {
+                range.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Sales analytics backfill was interrupted", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Sales analytics backfill failed", e.getCause());
+            }
+        }
+        log.info("Backfilled the sales rollups from {} to {} in {} ranges", bounds[0], bounds[1], ranges.size());
+        return ranges.size();
+    }
+
+    private void apply(Collection<Long> orderIds, int sign) {
+        BigDecimal factor = BigDecimal.valueOf(sign);
+        List<Sales> items = jdbcTemplate.query(ORDER_SALES, Map.of("orderIds", orderIds),
+                (rs, rowNum) -> new Sales(rs.getDate(1), rs.getLong(2), rs.getString(3),
+                        sign * rs.getLong(4), rs.getBigDecimal(5).multiply(factor)));
+        if (items.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(APPLY_BOOK_SALES, rollup(items, Comparator.comparing(Sales::salesDate)
+                .thenComparing(Sales::bookId)));
+        jdbcTemplate.batchUpdate(APPLY_GENRE_SALES, rollup(items, Comparator.comparing(Sales::salesDate)
+                .thenComparing(Sales::genre)));
+    }
+
+    /**
+     * Sums the sales that share a rollup key, and returns one upsert per key in key order.
+     *
+     * @param items the sales of each book and day of the orders.
+     * @param key   the order of the rollup's primary key; sales comparing equal share a row.
+     */
+    private static SqlParameterSource[] rollup(List<Sales> items, Comparator<Sales> key) {
+        TreeMap<Sales, Sales> rows = new TreeMap<>(key);
+        items.forEach(item -> rows.merge(item, item, Sales::plus));
+        return rows.values().stream().map(Sales::parameters).toArray(SqlParameterSource[]::new);
+    }
+
+    private static MapSqlParameterSource period(LocalDate from, LocalDate to) {
+        return new MapSqlParameterSource()
+                .addValue("from", Date.valueOf(from))
+                .addValue("to", Date.valueOf(to));
+    }
+
+    /**
+     * The units and revenue to add to the rollups for one book, genre and day.
+     */
+    private record Sales(Date salesDate, long bookId, String genre, long units, BigDecimal revenue) {
+
+        Sales plus(Sales other) {
+            return new Sales(salesDate, bookId, genre, units + other.units, revenue.add(other.revenue));
+        }
+
+        MapSqlParameterSource parameters() {
+            return new MapSqlParameterSource()
+                    .addValue("salesDate", salesDate)
+                    .addValue("bookId", bookId)
+                    .addValue("genre", genre)
+                    .addValue("units", units)
+                    .addValue("revenue", revenue);
+        }
+    }
+}
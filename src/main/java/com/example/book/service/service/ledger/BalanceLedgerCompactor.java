@@ -0,0 +1,51 @@
+package com.example.book.service.service.ledger;
+
+import com.example.book.service.service.BalanceLedgerService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Periodically folds balance ledger entries into the clients' balance snapshots.
+ * <p>
+ * Between two runs a client's balance is its snapshot plus the entries since, so the interval
+ * bounds how many entries the balance query has to sum. Entries younger than {@code min-age} are
+ * left alone, and each transaction compacts at most {@code batch-size} clients.
+ */
+@Slf4j
+@Component
+public class BalanceLedgerCompactor {
+
+    private final BalanceLedgerService balanceLedgerService;
+    private final Duration minAge;
+    private final int batchSize;
+
+    public BalanceLedgerCompactor(BalanceLedgerService balanceLedgerService,
+                                  @Value("${app.balance-ledger.compaction-min-age:PT1M}") Duration minAge,
+                                  @Value("${app.balance-ledger.compaction-batch-size:500}") int batchSize) {
+        this.balanceLedgerService = balanceLedgerService;
+        this.minAge = minAge;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Compacts all clients with entries older than {@code min-age}, one batch per transaction.
+     */
+    @Scheduled(fixedDelayString = "${app.balance-ledger.compaction-interval:PT5M}")
+    public void compact() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(minAge);
+        int compacted;
+        int total = 0;
+        do {
+            compacted = balanceLedgerService.compact(cutoff, batchSize);
+            total += compacted;
+        } while (compacted == batchSize);
+        if (total > 0) {
+            log.debug("Folded balance ledger entries of {} clients into their snapshots", total);
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.example.book.service.service.recommendation;
+
+import java.util.Arrays;
+
+/**
+ * A sparse, symmetric matrix counting how many confirmed orders contain each pair of books, with
+ * the top-ranked neighbours of every book kept alongside.
+ * <p>
+ * Each book with at least one co-purchase has a row, found through an open-addressing table keyed
+ * by the book ID; the row holds the counts in a {@link LongIntHashMap} and the IDs of its
+ * {@code k} most co-purchased books, best first. Nothing is boxed, so a matrix of millions of
+ * pairs stays compact.
+ * <p>
+ * The matrix is not thread-safe: the {@link CoPurchaseRecommender} serializes writes and
+ * validates reads. The one exception is {@link #rank(int, int, int)}, which may run concurrently
+ * on disjoint slot ranges, since each row is ranked independently.
+ */
+public class CoOccurrenceMatrix {
+
+    private static final long[] NONE = new long[0];
+
+    private long[] rowKeys;
+    private Row[] rows;
+    private int size;
+
+    /**
+     * Creates a matrix that holds {@code expectedBooks} rows before it grows.
+     *
+     * @param expectedBooks the expected number of books with a co-purchase.
+     */
+    public CoOccurrenceMatrix(int expectedBooks) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedBooks * 2 - 1)) << 1;
+        rowKeys = new long[capacity];
+        rows = new Row[capacity];
+    }
+
+    /**
+     * Counts one order, without ranking the rows it changes.
+     *
+     * @param basket the distinct IDs of the books in the order.
+     */
+    public void add(long[] basket) {
+        for (int i = 0; i < basket.length; i++) {
+            for (int j = i + 1; j < basket.length; j++) {
+                row(basket[i]).counts.addTo(basket[j], 1);
+                row(basket[j]).counts.addTo(basket[i], 1);
+            }
+        }
+    }
+
+    /**
+     * Counts one order and updates the top {@code k} of the rows it changes.
+     * <p>
+     * Counts only grow, so a row's top {@code k} can only change through the pairs of this order,
+     * and is updated in {@code O(k)} per pair instead of being ranked again.
+     *
+     * @param basket the distinct IDs of the books in the order.
+     * @param k      the number of neighbours ranked per book.
+     */
+    public void addAndRank(long[] basket, int k) {
+        for (int i = 0; i < basket.length; i++) {
+            for (int j = i + 1; j < basket.length; j++) {
+                Row a = row(basket[i]);
+                Row b = row(basket[j]);
+                if (a.offer(basket[j], a.counts.addTo(basket[j], 1), k)) {
+                    a.publish();
+                }
+                if (b.offer(basket[i], b.counts.addTo(basket[i], 1), k)) {
+                    b.publish();
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds all counts of another matrix to this one, without ranking.
+     *
+     * @param other the matrix to add.
+     */
+    public void merge(CoOccurrenceMatrix other) {
+        for (int i = 0; i < other.rowKeys.length; i++) {
+            if (other.rowKeys[i] != 0) {
+                LongIntHashMap counts = row(other.rowKeys[i]).counts;
+                other.rows[i].counts.forEach((neighbour, count) -> counts.addTo(neighbour, count));
+            }
+        }
+    }
+
+    /**
+     * Ranks the top {@code k} neighbours of the rows in the slots {@code [from, to)}.
+     *
+     * @param k    the number of neighbours ranked per book.
+     * @param from the first slot.
+     * @param to   the slot after the last.
+     */
+    public void rank(int k, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (rowKeys[i] != 0) {
+                Row row = rows[i];
+                row.rankSize = 0;
+                row.counts.forEach((neighbour, count) -> row.offer(neighbour, count, k));
+                row.publish();
+            }
+        }
+    }
+
+    /**
+     * @return the number of slots, for splitting {@link #rank(int, int, int)}.
+     */
+    public int capacity() {
+        return rowKeys.length;
+    }
+
+    /**
+     * @return the number of books with at least one co-purchase.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param book  the ID of a book.
+     * @param other the ID of another book.
+     * @return the number of confirmed orders that contain both books.
+     */
+    public int count(long book, long other) {
+        Row row = find(book);
+        return row == null ? 0 : row.counts.get(other);
+    }
+
+    /**
+     * Returns the ranked neighbours of a book, best first. The array must not be modified.
+     * <p>
+     * This is a single table probe, and never fails on a matrix being written concurrently; the
+     * caller must validate the result.
+     *
+     * @param book the ID of a book.
+     * @return the IDs of the most co-purchased books, possibly empty.
+     */
+    public long[] top(long book) {
+        Row row = find(book);
+        return row == null ? NONE : row.top;
+    }
+
+    private Row find(long book) {
+        long[] keys = rowKeys;
+        Row[] table = rows;
+        int slot = LongIntHashMap.slot(keys, book);
+        return keys[slot] == book && slot < table.length ? table[slot] : null;
+    }
+
+    private Row row(long book) {
+        int slot = LongIntHashMap.slot(rowKeys, book);
+        if (rowKeys[slot] == 0) {
+            if ((size + 1) * 4 > rowKeys.length * 3) {
+                grow();
+                slot = LongIntHashMap.slot(rowKeys, book);
+            }
+            rows[slot] = new Row();
+            rowKeys[slot] = book;
+            size++;
+        }
+        return rows[slot];
+    }
+
+    private void grow() {
+        long[] oldKeys = rowKeys;
+        Row[] oldRows = rows;
+        long[] newKeys = new long[oldKeys.length * 2];
+        Row[] newRows = new Row[oldKeys.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = LongIntHashMap.slot(newKeys, oldKeys[i]);
+                newKeys[slot] = oldKeys[i];
+                newRows[slot] = oldRows[i];
+            }
+        }
+        rows = newRows;
+        rowKeys = newKeys;
+    }
+
+    /**
+     * The co-purchase counts of one book and its current top {@code k}.
+     */
+    private static final class Row {
+
+        private final LongIntHashMap counts = new LongIntHashMap(4);
+        private long[] rankIds = NONE;
+        private int[] rankCounts = new int[0];
+        private int rankSize;
+        private volatile long[] top = NONE;
+
+        /**
+         * Places a neighbour with its new count in the ranking, if it belongs there. Higher counts
+         * rank first; a tie keeps the earlier neighbour.
+         *
+         * @return whether the ranking changed.
+         */
+        private boolean offer(long neighbour, int count, int k) {
+            if (rankIds.length < k) {
+                rankIds = Arrays.copyOf(rankIds, k);
+                rankCounts = Arrays.copyOf(rankCounts, k);
+            }
+            int position = 0;
+            while (position < rankSize && rankIds[position] != neighbour) {
+                position++;
+            }
+            if (position == rankSize) {
+                if (rankSize < k) {
+                    rankSize++;
+                } else if (count > rankCounts[k - 1]) {
+                    position = k - 1;
+                } else {
+                    return false;
+                }
+            }
+            while (position > 0 && rankCounts[position - 1] < count) {
+                rankIds[position] = rankIds[position - 1];
+                rankCounts[position] = rankCounts[position - 1];
+                position--;
+            }
+            rankIds[position] = neighbour;
+            rankCounts[position] = count;
+            return true;
+        }
+
+        /**
+         * Makes the ranking visible to readers, as a copy that is never modified.
+         */
+        private void publish() {
+            top = Arrays.copyOf(rankIds, rankSize);
+        }
+    }
+}
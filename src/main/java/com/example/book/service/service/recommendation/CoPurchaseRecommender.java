@@ -0,0 +1,330 @@
+package com.example.book.service.service.recommendation;
+
+import com.example.book.service.events.OrderStatusChangedEvent;
+import com.example.book.service.model.enums.OrderStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * An in-memory "customers also bought" index over the confirmed orders.
+ * <p>
+ * Co-purchases are counted in a {@link CoOccurrenceMatrix}, which also keeps the top
+ * {@code app.recommendations.top-k} books of every book, so a book page looks its recommendations
+ * up with one table probe. Lookups take an optimistic read of a {@link StampedLock} and only block
+ * while an order is being counted.
+ * <p>
+ * The matrix is kept current in two ways:
+ * <ul>
+ *   <li>Once an order's confirmation has committed, its books are counted and the rankings of the
+ *   books concerned are updated in place.</li>
+ *   <li>On startup and then every {@code app.recommendations.rebuild-interval}, the matrix is
+ *   rebuilt from the order history on a fork-join pool of
+ *   {@code app.recommendations.rebuild-parallelism} threads and swapped in. The rebuild drops the
+ *   orders that were cancelled after their confirmation, which are not subtracted as they happen,
+ *   and picks up orders confirmed on other nodes.</li>
+ * </ul>
+ * Orders confirmed while a rebuild reads the history are counted by the old matrix and, unless the
+ * rebuild read them too, replayed into the new one before it is swapped in.
+ */
+@Slf4j
+@Component
+public class CoPurchaseRecommender {
+
+    /**
+     * The number of orders below which a rebuild task counts them itself rather than splitting.
+     */
+    private static final int ORDERS_PER_TASK = 4096;
+
+    /**
+     * The number of slots below which a ranking task ranks them itself rather than splitting.
+     */
+    private static final int SLOTS_PER_TASK = 1024;
+
+    private static final String CONFIRMED_ITEMS =
+            "SELECT i.order_id, i.book_id FROM order_items i JOIN orders o ON o.id = i.order_id "
+                    + "WHERE o.status = 'CONFIRMED' ORDER BY i.order_id, i.book_id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int topK;
+    private final int rebuildParallelism;
+
+    private final StampedLock lock = new StampedLock();
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private volatile CoOccurrenceMatrix matrix = new CoOccurrenceMatrix(0);
+
+    /**
+     * The orders counted since the running rebuild started, guarded by the write lock; {@code null}
+     * when no rebuild is running.
+     */
+    private List<Basket> pending;
+
+    public CoPurchaseRecommender(JdbcTemplate jdbcTemplate,
+                                 @Value("${app.recommendations.top-k:5}") int topK,
+                                 @Value("${app.recommendations.rebuild-parallelism:4}") int rebuildParallelism) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.topK = topK;
+        this.rebuildParallelism = rebuildParallelism;
+    }
+
+    /**
+     * Returns the books most often bought together with a book, best first.
+     *
+     * @param bookId the ID of the book.
+     * @return the IDs of at most {@code app.recommendations.top-k} books, possibly none. The array
+     * must not be modified.
+     */
+    public long[] recommend(long bookId) {
+        long stamp = lock.tryOptimisticRead();
+        long[] top = matrix.top(bookId);
+        if (lock.validate(stamp)) {
+            return top;
+        }
+        stamp = lock.readLock();
+        try {
+            return matrix.top(bookId);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Builds the matrix once the application is ready. Runs asynchronously, so that the node reports
+     * itself ready without waiting for the order history to be read.
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        rebuild();
+    }
+
+    /**
+     * Counts the books of an order once its confirmation has committed. Runs asynchronously, so
+     * that the confirmation does not wait for the order's items to be read.
+     *
+     * @param event the status change.
+     */
+    @Async
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        if (event.to() == OrderStatus.CONFIRMED) {
+            record(event.orderId(), jdbcTemplate.queryForList(
+                    "SELECT DISTINCT book_id FROM order_items WHERE order_id = ? ORDER BY book_id",
+                    Long.class, event.orderId()).stream().mapToLong(Long::longValue).toArray());
+        }
+    }
+
+    /**
+     * Counts the books of a confirmed order.
+     *
+     * @param orderId the ID of the order.
+     * @param books   the distinct IDs of the books in the order.
+     */
+    public void record(long orderId, long[] books) {
+        if (books.length < 2) {
+            return;
+        }
+        long stamp = lock.writeLock();
+        try {
+            matrix.addAndRank(books, topK);
+            if (pending != null) {
+                pending.add(new Basket(orderId, books));
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Rebuilds the matrix from the confirmed orders and swaps it in. Does nothing if a rebuild is
+     * already running.
+     *
+     * @return the number of books with at least one co-purchase, or {@code -1} if a rebuild was
+     * already running.
+     */
+    @Scheduled(initialDelayString = "${app.recommendations.rebuild-interval:PT6H}",
+            fixedDelayString = "${app.recommendations.rebuild-interval:PT6H}")
+    public int rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return -1;
+        }
+        try {
+            long stamp = lock.writeLock();
+            pending = new ArrayList<>();
+            lock.unlockWrite(stamp);
+
+            List<Basket> baskets = loadBaskets();
+            CoOccurrenceMatrix rebuilt;
+            try (ForkJoinPool pool = new ForkJoinPool(rebuildParallelism)) {
+                rebuilt = pool.invoke(new CountTask(baskets, 0, baskets.size()));
+                pool.invoke(new RankTask(rebuilt, 0, rebuilt.capacity()));
+            }
+
+            stamp = lock.writeLock();
+            try {
+                if (!pending.isEmpty()) {
+                    LongIntHashMap loaded = new LongIntHashMap(baskets.size());
+                    baskets.forEach(basket -> loaded.addTo(basket.orderId(), 1));
+                    pending.stream()
+                            .filter(basket -> loaded.get(basket.orderId()) == 0)
+                            .forEach(basket -> rebuilt.addAndRank(basket.books(), topK));
+                }
+                matrix = rebuilt;
+            } finally {
+                pending = null;
+                lock.unlockWrite(stamp);
+            }
+            log.info("Rebuilt the co-purchase index from {} orders for {} books", baskets.size(), rebuilt.size());
+            return rebuilt.size();
+        } finally {
+            if (pending != null) {
+                long stamp = lock.writeLock();
+                pending = null;
+                lock.unlockWrite(stamp);
+            }
+            rebuilding.set(false);
+        }
+    }
+
+    /**
+     * Reads the distinct books of every confirmed order with more than one book.
+     */
+    private List<Basket> loadBaskets() {
+        BasketCollector collector = new BasketCollector();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(CONFIRMED_ITEMS);
+            statement.setFetchSize(1000);
+            return statement;
+        }, collector);
+        return collector.finish();
+    }
+
+    /**
+     * The distinct books of one confirmed order.
+     */
+    private record Basket(long orderId, long[] books) {
+    }
+
+    /**
+     * Groups the rows of {@link #CONFIRMED_ITEMS}, which arrive in order and book order, into baskets.
+     */
+    private static final class BasketCollector implements RowCallbackHandler {
+
+        private final List<Basket> baskets = new ArrayList<>();
+        private long orderId;
+        private long[] books = new long[8];
+        private int size;
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long rowOrderId = rs.getLong(1);
+            long bookId = rs.getLong(2);
+            if (rowOrderId != orderId) {
+                flush();
+                orderId = rowOrderId;
+            }
+            if (size == 0 || books[size - 1] != bookId) {
+                if (size == books.length) {
+                    books = Arrays.copyOf(books, size * 2);
+                }
+                books[size++] = bookId;
+            }
+        }
+
+        private List<Basket> finish() {
+            flush();
+            return baskets;
+        }
+
+        private void flush() {
+            if (size > 1) {
+                baskets.add(new Basket(orderId, Arrays.copyOf(books, size)));
+            }
+            size = 0;
+        }
+    }
+
+    /**
+     * Counts a range of orders into a new matrix, splitting it in halves whose matrices are merged.
+     */
+    private static final class CountTask extends RecursiveTask<CoOccurrenceMatrix> {
+
+        private final List<Basket> baskets;
+        private final int from;
+        private final int to;
+
+        private CountTask(List<Basket> baskets, int from, int to) {
+            this.baskets = baskets;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected CoOccurrenceMatrix compute() {
+            if (to - from <= ORDERS_PER_TASK) {
+                CoOccurrenceMatrix counted = new CoOccurrenceMatrix(to - from);
+                for (int i = from; i < to; i++) {
+                    counted.add(baskets.get(i).books());
+                }
+                return counted;
+            }
+            int middle = (from + to) >>> 1;
+            CountTask left = new CountTask(baskets, from, middle);
+            left.fork();
+            CoOccurrenceMatrix right = new CountTask(baskets, middle, to).compute();
+            CoOccurrenceMatrix counted = left.join();
+            if (counted.size() < right.size()) {
+                right.merge(counted);
+                return right;
+            }
+            counted.merge(right);
+            return counted;
+        }
+    }
+
+    /**
+     * Ranks the rows in a range of slots of a matrix, splitting it in halves.
+     */
+    private final class RankTask extends RecursiveAction {
+
+        private final CoOccurrenceMatrix counted;
+        private final int from;
+        private final int to;
+
+        private RankTask(CoOccurrenceMatrix counted, int from, int to) {
+            this.counted = counted;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SLOTS_PER_TASK) {
+                counted.rank(topK, from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new RankTask(counted, from, middle), new RankTask(counted, middle, to));
+        }
+    }
+}
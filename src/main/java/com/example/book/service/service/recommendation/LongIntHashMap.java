@@ -0,0 +1,131 @@
+package com.example.book.service.service.recommendation;
+
+/**
+ * An open-addressing hash map from positive {@code long} keys to {@code int} values.
+ * <p>
+ * Keys and values are held in two primitive arrays and probed linearly, so neither is ever boxed
+ * and an entry costs twelve bytes plus the free slots. The key {@code 0} marks a free slot, which
+ * is why only positive keys (database IDs) are accepted. Entries cannot be removed.
+ * <p>
+ * The map is not thread-safe.
+ */
+public class LongIntHashMap {
+
+    private static final int MIN_CAPACITY = 4;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+
+    /**
+     * Creates a map that holds {@code expectedSize} entries before it grows.
+     *
+     * @param expectedSize the expected number of entries.
+     */
+    public LongIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(MIN_CAPACITY, expectedSize * 2 - 1)) << 1;
+        keys = new long[capacity];
+        values = new int[capacity];
+    }
+
+    /**
+     * Adds {@code delta} to the value of a key, which starts at {@code 0}.
+     *
+     * @param key   the key, which must be positive.
+     * @param delta the amount to add.
+     * @return the new value.
+     */
+    public int addTo(long key, int delta) {
+        if (key <= 0) {
+            throw new IllegalArgumentException("Keys must be positive: " + key);
+        }
+        int slot = slot(keys, key);
+        if (keys[slot] == 0) {
+            if ((size + 1) * 4 > keys.length * 3) {
+                grow();
+                slot = slot(keys, key);
+            }
+            keys[slot] = key;
+            size++;
+        }
+        return values[slot] += delta;
+    }
+
+    /**
+     * @param key the key.
+     * @return the value of the key, or {@code 0} if it has none.
+     */
+    public int get(long key) {
+        int slot = slot(keys, key);
+        return keys[slot] == key ? values[slot] : 0;
+    }
+
+    /**
+     * @return the number of keys in the map.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Passes every entry to {@code action}, in no particular order.
+     *
+     * @param action receives each key and its value.
+     */
+    public void forEach(EntryConsumer action) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) {
+                action.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldKeys.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = slot(keys, oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Finds the slot that holds {@code key}, or the free slot where it would be inserted.
+     */
+    static int slot(long[] keys, long key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Spreads consecutive IDs over the table (murmur3 fmix64), so that linear probing does not cluster.
+     */
+    static int mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    /**
+     * Receives the entries of a {@link LongIntHashMap} without boxing them.
+     */
+    @FunctionalInterface
+    public interface EntryConsumer {
+
+        /**
+         * @param key   the key of the entry.
+         * @param value the value of the entry.
+         */
+        void accept(long key, int value);
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.book.service.service.stats;
+
+import com.example.book.service.service.ClientStatsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Recomputes the client order statistics from scratch on a schedule.
+ * <p>
+ * The statistics are kept current by delta updates, so the rebuild is only a safety net against
+ * drift, e.g. after orders were changed directly in the database. It is disabled unless
+ * {@code app.client-stats.rebuild-cron} is set, and can also be started by an admin from the
+ * client list.
+ */
+@Component
+@RequiredArgsConstructor
+public class ClientStatsRebuildJob {
+
+    /**
+     * The identity the scheduled rebuild runs as, since the rebuild is restricted to admins and a
+     * scheduler thread has no signed-in user.
+     */
+    private static final Authentication SYSTEM = UsernamePasswordAuthenticationToken.authenticated(
+            "client-stats-rebuild-job", null, AuthorityUtils.createAuthorityList("ROLE_ADMIN"));
+
+    private final ClientStatsService clientStatsService;
+
+    /**
+     * Rebuilds the statistics of all clients.
+     */
+    @Scheduled(cron = "${app.client-stats.rebuild-cron:-}")
+    public void rebuild() {
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(SYSTEM);
+        SecurityContextHolder.setContext(context);
+        try {
+            clientStatsService.rebuild();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.book.service.service.stats;
+
+import com.example.book.service.service.SalesAnalyticsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Recomputes the sales analytics rollups from the order history on a schedule.
+ * <p>
+ * The rollups are kept current as orders are confirmed and cancelled, so the backfill is needed
+ * for history that predates them or was changed outside the application. It is disabled unless
+ * {@code app.analytics.backfill-cron} is set, and can also be started by an admin from the
+ * analytics dashboard.
+ */
+@Component
+@RequiredArgsConstructor
+public class SalesAnalyticsBackfillJob {
+
+    private final SalesAnalyticsService salesAnalyticsService;
+
+    /**
+     * Backfills the rollups of all days with sales.
+     */
+    @Scheduled(cron = "${app.analytics.backfill-cron:-}")
+    public void backfill() {
+        salesAnalyticsService.backfill();
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.book.service.service.trending;
+
+import com.example.book.service.service.counters.BookCounters;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Counts every successful view of a book page ({@code GET /books/view/{id}}) in the
+ * {@link TrendingTracker} and the persisted {@link BookCounters}.
+ * <p>
+ * The filter runs ahead of the page cache, so that pages served to anonymous visitors from the
+ * cache, which never reach the controller, are counted too.
+ */
+public class BookViewCountingFilter extends OncePerRequestFilter {
+
+    private static final String PREFIX = "/books/view/";
+
+    private final TrendingTracker trendingTracker;
+    private final BookCounters bookCounters;
+
+    public BookViewCountingFilter(TrendingTracker trendingTracker, BookCounters bookCounters) {
+        this.trendingTracker = trendingTracker;
+        this.bookCounters = bookCounters;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"GET".equals(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        chain.doFilter(request, response);
+        if (response.getStatus() == HttpServletResponse.SC_OK) {
+            long bookId = bookId(request.getRequestURI().substring(request.getContextPath().length()));
+            if (bookId > 0) {
+                trendingTracker.recordView(bookId);
+                bookCounters.recordView(bookId);
+            }
+        }
+    }
+
+    /**
+     * @return the book ID of a book page path, or {@code 0} if the path is not one.
+     */
+    private static long bookId(String path) {
+        if (!path.startsWith(PREFIX) || path.length() == PREFIX.length() || path.length() > PREFIX.length() + 18) {
+            return 0;
+        }
+        long id = 0;
+        for (int i = PREFIX.length(); i < path.length(); i++) {
+            char c = path.charAt(i);
+            if (c < '0' || c > '9') {
+                return 0;
+            }
+            id = id * 10 + (c - '0');
+        }
+        return id;
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.book.service.service.trending;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A thread-safe count-min sketch over {@code long} keys.
+ * <p>
+ * A count-min sketch estimates how often each key was counted using {@code depth} rows of
+ * {@code width} counters: a key increments one counter per row, and its estimate is the smallest
+ * of those counters. Estimates never undercount, and overcount by at most {@code e / width} of the
+ * total with probability {@code 1 - e^-depth}, whatever the number of distinct keys.
+ * <p>
+ * Counters are kept in an {@link AtomicLongArray}, so {@link #add(long, long)} costs {@code depth}
+ * atomic increments and never locks. The row positions of a key are derived from the two halves
+ * of a murmur-mixed hash using the Kirsch–Mitzenmacher double-hashing scheme.
+ */
+public class CountMinSketch {
+
+    private final AtomicLongArray counters;
+    private final int width;
+    private final int depth;
+
+    /**
+     * Creates an empty sketch.
+     *
+     * @param width the number of counters per row, rounded up to a power of two.
+     * @param depth the number of rows.
+     */
+    public CountMinSketch(int width, int depth) {
+        this.width = Integer.highestOneBit(Math.max(1, width * 2 - 1));
+        this.depth = Math.max(1, depth);
+        this.counters = new AtomicLongArray(this.width * this.depth);
+    }
+
+    /**
+     * Counts a key.
+     *
+     * @param key   the key.
+     * @param count the amount to count.
+     * @return the estimate of the key after counting it.
+     */
+    public long add(long key, long count) {
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.addAndGet(index(row, h1, h2), count));
+        }
+        return estimate;
+    }
+
+    /**
+     * @param key the key.
+     * @return how often the key was counted, possibly overestimated.
+     */
+    public long estimate(long key) {
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.get(index(row, h1, h2)));
+        }
+        return estimate;
+    }
+
+    private int index(int row, int h1, int h2) {
+        return row * width + ((h1 + row * h2) & (width - 1));
+    }
+
+    static long hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb93fe1a85ec5L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.book.service.service.trending;
+
+import com.example.book.service.service.recommendation.LongIntHashMap;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The heavy hitters of a sliding window, kept as a ring of time buckets.
+ * <p>
+ * Each bucket counts the events of one fixed period in its own {@link CountMinSketch}, and tracks
+ * the keys most likely to be heavy hitters in a small candidate table. Counting an event touches
+ * only the current bucket: {@code depth} atomic increments, then at most {@value #PROBES}
+ * candidate slots, claimed or replaced by compare-and-set. It never locks and its cost does not
+ * depend on the number of keys or buckets.
+ * <p>
+ * {@link #rotate(long)} starts a new bucket once its period has begun, replacing the oldest one,
+ * and {@link #top(int)} ranks the candidates of all live buckets by their summed estimates with a
+ * bounded min-heap. Both run off the request path.
+ */
+public class SlidingWindowSketch {
+
+    /**
+     * The number of candidate slots a key may occupy, and that are probed when it is counted.
+     */
+    private static final int PROBES = 4;
+
+    private final long bucketMillis;
+    private final int width;
+    private final int depth;
+    private final int candidates;
+    private final AtomicReferenceArray<Bucket> ring;
+    private volatile Bucket current;
+
+    /**
+     * Creates a window of {@code buckets} buckets of {@code bucketMillis} each, starting with the
+     * bucket of {@code nowMillis}.
+     *
+     * @param bucketMillis the length of a bucket, in milliseconds.
+     * @param buckets      the number of buckets in the window.
+     * @param width        the width of the sketch of each bucket.
+     * @param depth        the depth of the sketch of each bucket.
+     * @param candidates   the number of candidate keys tracked per bucket, rounded up to a power of two.
+     * @param nowMillis    the current time.
+     */
+    public SlidingWindowSketch(long bucketMillis, int buckets, int width, int depth, int candidates, long nowMillis) {
+        this.bucketMillis = bucketMillis;
+        this.width = width;
+        this.depth = depth;
+        this.candidates = Integer.highestOneBit(Math.max(PROBES, candidates * 2 - 1));
+        this.ring = new AtomicReferenceArray<>(buckets);
+        rotate(nowMillis);
+    }
+
+    /**
+     * Counts an event of a key in the current bucket.
+     *
+     * @param key    the key, which must be positive.
+     * @param weight the weight of the event.
+     */
+    public void record(long key, long weight) {
+        current.record(key, weight);
+    }
+
+    /**
+     * Starts the bucket of {@code nowMillis} if it has not been started yet. Buckets that have
+     * fallen out of the window are dropped as their slots are reused, and ignored until then.
+     *
+     * @param nowMillis the current time.
+     */
+    public void rotate(long nowMillis) {
+        long epoch = nowMillis / bucketMillis;
+        Bucket latest = current;
+        if (latest != null && latest.epoch >= epoch) {
+            return;
+        }
+        Bucket bucket = new Bucket(epoch, new CountMinSketch(width, depth), new AtomicLongArray(candidates));
+        ring.set((int) (epoch % ring.length()), bucket);
+        current = bucket;
+    }
+
+    /**
+     * Ranks the keys counted most often in the window.
+     *
+     * @param k the maximum number of keys.
+     * @return the top keys with their estimated counts, highest first.
+     */
+    public List<Trend> top(int k) {
+        long oldest = current.epoch - ring.length();
+        List<Bucket> live = new ArrayList<>(ring.length());
+        for (int i = 0; i < ring.length(); i++) {
+            Bucket bucket = ring.get(i);
+            if (bucket != null && bucket.epoch > oldest) {
+                live.add(bucket);
+            }
+        }
+
+        LongIntHashMap ranked = new LongIntHashMap(live.size() * candidates);
+        PriorityQueue<Trend> heap = new PriorityQueue<>(k + 1, Comparator.comparingLong(Trend::count));
+        for (Bucket bucket : live) {
+            for (int slot = 0; slot < candidates; slot++) {
+                long key = bucket.candidates.get(slot);
+                if (key == 0 || ranked.addTo(key, 1) > 1) {
+                    continue;
+                }
+                long count = 0;
+                for (Bucket other : live) {
+                    count += other.sketch.estimate(key);
+                }
+                heap.offer(new Trend(key, count));
+                if (heap.size() > k) {
+                    heap.poll();
+                }
+            }
+        }
+        List<Trend> top = new ArrayList<>(heap);
+        top.sort(Comparator.comparingLong(Trend::count).reversed().thenComparingLong(Trend::key));
+        return top;
+    }
+
+    /**
+     * A key and its estimated count over a window.
+     *
+     * @param key   the key.
+     * @param count the estimated number of events, weighted.
+     */
+    public record Trend(long key, long count) {
+    }
+
+    /**
+     * The sketch and candidate keys of one period.
+     */
+    private record Bucket(long epoch, CountMinSketch sketch, AtomicLongArray candidates) {
+
+        /**
+         * Counts a key, then makes it a candidate if it is one already, a slot is free, or it now
+         * outranks the weakest candidate among its slots. A lost compare-and-set is not retried:
+         * the key will compete again on its next event.
+         */
+        private void record(long key, long weight) {
+            long estimate = sketch.add(key, weight);
+            int mask = candidates.length() - 1;
+            int start = (int) CountMinSketch.hash(key) & mask;
+            int weakest = -1;
+            long weakestKey = 0;
+            long weakestEstimate = Long.MAX_VALUE;
+            for (int probe = 0; probe < PROBES; probe++) {
+                int slot = (start + probe) & mask;
+                long candidate = candidates.get(slot);
+                if (candidate == 0 && candidates.compareAndSet(slot, 0, key)) {
+                    return;
+                }
+                candidate = candidate == 0 ? candidates.get(slot) : candidate;
+                if (candidate == key) {
+                    return;
+                }
+                long candidateEstimate = sketch.estimate(candidate);
+                if (candidateEstimate < weakestEstimate) {
+                    weakest = slot;
+                    weakestKey = candidate;
+                    weakestEstimate = candidateEstimate;
+                }
+            }
+            if (estimate > weakestEstimate) {
+                candidates.compareAndSet(weakest, weakestKey, key);
+            }
+        }
+    }
+}
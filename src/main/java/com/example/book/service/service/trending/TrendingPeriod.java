@@ -0,0 +1,46 @@
+package com.example.book.service.service.trending;
+
+import java.time.Duration;
+
+/**
+ * The sliding windows over which trending books are ranked.
+ * <p>
+ * A window is made of equal time buckets and slides by one bucket at a time, so the last hour
+ * covers between 55 and 60 minutes and the last day between 23 and 24 hours.
+ */
+public enum TrendingPeriod {
+
+    LAST_HOUR("Last hour", Duration.ofMinutes(5), 12),
+    LAST_DAY("Last day", Duration.ofHours(1), 24);
+
+    private final String label;
+    private final Duration bucketLength;
+    private final int buckets;
+
+    TrendingPeriod(String label, Duration bucketLength, int buckets) {
+        this.label = label;
+        this.bucketLength = bucketLength;
+        this.buckets = buckets;
+    }
+
+    /**
+     * @return the name of the window shown to users.
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * @return the length of one bucket of the window.
+     */
+    public Duration getBucketLength() {
+        return bucketLength;
+    }
+
+    /**
+     * @return the number of buckets in the window.
+     */
+    public int getBuckets() {
+        return buckets;
+    }
+}
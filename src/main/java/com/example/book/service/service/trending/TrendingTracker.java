@@ -0,0 +1,129 @@
+package com.example.book.service.service.trending;
+
+import com.example.book.service.dto.BookDTO;
+import com.example.book.service.dto.TrendingBookDTO;
+import com.example.book.service.repo.BookRepository;
+import com.example.book.service.service.trending.SlidingWindowSketch.Trend;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Tracks the books that are trending now, from their recent views and cart adds.
+ * <p>
+ * Every event is counted in memory, in one {@link SlidingWindowSketch} per {@link TrendingPeriod}:
+ * counting is lock-free and costs the same whatever the traffic, and nothing is written to the
+ * database. A cart add weighs {@code app.trending.cart-add-weight} views.
+ * <p>
+ * Every {@code app.trending.refresh-interval}, the windows are rotated to the current bucket and
+ * their top {@code app.trending.top-k} books are ranked and read, in one query, into a snapshot,
+ * which pages read without any further work. The counts are local to this node and start from
+ * zero on restart.
+ */
+@Slf4j
+@Component
+public class TrendingTracker {
+
+    private final BookRepository bookRepository;
+    private final int topK;
+    private final long cartAddWeight;
+    private final Map<TrendingPeriod, SlidingWindowSketch> windows = new EnumMap<>(TrendingPeriod.class);
+
+    private volatile Map<TrendingPeriod, List<TrendingBookDTO>> trending = Collections.emptyMap();
+
+    public TrendingTracker(BookRepository bookRepository,
+                           @Value("${app.trending.top-k:10}") int topK,
+                           @Value("${app.trending.cart-add-weight:3}") long cartAddWeight,
+                           @Value("${app.trending.sketch-width:2048}") int sketchWidth,
+                           @Value("${app.trending.sketch-depth:4}") int sketchDepth) {
+        this.bookRepository = bookRepository;
+        this.topK = topK;
+        this.cartAddWeight = cartAddWeight;
+        long now = System.currentTimeMillis();
+        for (TrendingPeriod period : TrendingPeriod.values()) {
+            windows.put(period, new SlidingWindowSketch(period.getBucketLength().toMillis(), period.getBuckets(),
+                    sketchWidth, sketchDepth, topK * 8, now));
+        }
+    }
+
+    /**
+     * Counts a view of a book's page.
+     *
+     * @param bookId the ID of the book.
+     */
+    public void recordView(long bookId) {
+        record(bookId, 1);
+    }
+
+    /**
+     * Counts a book being added to a cart.
+     *
+     * @param bookId the ID of the book.
+     */
+    public void recordCartAdd(long bookId) {
+        record(bookId, cartAddWeight);
+    }
+
+    private void record(long bookId, long weight) {
+        for (SlidingWindowSketch window : windows.values()) {
+            window.record(bookId, weight);
+        }
+    }
+
+    /**
+     * @return the trending books of each window as of the last refresh, highest score first. A
+     * window with no events has no entry.
+     */
+    public Map<TrendingPeriod, List<TrendingBookDTO>> getTrending() {
+        return trending;
+    }
+
+    /**
+     * Rotates the windows and ranks their trending books into a new snapshot. Books deleted since
+     * they were counted are left out.
+     */
+    @Scheduled(initialDelayString = "${app.trending.refresh-interval:PT1M}",
+            fixedDelayString = "${app.trending.refresh-interval:PT1M}")
+    public void refresh() {
+        long now = System.currentTimeMillis();
+        Map<TrendingPeriod, List<Trend>> ranked = new EnumMap<>(TrendingPeriod.class);
+        windows.forEach((period, window) -> {
+            window.rotate(now);
+            ranked.put(period, window.top(topK));
+        });
+
+        List<Long> ids = ranked.values().stream()
+                .flatMap(List::stream)
+                .map(Trend::key)
+                .distinct()
+                .toList();
+        Map<Long, BookDTO> books = ids.isEmpty() ? Map.of() : bookRepository.findSummariesByIdIn(ids).stream()
+                .collect(Collectors.toMap(BookDTO::getId, Function.identity()));
+
+        Map<TrendingPeriod, List<TrendingBookDTO>> snapshot = new EnumMap<>(TrendingPeriod.class);
+        ranked.forEach((period, trends) -> {
+            List<TrendingBookDTO> list = trends.stream()
+                    .map(trend -> {
+                        BookDTO book = books.get(trend.key());
+                        return book == null ? null
+                                : new TrendingBookDTO(book.getId(), book.getName(), book.getAuthor(), trend.count());
+                    })
+                    .filter(Objects::nonNull)
+                    .toList();
+            if (!list.isEmpty()) {
+                snapshot.put(period, list);
+            }
+        });
+        trending = Collections.unmodifiableMap(snapshot);
+        log.debug("Refreshed trending books for {} windows", snapshot.size());
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.book.service.service.uniqueness;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A thread-safe Bloom filter over strings.
+ * <p>
+ * A Bloom filter answers "is this key possibly in the set?" with no false negatives and a
+ * configurable false-positive rate, using a fixed bit array instead of storing the keys.
+ * Bits are kept in an {@link AtomicLongArray}, so {@link #put(String)} and
+ * {@link #mightContain(String)} can be called concurrently without locking.
+ * <p>
+ * The {@code k} bit positions of a key are derived from two halves of a 64-bit FNV-1a/murmur-mix
+ * hash using the Kirsch–Mitzenmacher double-hashing scheme.
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+
+    /**
+     * Creates a filter sized for the expected number of keys and the desired false-positive rate.
+     *
+     * @param expectedInsertions  the number of keys the filter should hold at the target error rate.
+     * @param falsePositiveRate   the acceptable probability that an absent key is reported as present.
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        long n = Math.max(1, expectedInsertions);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.max(1, (m + 63) / 64);
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = (long) words * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+    }
+
+    /**
+     * Adds a key to the filter.
+     *
+     * @param key the key to add.
+     */
+    public void put(String key) {
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long index = Math.floorMod(h1 + (long) i * h2, bitCount);
+            int word = (int) (index >>> 6);
+            long mask = 1L << index;
+            long current = bits.get(word);
+            while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask)) {
+                current = bits.get(word);
+            }
+        }
+    }
+
+    /**
+     * Checks whether a key may have been added.
+     *
+     * @param key the key to check.
+     * @return {@code false} if the key was definitely never added; {@code true} if it possibly was.
+     */
+    public boolean mightContain(String key) {
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long index = Math.floorMod(h1 + (long) i * h2, bitCount);
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        // Final avalanche (murmur3 fmix64) so both 32-bit halves are well distributed.
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb93fe1a85ec5L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.book.service.service.uniqueness;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+
+/**
+ * Tells unique-key violations apart from the other data integrity violations.
+ * <p>
+ * The services insert keys that the {@link UniqueKeyRegistry} reports as free without checking the
+ * database first, and they report a violation of the unique constraint as the key being taken. A
+ * foreign-key, not-null or check violation raised by the same statement or flush is a different
+ * failure and must not be reported that way.
+ */
+public final class UniqueConstraints {
+
+    private UniqueConstraints() {
+    }
+
+    /**
+     * @param e the exception raised by an insert or update.
+     * @return {@code true} if it was caused by a unique constraint.
+     */
+    public static boolean isViolatedBy(DataIntegrityViolationException e) {
+        if (e instanceof DuplicateKeyException) {
+            return true;
+        }
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                return violation.getKind() == ConstraintViolationException.ConstraintKind.UNIQUE;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.book.service.service.uniqueness;
+
+import com.example.book.service.repo.BookRepository;
+import com.example.book.service.repo.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Locale;
+
+/**
+ * An in-memory negative-lookup cache for the unique keys of the catalog and user accounts:
+ * user emails and book names.
+ * <p>
+ * Each key set is summarized by a {@link BloomFilter}. When the filter reports that a key is
+ * <i>definitely not</i> taken, which is the common case for registrations and new books, the
+ * services skip the uniqueness pre-select entirely and rely on the database unique constraint,
+ * which remains the source of truth. Only a "possibly taken" answer costs a database round trip.
+ * <p>
+ * The filters are built from the database on startup and rebuilt periodically, so that deleted
+ * keys and keys written by other nodes are eventually reflected. Until the first build completes,
+ * every key is reported as possibly taken. A key missed by the filter (for example, one inserted
+ * by another node since the last rebuild) is still rejected by the unique constraint.
+ * <p>
+ * Keys are compared case-insensitively, matching the default MySQL collation of the unique columns.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UniqueKeyRegistry {
+
+    private final UserRepository userRepository;
+    private final BookRepository bookRepository;
+
+    @Value("${app.uniqueness.expected-keys:1000000}")
+    private long expectedKeys;
+
+    @Value("${app.uniqueness.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    private volatile BloomFilter emails;
+    private volatile BloomFilter bookNames;
+
+    /**
+     * Checks whether a user with the given email may already exist.
+     *
+     * @param email the email to check.
+     * @return {@code false} if the email is definitely free; {@code true} if it may be taken.
+     */
+    public boolean mightContainEmail(String email) {
+        BloomFilter filter = emails;
+        return filter == null || filter.mightContain(normalize(email));
+    }
+
+    /**
+     * Records an email that is now taken.
+     *
+     * @param email the email of a newly created user.
+     */
+    public void addEmail(String email) {
+        BloomFilter filter = emails;
+        if (filter != null) {
+            filter.put(normalize(email));
+        }
+    }
+
+    /**
+     * Checks whether a book with the given name may already exist.
+     *
+     * @param name the book name to check.
+     * @return {@code false} if the name is definitely free; {@code true} if it may be taken.
+     */
+    public boolean mightContainBookName(String name) {
+        BloomFilter filter = bookNames;
+        return filter == null || filter.mightContain(normalize(name));
+    }
+
+    /**
+     * Records a book name that is now taken.
+     *
+     * @param name the name of a newly created or renamed book.
+     */
+    public void addBookName(String name) {
+        BloomFilter filter = bookNames;
+        if (filter != null) {
+            filter.put(normalize(name));
+        }
+    }
+
+    /**
+     * Rebuilds both filters from the database and atomically swaps them in.
+     * <p>
+     * Runs once the application is ready and then periodically, so keys freed by deletions
+     * stop producing false positives and keys added on other nodes become known.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${app.uniqueness.rebuild-interval:PT6H}",
+            fixedDelayString = "${app.uniqueness.rebuild-interval:PT6H}")
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        BloomFilter newEmails = new BloomFilter(expectedKeys, falsePositiveRate);
+        try (var stream = userRepository.streamAllEmails()) {
+            stream.forEach(email -> newEmails.put(normalize(email)));
+        }
+        BloomFilter newBookNames = new BloomFilter(expectedKeys, falsePositiveRate);
+        try (var stream = bookRepository.streamAllNames()) {
+            stream.forEach(name -> newBookNames.put(normalize(name)));
+        }
+        emails = newEmails;
+        bookNames = newBookNames;
+        log.info("Rebuilt uniqueness filters for user emails and book names");
+    }
+
+    private static String normalize(String key) {
+        return key == null ? "" : key.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,343 @@
+package com.example.book.service.session;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.session.MapSession;
+import org.springframework.session.Session;
+import org.springframework.session.SessionRepository;
+
+import java.io.*;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A {@link SessionRepository} that keeps HTTP sessions in the shared {@code http_sessions} table,
+ * so that any application node can serve any request without sticky sessions.
+ * <p>
+ * The repository is designed to avoid a database write on every request:
+ * <ul>
+ *   <li><b>Attribute changes</b> (login, logout, flash messages) are written immediately, because
+ *       other nodes must see them on the very next request.</li>
+ *   <li><b>Last-access-time updates</b> are only recorded in memory and written by
+ *       {@link #flushPendingTouches()} in a single JDBC batch. Repeated requests within one flush
+ *       interval collapse into a single row update.</li>
+ *   <li><b>Expiration</b> is handled asynchronously by {@link #purgeExpiredSessions()}, which deletes
+ *       expired rows in bounded batches.</li>
+ * </ul>
+ * Because another node may hold a not-yet-flushed touch, a session is only considered expired once
+ * its stored expiry time is older than one flush interval ({@code expiryGrace}).
+ * <p>
+ * Session attributes are stored with Java serialization. Since the security context holds only the
+ * slim {@link com.example.book.service.dto.UserPrincipal}, a logged-in session stays small.
+ *
+ * @see com.example.book.service.conf.SessionStoreConfig
+ */
+@Slf4j
+public class JdbcSessionRepository implements SessionRepository<JdbcSessionRepository.JdbcSession> {
+
+    private static final String INSERT_SESSION =
+            "INSERT INTO http_sessions (session_id, principal_name, creation_time, last_access_time, " +
+                    "max_inactive_interval, expiry_time, attributes) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_SESSION =
+            "UPDATE http_sessions SET session_id = ?, principal_name = ?, last_access_time = ?, " +
+                    "max_inactive_interval = ?, expiry_time = ?, attributes = ? WHERE session_id = ?";
+
+    private static final String SELECT_SESSION =
+            "SELECT creation_time, last_access_time, max_inactive_interval, attributes " +
+                    "FROM http_sessions WHERE session_id = ?";
+
+    private static final String DELETE_SESSION = "DELETE FROM http_sessions WHERE session_id = ?";
+
+    private static final String TOUCH_SESSION =
+            "UPDATE http_sessions SET last_access_time = ?, expiry_time = ? " +
+                    "WHERE session_id = ? AND last_access_time < ?";
+
+    private static final String DELETE_EXPIRED = "DELETE FROM http_sessions WHERE expiry_time < ? LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration defaultMaxInactiveInterval;
+    private final Duration expiryGrace;
+    private final int cleanupBatchSize;
+
+    /**
+     * Last-access times recorded since the previous flush, keyed by session id.
+     */
+    private final ConcurrentMap<String, PendingTouch> pendingTouches = new ConcurrentHashMap<>();
+
+    public JdbcSessionRepository(JdbcTemplate jdbcTemplate, Duration defaultMaxInactiveInterval,
+                                 Duration expiryGrace, int cleanupBatchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.defaultMaxInactiveInterval = defaultMaxInactiveInterval;
+        this.expiryGrace = expiryGrace;
+        this.cleanupBatchSize = cleanupBatchSize;
+    }
+
+    @Override
+    public JdbcSession createSession() {
+        MapSession delegate = new MapSession();
+        delegate.setMaxInactiveInterval(defaultMaxInactiveInterval);
+        return new JdbcSession(delegate, true);
+    }
+
+    /**
+     * Persists the session.
+     * <p>
+     * New sessions and sessions with changed attributes, id or timeout are written immediately.
+     * Otherwise only the new last-access time is queued for the next batched flush.
+     */
+    @Override
+    public void save(JdbcSession session) {
+        if (session.isNew) {
+            pendingTouches.remove(session.getId());
+            jdbcTemplate.update(INSERT_SESSION, session.getId(), principalName(session),
+                    session.getCreationTime().toEpochMilli(), session.getLastAccessedTime().toEpochMilli(),
+                    (int) session.getMaxInactiveInterval().toSeconds(), expiryTime(session), serialize(session));
+        } else if (session.isChanged()) {
+            pendingTouches.remove(session.originalId);
+            int updated = jdbcTemplate.update(UPDATE_SESSION, session.getId(), principalName(session),
+                    session.getLastAccessedTime().toEpochMilli(), (int) session.getMaxInactiveInterval().toSeconds(),
+                    expiryTime(session), serialize(session), session.originalId);
+            if (updated == 0) {
+                log.debug("Session {} was removed concurrently; changes were not saved", session.originalId);
+            }
+        } else {
+            pendingTouches.put(session.getId(), new PendingTouch(session.getLastAccessedTime().toEpochMilli(),
+                    expiryTime(session)));
+        }
+        session.markSaved();
+    }
+
+    /**
+     * Loads a session from the shared table, or returns {@code null} if it does not exist or has expired.
+     */
+    @Override
+    public JdbcSession findById(String id) {
+        List<JdbcSession> sessions = jdbcTemplate.query(SELECT_SESSION, (rs, rowNum) -> {
+            MapSession delegate = new MapSession(id);
+            delegate.setCreationTime(Instant.ofEpochMilli(rs.getLong("creation_time")));
+            delegate.setLastAccessedTime(Instant.ofEpochMilli(rs.getLong("last_access_time")));
+            delegate.setMaxInactiveInterval(Duration.ofSeconds(rs.getInt("max_inactive_interval")));
+            deserialize(rs.getBytes("attributes")).forEach(delegate::setAttribute);
+            return new JdbcSession(delegate, false);
+        }, id);
+        if (sessions.isEmpty()) {
+            return null;
+        }
+
+        JdbcSession session = sessions.get(0);
+        PendingTouch touch = pendingTouches.get(id);
+        if (touch != null && touch.lastAccessTime() > session.getLastAccessedTime().toEpochMilli()) {
+            session.delegate.setLastAccessedTime(Instant.ofEpochMilli(touch.lastAccessTime()));
+        }
+        if (expiryTime(session) + expiryGrace.toMillis() < System.currentTimeMillis()) {
+            deleteById(id);
+            return null;
+        }
+        return session;
+    }
+
+    @Override
+    public void deleteById(String id) {
+        pendingTouches.remove(id);
+        jdbcTemplate.update(DELETE_SESSION, id);
+    }
+
+    /**
+     * Writes all queued last-access times in one JDBC batch.
+     * <p>
+     * The {@code last_access_time < ?} guard makes the update idempotent and prevents a
+     * stale touch from one node overwriting a newer one from another.
+     */
+    @Scheduled(fixedDelayString = "${app.session.jdbc.flush-interval:PT10S}")
+    public void flushPendingTouches() {
+        if (pendingTouches.isEmpty()) {
+            return;
+        }
+        List<Object[]> batch = new ArrayList<>(pendingTouches.size());
+        for (Map.Entry<String, PendingTouch> entry : pendingTouches.entrySet()) {
+            if (pendingTouches.remove(entry.getKey(), entry.getValue())) {
+                PendingTouch touch = entry.getValue();
+                batch.add(new Object[]{touch.lastAccessTime(), touch.expiryTime(), entry.getKey(), touch.lastAccessTime()});
+            }
+        }
+        jdbcTemplate.batchUpdate(TOUCH_SESSION, batch);
+        log.debug("Flushed last-access times for {} sessions", batch.size());
+    }
+
+    /**
+     * Deletes expired sessions in bounded batches so that a large backlog never holds
+     * long-running locks on the sessions table.
+     */
+    @Scheduled(fixedDelayString = "${app.session.jdbc.cleanup-interval:PT1M}")
+    public void purgeExpiredSessions() {
+        long threshold = System.currentTimeMillis() - expiryGrace.toMillis();
+        int deleted;
+        int total = 0;
+        do {
+            deleted = jdbcTemplate.update(DELETE_EXPIRED, threshold, cleanupBatchSize);
+            total += deleted;
+        } while (deleted == cleanupBatchSize);
+        if (total > 0) {
+            log.debug("Purged {} expired sessions", total);
+        }
+    }
+
+    /**
+     * Returns the number of last-access updates waiting for the next flush.
+     *
+     * @return the size of the pending-touch queue.
+     */
+    public int getPendingTouchCount() {
+        return pendingTouches.size();
+    }
+
+    private static long expiryTime(Session session) {
+        return session.getLastAccessedTime().plus(session.getMaxInactiveInterval()).toEpochMilli();
+    }
+
+    private static String principalName(Session session) {
+        Object context = session.getAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY);
+        if (context instanceof SecurityContext securityContext) {
+            Authentication authentication = securityContext.getAuthentication();
+            return authentication != null ? authentication.getName() : null;
+        }
+        return null;
+    }
+
+    private static byte[] serialize(Session session) {
+        HashMap<String, Object> attributes = new HashMap<>();
+        for (String name : session.getAttributeNames()) {
+            attributes.put(name, session.getAttribute(name));
+        }
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(512);
+        try (ObjectOutputStream out = new ObjectOutputStream(buffer)) {
+            out.writeObject(attributes);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to serialize session attributes", e);
+        }
+        return buffer.toByteArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> deserialize(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return Map.of();
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return (Map<String, Object>) in.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            // Sessions written by an incompatible release are treated as empty rather than failing the request.
+            log.warn("Discarding unreadable session attributes: {}", e.getMessage());
+            return Map.of();
+        }
+    }
+
+    /**
+     * A last-access time that has not been written to the database yet.
+     */
+    private record PendingTouch(long lastAccessTime, long expiryTime) {
+    }
+
+    /**
+     * A {@link Session} backed by a {@link MapSession} that tracks which parts of it changed
+     * since it was loaded, so that {@link #save(JdbcSession)} can skip unnecessary writes.
+     */
+    public static final class JdbcSession implements Session {
+
+        private final MapSession delegate;
+        private boolean isNew;
+        private boolean changed;
+        private String originalId;
+
+        private JdbcSession(MapSession delegate, boolean isNew) {
+            this.delegate = delegate;
+            this.isNew = isNew;
+            this.originalId = delegate.getId();
+        }
+
+        private boolean isChanged() {
+            return changed || !originalId.equals(delegate.getId());
+        }
+
+        private void markSaved() {
+            isNew = false;
+            changed = false;
+            originalId = delegate.getId();
+        }
+
+        @Override
+        public String getId() {
+            return delegate.getId();
+        }
+
+        @Override
+        public String changeSessionId() {
+            return delegate.changeSessionId();
+        }
+
+        @Override
+        public <T> T getAttribute(String attributeName) {
+            return delegate.getAttribute(attributeName);
+        }
+
+        @Override
+        public Set<String> getAttributeNames() {
+            return delegate.getAttributeNames();
+        }
+
+        @Override
+        public void setAttribute(String attributeName, Object attributeValue) {
+            delegate.setAttribute(attributeName, attributeValue);
+            changed = true;
+        }
+
+        @Override
+        public void removeAttribute(String attributeName) {
+            if (delegate.getAttribute(attributeName) != null) {
+                delegate.removeAttribute(attributeName);
+                changed = true;
+            }
+        }
+
+        @Override
+        public Instant getCreationTime() {
+            return delegate.getCreationTime();
+        }
+
+        @Override
+        public void setLastAccessedTime(Instant lastAccessedTime) {
+            delegate.setLastAccessedTime(lastAccessedTime);
+        }
+
+        @Override
+        public Instant getLastAccessedTime() {
+            return delegate.getLastAccessedTime();
+        }
+
+        @Override
+        public void setMaxInactiveInterval(Duration interval) {
+            if (!interval.equals(delegate.getMaxInactiveInterval())) {
+                delegate.setMaxInactiveInterval(interval);
+                changed = true;
+            }
+        }
+
+        @Override
+        public Duration getMaxInactiveInterval() {
+            return delegate.getMaxInactiveInterval();
+        }
+
+        @Override
+        public boolean isExpired() {
+            return delegate.isExpired();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+-- Per-client order statistics, maintained with delta updates as orders are submitted and cancelled.
+-- order_count and lifetime_spend cover the paid orders (SUBMITTED or CONFIRMED); last_order_at is
+-- the date of the latest order that was ever submitted, including cancelled ones.
+CREATE TABLE client_stats (
+                              client_id BIGINT PRIMARY KEY,
+                              order_count INT NOT NULL DEFAULT 0,
+                              lifetime_spend DECIMAL(19, 2) NOT NULL DEFAULT 0.00,
+                              last_order_at DATETIME NULL,
+                              CONSTRAINT fk_client_stats_clients FOREIGN KEY (client_id) REFERENCES clients(user_id) ON DELETE CASCADE
+);
+
+-- Serves both the backfill below and the rebuild job, which aggregate the orders of a range of clients.
+CREATE INDEX idx_orders_client_id_status ON orders (client_id, status);
+
+INSERT INTO client_stats (client_id, order_count, lifetime_spend, last_order_at)
+SELECT c.user_id,
+       COUNT(CASE WHEN o.status IN ('SUBMITTED', 'CONFIRMED') THEN 1 END),
+       COALESCE(SUM(CASE WHEN o.status IN ('SUBMITTED', 'CONFIRMED') THEN o.price END), 0),
+       MAX(o.order_date)
+FROM clients c
+         LEFT JOIN orders o ON o.client_id = c.user_id AND o.status <> 'DRAFT'
+GROUP BY c.user_id;
@@ -0,0 +1,42 @@
+-- The price of a book when the order containing it was confirmed, so that a later cancellation
+-- reverses exactly the revenue that was counted, whatever the book costs by then.
+ALTER TABLE order_items ADD COLUMN unit_price DECIMAL(10, 2) NULL;
+
+-- Units sold and revenue per book and per genre for each order day, counting confirmed orders only.
+CREATE TABLE sales_book_daily (
+                                  sales_date DATE NOT NULL,
+                                  book_id BIGINT NOT NULL,
+                                  units BIGINT NOT NULL,
+                                  revenue DECIMAL(19, 2) NOT NULL,
+                                  PRIMARY KEY (sales_date, book_id),
+                                  CONSTRAINT fk_sales_book_daily_books FOREIGN KEY (book_id) REFERENCES books(id) ON DELETE CASCADE
+);
+
+CREATE TABLE sales_genre_daily (
+                                   sales_date DATE NOT NULL,
+                                   genre VARCHAR(100) NOT NULL,
+                                   units BIGINT NOT NULL,
+                                   revenue DECIMAL(19, 2) NOT NULL,
+                                   PRIMARY KEY (sales_date, genre)
+);
+
+-- Backfills the already confirmed orders, priced at the books' current prices.
+UPDATE order_items
+SET unit_price = (SELECT b.price FROM books b WHERE b.id = order_items.book_id)
+WHERE order_id IN (SELECT o.id FROM orders o WHERE o.status = 'CONFIRMED');
+
+INSERT INTO sales_book_daily (sales_date, book_id, units, revenue)
+SELECT CAST(o.order_date AS DATE), i.book_id, SUM(i.quantity), SUM(i.quantity * i.unit_price)
+FROM orders o
+         JOIN order_items i ON i.order_id = o.id
+WHERE o.status = 'CONFIRMED'
+GROUP BY CAST(o.order_date AS DATE), i.book_id;
+
+INSERT INTO sales_genre_daily (sales_date, genre, units, revenue)
+SELECT r.sales_date, b.genre, SUM(r.units), SUM(r.revenue)
+FROM sales_book_daily r
+         JOIN books b ON b.id = r.book_id
+GROUP BY r.sales_date, b.genre;
+
+-- Serves the backfill job, which recomputes the confirmed orders of one range of days at a time.
+CREATE INDEX idx_orders_status_order_date ON orders (status, order_date);
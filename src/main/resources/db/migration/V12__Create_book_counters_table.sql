@@ -0,0 +1,7 @@
+-- View and cart-add counts per book, accumulated in memory and added in batches by the counter flusher.
+CREATE TABLE book_counters (
+                               book_id BIGINT PRIMARY KEY,
+                               view_count BIGINT NOT NULL DEFAULT 0,
+                               cart_add_count BIGINT NOT NULL DEFAULT 0,
+                               CONSTRAINT fk_book_counters_books FOREIGN KEY (book_id) REFERENCES books(id) ON DELETE CASCADE
+);
@@ -0,0 +1,4 @@
+-- Bulk price changes select the books of a genre or of an author; the draft orders that contain
+-- them are then found through the (book_id, order_id) index of the order items.
+CREATE INDEX idx_books_genre ON books (genre);
+CREATE INDEX idx_books_author ON books (author);
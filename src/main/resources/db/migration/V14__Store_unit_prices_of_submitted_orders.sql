@@ -0,0 +1,7 @@
+-- Unit prices are now stored when an order is submitted rather than when it is confirmed. Orders
+-- submitted before are priced at the books' current prices, which their totals were computed from
+-- unless a price changed since.
+UPDATE order_items
+SET unit_price = (SELECT b.price FROM books b WHERE b.id = order_items.book_id)
+WHERE unit_price IS NULL
+  AND order_id IN (SELECT o.id FROM orders o WHERE o.status = 'SUBMITTED');
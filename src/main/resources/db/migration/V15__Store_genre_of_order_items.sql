@@ -0,0 +1,11 @@
+-- The genre of a book when the order containing it was submitted, stored with its unit price, so
+-- that a cancellation reverses the genre rollup that the confirmation added to, even if the book's
+-- genre has been edited since.
+ALTER TABLE order_items ADD COLUMN genre VARCHAR(100) NULL;
+
+UPDATE order_items
+SET genre = (SELECT b.genre FROM books b WHERE b.id = order_items.book_id)
+WHERE unit_price IS NOT NULL;
+
+-- The book rollup keeps the sales of deleted books, which the genre rollup counts too.
+ALTER TABLE sales_book_daily DROP FOREIGN KEY fk_sales_book_daily_books;
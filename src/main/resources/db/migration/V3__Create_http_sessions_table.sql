@@ -0,0 +1,12 @@
+CREATE TABLE http_sessions (
+                               session_id VARCHAR(64) PRIMARY KEY,
+                               principal_name VARCHAR(100),
+                               creation_time BIGINT NOT NULL,
+                               last_access_time BIGINT NOT NULL,
+                               max_inactive_interval INT NOT NULL,
+                               expiry_time BIGINT NOT NULL,
+                               attributes BLOB
+);
+
+CREATE INDEX idx_http_sessions_expiry_time ON http_sessions (expiry_time);
+CREATE INDEX idx_http_sessions_principal_name ON http_sessions (principal_name);
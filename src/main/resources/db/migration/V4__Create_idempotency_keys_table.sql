@@ -0,0 +1,9 @@
+CREATE TABLE idempotency_keys (
+                                  key_hash BINARY(32) PRIMARY KEY,
+                                  status VARCHAR(16) NOT NULL,
+                                  response_status SMALLINT,
+                                  redirect_location VARCHAR(512),
+                                  created_at BIGINT NOT NULL
+);
+
+CREATE INDEX idx_idempotency_keys_created_at ON idempotency_keys (created_at);
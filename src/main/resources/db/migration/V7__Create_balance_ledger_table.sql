@@ -0,0 +1,15 @@
+CREATE TABLE balance_ledger (
+                                id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                                client_id BIGINT NOT NULL,
+                                entry_type VARCHAR(20) NOT NULL,
+                                amount DECIMAL(19, 2) NOT NULL,
+                                order_id BIGINT NULL,
+                                created_at DATETIME(6) NOT NULL,
+                                CONSTRAINT fk_balance_ledger_clients FOREIGN KEY (client_id) REFERENCES clients(user_id) ON DELETE CASCADE
+);
+
+-- Covers the balance query: the entries of one client after its snapshot, with their amounts.
+CREATE INDEX idx_balance_ledger_client_id_amount ON balance_ledger (client_id, id, amount);
+
+-- clients.balance becomes a snapshot that includes every ledger entry up to balance_ledger_id.
+ALTER TABLE clients ADD COLUMN balance_ledger_id BIGINT NOT NULL DEFAULT 0;
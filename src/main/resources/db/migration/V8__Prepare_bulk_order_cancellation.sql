@@ -0,0 +1,4 @@
+ALTER TABLE orders ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+
+-- Finds the paid orders that contain a book, for bulk cancellations of a withdrawn title.
+CREATE INDEX idx_order_items_book_id_order_id ON order_items (book_id, order_id);
@@ -0,0 +1,27 @@
+-- Registration time, for sorting the client directory. Existing users are stamped with the migration time.
+ALTER TABLE users ADD COLUMN registered_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP;
+
+-- Keyset orders of the client directory; each ends with the ID that breaks ties.
+CREATE INDEX idx_users_last_name_first_name_id ON users (last_name, first_name, id);
+CREATE INDEX idx_users_registered_at_id ON users (registered_at, id);
+CREATE INDEX idx_clients_balance_user_id ON clients (balance, user_id);
+
+-- The distinct lower-case trigrams of each client's email. A substring search joins the trigrams of
+-- the search text, so it reads the posting lists of a few grams instead of scanning every email.
+CREATE TABLE client_email_grams (
+                                    gram VARCHAR(3) NOT NULL,
+                                    user_id BIGINT NOT NULL,
+                                    PRIMARY KEY (gram, user_id),
+                                    CONSTRAINT fk_client_email_grams_clients FOREIGN KEY (user_id) REFERENCES clients(user_id) ON DELETE CASCADE
+);
+
+-- Backfills the trigrams of the existing clients; positions 1 to 100 cover the longest email.
+INSERT INTO client_email_grams (gram, user_id)
+SELECT DISTINCT SUBSTRING(LOWER(u.email), tens.d * 10 + ones.d + 1, 3), u.id
+FROM users u
+         JOIN clients c ON c.user_id = u.id
+         CROSS JOIN (SELECT 0 AS d UNION ALL SELECT 1 UNION ALL SELECT 2 UNION ALL SELECT 3 UNION ALL SELECT 4
+                     UNION ALL SELECT 5 UNION ALL SELECT 6 UNION ALL SELECT 7 UNION ALL SELECT 8 UNION ALL SELECT 9) tens
+         CROSS JOIN (SELECT 0 AS d UNION ALL SELECT 1 UNION ALL SELECT 2 UNION ALL SELECT 3 UNION ALL SELECT 4
+                     UNION ALL SELECT 5 UNION ALL SELECT 6 UNION ALL SELECT 7 UNION ALL SELECT 8 UNION ALL SELECT 9) ones
+WHERE tens.d * 10 + ones.d + 3 <= CHAR_LENGTH(u.email);
@@ -0,0 +1,61 @@
+/*
+ * Progressive enhancement for forms marked with data-fragment-target="<selector>".
+ *
+ * Instead of a full form post followed by a redirect and a full page render, the form is sent
+ * with fetch and the X-Fragment header. The server answers with just the updated snippet (cart
+ * badge, order row or balance), which replaces the element matched by the selector. The form's
+ * idempotency key is renewed afterwards, so the next click counts as a new action.
+ *
+ * Without JavaScript, or if the fragment request fails, the form is submitted the normal way.
+ */
+(function () {
+    'use strict';
+
+    function newIdempotencyKey() {
+        return window.crypto && crypto.randomUUID
+            ? crypto.randomUUID().replace(/-/g, '')
+            : Math.random().toString(36).slice(2) + Date.now().toString(36);
+    }
+
+    document.addEventListener('submit', function (event) {
+        var form = event.target;
+        var selector = form.getAttribute('data-fragment-target');
+        if (!selector || !window.fetch) {
+            return;
+        }
+        event.preventDefault();
+        var button = form.querySelector('[type=submit]');
+        if (button) {
+            button.disabled = true;
+        }
+
+        fetch(form.action, {
+            method: 'POST',
+            body: new URLSearchParams(new FormData(form)),
+            headers: {'X-Fragment': 'true'},
+            credentials: 'same-origin'
+        }).then(function (response) {
+            if (!response.ok || response.redirected) {
+                throw new Error('Fragment request failed with status ' + response.status);
+            }
+            return response.text();
+        }).then(function (html) {
+            // A replayed duplicate has an empty body; the page already shows its outcome.
+            var target = document.querySelector(selector);
+            if (html.trim() && target) {
+                target.outerHTML = html;
+            }
+            var key = form.querySelector('input[name=idempotencyKey]');
+            if (key) {
+                key.value = newIdempotencyKey();
+            }
+        }).catch(function () {
+            // form.submit() does not raise another submit event, so this is a plain form post.
+            form.submit();
+        }).finally(function () {
+            if (button) {
+                button.disabled = false;
+            }
+        });
+    });
+})();
@@ -0,0 +1,64 @@
+/*
+ * Live order status for pages that show order badges, i.e. elements marked with
+ * data-order-status="<order id>".
+ *
+ * The page subscribes to /orders/events (server-sent events) and, for every order-status event,
+ * updates the text and colour of the matching badge. The colour comes from the badge's
+ * data-status-classes attribute ("STATUS:class ..."). Forms next to the badge that carry
+ * data-valid-in="<statuses>" are removed once the order leaves those statuses.
+ *
+ * A resync event means the server dropped events for this page, which then reloads. Pages without
+ * order badges do not open a connection.
+ */
+(function () {
+    'use strict';
+
+    // The stream lives next to /js/, which keeps the context path without hard-coding it.
+    var streamUrl = document.currentScript.src.replace(/js\/order-events\.js.*$/, 'orders/events');
+
+    if (!window.EventSource || !document.querySelector('[data-order-status]')) {
+        return;
+    }
+
+    function applyStatus(badge, status) {
+        var classes = {};
+        (badge.getAttribute('data-status-classes') || '').split(/\s+/).forEach(function (pair) {
+            var parts = pair.split(':');
+            if (parts.length === 2) {
+                classes[parts[0]] = parts[1];
+            }
+        });
+        Object.keys(classes).forEach(function (key) {
+            badge.classList.remove(classes[key]);
+        });
+        if (classes[status]) {
+            badge.classList.add(classes[status]);
+        }
+        badge.textContent = status;
+
+        var scope = badge.closest('tr, .card') || badge.parentNode;
+        scope.querySelectorAll('form[data-valid-in]').forEach(function (form) {
+            if (form.getAttribute('data-valid-in').split(/\s+/).indexOf(status) < 0) {
+                form.remove();
+            }
+        });
+    }
+
+    var source = new EventSource(streamUrl);
+
+    source.addEventListener('order-status', function (event) {
+        var change = JSON.parse(event.data);
+        document.querySelectorAll('[data-order-status="' + change.orderId + '"]').forEach(function (badge) {
+            applyStatus(badge, change.to);
+        });
+    });
+
+    source.addEventListener('resync', function () {
+        source.close();
+        window.location.reload();
+    });
+
+    window.addEventListener('pagehide', function () {
+        source.close();
+    });
+})();
@@ -0,0 +1,181 @@
+package com.example.book.service.startup;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Startup-time benchmark for the packaged application.
+ * <p>
+ * The test launches the application as a separate JVM, the same way a node is started during a
+ * rolling deploy. It measures the time from process start to the first successful response on the
+ * public port, which covers JVM start, class loading, context refresh, Flyway, Hibernate and Tomcat.
+ * Each JVM runs against its own embedded H2 database. Three modes are measured:
+ * <ul>
+ *   <li>{@code fat-jar}: the repackaged jar with nested-jar class loading, as deployed before.</li>
+ *   <li>{@code extracted}: the extracted application jar plus {@code lib/}.</li>
+ *   <li>{@code aot-cds}: the extracted layout with Spring AOT bean definitions and the AppCDS
+ *       archive trained during the build.</li>
+ * </ul>
+ * Each mode gets one discarded warm-up launch and then {@code startup.runs} measured launches.
+ * The report in {@code target/startup-report} holds {@code startup.txt} with the min, median and
+ * max per mode, {@code startup.csv} with every launch, and the log of each launch.
+ * <p>
+ * The test fails if the median of {@code aot-cds} is above {@code startup.max-ratio} times the
+ * median of {@code fat-jar}:
+ * <pre>
+ *     mvn -Pstartup clean verify -Dstartup.runs=10 -Dstartup.max-ratio=0.7
+ * </pre>
+ */
+class StartupTimeIT {
+
+    private static final int RUNS = Integer.getInteger("startup.runs", 5);
+    private static final double MAX_RATIO = Double.parseDouble(System.getProperty("startup.max-ratio", "0.8"));
+    private static final Duration TIMEOUT = Duration.parse(System.getProperty("startup.timeout", "PT2M"));
+    private static final Path FAT_JAR = Path.of(System.getProperty("startup.fat-jar", "target/book.service-0.0.1-SNAPSHOT.jar"));
+    private static final Path APP_JAR = Path.of(System.getProperty("startup.app-jar", "target/app/book.service-0.0.1-SNAPSHOT.jar"));
+    private static final Path CDS_ARCHIVE = Path.of(System.getProperty("startup.cds-archive", "target/app/application.jsa"));
+    private static final Path REPORT_DIR = Path.of(System.getProperty("startup.report-dir", "target/startup-report"));
+
+    private static final String JAVA = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofMillis(200))
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .build();
+
+    @Test
+    @DisplayName("AOT and CDS should cut time-to-first-request")
+    void optimizedLayout_shouldStartFaster() throws Exception {
+        assertTrue(Files.isRegularFile(FAT_JAR), "Missing " + FAT_JAR + ", run with -Pstartup");
+        assertTrue(Files.isRegularFile(APP_JAR), "Missing " + APP_JAR + ", run with -Pstartup");
+        assertTrue(Files.isRegularFile(CDS_ARCHIVE), "Missing " + CDS_ARCHIVE + ", run with -Pstartup");
+        Files.createDirectories(REPORT_DIR);
+
+        Map<String, List<String>> modes = new LinkedHashMap<>();
+        modes.put("fat-jar", List.of("-jar", FAT_JAR.toString()));
+        modes.put("extracted", List.of("-jar", APP_JAR.toString()));
+        modes.put("aot-cds", List.of("-XX:SharedArchiveFile=" + CDS_ARCHIVE, "-Dspring.aot.enabled=true",
+                "-jar", APP_JAR.toString()));
+
+        Map<String, long[]> results = new LinkedHashMap<>();
+        for (Map.Entry<String, List<String>> mode : modes.entrySet()) {
+            launch(mode.getKey(), "warmup", mode.getValue());
+            long[] millis = new long[RUNS];
+            for (int run = 0; run < RUNS; run++) {
+                millis[run] = launch(mode.getKey(), String.valueOf(run + 1), mode.getValue());
+            }
+            results.put(mode.getKey(), millis);
+        }
+
+        writeReport(results);
+        double ratio = (double) median(results.get("aot-cds")) / median(results.get("fat-jar"));
+        assertTrue(ratio <= MAX_RATIO, String.format(Locale.ROOT,
+                "aot-cds median is %.2f of fat-jar median, limit is %.2f", ratio, MAX_RATIO));
+    }
+
+    /**
+     * Starts the application, waits for the first successful response and stops it again.
+     *
+     * @return the time to first request in milliseconds.
+     */
+    private long launch(String mode, String run, List<String> launchArgs) throws Exception {
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(JAVA);
+        command.addAll(launchArgs);
+        command.addAll(List.of(
+                "--server.port=" + port,
+                "--management.server.port=" + freePort(),
+                "--spring.datasource.url=jdbc:h2:mem:startup;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.hibernate.ddl-auto=none",
+                "--spring.jpa.show-sql=false",
+                "--app.admin.password=Startup-Password-1"));
+
+        Path log = REPORT_DIR.resolve(mode + "-" + run + ".log");
+        long startedAt = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/auth/login"))
+                    .timeout(Duration.ofSeconds(5))
+                    .build();
+            long deadline = startedAt + TIMEOUT.toNanos();
+            while (System.nanoTime() < deadline) {
+                assertTrue(process.isAlive(), mode + " exited with " + exitValue(process) + ", see " + log);
+                try {
+                    if (httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+                    }
+                } catch (IOException e) {
+                    // Not listening yet.
+                }
+                Thread.sleep(10);
+            }
+            return fail(mode + " did not answer within " + TIMEOUT + ", see " + log);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private void writeReport(Map<String, long[]> results) throws IOException {
+        try (PrintStream csv = new PrintStream(Files.newOutputStream(REPORT_DIR.resolve("startup.csv")));
+             PrintStream summary = new PrintStream(Files.newOutputStream(REPORT_DIR.resolve("startup.txt")))) {
+            csv.println("mode,run,time_to_first_request_ms");
+            summary.printf(Locale.ROOT, "Time to first request over %d runs (ms)%n", RUNS);
+            summary.printf(Locale.ROOT, "%-10s %8s %8s %8s %8s%n", "mode", "min", "median", "max", "ratio");
+            long baseline = median(results.get("fat-jar"));
+            for (Map.Entry<String, long[]> entry : results.entrySet()) {
+                long[] millis = entry.getValue();
+                for (int run = 0; run < millis.length; run++) {
+                    csv.printf(Locale.ROOT, "%s,%d,%d%n", entry.getKey(), run + 1, millis[run]);
+                }
+                long[] sorted = millis.clone();
+                Arrays.sort(sorted);
+                long median = median(millis);
+                summary.printf(Locale.ROOT, "%-10s %8d %8d %8d %8.2f%n", entry.getKey(), sorted[0], median,
+                        sorted[sorted.length - 1], (double) median / baseline);
+            }
+        }
+        System.out.print(Files.readString(REPORT_DIR.resolve("startup.txt")));
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    private static String exitValue(Process process) {
+        return process.isAlive() ? "nothing" : String.valueOf(process.exitValue());
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
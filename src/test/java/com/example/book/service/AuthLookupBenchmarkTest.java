@@ -0,0 +1,168 @@
+package com.example.book.service;
+
+import com.example.book.service.dto.ClientDTO;
+import com.example.book.service.dto.UserAuthView;
+import com.example.book.service.model.Admin;
+import com.example.book.service.model.Client;
+import com.example.book.service.model.User;
+import com.example.book.service.model.enums.Role;
+import com.example.book.service.repo.ClientRepository;
+import com.example.book.service.repo.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the latency of the polymorphic {@code User}/{@code Client} loads with the flat
+ * projections used on the hot authentication and profile paths, after checking that both return
+ * the same values for every seeded user.
+ * <p>
+ * The check runs with the other tests. The benchmarks run against the embedded H2 database of the
+ * {@code test} profile, so the absolute numbers are only indicative; the relative difference
+ * between the two read paths is what they are meant to track. They are skipped by default and can
+ * be run with:
+ * <pre>
+ *     mvn test -Dtest=AuthLookupBenchmarkTest -Dbenchmarks=true
+ * </pre>
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class AuthLookupBenchmarkTest {
+
+    private static final int USERS = 2_000;
+    private static final int WARMUP = 2_000;
+    private static final int ITERATIONS = 20_000;
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ClientRepository clientRepository;
+    @Autowired
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void seedUsers() {
+        for (int i = 0; i < USERS; i++) {
+            if (i % 10 == 0) {
+                entityManager.persist(Admin.builder().email("user" + i + "@example.com").firstName("Admin")
+                        .lastName("User").password("hash").role(Role.ADMIN).enabled(true).build());
+            } else {
+                entityManager.persist(Client.builder().email("user" + i + "@example.com").firstName("Client")
+                        .lastName("User").password("hash").role(Role.CLIENT).enabled(true)
+                        .balance(BigDecimal.TEN).build());
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    /**
+     * Verifies that the projections return the same values as the entities they stand in for.
+     */
+    @Test
+    @DisplayName("Projections should return the same values as the entity loads")
+    void projections_shouldMatchEntities() {
+        for (int i = 0; i < USERS; i++) {
+            String email = "user" + i + "@example.com";
+            User user = userRepository.findByEmail(email).orElseThrow();
+            UserAuthView view = userRepository.findAuthViewByEmail(email).orElseThrow();
+            assertEquals(user.getId(), view.getId());
+            assertEquals(user.getEmail(), view.getEmail());
+            assertEquals(user.getPassword(), view.getPassword());
+            assertEquals(user.getRole(), view.getRole());
+            assertEquals(user.isEnabled(), view.getEnabled());
+            entityManager.clear();
+        }
+        for (int i = 0; i < USERS; i++) {
+            String email = clientEmail("user" + i + "@example.com");
+            Client client = clientRepository.findByEmail(email).orElseThrow();
+            ClientDTO dto = clientRepository.findDTOByEmail(email).orElseThrow();
+            assertEquals(client.getId(), dto.getId());
+            assertEquals(client.getEmail(), dto.getEmail());
+            assertEquals(client.getEnabled(), dto.getEnabled());
+            assertEquals(0, client.getCurrentBalance().compareTo(dto.getBalance()));
+            assertEquals(client.getId(), clientRepository.findIdByEmail(email).orElseThrow());
+            entityManager.clear();
+        }
+    }
+
+    /**
+     * Measures principal loading: polymorphic {@code findByEmail} versus the flat projection.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+    @DisplayName("Principal load: polymorphic entity vs flat projection")
+    void principalLoad() {
+        long[] entity = measure(email -> userRepository.findByEmail(email).orElseThrow());
+        long[] flat = measure(email -> userRepository.findAuthViewByEmail(email).orElseThrow());
+
+        report("UserRepository.findByEmail", entity);
+        report("UserRepository.findAuthViewByEmail", flat);
+    }
+
+    /**
+     * Measures the client profile lookup: entity plus mapping versus the DTO projection.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+    @DisplayName("Client lookup: entity vs DTO projection vs id-only")
+    void clientLookup() {
+        long[] entity = measure(email -> clientRepository.findByEmail(clientEmail(email)).orElseThrow());
+        long[] dto = measure(email -> clientRepository.findDTOByEmail(clientEmail(email)).orElseThrow());
+        long[] id = measure(email -> clientRepository.findIdByEmail(clientEmail(email)).orElseThrow());
+
+        report("ClientRepository.findByEmail", entity);
+        report("ClientRepository.findDTOByEmail", dto);
+        report("ClientRepository.findIdByEmail", id);
+    }
+
+    private long[] measure(Consumer<String> lookup) {
+        for (int i = 0; i < WARMUP; i++) {
+            lookup.accept(email(i));
+            entityManager.clear();
+        }
+        long[] samples = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            String email = email(i);
+            long start = System.nanoTime();
+            lookup.accept(email);
+            samples[i] = System.nanoTime() - start;
+            // Clear the persistence context so each lookup hits the database, as it does across requests.
+            entityManager.clear();
+        }
+        Arrays.sort(samples);
+        return samples;
+    }
+
+    private static String email(int i) {
+        return "user" + (i * 7919 % USERS) + "@example.com";
+    }
+
+    private static String clientEmail(String email) {
+        // Every tenth seeded user is an admin; shift those lookups to the next (client) user.
+        int n = Integer.parseInt(email.substring(4, email.indexOf('@')));
+        return n % 10 == 0 ? "user" + (n + 1) + "@example.com" : email;
+    }
+
+    private static void report(String name, long[] sortedNanos) {
+        System.out.printf("%-40s p50=%7.1fus p99=%7.1fus p999=%7.1fus%n", name,
+                percentile(sortedNanos, 0.50), percentile(sortedNanos, 0.99), percentile(sortedNanos, 0.999));
+    }
+
+    private static double percentile(long[] sortedNanos, double p) {
+        return sortedNanos[Math.min(sortedNanos.length - 1, (int) Math.ceil(p * sortedNanos.length) - 1)] / 1_000.0;
+    }
+}
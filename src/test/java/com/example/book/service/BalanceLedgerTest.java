@@ -0,0 +1,260 @@
+package com.example.book.service;
+
+import com.example.book.service.exception.InsufficientFundsException;
+import com.example.book.service.repo.ClientRepository;
+import com.example.book.service.service.BalanceLedgerService;
+import com.example.book.service.service.OrderService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the append-only balance ledger against the embedded database of the {@code test} profile.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class BalanceLedgerTest {
+
+    @Autowired
+    private BalanceLedgerService balanceLedgerService;
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private ClientRepository clientRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * Verifies that movements are appended without writing the client row, and that the balance
+     * is the snapshot plus the movements wherever it is read.
+     */
+    @Test
+    @DisplayName("Balance should be the snapshot plus the appended movements")
+    void movements_shouldBeAppendedToTheLedger() {
+        Long clientId = insertClient(new BigDecimal("100.00"));
+
+        balanceLedgerService.recordTopUp(clientId, new BigDecimal("25.50"));
+        transactionTemplate.executeWithoutResult(tx -> {
+            assertEquals(0, new BigDecimal("125.50").compareTo(balanceLedgerService.lockBalance(clientId)));
+            balanceLedgerService.recordOrderDebit(clientId, null, new BigDecimal("40.00"));
+        });
+
+        assertEquals(0, new BigDecimal("85.50").compareTo(balanceLedgerService.getBalance(clientId)));
+        assertEquals(0, new BigDecimal("85.50").compareTo(clientRepository.findById(clientId).orElseThrow().getCurrentBalance()));
+        assertEquals(0, new BigDecimal("100.00").compareTo(snapshot(clientId)));
+        assertEquals(2, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM balance_ledger WHERE client_id = ?", Integer.class, clientId));
+    }
+
+    /**
+     * Verifies that compaction moves old entries into the snapshot without changing the balance,
+     * and leaves entries younger than the cutoff in the delta.
+     */
+    @Test
+    @DisplayName("Compaction should fold old entries into the snapshot and keep the balance")
+    void compaction_shouldFoldOldEntriesIntoSnapshot() {
+        Long clientId = insertClient(new BigDecimal("10.00"));
+        balanceLedgerService.recordTopUp(clientId, new BigDecimal("5.00"));
+        balanceLedgerService.recordTopUp(clientId, new BigDecimal("7.00"));
+        jdbcTemplate.update("UPDATE balance_ledger SET created_at = ? WHERE client_id = ?",
+                LocalDateTime.now().minusHours(1), clientId);
+        balanceLedgerService.recordTopUp(clientId, new BigDecimal("3.00"));
+
+        int compacted = balanceLedgerService.compact(LocalDateTime.now().minusMinutes(1), 10_000);
+
+        assertTrue(compacted >= 1);
+        assertEquals(0, new BigDecimal("22.00").compareTo(snapshot(clientId)));
+        assertEquals(0, new BigDecimal("25.00").compareTo(balanceLedgerService.getBalance(clientId)));
+        assertEquals(3, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM balance_ledger WHERE client_id = ?", Integer.class, clientId));
+
+        balanceLedgerService.compact(LocalDateTime.now().plusMinutes(1), 10_000);
+        assertEquals(0, new BigDecimal("25.00").compareTo(snapshot(clientId)));
+        assertEquals(0, new BigDecimal("25.00").compareTo(balanceLedgerService.getBalance(clientId)));
+    }
+
+    /**
+     * Verifies that cancelling the orders containing a book refunds each paid order with an entry
+     * that references it, and leaves drafts and already cancelled orders alone.
+     */
+    @Test
+    @DisplayName("Bulk cancellation should refund each order with its own entry")
+    void bulkCancellation_shouldRefundEachOrder() {
+        Long alice = insertClient(BigDecimal.ZERO);
+        Long bob = insertClient(BigDecimal.ZERO);
+        Long bookId = insertBook();
+        Long aliceSubmitted = insertOrder(alice, bookId, "SUBMITTED", new BigDecimal("10.00"));
+        Long aliceConfirmed = insertOrder(alice, bookId, "CONFIRMED", new BigDecimal("15.00"));
+        insertOrder(bob, bookId, "CONFIRMED", new BigDecimal("7.00"));
+        Long draft = insertOrder(bob, bookId, "DRAFT", new BigDecimal("3.00"));
+        Long cancelled = insertOrder(bob, bookId, "CANCELLED", new BigDecimal("4.00"));
+
+        SecurityContextHolder.getContext().setAuthentication(UsernamePasswordAuthenticationToken.authenticated(
+                "admin@example.com", null, AuthorityUtils.createAuthorityList("ROLE_ADMIN")));
+        int count;
+        try {
+            count = orderService.cancelOrdersContainingBook(bookId);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+
+        assertEquals(3, count);
+        assertEquals(0, new BigDecimal("25.00").compareTo(balanceLedgerService.getBalance(alice)));
+        assertEquals(0, new BigDecimal("7.00").compareTo(balanceLedgerService.getBalance(bob)));
+        assertEquals(List.of(Map.of("ORDER_ID", aliceSubmitted, "AMOUNT", new BigDecimal("10.00")),
+                        Map.of("ORDER_ID", aliceConfirmed, "AMOUNT", new BigDecimal("15.00"))),
+                jdbcTemplate.queryForList("SELECT order_id, amount FROM balance_ledger "
+                        + "WHERE client_id = ? AND entry_type = 'REFUND' ORDER BY order_id", alice));
+        assertEquals(4, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM orders o JOIN order_items i ON i.order_id = o.id "
+                        + "WHERE i.book_id = ? AND o.status = 'CANCELLED'", Integer.class, bookId));
+        assertEquals("DRAFT", jdbcTemplate.queryForObject("SELECT status FROM orders WHERE id = ?", String.class, draft));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT version FROM orders WHERE id = ?", Long.class, cancelled));
+    }
+
+    /**
+     * Verifies that two concurrent submissions by a client who can only pay for one of them debit
+     * the balance once. The second submission starts while the first holds the client's lock, so
+     * it has to wait for the first debit to commit and must then see it. On H2, a statement reads
+     * from a snapshot taken when it starts, before it waits for a lock, as plain reads of a MySQL
+     * repeatable-read transaction do; a balance read in the statement that waits would miss the
+     * first debit.
+     */
+    @Test
+    @DisplayName("Concurrent submissions should never overdraw the balance")
+    void concurrentSubmissions_shouldDebitAtMostOnce() throws Exception {
+        Long clientId = insertClient(new BigDecimal("10.00"));
+        Long bookId = insertBook();
+        Long first = insertOrder(clientId, bookId, "DRAFT", new BigDecimal("10.00"));
+        Long second = insertOrder(clientId, bookId, "DRAFT", new BigDecimal("10.00"));
+        String email = jdbcTemplate.queryForObject("SELECT email FROM users WHERE id = ?", String.class, clientId);
+        CountDownLatch firstLocked = new CountDownLatch(1);
+
+        Callable<Boolean> holding = () -> submitAs(email, () -> transactionTemplate.execute(tx -> {
+            boolean submitted = trySubmit(first);
+            firstLocked.countDown();
+            // Keep the lock until the other submission is waiting for it.
+            sleep(500);
+            return submitted;
+        }));
+        Callable<Boolean> waiting = () -> submitAs(email, () -> {
+            await(firstLocked);
+            return trySubmit(second);
+        });
+        List<Future<Boolean>> results;
+        try (ExecutorService executor = Executors.newFixedThreadPool(2)) {
+            results = executor.invokeAll(List.of(holding, waiting));
+        }
+
+        assertTrue(results.get(0).get());
+        assertFalse(results.get(1).get());
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM balance_ledger WHERE client_id = ? AND entry_type = 'ORDER_DEBIT'", Integer.class, clientId));
+        assertEquals(0, BigDecimal.ZERO.compareTo(balanceLedgerService.getBalance(clientId)));
+    }
+
+    private boolean trySubmit(Long orderId) {
+        try {
+            orderService.submitOrder(orderId);
+            return true;
+        } catch (InsufficientFundsException e) {
+            return false;
+        }
+    }
+
+    private static <T> T submitAs(String email, Supplier<T> action) {
+        SecurityContextHolder.getContext().setAuthentication(UsernamePasswordAuthenticationToken.authenticated(
+                email, null, AuthorityUtils.createAuthorityList("ROLE_CLIENT")));
+        try {
+            return action.get();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Long insertBook() {
+        String name = "ledger-book-" + UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO books (name, genre, price, publication_date, author, pages) "
+                + "VALUES (?, 'Fiction', 10.00, DATE '2020-01-01', 'Author', 100)", name);
+        return jdbcTemplate.queryForObject("SELECT id FROM books WHERE name = ?", Long.class, name);
+    }
+
+    private Long insertOrder(Long clientId, Long bookId, String status, BigDecimal price) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO orders (order_date, price, status, client_id) VALUES (CURRENT_TIMESTAMP, ?, ?, ?)",
+                    new String[]{"id"});
+            statement.setBigDecimal(1, price);
+            statement.setString(2, status);
+            statement.setLong(3, clientId);
+            return statement;
+        }, keyHolder);
+        Long orderId = keyHolder.getKey().longValue();
+        jdbcTemplate.update("INSERT INTO order_items (quantity, book_id, order_id) VALUES (1, ?, ?)", bookId, orderId);
+        return orderId;
+    }
+
+    private BigDecimal snapshot(Long clientId) {
+        return jdbcTemplate.queryForObject("SELECT balance FROM clients WHERE user_id = ?", BigDecimal.class, clientId);
+    }
+
+    private Long insertClient(BigDecimal balance) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO users (first_name, last_name, email, password, role) VALUES ('Ledger', 'Client', ?, 'hash', 'CLIENT')",
+                    new String[]{"id"});
+            statement.setString(1, "ledger-" + UUID.randomUUID() + "@example.com");
+            return statement;
+        }, keyHolder);
+        Long clientId = keyHolder.getKey().longValue();
+        jdbcTemplate.update("INSERT INTO clients (user_id, balance) VALUES (?, ?)", clientId, balance);
+        return clientId;
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.book.service;
+
+import com.example.book.service.dto.BookDTO;
+import com.example.book.service.service.BookService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Tests for the catalog's JSON API, {@code /api/v1/books}.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class BookApiTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private BookService bookService;
+
+    /**
+     * Verifies that pages follow each other by ID and that the text fields are left out by default.
+     */
+    @Test
+    @DisplayName("Keyset pages should link to the next page and omit text fields by default")
+    void pages_shouldLinkToNextPageWithoutTextFields() throws Exception {
+        List<Long> ids = insertBooks(3);
+        String after = String.valueOf(ids.get(0) - 1);
+
+        JsonNode first = getJson("/api/v1/books?after=" + after + "&limit=2");
+
+        assertEquals(2, first.get("items").size());
+        assertEquals(ids.get(0), first.get("items").get(0).get("id").asLong());
+        assertEquals(ids.get(1), first.get("items").get(1).get("id").asLong());
+        assertTrue(first.get("items").get(0).has("price"));
+        assertFalse(first.get("items").get(0).has("description"));
+        String next = first.get("next").asText();
+        assertTrue(next.contains("after=" + ids.get(1)), next);
+
+        JsonNode second = getJson(next.substring(next.indexOf("/api/")));
+        assertEquals(ids.get(2), second.get("items").get(0).get("id").asLong());
+    }
+
+    /**
+     * Verifies that the fields parameter selects the fields returned, including the text fields.
+     */
+    @Test
+    @DisplayName("Sparse fieldsets should return only the requested fields")
+    void fields_shouldSelectReturnedFields() throws Exception {
+        List<Long> ids = insertBooks(1);
+
+        JsonNode page = getJson("/api/v1/books?after=" + (ids.get(0) - 1) + "&limit=1&fields=name,description");
+        JsonNode book = page.get("items").get(0);
+
+        assertEquals(List.of("id", "name", "description"), fieldNames(book));
+        assertEquals("Description", book.get("description").asText());
+        assertEquals(400, mockMvc.perform(get("/api/v1/books").param("fields", "name,isbn"))
+                .andReturn().getResponse().getStatus());
+    }
+
+    /**
+     * Verifies that a current copy is confirmed with 304 and that an update changes the ETag.
+     */
+    @Test
+    @DisplayName("ETags should be confirmed until the book changes")
+    void etag_shouldChangeWhenBookIsUpdated() throws Exception {
+        Long id = insertBooks(1).get(0);
+        String pageUrl = "/api/v1/books?after=" + (id - 1) + "&limit=1";
+
+        MvcResult book = mockMvc.perform(get("/api/v1/books/{id}", id)).andReturn();
+        MvcResult page = mockMvc.perform(get(pageUrl)).andReturn();
+        String bookEtag = book.getResponse().getHeader(HttpHeaders.ETAG);
+        String pageEtag = page.getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(bookEtag);
+        assertNotNull(pageEtag);
+
+        assertEquals(304, mockMvc.perform(get("/api/v1/books/{id}", id).header(HttpHeaders.IF_NONE_MATCH, bookEtag))
+                .andReturn().getResponse().getStatus());
+        assertEquals(304, mockMvc.perform(get(pageUrl).header(HttpHeaders.IF_NONE_MATCH, pageEtag))
+                .andReturn().getResponse().getStatus());
+
+        BookDTO current = bookService.getBookById(id);
+        SecurityContextHolder.getContext().setAuthentication(UsernamePasswordAuthenticationToken.authenticated(
+                "admin@example.com", null, AuthorityUtils.createAuthorityList("ROLE_ADMIN")));
+        try {
+            bookService.updateBookById(id, BookDTO.builder().name(current.getName()).price(new BigDecimal("12.00")).build());
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+
+        MvcResult changedBook = mockMvc.perform(get("/api/v1/books/{id}", id).header(HttpHeaders.IF_NONE_MATCH, bookEtag))
+                .andReturn();
+        MvcResult changedPage = mockMvc.perform(get(pageUrl).header(HttpHeaders.IF_NONE_MATCH, pageEtag)).andReturn();
+        assertEquals(200, changedBook.getResponse().getStatus());
+        assertEquals(200, changedPage.getResponse().getStatus());
+        assertEquals(12.0, objectMapper.readTree(changedBook.getResponse().getContentAsString()).get("price").asDouble());
+    }
+
+    private JsonNode getJson(String url) throws Exception {
+        MvcResult result = mockMvc.perform(get(url)).andReturn();
+        assertEquals(200, result.getResponse().getStatus());
+        return objectMapper.readTree(result.getResponse().getContentAsString());
+    }
+
+    private static List<String> fieldNames(JsonNode node) {
+        List<String> names = new ArrayList<>();
+        node.fieldNames().forEachRemaining(names::add);
+        return names;
+    }
+
+    private List<Long> insertBooks(int count) {
+        String prefix = "api" + UUID.randomUUID().toString().substring(0, 8);
+        for (int i = 0; i < count; i++) {
+            jdbcTemplate.update("INSERT INTO books (name, genre, price, publication_date, author, pages, description) "
+                    + "VALUES (?, 'Fiction', 10.00, DATE '2020-01-01', 'Author', 100, 'Description')", prefix + " " + i);
+        }
+        return jdbcTemplate.queryForList("SELECT id FROM books WHERE name LIKE ? ORDER BY id", Long.class, prefix + "%");
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.book.service;
+
+import com.example.book.service.service.counters.BookCounters;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the book view and cart-add counters against the embedded database of the {@code test} profile.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class BookCountersTest {
+
+    private static final int THREADS = 8;
+    private static final int VIEWS_PER_THREAD = 5000;
+
+    @Autowired
+    private BookCounters bookCounters;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Verifies that concurrent increments are all persisted, that later flushes add to the stored
+     * counts, and that counts of a deleted book do not fail the flush.
+     */
+    @Test
+    @DisplayName("Flushes should add every concurrent increment to the stored counts")
+    void flush_shouldPersistConcurrentIncrements() throws Exception {
+        long book = insertBook();
+        List<Future<?>> workers = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(THREADS)) {
+            for (int thread = 0; thread < THREADS; thread++) {
+                workers.add(executor.submit(() -> {
+                    for (int i = 0; i < VIEWS_PER_THREAD; i++) {
+                        bookCounters.recordView(book);
+                        if (i % 10 == 0) {
+                            bookCounters.recordCartAdd(book);
+                        }
+                        if (i % 1000 == 0) {
+                            bookCounters.flush();
+                        }
+                    }
+                }));
+            }
+        }
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        bookCounters.recordView(Long.MAX_VALUE);
+        assertTrue(bookCounters.flush() >= 0);
+
+        assertEquals(Map.of("VIEW_COUNT", (long) THREADS * VIEWS_PER_THREAD, "CART_ADD_COUNT", (long) THREADS * VIEWS_PER_THREAD / 10),
+                counts(book));
+
+        bookCounters.recordView(book);
+        bookCounters.flush();
+        assertEquals((long) THREADS * VIEWS_PER_THREAD + 1, counts(book).get("VIEW_COUNT"));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM book_counters WHERE book_id = ?", Integer.class, Long.MAX_VALUE));
+
+        double lag = meterRegistry.get("bookstore.book.counters.flush.lag").gauge().value();
+        assertTrue(lag >= 0 && lag < 60_000, "flush lag is measured from the last successful flush");
+    }
+
+    /**
+     * Verifies that a flush failing before any statement runs, as when the database cannot be
+     * reached, keeps its counts for the next flush.
+     */
+    @Test
+    @DisplayName("A failed flush should leave its counts to the next one")
+    void failedFlush_shouldKeepCounts() {
+        long book = insertBook();
+        AtomicBoolean databaseDown = new AtomicBoolean(true);
+        PlatformTransactionManager flakyTransactionManager = new PlatformTransactionManager() {
+            @Override
+            public TransactionStatus getTransaction(TransactionDefinition definition) {
+                if (databaseDown.get()) {
+                    throw new CannotCreateTransactionException("Database is down");
+                }
+                return transactionManager.getTransaction(definition);
+            }
+
+            @Override
+            public void commit(TransactionStatus status) {
+                transactionManager.commit(status);
+            }
+
+            @Override
+            public void rollback(TransactionStatus status) {
+                transactionManager.rollback(status);
+            }
+        };
+        BookCounters counters = new BookCounters(jdbcTemplate, new TransactionTemplate(flakyTransactionManager),
+                new SimpleMeterRegistry());
+        counters.recordView(book);
+        counters.recordView(book);
+        counters.recordCartAdd(book);
+
+        assertEquals(-1, counters.flush());
+        databaseDown.set(false);
+        assertEquals(1, counters.flush());
+
+        assertEquals(Map.of("VIEW_COUNT", 2L, "CART_ADD_COUNT", 1L), counts(book));
+    }
+
+    private Map<String, Object> counts(long bookId) {
+        return jdbcTemplate.queryForMap(
+                "SELECT view_count, cart_add_count FROM book_counters WHERE book_id = ?", bookId);
+    }
+
+    private long insertBook() {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO books (name, genre, price, publication_date, author, pages) VALUES (?, 'Fiction', 9.99, '2020-01-01', 'Writer', 100)",
+                    new String[]{"id"});
+            statement.setString(1, "Counted " + UUID.randomUUID());
+            return statement;
+        }, keyHolder);
+        return keyHolder.getKey().longValue();
+    }
+}
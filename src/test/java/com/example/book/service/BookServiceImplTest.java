@@ -1,22 +1,31 @@
 package com.example.book.service;
 
+import com.example.book.service.cache.CatalogVersion;
 import com.example.book.service.dto.BookDTO;
 import com.example.book.service.exception.AlreadyExistException;
 import com.example.book.service.exception.NotFoundException;
 import com.example.book.service.mapper.BookMapper;
 import com.example.book.service.model.Book;
 import com.example.book.service.repo.BookRepository;
+import com.example.book.service.service.PricingService;
 import com.example.book.service.service.impl.BookServiceImpl;
+import com.example.book.service.service.recommendation.CoPurchaseRecommender;
+import com.example.book.service.service.uniqueness.UniqueKeyRegistry;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.InjectMocks;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
 import java.math.BigDecimal;
+import java.sql.SQLException;
 import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -49,6 +58,31 @@ class BookServiceImplTest {
     @Mock
     private BookMapper bookMapper;
 
+    /**
+     * A mock of the {@link UniqueKeyRegistry}. Unless stubbed otherwise, it reports every
+     * name as definitely free, which is the common case the registry is meant to speed up.
+     */
+    @Mock
+    private UniqueKeyRegistry uniqueKeyRegistry;
+
+    /**
+     * A mock of the {@link CatalogVersion}, which catalog writes advance so that cached pages are rendered again.
+     */
+    @Mock
+    private CatalogVersion catalogVersion;
+
+    /**
+     * A mock of the {@link CoPurchaseRecommender}, which ranks the books bought together with a book.
+     */
+    @Mock
+    private CoPurchaseRecommender coPurchaseRecommender;
+
+    /**
+     * A mock of the {@link PricingService}, which recomputes the draft orders containing a repriced book.
+     */
+    @Mock
+    private PricingService pricingService;
+
     /**
      * The instance of {@link BookServiceImpl} to be tested. Mockito will automatically
      * inject the mocked dependencies ({@code bookRepository}, {@code bookMapper}) into this instance.
@@ -119,7 +153,6 @@ class BookServiceImplTest {
         Book savedBook = Book.builder().id(1L).name("New Unique Book").build();
         BookDTO savedBookDTO = BookDTO.builder().id(1L).name("New Unique Book").build();
 
-        when(bookRepository.findByName("New Unique Book")).thenReturn(Optional.empty());
         when(bookMapper.toEntity(bookToSaveDTO)).thenReturn(bookToSave);
         when(bookRepository.save(bookToSave)).thenReturn(savedBook);
         when(bookMapper.toDTO(savedBook)).thenReturn(savedBookDTO);
@@ -131,6 +164,49 @@ class BookServiceImplTest {
         assertNotNull(result);
         assertEquals(1L, result.getId());
         verify(bookRepository, times(1)).save(bookToSave);
+        // A name the registry knows to be free must not cost an existence query.
+        verify(bookRepository, never()).existsByName(anyString());
+        verify(uniqueKeyRegistry).addBookName("New Unique Book");
+        verify(catalogVersion).advance();
+    }
+
+    /**
+     * Tests that a unique-constraint violation raised by the database, for a name the
+     * registry did not know about, is reported as an {@link AlreadyExistException}.
+     */
+    @Test
+    @DisplayName("addBook: should translate a unique-name violation into AlreadyExistException")
+    void whenAddBook_withConstraintViolation_thenThrowAlreadyExistException() {
+        // Arrange
+        BookDTO bookToSaveDTO = BookDTO.builder().name("Racing Book").build();
+        Book bookToSave = Book.builder().name("Racing Book").build();
+
+        when(bookMapper.toEntity(bookToSaveDTO)).thenReturn(bookToSave);
+        when(bookRepository.save(bookToSave)).thenThrow(violation(ConstraintViolationException.ConstraintKind.UNIQUE, "name"));
+
+        // Act & Assert
+        assertThrows(AlreadyExistException.class, () -> bookService.addBook(bookToSaveDTO));
+        verify(uniqueKeyRegistry, never()).addBookName(anyString());
+    }
+
+    /**
+     * Tests that an integrity violation other than a unique-name one is not reported as a
+     * duplicate name.
+     */
+    @Test
+    @DisplayName("addBook: should rethrow integrity violations other than a unique-name one")
+    void whenAddBook_withOtherConstraintViolation_thenRethrow() {
+        // Arrange
+        BookDTO bookToSaveDTO = BookDTO.builder().name("Broken Book").build();
+        Book bookToSave = Book.builder().name("Broken Book").build();
+        DataIntegrityViolationException violation = violation(ConstraintViolationException.ConstraintKind.OTHER, "chk_price");
+
+        when(bookMapper.toEntity(bookToSaveDTO)).thenReturn(bookToSave);
+        when(bookRepository.save(bookToSave)).thenThrow(violation);
+
+        // Act & Assert
+        assertSame(violation, assertThrows(DataIntegrityViolationException.class, () -> bookService.addBook(bookToSaveDTO)));
+        verify(uniqueKeyRegistry, never()).addBookName(anyString());
     }
 
     /**
@@ -143,9 +219,9 @@ class BookServiceImplTest {
     void whenAddBook_withExistingName_thenThrowAlreadyExistException() {
         // Arrange
         BookDTO bookToSaveDTO = BookDTO.builder().name("Existing Book").build();
-        Book existingBook = Book.builder().id(1L).name("Existing Book").build();
 
-        when(bookRepository.findByName("Existing Book")).thenReturn(Optional.of(existingBook));
+        when(uniqueKeyRegistry.mightContainBookName("Existing Book")).thenReturn(true);
+        when(bookRepository.existsByName("Existing Book")).thenReturn(true);
 
         // Act & Assert
         assertThrows(AlreadyExistException.class, () -> {
@@ -187,6 +263,31 @@ class BookServiceImplTest {
         verify(bookMapper, times(1)).updateBookFromDTO(bookUpdatesDTO, existingBook);
     }
 
+    /**
+     * Tests that changing the price of a book recomputes the draft orders containing it, once the
+     * new price has been flushed, and that an unchanged price does not.
+     */
+    @Test
+    @DisplayName("updateBookById: should reprice draft orders only when the price changes")
+    void whenUpdateBook_withNewPrice_thenRepriceDraftOrders() {
+        // Arrange
+        long bookId = 1L;
+        Book existingBook = Book.builder().id(bookId).name("Dune").price(new BigDecimal("10.00")).build();
+        when(bookRepository.findById(bookId)).thenReturn(Optional.of(existingBook));
+        when(bookRepository.save(existingBook)).thenReturn(existingBook);
+
+        // Act: the same price at another scale, then a new price
+        bookService.updateBookById(bookId, BookDTO.builder().name("Dune").price(new BigDecimal("10")).build());
+        verify(pricingService, never()).repriceDraftOrders(any());
+        bookService.updateBookById(bookId, BookDTO.builder().name("Dune").price(new BigDecimal("12.50")).build());
+
+        // Assert
+        InOrder inOrder = inOrder(bookRepository, pricingService);
+        inOrder.verify(bookRepository).flush();
+        inOrder.verify(pricingService).repriceDraftOrders(List.of(bookId));
+        verify(uniqueKeyRegistry, never()).addBookName(any());
+    }
+
     /**
      * Tests the successful deletion of an existing book.
      * It verifies that if a book is found by its ID, the repository's {@code delete}
@@ -205,6 +306,7 @@ class BookServiceImplTest {
 
         // Assert
         verify(bookRepository, times(1)).delete(book);
+        verify(catalogVersion).advance();
     }
 
     /**
@@ -229,4 +331,43 @@ class BookServiceImplTest {
         verify(bookRepository, times(1)).searchBooks(keyword);
         verify(bookRepository, never()).findAll(); // Ensure the "get all" method is not called
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests that the recommended books are returned in the recommender's order, skipping a book
+     * that has been deleted since it was ranked.
+     */
+    @Test
+    @DisplayName("getCustomersAlsoBought: should keep the ranking and skip deleted books")
+    void whenGetCustomersAlsoBought_thenReturnBooksInRankOrder() {
+        // Arrange
+        when(coPurchaseRecommender.recommend(1L)).thenReturn(new long[]{3L, 9L, 2L});
+        BookDTO second = BookDTO.builder().id(2L).name("Second").build();
+        BookDTO third = BookDTO.builder().id(3L).name("Third").build();
+        when(bookRepository.findSummariesByIdIn(List.of(3L, 9L, 2L))).thenReturn(List.of(second, third));
+
+        // Act
+        List<BookDTO> result = bookService.getCustomersAlsoBought(1L);
+
+        // Assert
+        assertEquals(List.of(third, second), result);
+    }
+
+    /**
+     * Tests that a book without co-purchases costs no query.
+     */
+    @Test
+    @DisplayName("getCustomersAlsoBought: should not query when there are no recommendations")
+    void whenGetCustomersAlsoBought_withoutCoPurchases_thenSkipQuery() {
+        // Arrange
+        when(coPurchaseRecommender.recommend(1L)).thenReturn(new long[0]);
+
+        // Act & Assert
+        assertTrue(bookService.getCustomersAlsoBought(1L).isEmpty());
+        verifyNoInteractions(bookRepository);
+    }
+
+    private static DataIntegrityViolationException violation(ConstraintViolationException.ConstraintKind kind, String constraint) {
+        return new DataIntegrityViolationException("Constraint violated",
+                new ConstraintViolationException("Constraint violated", new SQLException(), kind, constraint));
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.book.service;
+
+import com.example.book.service.dto.ClientDTO;
+import com.example.book.service.dto.ClientPageDTO;
+import com.example.book.service.dto.ClientSort;
+import com.example.book.service.model.Client;
+import com.example.book.service.model.enums.Role;
+import com.example.book.service.service.ClientService;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the keyset-paged admin client directory and its email trigram index, against the
+ * embedded database of the {@code test} profile.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ClientDirectoryTest {
+
+    @Autowired
+    private ClientService clientService;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String domain;
+
+    @BeforeEach
+    void setUp() {
+        domain = "corp" + UUID.randomUUID().toString().substring(0, 8) + ".com";
+        SecurityContextHolder.getContext().setAuthentication(UsernamePasswordAuthenticationToken.authenticated(
+                "admin@example.com", null, AuthorityUtils.createAuthorityList("ROLE_ADMIN")));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    /**
+     * Verifies that a client's email trigrams are written with the client.
+     */
+    @Test
+    @DisplayName("Creating a client should index the trigrams of its email")
+    void persist_shouldIndexEmailTrigrams() {
+        Long id = insertClient("Ab", "Ada", "Ab@" + domain, "1.00");
+
+        List<String> grams = jdbcTemplate.queryForList(
+                "SELECT gram FROM client_email_grams WHERE user_id = ?", String.class, id);
+
+        assertEquals(Client.trigrams("ab@" + domain).size(), grams.size());
+        assertTrue(grams.containsAll(List.of("ab@", "b@c", ".co", "com")));
+    }
+
+    /**
+     * Verifies that walking the pages of a search by domain returns every match once, in name order.
+     */
+    @Test
+    @DisplayName("Keyset pages of a domain search should list every match once, in order")
+    void domainSearch_shouldPageThroughMatchesInOrder() {
+        insertClient("Carter", "Cy", "cy@" + domain, "1.00");
+        insertClient("Abbott", "Al", "al@" + domain, "1.00");
+        insertClient("Baker", "Bo", "bo@" + domain, "1.00");
+        insertClient("Abbott", "Ann", "ann@" + domain, "1.00");
+        insertClient("Abbott", "Al", "al@other-" + domain.replace(".com", ".org"), "1.00");
+
+        List<String> emails = new ArrayList<>();
+        Long after = null;
+        int pages = 0;
+        do {
+            ClientPageDTO page = clientService.getClientPage("@" + domain.toUpperCase(), ClientSort.NAME, after, 2);
+            page.clients().stream().map(ClientDTO::getEmail).forEach(emails::add);
+            after = page.nextAfter();
+            pages++;
+        } while (after != null);
+
+        assertEquals(List.of("al@" + domain, "ann@" + domain, "bo@" + domain, "cy@" + domain), emails);
+        assertEquals(2, pages);
+    }
+
+    /**
+     * Verifies the balance order, including the ID that breaks ties between equal balances.
+     */
+    @Test
+    @DisplayName("Balance order should page by balance and then by ID")
+    void balanceSort_shouldBreakTiesById() {
+        Long low = insertClient("Low", "Lo", "low@" + domain, "5.00");
+        Long firstTie = insertClient("Tie", "Ty", "tie1@" + domain, "50.00");
+        Long secondTie = insertClient("Tie", "Ty", "tie2@" + domain, "50.00");
+        Long high = insertClient("High", "Hi", "high@" + domain, "500.00");
+
+        ClientPageDTO first = clientService.getClientPage(domain, ClientSort.BALANCE_HIGH, null, 2);
+        ClientPageDTO second = clientService.getClientPage(domain, ClientSort.BALANCE_HIGH, first.nextAfter(), 2);
+
+        assertEquals(List.of(high, secondTie), first.clients().stream().map(ClientDTO::getId).toList());
+        assertEquals(List.of(firstTie, low), second.clients().stream().map(ClientDTO::getId).toList());
+        assertNull(second.nextAfter());
+    }
+
+    private Long insertClient(String lastName, String firstName, String email, String balance) {
+        return transactionTemplate.execute(tx -> {
+            Client client = Client.builder()
+                    .email(email).firstName(firstName).lastName(lastName).password("hash").role(Role.CLIENT)
+                    .balance(new BigDecimal(balance)).build();
+            entityManager.persist(client);
+            return client.getId();
+        });
+    }
+}
@@ -8,7 +8,10 @@ import com.example.book.service.mapper.ClientMapper;
 import com.example.book.service.model.Client;
 import com.example.book.service.model.enums.Role;
 import com.example.book.service.repo.ClientRepository;
+import com.example.book.service.repo.UserRepository;
+import com.example.book.service.service.BalanceLedgerService;
 import com.example.book.service.service.impl.ClientServiceImpl;
+import com.example.book.service.service.uniqueness.UniqueKeyRegistry;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -18,9 +21,12 @@ import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.math.BigDecimal;
+import java.sql.SQLException;
 import java.util.Optional;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -45,12 +51,31 @@ class ClientServiceImplTest {
     @Mock
     private ClientRepository clientRepository;
 
+    /**
+     * Mock of the {@link UserRepository} used for email existence checks across all user types.
+     */
+    @Mock
+    private UserRepository userRepository;
+
+    /**
+     * Mock of the {@link UniqueKeyRegistry}. Unless stubbed otherwise, it reports every
+     * email as definitely free.
+     */
+    @Mock
+    private UniqueKeyRegistry uniqueKeyRegistry;
+
     /**
      * Mock of the {@link ClientMapper} to simulate mapping between entities and DTOs.
      */
     @Mock
     private ClientMapper clientMapper;
 
+    /**
+     * Mock of the {@link BalanceLedgerService} that records balance movements.
+     */
+    @Mock
+    private BalanceLedgerService balanceLedgerService;
+
     /**
      * Mock of the {@link PasswordEncoder} to simulate password hashing without
      * needing the actual encoding algorithm.
@@ -85,7 +110,6 @@ class ClientServiceImplTest {
         Client savedClient = Client.builder().id(1L).email("new@example.com").build();
         ClientDTO expectedDTO = ClientDTO.builder().id(1L).email("new@example.com").build();
 
-        when(clientRepository.findByEmail("new@example.com")).thenReturn(Optional.empty());
         when(passwordEncoder.encode("password123")).thenReturn("encodedPassword");
         when(clientMapper.toEntity(createDTO)).thenReturn(clientToSave);
         when(clientRepository.save(any(Client.class))).thenReturn(savedClient);
@@ -102,6 +126,8 @@ class ClientServiceImplTest {
         verify(passwordEncoder, times(1)).encode("password123");
         verify(clientMapper).toEntity(createDTO);
         verify(clientRepository, times(1)).save(clientToSave);
+        verify(userRepository, never()).existsByEmail(anyString());
+        verify(uniqueKeyRegistry).addEmail("new@example.com");
 
         // Verify that default properties were set correctly on the entity before saving.
         assertEquals(Role.CLIENT, clientToSave.getRole());
@@ -110,7 +136,7 @@ class ClientServiceImplTest {
 
     /**
      * Tests the business rule that prevents creating clients with duplicate emails.
-     * It verifies that if the repository finds an existing client with the same email,
+     * It verifies that if the email may be taken and the repository confirms it exists,
      * an {@link AlreadyExistException} is thrown and no save operation is attempted.
      */
     @Test
@@ -118,9 +144,9 @@ class ClientServiceImplTest {
     void whenAddClient_withExistingEmail_thenThrowAlreadyExistException() {
         // Arrange
         ClientCreateRequestDTO createDTO = ClientCreateRequestDTO.builder().email("existing@example.com").build();
-        Client existingClient = new Client();
 
-        when(clientRepository.findByEmail("existing@example.com")).thenReturn(Optional.of(existingClient));
+        when(uniqueKeyRegistry.mightContainEmail("existing@example.com")).thenReturn(true);
+        when(userRepository.existsByEmail("existing@example.com")).thenReturn(true);
 
         // Act & Assert
         assertThrows(AlreadyExistException.class, () -> clientService.addClient(createDTO));
@@ -129,20 +155,67 @@ class ClientServiceImplTest {
         verify(clientRepository, never()).save(any());
     }
 
+    /**
+     * Tests that a duplicate email which slipped past the registry (e.g. a concurrent
+     * registration) is rejected by the database constraint and reported as an
+     * {@link AlreadyExistException}.
+     */
+    @Test
+    @DisplayName("addClient: should translate a unique-email violation into AlreadyExistException")
+    void whenAddClient_withConstraintViolation_thenThrowAlreadyExistException() {
+        // Arrange
+        ClientCreateRequestDTO createDTO = ClientCreateRequestDTO.builder()
+                .email("racing@example.com")
+                .password("password123")
+                .build();
+        Client clientToSave = new Client();
+
+        when(clientMapper.toEntity(createDTO)).thenReturn(clientToSave);
+        when(passwordEncoder.encode("password123")).thenReturn("encodedPassword");
+        when(clientRepository.save(clientToSave)).thenThrow(violation(ConstraintViolationException.ConstraintKind.UNIQUE, "email"));
+
+        // Act & Assert
+        assertThrows(AlreadyExistException.class, () -> clientService.addClient(createDTO));
+        verify(uniqueKeyRegistry, never()).addEmail(anyString());
+    }
+
+    /**
+     * Tests that an integrity violation other than a unique-email one is not reported as an
+     * existing client.
+     */
+    @Test
+    @DisplayName("addClient: should rethrow integrity violations other than a unique-email one")
+    void whenAddClient_withOtherConstraintViolation_thenRethrow() {
+        // Arrange
+        ClientCreateRequestDTO createDTO = ClientCreateRequestDTO.builder()
+                .email("broken@example.com")
+                .password("password123")
+                .build();
+        Client clientToSave = new Client();
+        DataIntegrityViolationException violation = violation(ConstraintViolationException.ConstraintKind.OTHER, null);
+
+        when(clientMapper.toEntity(createDTO)).thenReturn(clientToSave);
+        when(passwordEncoder.encode("password123")).thenReturn("encodedPassword");
+        when(clientRepository.save(clientToSave)).thenThrow(violation);
+
+        // Act & Assert
+        assertSame(violation, assertThrows(DataIntegrityViolationException.class, () -> clientService.addClient(createDTO)));
+        verify(uniqueKeyRegistry, never()).addEmail(anyString());
+    }
+
     /**
      * Tests the successful retrieval of a client by email.
-     * It verifies that if a client is found, it is correctly mapped to a {@link ClientDTO} and returned.
+     * It verifies that the {@link ClientDTO} projected by the repository is returned as-is,
+     * without loading the {@link Client} entity.
      */
     @Test
     @DisplayName("getClientByEmail: should return ClientDTO when the client exists")
     void whenGetClientByEmail_whenExists_thenReturnClientDTO() {
         // Arrange
         String existingEmail = "found@example.com";
-        Client client = Client.builder().id(1L).email(existingEmail).build();
         ClientDTO expectedDTO = ClientDTO.builder().id(1L).email(existingEmail).build();
 
-        when(clientRepository.findByEmail(existingEmail)).thenReturn(Optional.of(client));
-        when(clientMapper.toDTO(client)).thenReturn(expectedDTO);
+        when(clientRepository.findDTOByEmail(existingEmail)).thenReturn(Optional.of(expectedDTO));
 
         // Act
         ClientDTO result = clientService.getClientByEmail(existingEmail);
@@ -152,8 +225,8 @@ class ClientServiceImplTest {
         assertEquals(expectedDTO.getId(), result.getId());
         assertEquals(expectedDTO.getEmail(), result.getEmail());
 
-        verify(clientRepository, times(1)).findByEmail(existingEmail);
-        verify(clientMapper, times(1)).toDTO(client);
+        verify(clientRepository, times(1)).findDTOByEmail(existingEmail);
+        verify(clientRepository, never()).findByEmail(anyString());
     }
 
     /**
@@ -165,7 +238,7 @@ class ClientServiceImplTest {
     void whenGetClientByEmail_whenNotFound_thenThrowNotFoundException() {
         // Arrange
         String nonExistentEmail = "notfound@example.com";
-        when(clientRepository.findByEmail(nonExistentEmail)).thenReturn(Optional.empty());
+        when(clientRepository.findDTOByEmail(nonExistentEmail)).thenReturn(Optional.empty());
 
         // Act & Assert
         assertThrows(NotFoundException.class, () -> clientService.getClientByEmail(nonExistentEmail));
@@ -214,22 +287,20 @@ class ClientServiceImplTest {
     void whenTopUpBalance_withValidAmount_thenIncreaseBalance() {
         // Arrange
         String clientEmail = "test@example.com";
-        Client client = Client.builder()
-                .email(clientEmail)
-                .balance(new BigDecimal("100.00"))
-                .build();
+        ClientDTO client = new ClientDTO(7L, clientEmail, "Test", "Client", new BigDecimal("100.00"), true, null);
 
         BigDecimal topUpAmount = new BigDecimal("50.50");
         BigDecimal expectedBalance = new BigDecimal("150.50");
 
-        when(clientRepository.findByEmail(clientEmail)).thenReturn(Optional.of(client));
+        when(clientRepository.findDTOByEmail(clientEmail)).thenReturn(Optional.of(client));
 
         // Act
-        clientService.topUpBalance(clientEmail, topUpAmount);
+        BigDecimal newBalance = clientService.topUpBalance(clientEmail, topUpAmount);
 
-        // Assert
-        assertEquals(0, expectedBalance.compareTo(client.getBalance()), "The balance was not updated correctly.");
-        verify(clientRepository, times(1)).save(client);
+        // Assert: the top-up is appended to the ledger and the client row is not written.
+        assertEquals(0, expectedBalance.compareTo(newBalance), "The new balance was not returned.");
+        verify(balanceLedgerService, times(1)).recordTopUp(7L, topUpAmount);
+        verify(clientRepository, never()).save(any());
     }
 
     /**
@@ -250,7 +321,12 @@ class ClientServiceImplTest {
         // Act & Assert
         assertThrows(IllegalArgumentException.class, () -> clientService.topUpBalance(clientEmail, invalidAmount));
 
-        verify(clientRepository, never()).findByEmail(anyString());
-        verify(clientRepository, never()).save(any());
+        verify(clientRepository, never()).findDTOByEmail(anyString());
+        verifyNoInteractions(balanceLedgerService);
+    }
+
+    private static DataIntegrityViolationException violation(ConstraintViolationException.ConstraintKind kind, String constraint) {
+        return new DataIntegrityViolationException("Constraint violated",
+                new ConstraintViolationException("Constraint violated", new SQLException(), kind, constraint));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,203 @@
+package com.example.book.service;
+
+import com.example.book.service.dto.ClientDTO;
+import com.example.book.service.dto.ClientSort;
+import com.example.book.service.model.Client;
+import com.example.book.service.model.enums.Role;
+import com.example.book.service.service.ClientService;
+import com.example.book.service.service.ClientStatsService;
+import com.example.book.service.service.stats.ClientStatsRebuildJob;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the {@code client_stats} read model against the embedded database of the {@code test} profile.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ClientStatsTest {
+
+    @Autowired
+    private ClientStatsService clientStatsService;
+    @Autowired
+    private ClientStatsRebuildJob clientStatsRebuildJob;
+    @Autowired
+    private ClientService clientService;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * Verifies that deltas applied as orders change agree with a rebuild from the orders.
+     */
+    @Test
+    @DisplayName("Delta updates should match the statistics recomputed by a rebuild")
+    void deltas_shouldMatchRebuild() {
+        String email = "stats-" + UUID.randomUUID() + "@example.com";
+        Long clientId = insertClient(email);
+        LocalDateTime first = LocalDateTime.of(2024, 3, 1, 10, 0);
+        LocalDateTime second = LocalDateTime.of(2024, 5, 1, 10, 0);
+        insertOrder(clientId, "CONFIRMED", "20.00", first);
+        insertOrder(clientId, "CANCELLED", "15.00", second);
+        insertOrder(clientId, "CANCELLED", "5.00", second);
+        insertOrder(clientId, "DRAFT", "99.00", second.plusDays(1));
+
+        transactionTemplate.executeWithoutResult(tx -> {
+            clientStatsService.recordSubmission(clientId, new BigDecimal("20.00"), first);
+            clientStatsService.recordSubmission(clientId, new BigDecimal("15.00"), second);
+            clientStatsService.recordSubmission(clientId, new BigDecimal("5.00"), second);
+            clientStatsService.recordCancellation(clientId, new BigDecimal("15.00"));
+            clientStatsService.recordCancellations(Map.of(clientId, List.of(new BigDecimal("5.00"))));
+        });
+        Map<String, Object> incremental = stats(clientId);
+
+        assertTrue(asAdmin(clientStatsService::rebuild) >= 1);
+        Map<String, Object> rebuilt = stats(clientId);
+
+        assertEquals(1, ((Number) incremental.get("order_count")).intValue());
+        assertEquals(0, new BigDecimal("20.00").compareTo((BigDecimal) incremental.get("lifetime_spend")));
+        assertEquals(second, ((Timestamp) incremental.get("last_order_at")).toLocalDateTime());
+        assertEquals(incremental, rebuilt);
+    }
+
+    /**
+     * Verifies that a rebuild started in the background returns at once and repairs drifted
+     * statistics once it has run.
+     */
+    @Test
+    @DisplayName("A background rebuild should repair drifted statistics")
+    void startRebuild_shouldRepairInBackground() throws InterruptedException {
+        Long clientId = insertClient("stats-" + UUID.randomUUID() + "@example.com");
+        insertOrder(clientId, "CONFIRMED", "30.00", LocalDateTime.of(2024, 6, 1, 10, 0));
+        transactionTemplate.executeWithoutResult(tx ->
+                clientStatsService.recordSubmission(clientId, new BigDecimal("99.00"), LocalDateTime.of(2024, 6, 1, 10, 0)));
+
+        assertTrue(asAdmin(clientStatsService::startRebuild));
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (new BigDecimal("30.00").compareTo((BigDecimal) stats(clientId).get("lifetime_spend")) != 0) {
+            assertTrue(System.currentTimeMillis() < deadline, "the rebuild did not finish in time");
+            Thread.sleep(50);
+        }
+        assertEquals(1, ((Number) stats(clientId).get("order_count")).intValue());
+    }
+
+    /**
+     * Verifies that only admins can rebuild the statistics, and that the scheduled job still can.
+     */
+    @Test
+    @DisplayName("A rebuild should require an admin, except from the scheduled job")
+    void rebuild_shouldRequireAdmin() {
+        Long clientId = insertClient("stats-" + UUID.randomUUID() + "@example.com");
+        insertOrder(clientId, "CONFIRMED", "40.00", LocalDateTime.of(2024, 7, 1, 10, 0));
+
+        assertThrows(AuthenticationCredentialsNotFoundException.class, clientStatsService::rebuild);
+        assertThrows(AuthenticationCredentialsNotFoundException.class, clientStatsService::startRebuild);
+
+        clientStatsRebuildJob.rebuild();
+        assertEquals(0, new BigDecimal("40.00").compareTo((BigDecimal) stats(clientId).get("lifetime_spend")));
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    /**
+     * Verifies that the client directory shows the statistics, and zeros for a client without any.
+     */
+    @Test
+    @DisplayName("The client directory should show each client's statistics")
+    void directory_shouldShowStats() {
+        String domain = "stats" + UUID.randomUUID().toString().substring(0, 8) + ".com";
+        Long buyer = persistClient("buyer@" + domain);
+        persistClient("browser@" + domain);
+        transactionTemplate.executeWithoutResult(tx ->
+                clientStatsService.recordSubmission(buyer, new BigDecimal("12.50"), LocalDateTime.of(2024, 1, 2, 3, 4)));
+
+        SecurityContextHolder.getContext().setAuthentication(UsernamePasswordAuthenticationToken.authenticated(
+                "admin@example.com", null, AuthorityUtils.createAuthorityList("ROLE_ADMIN")));
+        List<ClientDTO> clients;
+        try {
+            clients = clientService.getClientPage(domain, ClientSort.OLDEST, null, 10).clients();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+
+        assertEquals(2, clients.size());
+        assertEquals(1, clients.get(0).getOrderCount());
+        assertEquals(0, new BigDecimal("12.50").compareTo(clients.get(0).getLifetimeSpend()));
+        assertEquals(LocalDateTime.of(2024, 1, 2, 3, 4), clients.get(0).getLastOrderAt());
+        assertEquals(0, clients.get(1).getOrderCount());
+        assertEquals(0, BigDecimal.ZERO.compareTo(clients.get(1).getLifetimeSpend()));
+        assertNull(clients.get(1).getLastOrderAt());
+    }
+
+    private <T> T asAdmin(Supplier<T> action) {
+        SecurityContextHolder.getContext().setAuthentication(UsernamePasswordAuthenticationToken.authenticated(
+                "admin@example.com", null, AuthorityUtils.createAuthorityList("ROLE_ADMIN")));
+        try {
+            return action.get();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private Map<String, Object> stats(Long clientId) {
+        return jdbcTemplate.queryForMap(
+                "SELECT order_count, lifetime_spend, last_order_at FROM client_stats WHERE client_id = ?", clientId);
+    }
+
+    private Long insertClient(String email) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO users (first_name, last_name, email, password, role) VALUES ('Stats', 'Client', ?, 'hash', 'CLIENT')",
+                    new String[]{"id"});
+            statement.setString(1, email);
+            return statement;
+        }, keyHolder);
+        Long clientId = keyHolder.getKey().longValue();
+        jdbcTemplate.update("INSERT INTO clients (user_id) VALUES (?)", clientId);
+        return clientId;
+    }
+
+    /**
+     * Creates a client through JPA, which also indexes its email for the directory search.
+     */
+    private Long persistClient(String email) {
+        return transactionTemplate.execute(tx -> {
+            Client client = Client.builder()
+                    .email(email).firstName("Stats").lastName("Client").password("hash").role(Role.CLIENT).build();
+            entityManager.persist(client);
+            return client.getId();
+        });
+    }
+
+    private void insertOrder(Long clientId, String status, String price, LocalDateTime orderDate) {
+        jdbcTemplate.update("INSERT INTO orders (order_date, price, status, client_id) VALUES (?, ?, ?, ?)",
+                orderDate, new BigDecimal(price), status, clientId);
+    }
+}
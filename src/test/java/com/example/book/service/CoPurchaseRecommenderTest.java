@@ -0,0 +1,170 @@
+package com.example.book.service;
+
+import com.example.book.service.service.recommendation.CoOccurrenceMatrix;
+import com.example.book.service.service.recommendation.CoPurchaseRecommender;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Tests for the "customers also bought" index against the embedded database of the {@code test} profile.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class CoPurchaseRecommenderTest {
+
+    @Autowired
+    private CoPurchaseRecommender recommender;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private MockMvc mockMvc;
+
+    /**
+     * Verifies that a rebuild ranks the confirmed co-purchases only, and that confirmations counted
+     * afterwards lead to the same ranking as a rebuild that reads them from the database.
+     */
+    @Test
+    @DisplayName("Incremental counts should rank like a rebuild of the confirmed orders")
+    void record_shouldMatchRebuild() throws Exception {
+        long novel = insertBook("Novel");
+        long sequel = insertBook("Sequel");
+        long atlas = insertBook("Atlas");
+        long poems = insertBook("Poems");
+        long client = insertClient();
+        insertOrder(client, "CONFIRMED", novel, sequel, atlas);
+        insertOrder(client, "CONFIRMED", novel, sequel);
+        insertOrder(client, "CONFIRMED", novel, poems);
+        insertOrder(client, "CANCELLED", novel, poems);
+        insertOrder(client, "CANCELLED", novel, poems);
+
+        rebuild();
+        long[] rebuilt = recommender.recommend(novel);
+        assertEquals(sequel, rebuilt[0]);
+        assertEquals(Set.of(atlas, poems), Set.of(rebuilt[1], rebuilt[2]));
+
+        for (int i = 0; i < 2; i++) {
+            recommender.record(insertOrder(client, "CONFIRMED", novel, atlas), new long[]{novel, atlas});
+        }
+        long[] incremental = recommender.recommend(novel).clone();
+        assertArrayEquals(new long[]{atlas, sequel, poems}, incremental);
+
+        rebuild();
+        assertArrayEquals(incremental, recommender.recommend(novel));
+
+        mockMvc.perform(get("/books/view/{id}", novel))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("Customers Also Bought")))
+                .andExpect(content().string(containsString(bookName(atlas))));
+    }
+
+    /**
+     * Verifies that counting orders in separate matrices and merging them, as the fork-join rebuild
+     * does, gives the same counts and rankings as counting them one by one.
+     */
+    @Test
+    @DisplayName("Merged partial matrices should equal one incrementally built matrix")
+    void merge_shouldMatchIncremental() {
+        Random random = new Random(42);
+        CoOccurrenceMatrix incremental = new CoOccurrenceMatrix(0);
+        CoOccurrenceMatrix left = new CoOccurrenceMatrix(0);
+        CoOccurrenceMatrix right = new CoOccurrenceMatrix(0);
+        for (int order = 0; order < 5000; order++) {
+            long[] basket = random.longs(2 + random.nextInt(4), 1, 300).distinct().toArray();
+            incremental.addAndRank(basket, 3);
+            (order % 2 == 0 ? left : right).add(basket);
+        }
+        left.merge(right);
+        left.rank(3, 0, left.capacity());
+
+        assertEquals(incremental.size(), left.size());
+        for (long book = 1; book < 300; book++) {
+            for (long other = 1; other < 300; other++) {
+                assertEquals(incremental.count(book, other), left.count(book, other));
+            }
+            long current = book;
+            assertEquals(Arrays.stream(incremental.top(book)).mapToObj(other -> incremental.count(current, other)).toList(),
+                    Arrays.stream(left.top(book)).mapToObj(other -> left.count(current, other)).toList());
+        }
+    }
+
+    /**
+     * Rebuilds the matrix, waiting for the rebuild started on startup if it is still running.
+     */
+    private void rebuild() throws InterruptedException {
+        while (recommender.rebuild() < 0) {
+            Thread.sleep(10);
+        }
+    }
+
+    private String bookName(long id) {
+        return jdbcTemplate.queryForObject("SELECT name FROM books WHERE id = ?", String.class, id);
+    }
+
+    private long insertBook(String title) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO books (name, genre, price, publication_date, author, pages) VALUES (?, 'Fiction', 9.99, '2020-01-01', 'Writer', 100)",
+                    new String[]{"id"});
+            statement.setString(1, title + " " + UUID.randomUUID());
+            return statement;
+        }, keyHolder);
+        return keyHolder.getKey().longValue();
+    }
+
+    private long insertClient() {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO users (first_name, last_name, email, password, role) VALUES ('Also', 'Bought', ?, 'hash', 'CLIENT')",
+                    new String[]{"id"});
+            statement.setString(1, "also-" + UUID.randomUUID() + "@example.com");
+            return statement;
+        }, keyHolder);
+        long clientId = keyHolder.getKey().longValue();
+        jdbcTemplate.update("INSERT INTO clients (user_id) VALUES (?)", clientId);
+        return clientId;
+    }
+
+    private long insertOrder(long clientId, String status, long... books) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO orders (order_date, price, status, client_id) VALUES (?, ?, ?, ?)",
+                    new String[]{"id"});
+            statement.setObject(1, LocalDateTime.now());
+            statement.setBigDecimal(2, BigDecimal.TEN);
+            statement.setString(3, status);
+            statement.setLong(4, clientId);
+            return statement;
+        }, keyHolder);
+        long orderId = keyHolder.getKey().longValue();
+        for (long book : books) {
+            jdbcTemplate.update("INSERT INTO order_items (quantity, book_id, order_id) VALUES (1, ?, ?)", book, orderId);
+        }
+        return orderId;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.book.service;
+
+import com.example.book.service.concurrency.ConnectionBulkheadFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link ConnectionBulkheadFilter}.
+ */
+class ConnectionBulkheadFilterTest {
+
+    private SimpleMeterRegistry registry;
+    private ConnectionBulkheadFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        filter = new ConnectionBulkheadFilter(1, Duration.ofMillis(50), registry);
+    }
+
+    @Test
+    @DisplayName("Request beyond the limit should be rejected with 503 after the timeout")
+    void requestBeyondLimit_shouldBeRejected() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = Thread.ofVirtual().start(() -> {
+            try {
+                filter.doFilter(new MockHttpServletRequest("GET", "/books/list"), new MockHttpServletResponse(),
+                        (request, response) -> {
+                            entered.countDown();
+                            awaitQuietly(release);
+                        });
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/books/list"), rejected, new MockFilterChain());
+
+        assertEquals(503, rejected.getStatus());
+        assertEquals("1", rejected.getHeader("Retry-After"));
+        assertEquals(1.0, registry.get("bookstore.bulkhead.rejected").counter().count());
+
+        release.countDown();
+        holder.join();
+        MockHttpServletResponse admitted = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/books/list"), admitted, new MockFilterChain());
+        assertEquals(200, admitted.getStatus());
+    }
+
+    @Test
+    @DisplayName("Static resources should bypass the bulkhead")
+    void staticResources_shouldBypassBulkhead() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/css/style.css");
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertNotNull(chain.getRequest());
+        assertEquals(1.0, registry.get("bookstore.bulkhead.available").gauge().value());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,469 @@
+package com.example.book.service;
+
+import com.example.book.service.dto.UserPrincipal;
+import com.example.book.service.model.Book;
+import com.example.book.service.model.BookItem;
+import com.example.book.service.model.Client;
+import com.example.book.service.model.Order;
+import com.example.book.service.model.enums.OrderStatus;
+import com.example.book.service.model.enums.Role;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Guards the number of JDBC statements and entity rows each controller route costs.
+ * <p>
+ * The application is booted against the embedded H2 database of the {@code test} profile (MySQL
+ * compatibility mode, schema created by the real Flyway migrations) and every route of
+ * {@code BookController}, {@code BookApiController}, {@code OrderController} and
+ * {@code ClientController} is driven through {@link MockMvc}. Statement and row counts are read from Hibernate's {@link Statistics}.
+ * <p>
+ * Each scenario seeds its data twice, with {@value #SMALL} and {@value #LARGE} orders, books or cart
+ * items, and asserts that:
+ * <ul>
+ *   <li>the number of prepared statements is the same for both sizes, so a query that runs once
+ *       per order, item or book (an N+1) fails the build;</li>
+ *   <li>the number of statements stays within the route's budget;</li>
+ *   <li>no more entity rows are loaded than the data the route is allowed to show.</li>
+ * </ul>
+ * Actions that can answer with a partial-page fragment are also measured with the
+ * {@code X-Fragment} header, and must then return the fragment rather than a full page.
+ * <p>
+ * The trending refresh is pushed out of the run, since it reads books on a timer and a refresh
+ * that lands during a measured request is counted against that route.
+ */
+@SpringBootTest(properties = "app.trending.refresh-interval=PT1H")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ControllerStatementBudgetTest {
+
+    private static final int SMALL = 3;
+    private static final int LARGE = 6;
+
+    private static final UserPrincipal ADMIN = new UserPrincipal(0L, "admin@example.com", null, Role.ADMIN, true);
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+    private static final String FRAGMENT = "X-Fragment";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    @Nested
+    @DisplayName("BookController")
+    class BookRoutes {
+
+        @Test
+        @DisplayName("GET /books/list")
+        void list() throws Exception {
+            assertBudget(1, size -> {
+                seedBooks(size);
+                return new Scenario(get("/books/list"), countRows("Book"));
+            });
+        }
+
+        @Test
+        @DisplayName("GET /books/list?keyword=")
+        void search() throws Exception {
+            assertBudget(1, size -> {
+                String keyword = "Searchable" + SEQUENCE.incrementAndGet();
+                seedBooks(size, keyword);
+                return new Scenario(get("/books/list").param("keyword", keyword), size);
+            });
+        }
+
+        @Test
+        @DisplayName("GET /books/manage")
+        void manage() throws Exception {
+            assertBudget(1, size -> {
+                seedBooks(size);
+                return new Scenario(get("/books/manage").with(user(ADMIN)), countRows("Book"));
+            });
+        }
+
+        @Test
+        @DisplayName("GET /books/view/{id}")
+        void view() throws Exception {
+            // Includes reading the "customers also bought" books, which only happens when there are any.
+            assertBudget(2, size -> new Scenario(get("/books/view/{id}", seedBooks(size).get(0).getId()), 1));
+        }
+
+        @Test
+        @DisplayName("GET /books/new")
+        void createForm() throws Exception {
+            assertBudget(0, size -> new Scenario(get("/books/new").with(user(ADMIN)), 0));
+        }
+
+        @Test
+        @DisplayName("GET /books/edit/{id}")
+        void editForm() throws Exception {
+            assertBudget(1, size -> new Scenario(get("/books/edit/{id}", seedBooks(size).get(0).getId())
+                    .with(user(ADMIN)), 1));
+        }
+
+        @Test
+        @DisplayName("POST /books/save")
+        void save() throws Exception {
+            assertBudget(2, size -> {
+                seedBooks(size);
+                String name = "Saved Book " + SEQUENCE.incrementAndGet();
+                return new Scenario(post("/books/save").with(user(ADMIN))
+                        .param("name", name).param("genre", "Fiction").param("price", "10.00")
+                        .param("publicationDate", "2020-01-01").param("author", "Author").param("pages", "100"), 0);
+            });
+        }
+
+        @Test
+        @DisplayName("POST /books/delete/{id}")
+        void delete() throws Exception {
+            assertBudget(2, size -> new Scenario(post("/books/delete/{id}", seedBooks(size).get(0).getId())
+                    .with(user(ADMIN)), 1));
+        }
+
+        @Test
+        @DisplayName("GET /api/v1/books")
+        void apiList() throws Exception {
+            assertBudget(2, size -> {
+                long after = seedBooks(size).get(0).getId() - 1;
+                return new Scenario(get("/api/v1/books").param("after", String.valueOf(after))
+                        .param("limit", String.valueOf(size)).param("fields", "name,price,description"), 0);
+            });
+        }
+
+        @Test
+        @DisplayName("GET /api/v1/books/{id}")
+        void apiView() throws Exception {
+            assertBudget(2, size -> new Scenario(get("/api/v1/books/{id}", seedBooks(size).get(0).getId()), 1));
+        }
+    }
+
+    @Nested
+    @DisplayName("OrderController")
+    class OrderRoutes {
+
+        @Test
+        @DisplayName("GET /orders/my")
+        void myOrders() throws Exception {
+            assertBudget(2, size -> {
+                Client client = seedClient();
+                seedOrders(client, size, OrderStatus.DRAFT, 1);
+                seedOrders(client, size, OrderStatus.SUBMITTED, size);
+                int items = size + size * size;
+                return new Scenario(get("/orders/my").with(user(principal(client))), 1 + 2 * size + 2 * items);
+            });
+        }
+
+        @Test
+        @DisplayName("GET /orders/all")
+        void allOrders() throws Exception {
+            assertBudget(1, size -> {
+                seedOrders(seedClient(), size, OrderStatus.SUBMITTED, size);
+                return new Scenario(get("/orders/all").with(user(ADMIN)),
+                        countRows("Client") + countRows("Order") + countRows("BookItem") + countRows("Book"));
+            });
+        }
+
+        @Test
+        @DisplayName("GET /orders/all?email=")
+        void searchOrders() throws Exception {
+            assertBudget(1, size -> {
+                Client client = seedClient();
+                seedOrders(client, size, OrderStatus.SUBMITTED, size);
+                return new Scenario(get("/orders/all").param("email", client.getEmail()).with(user(ADMIN)),
+                        1 + size + 2 * size * size);
+            });
+        }
+
+        @Test
+        @DisplayName("POST /orders/{id}/confirm")
+        void confirm() throws Exception {
+            // Includes the two sales rollup upserts.
+            assertBudget(4, size -> {
+                Order order = seedOrders(seedClient(), 1, OrderStatus.SUBMITTED, size).get(0);
+                return new Scenario(post("/orders/{id}/confirm", order.getId()).with(user(ADMIN)),
+                        2 + size * 2);
+            });
+        }
+
+        @Test
+        @DisplayName("POST /orders/{id}/cancel")
+        void cancel() throws Exception {
+            // Includes the ledger insert that records the refund and the client statistics delta.
+            assertBudget(4, size -> {
+                Order order = seedOrders(seedClient(), 1, OrderStatus.SUBMITTED, size).get(0);
+                return new Scenario(post("/orders/{id}/cancel", order.getId()).with(user(ADMIN)),
+                        2 + size * 2);
+            });
+        }
+
+        @Test
+        @DisplayName("POST /orders/{id}/confirm (fragment)")
+        void confirmFragment() throws Exception {
+            // Includes the two sales rollup upserts.
+            assertBudget(4, size -> {
+                Order order = seedOrders(seedClient(), 1, OrderStatus.SUBMITTED, size).get(0);
+                return new Scenario(post("/orders/{id}/confirm", order.getId()).header(FRAGMENT, "true")
+                        .with(user(ADMIN)), 2 + size * 2);
+            });
+        }
+
+        @Test
+        @DisplayName("POST /orders/{id}/cancel (fragment)")
+        void cancelFragment() throws Exception {
+            // Includes the ledger insert that records the refund and the client statistics delta.
+            assertBudget(4, size -> {
+                Order order = seedOrders(seedClient(), 1, OrderStatus.SUBMITTED, size).get(0);
+                return new Scenario(post("/orders/{id}/cancel", order.getId()).header(FRAGMENT, "true")
+                        .with(user(ADMIN)), 2 + size * 2);
+            });
+        }
+
+        @Test
+        @DisplayName("POST /orders/cart/add/{bookId}")
+        void addToCart() throws Exception {
+            assertBudget(5, size -> {
+                Client client = seedClient();
+                seedOrders(client, 1, OrderStatus.DRAFT, size);
+                Long bookId = seedBooks(1).get(0).getId();
+                return new Scenario(post("/orders/cart/add/{bookId}", bookId).with(user(principal(client))),
+                        2 + size * 2);
+            });
+        }
+
+        @Test
+        @DisplayName("POST /orders/cart/add/{bookId} (fragment)")
+        void addToCartFragment() throws Exception {
+            assertBudget(5, size -> {
+                Client client = seedClient();
+                seedOrders(client, 1, OrderStatus.DRAFT, size);
+                Long bookId = seedBooks(1).get(0).getId();
+                return new Scenario(post("/orders/cart/add/{bookId}", bookId).header(FRAGMENT, "true")
+                        .with(user(principal(client))), 2 + size * 2);
+            });
+        }
+
+        @Test
+        @DisplayName("POST /orders/cart/submit")
+        void submit() throws Exception {
+            // Includes the locking balance reads and the ledger insert that record the payment,
+            // the client statistics delta, and storing the unit prices.
+            assertBudget(7, size -> {
+                Client client = seedClient();
+                Order order = seedOrders(client, 1, OrderStatus.DRAFT, size).get(0);
+                return new Scenario(post("/orders/cart/submit").param("orderId", order.getId().toString())
+                        .with(user(principal(client))), 2 + size * 2);
+            });
+        }
+    }
+
+    @Nested
+    @DisplayName("ClientController")
+    class ClientRoutes {
+
+        @Test
+        @DisplayName("GET /clients/profile")
+        void profile() throws Exception {
+            assertBudget(1, size -> {
+                Client client = seedClient();
+                seedOrders(client, size, OrderStatus.SUBMITTED, size);
+                return new Scenario(get("/clients/profile").with(user(principal(client))), 0);
+            });
+        }
+
+        @Test
+        @DisplayName("GET /clients/list")
+        void list() throws Exception {
+            assertBudget(1, size -> {
+                for (int i = 0; i < size; i++) {
+                    seedClient();
+                }
+                return new Scenario(get("/clients/list").with(user(ADMIN)),
+                        countRows("Client") + countRows("ClientStats"));
+            });
+        }
+
+        @Test
+        @DisplayName("GET /clients/list?email=")
+        void search() throws Exception {
+            assertBudget(1, size -> {
+                String marker = "search" + SEQUENCE.incrementAndGet();
+                for (int i = 0; i < size; i++) {
+                    seedClient(marker);
+                }
+                return new Scenario(get("/clients/list").param("email", marker).with(user(ADMIN)), 2 * size);
+            });
+        }
+
+        @Test
+        @DisplayName("POST /clients/{id}/block")
+        void block() throws Exception {
+            assertBudget(2, size -> new Scenario(post("/clients/{id}/block", seedClient().getId())
+                    .with(user(ADMIN)), 1));
+        }
+
+        @Test
+        @DisplayName("POST /clients/{id}/unblock")
+        void unblock() throws Exception {
+            assertBudget(2, size -> new Scenario(post("/clients/{id}/unblock", seedClient().getId())
+                    .with(user(ADMIN)), 1));
+        }
+
+        @Test
+        @DisplayName("POST /clients/profile/topup")
+        void topUp() throws Exception {
+            assertBudget(2, size -> {
+                Client client = seedClient();
+                seedOrders(client, size, OrderStatus.SUBMITTED, size);
+                return new Scenario(post("/clients/profile/topup").param("amount", "10.00")
+                        .with(user(principal(client))), 1);
+            });
+        }
+
+        @Test
+        @DisplayName("POST /clients/profile/topup (fragment)")
+        void topUpFragment() throws Exception {
+            assertBudget(2, size -> {
+                Client client = seedClient();
+                seedOrders(client, size, OrderStatus.SUBMITTED, size);
+                return new Scenario(post("/clients/profile/topup").param("amount", "10.00").header(FRAGMENT, "true")
+                        .with(user(principal(client))), 1);
+            });
+        }
+    }
+
+    /**
+     * A request to measure and the maximum number of entity rows it may load.
+     */
+    private record Scenario(RequestBuilder request, long maxRows) {
+    }
+
+    /**
+     * Runs the scenario at both data sizes and checks the statement and row budgets.
+     *
+     * @param maxStatements the maximum number of JDBC statements the route may execute.
+     * @param scenario      seeds data of the given size and returns the request to measure.
+     */
+    private void assertBudget(int maxStatements, IntFunction<Scenario> scenario) throws Exception {
+        long small = measure(scenario.apply(SMALL));
+        long large = measure(scenario.apply(LARGE));
+
+        assertEquals(small, large, "Statement count grows with data size: " + small + " -> " + large);
+        assertTrue(large <= maxStatements, "Statement budget exceeded: " + large + " > " + maxStatements);
+    }
+
+    private long measure(Scenario scenario) throws Exception {
+        statistics.clear();
+        MvcResult result = mockMvc.perform(scenario.request()).andReturn();
+        assertTrue(result.getResponse().getStatus() < 400, "Request failed: " + result.getResponse().getStatus());
+        if (result.getRequest().getHeader(FRAGMENT) != null) {
+            assertEquals(200, result.getResponse().getStatus(), "Fragment request was not answered with a fragment");
+            assertFalse(result.getResponse().getContentAsString().contains("<html"), "Fragment request rendered a full page");
+        }
+        assertFalse(String.valueOf(result.getResponse().getRedirectedUrl()).contains("/auth/login"),
+                "Request was not authenticated");
+        long rows = statistics.getEntityLoadCount();
+        assertTrue(rows <= scenario.maxRows(), "Row budget exceeded: " + rows + " > " + scenario.maxRows());
+        return statistics.getPrepareStatementCount();
+    }
+
+    private UserPrincipal principal(Client client) {
+        return new UserPrincipal(client.getId(), client.getEmail(), null, Role.CLIENT, true);
+    }
+
+    private long countRows(String entity) {
+        return entityManager.createQuery("SELECT COUNT(e) FROM " + entity + " e", Long.class).getSingleResult();
+    }
+
+    private Client seedClient() {
+        return seedClient("client");
+    }
+
+    private Client seedClient(String prefix) {
+        return transactionTemplate.execute(tx -> {
+            Client client = Client.builder()
+                    .email(prefix + SEQUENCE.incrementAndGet() + "-" + UUID.randomUUID() + "@example.com")
+                    .firstName("Client").lastName("User").password("hash").role(Role.CLIENT)
+                    .balance(new BigDecimal("1000000.00")).build();
+            entityManager.persist(client);
+            return client;
+        });
+    }
+
+    private List<Book> seedBooks(int count) {
+        return seedBooks(count, "Book");
+    }
+
+    private List<Book> seedBooks(int count, String prefix) {
+        return transactionTemplate.execute(tx -> {
+            List<Book> books = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                Book book = Book.builder()
+                        .name(prefix + " " + SEQUENCE.incrementAndGet()).genre("Fiction").author("Author")
+                        .price(new BigDecimal("10.00")).publicationDate(LocalDate.of(2020, 1, 1)).pages(100)
+                        .description("A long description").build();
+                entityManager.persist(book);
+                books.add(book);
+            }
+            return books;
+        });
+    }
+
+    private List<Order> seedOrders(Client client, int orderCount, OrderStatus status, int itemsPerOrder) {
+        List<Book> books = seedBooks(orderCount * itemsPerOrder);
+        return transactionTemplate.execute(tx -> {
+            Client owner = entityManager.getReference(Client.class, client.getId());
+            List<Order> orders = new ArrayList<>();
+            for (int i = 0; i < orderCount; i++) {
+                Order order = Order.builder().client(owner).orderDate(LocalDateTime.now())
+                        .price(new BigDecimal("10.00")).status(status).build();
+                for (int j = 0; j < itemsPerOrder; j++) {
+                    Book book = entityManager.getReference(Book.class, books.get(i * itemsPerOrder + j).getId());
+                    order.getBookItems().add(BookItem.builder().order(order).book(book).quantity(1).build());
+                }
+                entityManager.persist(order);
+                orders.add(order);
+            }
+            return orders;
+        });
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.book.service;
+
+import com.example.book.service.idempotency.IdempotencyStore;
+import com.example.book.service.idempotency.IdempotencyStore.Claim;
+import com.example.book.service.idempotency.IdempotencyStore.Outcome;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the {@link IdempotencyStore} against an embedded H2 database running in
+ * MySQL compatibility mode, using the Flyway script that creates the production table.
+ * <p>
+ * A second store instance on the same database stands in for another node (or the same
+ * node after a restart), which only sees keys through the {@code idempotency_keys} table.
+ */
+class IdempotencyStoreTest {
+
+    private static final Outcome REDIRECT_TO_ORDERS = new Outcome(302, "/orders/my");
+
+    private JdbcTemplate jdbcTemplate;
+    private IdempotencyStore store;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:idempotency-" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/V4__Create_idempotency_keys_table.sql"))
+                .execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        store = newStore(Duration.ofHours(1));
+    }
+
+    @Test
+    @DisplayName("Duplicate of a completed key should replay the first outcome")
+    void duplicateOfCompletedKey_shouldReturnRecordedOutcome() {
+        Claim first = store.claim("client@example.com|/orders/cart/submit|abc");
+        assertTrue(first.acquired());
+        store.complete(first.id(), REDIRECT_TO_ORDERS);
+
+        Claim duplicate = store.claim("client@example.com|/orders/cart/submit|abc");
+
+        assertFalse(duplicate.acquired());
+        assertEquals(REDIRECT_TO_ORDERS, duplicate.awaitOutcome(Duration.ZERO));
+    }
+
+    @Test
+    @DisplayName("Key completed on another node should be replayed from the database")
+    void keyCompletedOnAnotherNode_shouldBeReadFromDatabase() {
+        Claim first = store.claim("client@example.com|/clients/profile/topup|abc");
+        store.complete(first.id(), REDIRECT_TO_ORDERS);
+
+        Claim duplicate = newStore(Duration.ofHours(1)).claim("client@example.com|/clients/profile/topup|abc");
+
+        assertFalse(duplicate.acquired());
+        assertEquals(REDIRECT_TO_ORDERS, duplicate.awaitOutcome(Duration.ZERO));
+    }
+
+    @Test
+    @DisplayName("Key in progress should make duplicates wait for its outcome")
+    void keyInProgress_shouldCompleteWaitingDuplicate() {
+        Claim first = store.claim("client@example.com|/orders/cart/add/1|abc");
+        Claim duplicate = store.claim("client@example.com|/orders/cart/add/1|abc");
+        assertFalse(duplicate.acquired());
+        assertNull(duplicate.awaitOutcome(Duration.ofMillis(10)));
+
+        store.complete(first.id(), REDIRECT_TO_ORDERS);
+
+        assertEquals(REDIRECT_TO_ORDERS, duplicate.awaitOutcome(Duration.ZERO));
+    }
+
+    @Test
+    @DisplayName("Released key should be claimable again")
+    void releasedKey_shouldAllowRetry() {
+        Claim first = store.claim("client@example.com|/orders/cart/submit|abc");
+        store.release(first.id());
+
+        assertTrue(store.claim("client@example.com|/orders/cart/submit|abc").acquired());
+    }
+
+    @Test
+    @DisplayName("Same key from another user should not be deduplicated")
+    void sameKeyFromAnotherUser_shouldBeAcquired() {
+        store.claim("first@example.com|/orders/cart/submit|abc");
+
+        assertTrue(store.claim("second@example.com|/orders/cart/submit|abc").acquired());
+    }
+
+    @Test
+    @DisplayName("Expired key not yet purged should be taken over by a new request")
+    void expiredKeyNotYetPurged_shouldBeTakenOver() {
+        IdempotencyStore otherNode = newStore(Duration.ofHours(1));
+        Claim first = otherNode.claim("client@example.com|/orders/cart/submit|abc");
+        otherNode.complete(first.id(), REDIRECT_TO_ORDERS);
+        jdbcTemplate.update("UPDATE idempotency_keys SET created_at = created_at - ?", Duration.ofHours(2).toMillis());
+
+        Claim retry = store.claim("client@example.com|/orders/cart/submit|abc");
+
+        assertTrue(retry.acquired());
+        assertEquals("IN_PROGRESS", jdbcTemplate.queryForObject("SELECT status FROM idempotency_keys", String.class));
+        Claim duplicate = newStore(Duration.ofHours(1)).claim("client@example.com|/orders/cart/submit|abc");
+        assertFalse(duplicate.acquired());
+        assertEquals(Outcome.IN_PROGRESS_ELSEWHERE, duplicate.awaitOutcome(Duration.ZERO));
+    }
+
+    @Test
+    @DisplayName("Expired keys should be purged from the database")
+    void expiredKeys_shouldBePurged() {
+        IdempotencyStore shortLived = newStore(Duration.ofMillis(-1));
+        Claim claim = shortLived.claim("client@example.com|/orders/cart/submit|abc");
+        shortLived.complete(claim.id(), REDIRECT_TO_ORDERS);
+
+        shortLived.purgeExpiredKeys();
+
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM idempotency_keys", Integer.class));
+    }
+
+    private IdempotencyStore newStore(Duration ttl) {
+        return new IdempotencyStore(jdbcTemplate, 1_000, ttl, 2);
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.book.service;
+
+import com.example.book.service.session.JdbcSessionRepository;
+import com.example.book.service.session.JdbcSessionRepository.JdbcSession;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the {@link JdbcSessionRepository} against an embedded H2 database running in
+ * MySQL compatibility mode, using the same Flyway script that creates the production table.
+ * <p>
+ * The tests focus on the properties that make the store usable across nodes: sessions survive
+ * a "restart" (a fresh repository instance), last-access updates are batched instead of being
+ * written on every request, and expired sessions are purged asynchronously.
+ */
+class JdbcSessionRepositoryTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private JdbcSessionRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:sessions-" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/V3__Create_http_sessions_table.sql"))
+                .execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        repository = newRepository();
+    }
+
+    /**
+     * Verifies that a session saved by one repository instance can be read by another,
+     * which is what allows nodes to be added or restarted without logging users out.
+     */
+    @Test
+    @DisplayName("Saved session should be visible to another node")
+    void savedSession_shouldBeReadableByAnotherInstance() {
+        JdbcSession session = repository.createSession();
+        session.setAttribute("cart", "3 items");
+        repository.save(session);
+
+        JdbcSession loaded = newRepository().findById(session.getId());
+
+        assertNotNull(loaded);
+        assertEquals("3 items", loaded.getAttribute("cart"));
+    }
+
+    /**
+     * Verifies that a request which only touches the session does not write to the database
+     * until the batched flush runs.
+     */
+    @Test
+    @DisplayName("Last-access updates should be batched until flush")
+    void unchangedSession_shouldOnlyQueueLastAccessTime() {
+        JdbcSession session = repository.createSession();
+        repository.save(session);
+        long storedAccessTime = storedLastAccessTime(session.getId());
+
+        JdbcSession loaded = repository.findById(session.getId());
+        loaded.setLastAccessedTime(Instant.ofEpochMilli(storedAccessTime + 5_000));
+        repository.save(loaded);
+
+        assertEquals(storedAccessTime, storedLastAccessTime(session.getId()));
+        assertEquals(1, repository.getPendingTouchCount());
+
+        repository.flushPendingTouches();
+
+        assertEquals(storedAccessTime + 5_000, storedLastAccessTime(session.getId()));
+        assertEquals(0, repository.getPendingTouchCount());
+    }
+
+    /**
+     * Verifies that changing the session id (as done on login to prevent session fixation)
+     * moves the stored row to the new id.
+     */
+    @Test
+    @DisplayName("Changed session id should replace the stored row")
+    void changedSessionId_shouldUpdateStoredRow() {
+        JdbcSession session = repository.createSession();
+        repository.save(session);
+        String oldId = session.getId();
+
+        JdbcSession loaded = repository.findById(oldId);
+        String newId = loaded.changeSessionId();
+        repository.save(loaded);
+
+        assertNull(repository.findById(oldId));
+        assertNotNull(repository.findById(newId));
+    }
+
+    /**
+     * Verifies that the background cleanup removes sessions whose expiry time has passed.
+     */
+    @Test
+    @DisplayName("Expired sessions should be purged in the background")
+    void expiredSession_shouldBePurged() {
+        JdbcSession session = repository.createSession();
+        session.setLastAccessedTime(Instant.now().minus(Duration.ofHours(2)));
+        repository.save(session);
+
+        repository.purgeExpiredSessions();
+
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM http_sessions", Integer.class));
+    }
+
+    private JdbcSessionRepository newRepository() {
+        return new JdbcSessionRepository(jdbcTemplate, Duration.ofMinutes(30), Duration.ofSeconds(10), 2);
+    }
+
+    private long storedLastAccessTime(String id) {
+        return jdbcTemplate.queryForObject("SELECT last_access_time FROM http_sessions WHERE session_id = ?", Long.class, id);
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.book.service;
+
+import com.example.book.service.dto.OrderDTO;
+import com.example.book.service.exception.NotFoundException;
+import com.example.book.service.mapper.OrderMapper;
+import com.example.book.service.metrics.MethodMetricsAspect;
+import com.example.book.service.model.Client;
+import com.example.book.service.model.Order;
+import com.example.book.service.model.enums.OrderStatus;
+import com.example.book.service.repo.BookRepository;
+import com.example.book.service.repo.ClientRepository;
+import com.example.book.service.repo.OrderRepository;
+import com.example.book.service.service.BalanceLedgerService;
+import com.example.book.service.service.ClientStatsService;
+import com.example.book.service.service.SalesAnalyticsService;
+import com.example.book.service.service.OrderService;
+import com.example.book.service.service.impl.OrderServiceImpl;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the {@link MethodMetricsAspect}.
+ * <p>
+ * The aspect is applied to an {@link OrderServiceImpl} with mocked dependencies through an
+ * {@link AspectJProxyFactory}, and the recorded timers are read back from a
+ * {@link SimpleMeterRegistry}.
+ */
+@ExtendWith(MockitoExtension.class)
+class MethodMetricsAspectTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+    @Mock
+    private ClientRepository clientRepository;
+    @Mock
+    private BookRepository bookRepository;
+    @Mock
+    private OrderMapper orderMapper;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private BalanceLedgerService balanceLedgerService;
+    @Mock
+    private ClientStatsService clientStatsService;
+    @Mock
+    private SalesAnalyticsService salesAnalyticsService;
+
+    private SimpleMeterRegistry registry;
+    private OrderService orderService;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        AspectJProxyFactory factory = new AspectJProxyFactory(
+                new OrderServiceImpl(orderRepository, clientRepository, bookRepository, orderMapper, eventPublisher,
+                        balanceLedgerService, clientStatsService, salesAnalyticsService));
+        factory.addAspect(new MethodMetricsAspect(registry));
+        orderService = factory.getProxy();
+    }
+
+    @Test
+    @DisplayName("Successful call should be timed with its status transition")
+    void successfulCall_shouldBeTaggedWithTransition() {
+        Order order = new Order();
+        order.setStatus(OrderStatus.SUBMITTED);
+        order.setClient(Client.builder().email("client@example.com").build());
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
+        when(orderRepository.save(any(Order.class))).thenReturn(order);
+        when(orderMapper.toDTO(order)).thenReturn(new OrderDTO());
+
+        orderService.confirmOrder(1L);
+
+        Timer timer = registry.get(MethodMetricsAspect.METRIC_NAME)
+                .tags("layer", "service", "class", "OrderServiceImpl", "method", "confirmOrder",
+                        "transition", "SUBMITTED->CONFIRMED", "exception", "none")
+                .timer();
+        assertEquals(1, timer.count());
+    }
+
+    @Test
+    @DisplayName("Failed call should be counted with its exception type")
+    void failedCall_shouldBeTaggedWithException() {
+        when(orderRepository.findById(1L)).thenReturn(Optional.empty());
+
+        assertThrows(NotFoundException.class, () -> orderService.cancelOrder(1L));
+
+        Timer timer = registry.get(MethodMetricsAspect.METRIC_NAME)
+                .tags("method", "cancelOrder", "transition", "SUBMITTED|CONFIRMED->CANCELLED",
+                        "exception", "NotFoundException")
+                .timer();
+        assertEquals(1, timer.count());
+    }
+}
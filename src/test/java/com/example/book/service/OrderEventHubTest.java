@@ -0,0 +1,141 @@
+package com.example.book.service;
+
+import com.example.book.service.events.OrderEventHub;
+import com.example.book.service.events.OrderStatusChangedEvent;
+import com.example.book.service.model.enums.OrderStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link OrderEventHub}.
+ * <p>
+ * The hub's emitters are replaced by {@link RecordingEmitter}s, which keep the names of the events
+ * they are asked to send instead of writing them to a connection.
+ */
+class OrderEventHubTest {
+
+    private static final int BUFFER_SIZE = 4;
+    private static final Pattern EVENT_NAME = Pattern.compile("event:(\\S+)");
+
+    private SimpleMeterRegistry registry;
+    private CountDownLatch sendGate;
+    private OrderEventHub hub;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        sendGate = new CountDownLatch(0);
+        hub = new OrderEventHub(3, BUFFER_SIZE, Duration.ofMinutes(1), registry) {
+            @Override
+            protected SseEmitter createEmitter(long timeoutMillis) {
+                return new RecordingEmitter();
+            }
+        };
+    }
+
+    @Test
+    @DisplayName("A client should receive changes of its own orders and an admin all changes")
+    void statusChange_shouldReachOwnerAndAdmins() throws Exception {
+        RecordingEmitter alice = (RecordingEmitter) hub.subscribeClient("alice@example.com");
+        RecordingEmitter bob = (RecordingEmitter) hub.subscribeClient("bob@example.com");
+        RecordingEmitter admin = (RecordingEmitter) hub.subscribeAdmin();
+
+        hub.onOrderStatusChanged(change(1L, "alice@example.com"));
+        hub.onOrderStatusChanged(change(2L, "bob@example.com"));
+        hub.onOrderStatusChanged(change(3L, "alice@example.com"));
+
+        alice.awaitEvents(2);
+        admin.awaitEvents(3);
+        bob.awaitEvents(1);
+        assertEquals(List.of(OrderEventHub.STATUS_EVENT, OrderEventHub.STATUS_EVENT), alice.names);
+        assertEquals(3, admin.names.size());
+        assertEquals(1, bob.names.size());
+        assertEquals(3, hub.getSubscriberCount());
+        assertEquals(3.0, registry.get("bookstore.order.events.subscribers").gauge().value());
+    }
+
+    @Test
+    @DisplayName("A subscriber that falls behind by a full buffer should be sent a single resync event")
+    void slowSubscriber_shouldBeAskedToResync() throws Exception {
+        sendGate = new CountDownLatch(1);
+        RecordingEmitter slow = (RecordingEmitter) hub.subscribeClient("alice@example.com");
+
+        // The first event is taken by the drain task, which then blocks on the gate.
+        hub.onOrderStatusChanged(change(1L, "alice@example.com"));
+        assertTrue(slow.sending.await(5, TimeUnit.SECONDS));
+        for (long id = 2; id <= BUFFER_SIZE + 2; id++) {
+            hub.onOrderStatusChanged(change(id, "alice@example.com"));
+        }
+        sendGate.countDown();
+
+        slow.awaitEvents(2);
+        assertEquals(List.of(OrderEventHub.STATUS_EVENT, OrderEventHub.RESYNC_EVENT), slow.names);
+        assertEquals(1.0, registry.get("bookstore.order.events.overflows").counter().count());
+    }
+
+    @Test
+    @DisplayName("Subscriptions beyond the limit should be refused")
+    void subscriptionBeyondLimit_shouldBeRefused() {
+        assertNotNull(hub.subscribeAdmin());
+        assertNotNull(hub.subscribeClient("alice@example.com"));
+        assertNotNull(hub.subscribeClient("alice@example.com"));
+
+        assertNull(hub.subscribeClient("bob@example.com"));
+        assertNull(hub.subscribeAdmin());
+        assertEquals(3, hub.getSubscriberCount());
+    }
+
+    private static OrderStatusChangedEvent change(Long orderId, String clientEmail) {
+        return new OrderStatusChangedEvent(orderId, clientEmail, OrderStatus.SUBMITTED, OrderStatus.CONFIRMED,
+                new BigDecimal("10.00"), Instant.now());
+    }
+
+    /**
+     * An emitter that records the names of the events sent to it and waits for the test's send gate.
+     */
+    private class RecordingEmitter extends SseEmitter {
+
+        private final List<String> names = new CopyOnWriteArrayList<>();
+        private final CountDownLatch sending = new CountDownLatch(1);
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            sending.countDown();
+            try {
+                assertTrue(sendGate.await(5, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+            StringBuilder text = new StringBuilder();
+            builder.build().forEach(part -> text.append(part.getData()));
+            Matcher name = EVENT_NAME.matcher(text);
+            if (name.find()) {
+                names.add(name.group(1));
+            }
+        }
+
+        private void awaitEvents(int count) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (names.size() < count && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(count, names.size());
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.book.service;
 
+import com.example.book.service.dto.CartSummaryDTO;
 import com.example.book.service.dto.OrderDTO;
+import com.example.book.service.events.OrderStatusChangedEvent;
 import com.example.book.service.exception.CustomBadRequestException;
 import com.example.book.service.exception.InsufficientFundsException;
 import com.example.book.service.mapper.OrderMapper;
@@ -12,18 +14,24 @@ import com.example.book.service.model.enums.OrderStatus;
 import com.example.book.service.repo.BookRepository;
 import com.example.book.service.repo.ClientRepository;
 import com.example.book.service.repo.OrderRepository;
+import com.example.book.service.service.BalanceLedgerService;
+import com.example.book.service.service.ClientStatsService;
+import com.example.book.service.service.SalesAnalyticsService;
 import com.example.book.service.service.impl.OrderServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -55,6 +63,14 @@ class OrderServiceImplTest {
     private BookRepository bookRepository;
     @Mock
     private OrderMapper orderMapper;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private BalanceLedgerService balanceLedgerService;
+    @Mock
+    private ClientStatsService clientStatsService;
+    @Mock
+    private SalesAnalyticsService salesAnalyticsService;
 
     /**
      * The instance of the service to be tested. Mocks will be injected into this instance.
@@ -102,9 +118,10 @@ class OrderServiceImplTest {
         @DisplayName("Should create a new order if no draft exists")
         void whenNoDraftOrder_shouldCreateNewOrder() {
             // Arrange: Mock the dependencies to simulate the scenario where no draft order is found.
-            when(clientRepository.findByEmail(client.getEmail())).thenReturn(Optional.of(client));
+            when(clientRepository.findIdByEmail(client.getEmail())).thenReturn(Optional.of(client.getId()));
             when(bookRepository.findById(book.getId())).thenReturn(Optional.of(book));
             when(orderRepository.findByClientIdAndStatus(client.getId(), OrderStatus.DRAFT)).thenReturn(Optional.empty());
+            when(clientRepository.getReferenceById(client.getId())).thenReturn(client);
             when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
             // Act: Call the service method.
@@ -127,7 +144,7 @@ class OrderServiceImplTest {
             draftOrder.setClient(client);
             draftOrder.setBookItems(new ArrayList<>());
             draftOrder.setStatus(OrderStatus.DRAFT);
-            when(clientRepository.findByEmail(client.getEmail())).thenReturn(Optional.of(client));
+            when(clientRepository.findIdByEmail(client.getEmail())).thenReturn(Optional.of(client.getId()));
             when(bookRepository.findById(book.getId())).thenReturn(Optional.of(book));
             when(orderRepository.findByClientIdAndStatus(client.getId(), OrderStatus.DRAFT)).thenReturn(Optional.of(draftOrder));
 
@@ -158,15 +175,17 @@ class OrderServiceImplTest {
             existingItem.setQuantity(2);
             existingItem.setOrder(draftOrder);
             draftOrder.setBookItems(new ArrayList<>(java.util.List.of(existingItem)));
-            when(clientRepository.findByEmail(client.getEmail())).thenReturn(Optional.of(client));
+            when(clientRepository.findIdByEmail(client.getEmail())).thenReturn(Optional.of(client.getId()));
             when(bookRepository.findById(book.getId())).thenReturn(Optional.of(book));
             when(orderRepository.findByClientIdAndStatus(client.getId(), OrderStatus.DRAFT)).thenReturn(Optional.of(draftOrder));
 
             // Act: Call the service method.
-            orderService.addBookToDraftOrder(book.getId(), client.getEmail());
+            CartSummaryDTO cart = orderService.addBookToDraftOrder(book.getId(), client.getEmail());
 
             // Assert: Check that the quantity is now 3 and the total price is recalculated correctly.
             assertEquals(3, existingItem.getQuantity());
+            assertEquals(3, cart.itemCount());
+            assertEquals(1L, cart.orderId());
             assertEquals(0, new BigDecimal("60.00").compareTo(draftOrder.getPrice()));
             verify(orderRepository, times(1)).save(draftOrder);
         }
@@ -181,7 +200,7 @@ class OrderServiceImplTest {
 
         /**
          * Verifies that an order is successfully submitted when the client's balance
-         * is sufficient to cover the order price. The balance should be deducted.
+         * is sufficient to cover the order price. The payment should be recorded in the ledger.
          */
         @Test
         @DisplayName("Should successfully submit order if balance is sufficient")
@@ -195,18 +214,27 @@ class OrderServiceImplTest {
                     .build();
             OrderDTO expectedDTO = new OrderDTO();
             when(orderRepository.findById(draftOrder.getId())).thenReturn(Optional.of(draftOrder));
+            when(balanceLedgerService.lockBalance(client.getId())).thenReturn(new BigDecimal("100.00"));
             when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
             when(orderMapper.toDTO(draftOrder)).thenReturn(expectedDTO);
 
             // Act: Call the service method.
             OrderDTO result = orderService.submitOrder(draftOrder.getId());
 
-            // Assert: Check that the order status is updated, balance is deducted, and the DTO is returned.
+            // Assert: Check that the order status is updated, the payment is recorded, and the DTO is returned.
             assertNotNull(result);
             assertEquals(OrderStatus.SUBMITTED, draftOrder.getStatus());
-            assertEquals(0, new BigDecimal("50.00").compareTo(client.getBalance()));
+            verify(balanceLedgerService).recordOrderDebit(client.getId(), draftOrder.getId(), new BigDecimal("50.00"));
+            verify(clientStatsService).recordSubmission(client.getId(), new BigDecimal("50.00"), draftOrder.getOrderDate());
+            verify(salesAnalyticsService).recordSubmission(draftOrder.getId());
             verify(orderRepository, times(1)).save(draftOrder);
             verify(orderMapper, times(1)).toDTO(draftOrder);
+
+            ArgumentCaptor<OrderStatusChangedEvent> event = ArgumentCaptor.forClass(OrderStatusChangedEvent.class);
+            verify(eventPublisher).publishEvent(event.capture());
+            assertEquals(OrderStatus.DRAFT, event.getValue().from());
+            assertEquals(OrderStatus.SUBMITTED, event.getValue().to());
+            assertEquals(client.getEmail(), event.getValue().clientEmail());
         }
 
         /**
@@ -224,13 +252,15 @@ class OrderServiceImplTest {
                     .price(new BigDecimal("150.00"))
                     .build();
             when(orderRepository.findById(draftOrder.getId())).thenReturn(Optional.of(draftOrder));
+            when(balanceLedgerService.lockBalance(client.getId())).thenReturn(new BigDecimal("100.00"));
 
             // Act & Assert: Expect the specific exception to be thrown.
             assertThrows(InsufficientFundsException.class, () -> orderService.submitOrder(draftOrder.getId()));
+            verifyNoInteractions(eventPublisher);
 
-            // Assert (Post-condition): Ensure no state changes occurred (order is still a draft, balance is unchanged).
+            // Assert (Post-condition): Ensure no state changes occurred (order is still a draft, nothing is debited).
             assertEquals(OrderStatus.DRAFT, draftOrder.getStatus());
-            assertEquals(0, new BigDecimal("100.00").compareTo(client.getBalance()));
+            verify(balanceLedgerService, never()).recordOrderDebit(any(), any(), any());
             verify(orderRepository, never()).save(any());
         }
 
@@ -254,4 +284,58 @@ class OrderServiceImplTest {
             assertThrows(CustomBadRequestException.class, () -> orderService.submitOrder(submittedOrder.getId()));
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * A nested test class for all scenarios related to the {@code cancelOrder} method.
+     */
+    @Nested
+    @DisplayName("Tests for cancelOrder")
+    class CancelOrderTests {
+
+        /**
+         * Verifies that cancelling a paid order refunds its price to the client in the ledger.
+         */
+        @Test
+        @DisplayName("Should refund the order price when a confirmed order is cancelled")
+        void whenOrderIsConfirmed_shouldCancelAndRefund() {
+            // Arrange: Create an order that has been paid for and confirmed.
+            Order confirmedOrder = Order.builder()
+                    .id(1L)
+                    .client(client)
+                    .status(OrderStatus.CONFIRMED)
+                    .price(new BigDecimal("50.00"))
+                    .build();
+            when(orderRepository.findById(confirmedOrder.getId())).thenReturn(Optional.of(confirmedOrder));
+            when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+            // Act: Call the service method.
+            orderService.cancelOrder(confirmedOrder.getId());
+
+            // Assert: Check that the order is cancelled and its price is refunded.
+            assertEquals(OrderStatus.CANCELLED, confirmedOrder.getStatus());
+            verify(balanceLedgerService).recordRefund(client.getId(), confirmedOrder.getId(), new BigDecimal("50.00"));
+            verify(salesAnalyticsService).recordCancellations(List.of(confirmedOrder.getId()));
+            verify(clientStatsService).recordCancellation(client.getId(), new BigDecimal("50.00"));
+        }
+
+        /**
+         * Verifies that a draft order, which has not been paid for, can neither be cancelled nor refunded.
+         */
+        @Test
+        @DisplayName("Should throw CustomBadRequestException and not refund if order is a draft")
+        void whenOrderIsDraft_shouldNotRefund() {
+            // Arrange: Create an order that is still a draft.
+            Order draftOrder = Order.builder()
+                    .id(1L)
+                    .client(client)
+                    .status(OrderStatus.DRAFT)
+                    .price(new BigDecimal("50.00"))
+                    .build();
+            when(orderRepository.findById(draftOrder.getId())).thenReturn(Optional.of(draftOrder));
+
+            // Act & Assert: Expect the specific exception to be thrown and nothing to be refunded.
+            assertThrows(CustomBadRequestException.class, () -> orderService.cancelOrder(draftOrder.getId()));
+            verify(balanceLedgerService, never()).recordRefund(any(), any(), any());
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.book.service;
+
+import com.example.book.service.cache.CatalogVersion;
+import com.example.book.service.dto.UserPrincipal;
+import com.example.book.service.model.enums.Role;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Tests for the rendered HTML caches of the public catalog pages.
+ * <p>
+ * Books are inserted straight into the database, which does not advance the
+ * {@link CatalogVersion}, so a cached page keeps showing the old catalog until the version is
+ * advanced the way the book service does after a write.
+ */
+@SpringBootTest(properties = "app.page-cache.enabled=true")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class PageCacheTest {
+
+    private static final UserPrincipal CLIENT = new UserPrincipal(0L, "client@example.com", null, Role.CLIENT, true);
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    /**
+     * Verifies that anonymous visitors are served the stored page until the catalog changes.
+     */
+    @Test
+    @DisplayName("Anonymous catalog page should be served from the cache until the catalog changes")
+    void anonymousPage_shouldBeCachedUntilCatalogChanges() throws Exception {
+        String keyword = "anon" + UUID.randomUUID().toString().substring(0, 8);
+        RequestBuilder request = get("/books/list").param("keyword", keyword);
+        insertBook(keyword + " First");
+
+        MvcResult first = mockMvc.perform(request).andReturn();
+        insertBook(keyword + " Second");
+        MvcResult second = mockMvc.perform(request).andReturn();
+
+        assertEquals("MISS", first.getResponse().getHeader("X-Page-Cache"));
+        assertEquals("HIT", second.getResponse().getHeader("X-Page-Cache"));
+        assertEquals(first.getResponse().getContentAsString(), second.getResponse().getContentAsString());
+        assertFalse(second.getResponse().getContentAsString().contains(keyword + " Second"));
+
+        catalogVersion.advance();
+        MvcResult third = mockMvc.perform(request).andReturn();
+
+        assertEquals("MISS", third.getResponse().getHeader("X-Page-Cache"));
+        assertTrue(third.getResponse().getContentAsString().contains(keyword + " Second"));
+    }
+
+    /**
+     * Verifies that signed-in users bypass the page cache but still get the cached book grid,
+     * with their own navigation bar around it.
+     */
+    @Test
+    @DisplayName("Signed-in users should get a fresh page around the cached book grid")
+    void signedInUser_shouldGetCachedGridInFreshPage() throws Exception {
+        String keyword = "user" + UUID.randomUUID().toString().substring(0, 8);
+        RequestBuilder request = get("/books/list").param("keyword", keyword).with(user(CLIENT));
+        insertBook(keyword + " First");
+
+        MvcResult first = mockMvc.perform(request).andReturn();
+        insertBook(keyword + " Second");
+        MvcResult second = mockMvc.perform(request).andReturn();
+
+        assertNull(second.getResponse().getHeader("X-Page-Cache"));
+        assertTrue(second.getResponse().getContentAsString().contains("/orders/my"));
+        assertTrue(second.getResponse().getContentAsString().contains(keyword + " First"));
+        assertFalse(second.getResponse().getContentAsString().contains(keyword + " Second"));
+        assertEquals(first.getResponse().getContentAsString(), second.getResponse().getContentAsString());
+
+        catalogVersion.advance();
+
+        assertTrue(mockMvc.perform(request).andReturn().getResponse().getContentAsString().contains(keyword + " Second"));
+    }
+
+    private void insertBook(String name) {
+        jdbcTemplate.update("INSERT INTO books (name, genre, price, publication_date, author, pages, description) "
+                + "VALUES (?, 'Fiction', 10.00, DATE '2020-01-01', 'Author', 100, 'Description')", name);
+    }
+}
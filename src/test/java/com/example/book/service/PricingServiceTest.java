@@ -0,0 +1,158 @@
+package com.example.book.service;
+
+import com.example.book.service.dto.UserPrincipal;
+import com.example.book.service.model.enums.Role;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.flash;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+
+/**
+ * Tests for the bulk price changes against the embedded database of the {@code test} profile.
+ * <p>
+ * Each test prices books of its own genre, so that its changes do not reach the other tests.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class PricingServiceTest {
+
+    private static final UserPrincipal ADMIN = new UserPrincipal(0L, "admin@example.com", null, Role.ADMIN, true);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private MockMvc mockMvc;
+
+    /**
+     * Verifies that a percentage change reprices the books of the genre only, and recomputes the
+     * totals of the draft orders containing them but not those of submitted orders.
+     */
+    @Test
+    @DisplayName("A genre-wide discount should reprice its books and the draft orders containing them")
+    void genreDiscount_shouldRepriceBooksAndDraftOrders() throws Exception {
+        String genre = "Sale-" + UUID.randomUUID();
+        Long novel = insertBook(genre, "10.00");
+        Long pamphlet = insertBook(genre, "4.00");
+        Long atlas = insertBook("Reference", "20.00");
+        Long clientId = insertClient();
+        Long draft = insertOrder(clientId, "DRAFT", "40.00", Map.of(novel, 2, atlas, 1));
+        Long untouched = insertOrder(clientId, "DRAFT", "20.00", Map.of(atlas, 1));
+        Long submitted = insertOrder(clientId, "SUBMITTED", "10.00", Map.of(novel, 1));
+        long draftVersion = version(draft);
+
+        mockMvc.perform(post("/books/prices").with(user(ADMIN))
+                        .param("scope", "GENRE").param("target", genre)
+                        .param("mode", "PERCENT").param("amount", "-10"))
+                .andExpect(redirectedUrl("/books/manage"))
+                .andExpect(flash().attribute("successMessage", "Repriced 2 book(s) and updated 1 cart(s)."));
+
+        assertPrice("9.00", "SELECT price FROM books WHERE id = ?", novel);
+        assertPrice("3.60", "SELECT price FROM books WHERE id = ?", pamphlet);
+        assertPrice("20.00", "SELECT price FROM books WHERE id = ?", atlas);
+        assertPrice("38.00", "SELECT price FROM orders WHERE id = ?", draft);
+        assertEquals(draftVersion + 1, version(draft));
+        assertPrice("20.00", "SELECT price FROM orders WHERE id = ?", untouched);
+        assertPrice("10.00", "SELECT price FROM orders WHERE id = ?", submitted);
+    }
+
+    /**
+     * Verifies that a change pricing any of its books below a cent is rejected as a whole, and
+     * that an absolute change by IDs reprices the listed books only.
+     */
+    @Test
+    @DisplayName("An absolute change by IDs should apply to every listed book or to none")
+    void absoluteChange_shouldApplyToAllOrNone() throws Exception {
+        String genre = "Sale-" + UUID.randomUUID();
+        Long novel = insertBook(genre, "10.00");
+        Long pamphlet = insertBook(genre, "4.00");
+
+        mockMvc.perform(post("/books/prices").with(user(ADMIN))
+                        .param("scope", "IDS").param("target", novel + ", " + pamphlet)
+                        .param("mode", "ABSOLUTE").param("amount", "-5"))
+                .andExpect(redirectedUrl("/books/manage"))
+                .andExpect(flash().attribute("errorMessage", "The change would price 1 book(s) below 0.01."));
+        assertPrice("10.00", "SELECT price FROM books WHERE id = ?", novel);
+        assertPrice("4.00", "SELECT price FROM books WHERE id = ?", pamphlet);
+
+        mockMvc.perform(post("/books/prices").with(user(ADMIN))
+                        .param("scope", "IDS").param("target", String.valueOf(novel))
+                        .param("mode", "ABSOLUTE").param("amount", "2.50"))
+                .andExpect(flash().attribute("successMessage", "Repriced 1 book(s) and updated 0 cart(s)."));
+        assertPrice("12.50", "SELECT price FROM books WHERE id = ?", novel);
+        assertPrice("4.00", "SELECT price FROM books WHERE id = ?", pamphlet);
+    }
+
+    private void assertPrice(String expected, String sql, Long id) {
+        BigDecimal actual = jdbcTemplate.queryForObject(sql, BigDecimal.class, id);
+        assertEquals(0, new BigDecimal(expected).compareTo(actual), () -> "expected " + expected + " but was " + actual);
+    }
+
+    private long version(Long orderId) {
+        return jdbcTemplate.queryForObject("SELECT version FROM orders WHERE id = ?", Long.class, orderId);
+    }
+
+    private Long insertClient() {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO users (first_name, last_name, email, password, role) VALUES ('Price', 'Client', ?, 'hash', 'CLIENT')",
+                    new String[]{"id"});
+            statement.setString(1, "price-" + UUID.randomUUID() + "@example.com");
+            return statement;
+        }, keyHolder);
+        Long clientId = keyHolder.getKey().longValue();
+        jdbcTemplate.update("INSERT INTO clients (user_id) VALUES (?)", clientId);
+        return clientId;
+    }
+
+    private Long insertBook(String genre, String price) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO books (name, genre, price, publication_date, author, pages) VALUES (?, ?, ?, '2020-01-01', 'Pricer', 100)",
+                    new String[]{"id"});
+            statement.setString(1, "Priced " + UUID.randomUUID());
+            statement.setString(2, genre);
+            statement.setBigDecimal(3, new BigDecimal(price));
+            return statement;
+        }, keyHolder);
+        return keyHolder.getKey().longValue();
+    }
+
+    private Long insertOrder(Long clientId, String status, String price, Map<Long, Integer> quantities) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO orders (order_date, price, status, client_id) VALUES (?, ?, ?, ?)",
+                    new String[]{"id"});
+            statement.setObject(1, LocalDateTime.now());
+            statement.setBigDecimal(2, new BigDecimal(price));
+            statement.setString(3, status);
+            statement.setLong(4, clientId);
+            return statement;
+        }, keyHolder);
+        Long orderId = keyHolder.getKey().longValue();
+        quantities.forEach((bookId, quantity) -> jdbcTemplate.update(
+                "INSERT INTO order_items (quantity, book_id, order_id) VALUES (?, ?, ?)", quantity, bookId, orderId));
+        return orderId;
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.book.service;
+
+import com.example.book.service.datasource.ReadWriteRoutingDataSource;
+import com.example.book.service.datasource.ReadYourWritesTracker;
+import com.example.book.service.datasource.ReplicaLagMonitor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the {@link ReadWriteRoutingDataSource} with two embedded H2 databases standing in for
+ * the primary and the replica. Each database holds a marker row naming it, so a query shows which
+ * one served the transaction.
+ * <p>
+ * The tests cover the routing rules: read-only transactions go to the replica, writes go to the
+ * primary, reads fall back to the primary while the replica lags or cannot be probed, and a user who
+ * has just written keeps reading from the primary.
+ */
+class ReadWriteRoutingDataSourceTest {
+
+    private static final String WHO_AM_I = "SELECT name FROM db_marker";
+
+    private JdbcTemplate primaryJdbc;
+    private JdbcTemplate replicaJdbc;
+    private ReplicaLagMonitor lagMonitor;
+    private JdbcTemplate routedJdbc;
+    private TransactionTemplate readOnlyTx;
+    private TransactionTemplate readWriteTx;
+
+    @BeforeEach
+    void setUp() {
+        DataSource primary = database("primary");
+        DataSource replica = database("replica");
+        primaryJdbc = new JdbcTemplate(primary);
+        replicaJdbc = new JdbcTemplate(replica);
+        lagMonitor = new ReplicaLagMonitor(primary, replica, Duration.ofSeconds(2), new SimpleMeterRegistry());
+        ReadYourWritesTracker tracker = new ReadYourWritesTracker(Duration.ofMinutes(1));
+
+        DataSource routed = new LazyConnectionDataSourceProxy(
+                new ReadWriteRoutingDataSource(primary, replica, lagMonitor, tracker));
+        routedJdbc = new JdbcTemplate(routed);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(routed);
+        readWriteTx = new TransactionTemplate(transactionManager);
+        readOnlyTx = new TransactionTemplate(transactionManager);
+        readOnlyTx.setReadOnly(true);
+
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(requestWithSession()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    /**
+     * Verifies that read-only transactions are served by a healthy replica and read-write
+     * transactions by the primary.
+     */
+    @Test
+    @DisplayName("Read-only transactions should use the replica, writes the primary")
+    void readOnlyTransaction_shouldUseReplica() {
+        replicaIsCurrent();
+        lagMonitor.probe();
+
+        assertTrue(lagMonitor.isReplicaUsable());
+        assertEquals("replica", readOnlyTx.execute(status -> routedJdbc.queryForObject(WHO_AM_I, String.class)));
+        assertEquals("primary", readWriteTx.execute(status -> routedJdbc.queryForObject(WHO_AM_I, String.class)));
+    }
+
+    /**
+     * Verifies that reads go to the primary while the replica's heartbeat is older than the
+     * allowed lag.
+     */
+    @Test
+    @DisplayName("Lagging replica should not serve reads")
+    void laggingReplica_shouldFallBackToPrimary() {
+        replicaJdbc.update("UPDATE replication_heartbeat SET beat_at = ? WHERE id = 1",
+                System.currentTimeMillis() - Duration.ofMinutes(5).toMillis());
+        lagMonitor.probe();
+
+        assertFalse(lagMonitor.isReplicaUsable());
+        assertEquals("primary", readOnlyTx.execute(status -> routedJdbc.queryForObject(WHO_AM_I, String.class)));
+    }
+
+    /**
+     * Verifies that a replica which has applied the previous heartbeat reports no lag, even though the
+     * probe that checks it comes one interval later.
+     */
+    @Test
+    @DisplayName("Replica that applied the last heartbeat should report no lag")
+    void replicaWithLastHeartbeat_shouldReportNoLag() throws InterruptedException {
+        replicaIsCurrent();
+        lagMonitor.probe();
+        replicate();
+        Thread.sleep(50);
+        lagMonitor.probe();
+
+        assertEquals(0, lagMonitor.getLagMillis());
+        assertTrue(lagMonitor.isReplicaUsable());
+    }
+
+    /**
+     * Verifies that a failing probe takes the replica out of rotation.
+     */
+    @Test
+    @DisplayName("Unreachable replica should not serve reads")
+    void failedProbe_shouldFallBackToPrimary() {
+        replicaIsCurrent();
+        lagMonitor.probe();
+        replicaJdbc.execute("DROP TABLE replication_heartbeat");
+        lagMonitor.probe();
+
+        assertFalse(lagMonitor.isReplicaUsable());
+        assertEquals(-1, lagMonitor.getLagMillis());
+        assertEquals("primary", readOnlyTx.execute(status -> routedJdbc.queryForObject(WHO_AM_I, String.class)));
+    }
+
+    /**
+     * Verifies that after committing a write the same session reads from the primary, so it sees
+     * its own change even if the replica has not applied it yet.
+     */
+    @Test
+    @DisplayName("Reads after a write should stay on the primary")
+    void readAfterWrite_shouldStayOnPrimary() {
+        replicaIsCurrent();
+        lagMonitor.probe();
+
+        readWriteTx.executeWithoutResult(status ->
+                routedJdbc.update("UPDATE db_marker SET updated = TRUE"));
+
+        assertEquals("primary", readOnlyTx.execute(status -> routedJdbc.queryForObject(WHO_AM_I, String.class)));
+
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(requestWithSession()));
+        assertEquals("replica", readOnlyTx.execute(status -> routedJdbc.queryForObject(WHO_AM_I, String.class)));
+    }
+
+    /**
+     * Verifies that a write made by a request without a session does not create one just to pin
+     * the reads.
+     */
+    @Test
+    @DisplayName("Write without a session should not create one")
+    void writeWithoutSession_shouldNotCreateSession() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        readWriteTx.executeWithoutResult(status ->
+                routedJdbc.update("UPDATE db_marker SET updated = TRUE"));
+
+        assertNull(request.getSession(false));
+    }
+
+    private void replicaIsCurrent() {
+        replicaJdbc.update("UPDATE replication_heartbeat SET beat_at = ? WHERE id = 1", System.currentTimeMillis());
+    }
+
+    private void replicate() {
+        replicaJdbc.update("UPDATE replication_heartbeat SET beat_at = ? WHERE id = 1",
+                primaryJdbc.queryForObject("SELECT beat_at FROM replication_heartbeat WHERE id = 1", Long.class));
+    }
+
+    private static MockHttpServletRequest requestWithSession() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setSession(new MockHttpSession());
+        return request;
+    }
+
+    private static DataSource database(String name) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/V5__Create_replication_heartbeat_table.sql"))
+                .execute(dataSource);
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE db_marker (name VARCHAR(16), updated BOOLEAN DEFAULT FALSE)");
+        jdbc.update("INSERT INTO db_marker (name) VALUES (?)", name);
+        return dataSource;
+    }
+}
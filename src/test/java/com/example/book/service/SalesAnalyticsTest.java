@@ -0,0 +1,186 @@
+package com.example.book.service;
+
+import com.example.book.service.dto.BookSalesDTO;
+import com.example.book.service.dto.SalesTotalDTO;
+import com.example.book.service.dto.UserPrincipal;
+import com.example.book.service.model.enums.Role;
+import com.example.book.service.service.SalesAnalyticsService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Tests for the sales analytics rollups against the embedded database of the {@code test} profile.
+ * <p>
+ * Each test sells books of its own genre on days far in the past, so that its rollup rows are not
+ * shared with the other tests.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class SalesAnalyticsTest {
+
+    private static final UserPrincipal ADMIN = new UserPrincipal(0L, "admin@example.com", null, Role.ADMIN, true);
+
+    @Autowired
+    private SalesAnalyticsService salesAnalyticsService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private MockMvc mockMvc;
+
+    /**
+     * Verifies that confirmations add to the rollups at the prices paid on submission, that a
+     * cancellation removes the revenue counted at confirmation from the same genre even after the
+     * book's price and genre change, and that the backfill recomputes the same rows.
+     */
+    @Test
+    @DisplayName("Incremental updates should match the rollups recomputed by a backfill")
+    void deltas_shouldMatchBackfill() {
+        String genre = "Genre-" + UUID.randomUUID();
+        LocalDate day = LocalDate.of(1990, 1, 2);
+        Long novel = insertBook(genre, "10.00");
+        Long pamphlet = insertBook(genre, "4.00");
+        Long clientId = insertClient();
+        Long first = insertOrder(clientId, day.atTime(9, 0), Map.of(novel, 2, pamphlet, 1));
+        Long second = insertOrder(clientId, day.atTime(17, 30), Map.of(novel, 1));
+
+        transactionTemplate.executeWithoutResult(tx -> {
+            salesAnalyticsService.recordSubmission(first);
+            salesAnalyticsService.recordSubmission(second);
+        });
+        jdbcTemplate.update("UPDATE books SET price = 11.00 WHERE id = ?", novel);
+        transactionTemplate.executeWithoutResult(tx -> {
+            salesAnalyticsService.recordConfirmation(first);
+            salesAnalyticsService.recordConfirmation(second);
+        });
+        List<BookSalesDTO> confirmed = salesAnalyticsService.getBestSellers(day, day, 10).stream()
+                .filter(book -> book.bookId().equals(novel) || book.bookId().equals(pamphlet)).toList();
+        assertEquals(2, confirmed.size());
+        assertEquals(novel, confirmed.get(0).bookId());
+        assertEquals(3, confirmed.get(0).units());
+        assertEquals(0, new BigDecimal("30.00").compareTo(confirmed.get(0).revenue()));
+
+        jdbcTemplate.update("UPDATE books SET price = 12.00, genre = ? WHERE id = ?", "Moved-" + genre, novel);
+        jdbcTemplate.update("UPDATE orders SET status = 'CANCELLED' WHERE id = ?", second);
+        transactionTemplate.executeWithoutResult(tx -> salesAnalyticsService.recordCancellations(List.of(second)));
+
+        SalesTotalDTO incremental = genreTotal(genre, day);
+        assertEquals(3, incremental.units());
+        assertEquals(0, new BigDecimal("24.00").compareTo(incremental.revenue()));
+        assertTrue(salesAnalyticsService.getSalesByGenre(day, day).stream()
+                .noneMatch(total -> total.key().equals("Moved-" + genre)), "the reversal goes to the genre it was counted in");
+        List<Map<String, Object>> incrementalRows = bookRows(day);
+
+        assertTrue(salesAnalyticsService.backfill() >= 1);
+
+        assertEquals(incremental, genreTotal(genre, day));
+        assertEquals(incrementalRows, bookRows(day));
+    }
+
+    /**
+     * Verifies that the dashboard renders the sales of the requested period.
+     */
+    @Test
+    @DisplayName("The dashboard should show the best sellers and totals of the period")
+    void dashboard_shouldShowPeriod() throws Exception {
+        String genre = "Genre-" + UUID.randomUUID();
+        LocalDate day = LocalDate.of(1991, 6, 15);
+        Long book = insertBook(genre, "7.50");
+        Long clientId = insertClient();
+        Long order = insertOrder(clientId, day.atTime(12, 0), Map.of(book, 4));
+        transactionTemplate.executeWithoutResult(tx -> {
+            salesAnalyticsService.recordSubmission(order);
+            salesAnalyticsService.recordConfirmation(order);
+        });
+
+        assertEquals(List.of(new SalesTotalDTO(day.toString(), 4, new BigDecimal("30.00"))),
+                salesAnalyticsService.getSalesByDay(day, day));
+
+        mockMvc.perform(get("/analytics").param("from", day.toString()).param("to", day.toString()).with(user(ADMIN)))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString(genre)))
+                .andExpect(content().string(containsString("$30.00")));
+    }
+
+    private SalesTotalDTO genreTotal(String genre, LocalDate day) {
+        return salesAnalyticsService.getSalesByGenre(day, day).stream()
+                .filter(total -> total.key().equals(genre))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private List<Map<String, Object>> bookRows(LocalDate day) {
+        return jdbcTemplate.queryForList(
+                "SELECT book_id, units, revenue FROM sales_book_daily WHERE sales_date = ? ORDER BY book_id", day);
+    }
+
+    private Long insertClient() {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO users (first_name, last_name, email, password, role) VALUES ('Sales', 'Client', ?, 'hash', 'CLIENT')",
+                    new String[]{"id"});
+            statement.setString(1, "sales-" + UUID.randomUUID() + "@example.com");
+            return statement;
+        }, keyHolder);
+        Long clientId = keyHolder.getKey().longValue();
+        jdbcTemplate.update("INSERT INTO clients (user_id) VALUES (?)", clientId);
+        return clientId;
+    }
+
+    private Long insertBook(String genre, String price) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO books (name, genre, price, publication_date, author, pages) VALUES (?, ?, ?, '1990-01-01', 'Analyst', 100)",
+                    new String[]{"id"});
+            statement.setString(1, "Sales " + UUID.randomUUID());
+            statement.setString(2, genre);
+            statement.setBigDecimal(3, new BigDecimal(price));
+            return statement;
+        }, keyHolder);
+        return keyHolder.getKey().longValue();
+    }
+
+    private Long insertOrder(Long clientId, LocalDateTime orderDate, Map<Long, Integer> quantities) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO orders (order_date, price, status, client_id) VALUES (?, 0, 'CONFIRMED', ?)",
+                    new String[]{"id"});
+            statement.setObject(1, orderDate);
+            statement.setLong(2, clientId);
+            return statement;
+        }, keyHolder);
+        Long orderId = keyHolder.getKey().longValue();
+        quantities.forEach((bookId, quantity) -> jdbcTemplate.update(
+                "INSERT INTO order_items (quantity, book_id, order_id) VALUES (?, ?, ?)", quantity, bookId, orderId));
+        return orderId;
+    }
+}
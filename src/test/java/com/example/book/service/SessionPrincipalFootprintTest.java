@@ -0,0 +1,94 @@
+package com.example.book.service;
+
+import com.example.book.service.dto.UserPrincipal;
+import com.example.book.service.model.Client;
+import com.example.book.service.model.enums.Role;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.math.BigDecimal;
+import java.util.function.LongFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Measures the per-session footprint of the authenticated principal.
+ * <p>
+ * The test simulates 100,000 sessions, each holding a {@code SecurityContext} the way
+ * Spring Security stores it in the {@code HttpSession}, and compares the total serialized
+ * size when the principal is the {@link Client} JPA entity (the previous behaviour) with
+ * the size when it is the slim {@link UserPrincipal}. Serialized size is what a shared
+ * session store has to write, transfer and keep, so it is the figure that matters for
+ * session replication. The measured totals are printed for reference.
+ */
+class SessionPrincipalFootprintTest {
+
+    private static final int SESSIONS = 100_000;
+
+    private static final String BCRYPT_HASH = "$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z8rQ9bYq1u5xLh1dQmT1G6Ae";
+
+    /**
+     * Verifies that storing a {@link UserPrincipal} in the session is substantially
+     * smaller than storing the {@link Client} entity, and that it no longer carries the
+     * password hash.
+     */
+    @Test
+    @DisplayName("Slim principal should shrink the serialized session footprint")
+    void slimPrincipal_shouldReduceSerializedSessionSize() throws IOException {
+        long entityBytes = totalSerializedSize(i -> Client.builder()
+                .id(i)
+                .email("client" + i + "@example.com")
+                .firstName("First" + i)
+                .lastName("Last" + i)
+                .password(BCRYPT_HASH)
+                .role(Role.CLIENT)
+                .enabled(true)
+                .balance(new BigDecimal("100.00"))
+                .build());
+
+        long principalBytes = totalSerializedSize(i ->
+                new UserPrincipal(i, "client" + i + "@example.com", BCRYPT_HASH, Role.CLIENT, true).withoutPassword());
+
+        assertTrue(principalBytes < entityBytes,
+                "The slim principal should serialize smaller than the User entity");
+        assertTrue(principalBytes * 10 < entityBytes * 8,
+                "The slim principal should save at least 20% per session");
+    }
+
+    /**
+     * Verifies that the principal kept in the session does not contain the password hash.
+     */
+    @Test
+    @DisplayName("Session principal should not carry the password hash")
+    void sessionPrincipal_shouldNotContainPassword() {
+        UserPrincipal principal = new UserPrincipal(1L, "a@example.com", BCRYPT_HASH, Role.ADMIN, true);
+
+        UserPrincipal stored = principal.withoutPassword();
+
+        assertNull(stored.getPassword());
+        assertEquals("a@example.com", stored.getUsername());
+        assertSame(Role.ADMIN.getAuthorities(), stored.getAuthorities());
+    }
+
+    private static long totalSerializedSize(LongFunction<UserDetails> principalFactory) throws IOException {
+        long total = 0;
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(2048);
+        for (long i = 1; i <= SESSIONS; i++) {
+            UserDetails principal = principalFactory.apply(i);
+            SecurityContextImpl context = new SecurityContextImpl(
+                    UsernamePasswordAuthenticationToken.authenticated(principal, null, principal.getAuthorities()));
+            buffer.reset();
+            try (ObjectOutputStream out = new ObjectOutputStream(buffer)) {
+                out.writeObject(context);
+            }
+            total += buffer.size();
+        }
+        return total;
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.book.service;
+
+import com.example.book.service.dto.TrendingBookDTO;
+import com.example.book.service.dto.UserPrincipal;
+import com.example.book.service.model.enums.Role;
+import com.example.book.service.service.trending.SlidingWindowSketch;
+import com.example.book.service.service.trending.SlidingWindowSketch.Trend;
+import com.example.book.service.service.trending.TrendingPeriod;
+import com.example.book.service.service.trending.TrendingTracker;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Tests for the trending books: the sliding-window sketch on its own, and the tracker fed by book
+ * page views against the embedded database of the {@code test} profile.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class TrendingTrackerTest {
+
+    private static final UserPrincipal ADMIN = new UserPrincipal(0L, "admin@example.com", null, Role.ADMIN, true);
+
+    @Autowired
+    private TrendingTracker trendingTracker;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private MockMvc mockMvc;
+
+    /**
+     * Verifies that the heavy hitters are found among many rare keys, are never undercounted, and
+     * fall out of the window once all of its buckets have rotated.
+     */
+    @Test
+    @DisplayName("The sketch should rank the heavy hitters of the window only")
+    void sketch_shouldRankHeavyHittersOfWindow() {
+        SlidingWindowSketch window = new SlidingWindowSketch(1000, 3, 1024, 4, 40, 0);
+        for (long key = 1; key <= 5000; key++) {
+            window.record(1000 + key, 1);
+            if (key % 250 == 0) {
+                for (long heavy = 1; heavy <= 5; heavy++) {
+                    window.record(heavy, heavy * 10);
+                }
+            }
+        }
+        window.rotate(1000);
+        window.record(5, 10);
+
+        List<Trend> top = window.top(5);
+        assertEquals(List.of(5L, 4L, 3L, 2L, 1L), top.stream().map(Trend::key).toList());
+        for (Trend trend : top) {
+            long exact = trend.key() * 10 * 20 + (trend.key() == 5 ? 10 : 0);
+            assertTrue(trend.count() >= exact, "count-min estimates never undercount");
+        }
+
+        window.rotate(3000);
+        assertEquals(Set.of(5L), window.top(5).stream().map(Trend::key).collect(Collectors.toSet()));
+        window.rotate(4000);
+        assertTrue(window.top(5).isEmpty());
+    }
+
+    /**
+     * Verifies that views of a book page, including those served from the page cache, make the
+     * book trend in both windows once the tracker has refreshed.
+     */
+    @Test
+    @DisplayName("Viewed books should trend on the catalog page after a refresh")
+    void views_shouldTrendAfterRefresh() throws Exception {
+        long popular = insertBook("Popular");
+        long quiet = insertBook("Quiet");
+        for (int i = 0; i < 200; i++) {
+            mockMvc.perform(get("/books/view/{id}", popular)).andExpect(status().isOk());
+        }
+        mockMvc.perform(get("/books/view/{id}", quiet)).andExpect(status().isOk());
+        mockMvc.perform(get("/books/view/{id}", Long.MAX_VALUE)).andExpect(status().isNotFound());
+
+        trendingTracker.refresh();
+
+        for (TrendingPeriod period : TrendingPeriod.values()) {
+            TrendingBookDTO first = trendingTracker.getTrending().get(period).get(0);
+            assertEquals(popular, first.id());
+            assertTrue(first.score() >= 200);
+        }
+        assertTrue(trendingTracker.getTrending().values().stream()
+                .flatMap(List::stream)
+                .noneMatch(book -> book.id() == Long.MAX_VALUE), "missing books are not counted");
+
+        mockMvc.perform(get("/books/list").with(user(ADMIN)))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("Trending Now")))
+                .andExpect(content().string(containsString(bookName(popular))));
+    }
+
+    private String bookName(long id) {
+        return jdbcTemplate.queryForObject("SELECT name FROM books WHERE id = ?", String.class, id);
+    }
+
+    private long insertBook(String title) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO books (name, genre, price, publication_date, author, pages) VALUES (?, 'Fiction', 9.99, '2020-01-01', 'Writer', 100)",
+                    new String[]{"id"});
+            statement.setString(1, title + " " + UUID.randomUUID());
+            return statement;
+        }, keyHolder);
+        return keyHolder.getKey().longValue();
+    }
+}